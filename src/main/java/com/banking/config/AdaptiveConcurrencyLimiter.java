@@ -0,0 +1,231 @@
+package com.banking.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * AdaptiveConcurrencyLimiter - Node-wide limit on requests in flight, adapted to latency
+ *
+ * When the database slows down, requests queue on Tomcat threads for a
+ * Hikari connection (up to the 30s connection-timeout) and every request
+ * gets slow. Instead, ConcurrencyLimitFilter admits at most "limit" requests
+ * at once and rejects the rest immediately with 503.
+ *
+ * The limit follows a gradient: every window the p99 latency of the
+ * completed requests is compared with the baseline (the p99 of a healthy
+ * system, tracked as a slow moving average that drops at once to any lower
+ * p99):
+ * - p99 above tolerance x baseline: the limit shrinks in proportion,
+ *   by at most half per window
+ * - p99 within tolerance, and the limit was actually used (at least half
+ *   of it in flight at some point): the limit grows by sqrt(limit)
+ * The step is smoothed, and the limit stays within [min-limit, max-limit].
+ * Windows with fewer than min-samples requests leave the limit unchanged.
+ *
+ * Acquiring and releasing take no lock: the in-flight count is a
+ * compare-and-set counter, latencies are written into a fixed-size array
+ * of the current window. Metrics: banking.concurrency.limit, .in-flight,
+ * .latency.p99 and .rejected.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    // Latencies kept per window; further requests of the window are not sampled
+    private static final int MAX_SAMPLES = 4096;
+
+    // Windows over which the baseline follows a rising p99
+    private static final int BASELINE_WINDOWS = 60;
+
+    private static final double MIN_GRADIENT = 0.5;
+
+    /**
+     * Latencies and peak concurrency of one window
+     */
+    private static final class Window {
+
+        private final AtomicLongArray latencies = new AtomicLongArray(MAX_SAMPLES);
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicInteger peakInFlight = new AtomicInteger();
+
+        void record(long latencyNanos) {
+            int index = count.getAndIncrement();
+            if (index < MAX_SAMPLES) {
+                latencies.lazySet(index, latencyNanos);
+            }
+        }
+
+        void observeInFlight(int inFlight) {
+            int peak = peakInFlight.get();
+            while (inFlight > peak && !peakInFlight.compareAndSet(peak, inFlight)) {
+                peak = peakInFlight.get();
+            }
+        }
+
+        /**
+         * p99 of the recorded latencies, or 0 with fewer than minSamples
+         */
+        long p99(int minSamples) {
+            int size = Math.min(count.get(), MAX_SAMPLES);
+            long[] sorted = new long[size];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                // A slot may still be unwritten if its request was recorded during the swap
+                long latency = latencies.get(i);
+                if (latency > 0) {
+                    sorted[n++] = latency;
+                }
+            }
+            if (n < minSamples || n == 0) {
+                return 0;
+            }
+            Arrays.sort(sorted, 0, n);
+            return sorted[(int) Math.ceil(n * 0.99) - 1];
+        }
+    }
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int minSamples;
+    private final double tolerance;
+    private final double smoothing;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    private volatile int limit;
+    private volatile Window window = new Window();
+
+    // Only touched by update()
+    private double estimatedLimit;
+    private long baselineNanos;
+    private volatile long lastP99Nanos;
+
+    public AdaptiveConcurrencyLimiter(@Value("${banking.concurrency.enabled:true}") boolean enabled,
+                                      @Value("${banking.concurrency.initial-limit:20}") int initialLimit,
+                                      @Value("${banking.concurrency.min-limit:4}") int minLimit,
+                                      @Value("${banking.concurrency.max-limit:200}") int maxLimit,
+                                      @Value("${banking.concurrency.min-samples:20}") int minSamples,
+                                      @Value("${banking.concurrency.tolerance:1.5}") double tolerance,
+                                      @Value("${banking.concurrency.smoothing:0.5}") double smoothing,
+                                      MeterRegistry registry) {
+        this.enabled = enabled;
+        this.minLimit = Math.max(minLimit, 1);
+        this.maxLimit = Math.max(maxLimit, this.minLimit);
+        this.minSamples = Math.max(minSamples, 1);
+        this.tolerance = Math.max(tolerance, 1.0);
+        this.smoothing = Math.min(Math.max(smoothing, 0.01), 1.0);
+        this.limit = Math.min(Math.max(initialLimit, this.minLimit), this.maxLimit);
+        this.estimatedLimit = limit;
+
+        Gauge.builder("banking.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Requests this node admits at once")
+                .register(registry);
+        Gauge.builder("banking.concurrency.in-flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests in flight on this node")
+                .register(registry);
+        Gauge.builder("banking.concurrency.latency.p99", this, limiter -> limiter.lastP99Nanos / 1e9)
+                .description("p99 request latency of the last limiter window")
+                .baseUnit("seconds")
+                .register(registry);
+        this.rejected = Counter.builder("banking.concurrency.rejected")
+                .description("Requests rejected because the node was at its concurrency limit")
+                .register(registry);
+    }
+
+    /**
+     * Take a slot for a request; every true must be followed by release()
+     *
+     * @return false if the node is at its limit and the request should be rejected
+     */
+    public boolean tryAcquire() {
+        if (!enabled) {
+            return true;
+        }
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                window.observeInFlight(current + 1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give back a slot
+     *
+     * @param latencyNanos How long the request took, or 0 if it should not be
+     *                     sampled (rejected or long-running streaming requests)
+     */
+    public void release(long latencyNanos) {
+        if (!enabled) {
+            return;
+        }
+        inFlight.decrementAndGet();
+        if (latencyNanos > 0) {
+            window.record(latencyNanos);
+        }
+    }
+
+    /**
+     * Close the current window and adapt the limit to its p99 latency
+     */
+    @Scheduled(fixedDelayString = "${banking.concurrency.window:PT1S}")
+    public void update() {
+        if (!enabled) {
+            return;
+        }
+        Window closed = window;
+        window = new Window();
+
+        long p99 = closed.p99(minSamples);
+        if (p99 == 0) {
+            return;
+        }
+        lastP99Nanos = p99;
+        if (baselineNanos == 0 || p99 < baselineNanos) {
+            baselineNanos = p99;
+        }
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * baselineNanos / p99));
+        double target = estimatedLimit * gradient;
+        if (gradient == 1.0 && closed.peakInFlight.get() * 2 >= limit) {
+            target += Math.sqrt(estimatedLimit);
+        }
+        estimatedLimit = Math.min(Math.max(estimatedLimit * (1 - smoothing) + target * smoothing, minLimit), maxLimit);
+
+        int newLimit = (int) estimatedLimit;
+        if (newLimit != limit) {
+            log.debug("Concurrency limit {} -> {} (p99 {} ms, baseline {} ms)", limit, newLimit,
+                    p99 / 1_000_000, baselineNanos / 1_000_000);
+            limit = newLimit;
+        }
+
+        // A lasting change of workload becomes the new baseline
+        baselineNanos += (p99 - baselineNanos) / BASELINE_WINDOWS;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
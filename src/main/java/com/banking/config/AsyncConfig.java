@@ -1,45 +1,86 @@
 package com.banking.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-import java.util.concurrent.Executor;
-
 /**
  * AsyncConfig - Configuration for asynchronous task execution
  *
- * This configuration sets up a thread pool for executing async tasks
- * like statement generation. It allows the API to return immediately
- * while processing continues in the background.
+ * Statement generation runs on a pool of worker threads fed by
+ * StatementJobQueue, which claims jobs from the database. The API returns
+ * immediately while processing continues in the background.
  *
  * Key configurations:
- * - Core pool size: Number of threads to keep alive
- * - Max pool size: Maximum number of threads
- * - Queue capacity: Number of tasks to queue before rejecting
+ * - Pool size: banking.statements.workers threads per node (core = max)
+ * - Hand-off queue of one slot per worker: the job queue only claims as
+ *   many jobs as there are idle workers, so pending work waits in the
+ *   database, not in memory
+ * - TenantContext is carried over from the submitting thread, so workers
+ *   run with the tenant of the job they process
+ *
+ * Statements over long periods are fetched in time windows on a second,
+ * shared pool (statementWindowExecutor), see StatementWindowRenderer.
  */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
-    @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
+    @Bean
+    public TaskDecorator tenantContextTaskDecorator() {
+        return new TenantContextTaskDecorator();
+    }
+
+    @Bean(name = "statementWorkerExecutor")
+    public ThreadPoolTaskExecutor statementWorkerExecutor(
+            @Value("${banking.statements.workers:4}") int workers,
+            TaskDecorator tenantContextTaskDecorator) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
 
-        // Minimum number of threads to maintain
-        executor.setCorePoolSize(2);
+        // Fixed number of worker threads (at least one so the pool is valid)
+        executor.setCorePoolSize(Math.max(workers, 1));
+        executor.setMaxPoolSize(Math.max(workers, 1));
 
-        // Maximum number of threads
-        executor.setMaxPoolSize(5);
+        // The job queue never dispatches more jobs than there are workers, but a
+        // worker frees its permit just before its thread returns to the pool:
+        // room for one job per worker means a hand-off is never rejected.
+        // Pending jobs still stay in the database
+        executor.setQueueCapacity(Math.max(workers, 1));
 
-        // Queue capacity for pending tasks
-        executor.setQueueCapacity(100);
+        // Let running statements finish on shutdown; unfinished ones are recovered via their lease
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
 
         // Thread name prefix for easier debugging
-        executor.setThreadNamePrefix("async-statement-");
+        executor.setThreadNamePrefix("statement-worker-");
+
+        // Propagate TenantContext to the worker threads
+        executor.setTaskDecorator(tenantContextTaskDecorator);
+
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Fetches and renders statement windows for all workers of the node
+     * Its size also bounds the connections used for window queries
+     */
+    @Bean(name = "statementWindowExecutor")
+    public ThreadPoolTaskExecutor statementWindowExecutor(
+            @Value("${banking.statements.windows.parallelism:4}") int parallelism,
+            TaskDecorator tenantContextTaskDecorator) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(parallelism, 1));
+        executor.setMaxPoolSize(Math.max(parallelism, 1));
+
+        // Queued windows are bounded by max-in-flight per statement and the number of workers
+        executor.setThreadNamePrefix("statement-window-");
+        executor.setTaskDecorator(tenantContextTaskDecorator);
 
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,89 @@
+package com.banking.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * BulkheadDataSource - Takes a ConnectionBulkhead permit for every connection it hands out
+ *
+ * Wraps the application's DataSource (see DataSourceConfig). The permit is
+ * taken before a connection is borrowed from the pool, so a tenant over its
+ * cap never occupies a pool slot, and it is given back when the connection
+ * is closed (returned to the pool).
+ *
+ * The bulkhead is looked up on first use, so wrapping the DataSource does
+ * not pull the metrics infrastructure into early bean creation.
+ */
+public class BulkheadDataSource extends DelegatingDataSource {
+
+    private final ObjectProvider<ConnectionBulkhead> bulkheadProvider;
+    private volatile ConnectionBulkhead bulkhead;
+
+    public BulkheadDataSource(DataSource target, ObjectProvider<ConnectionBulkhead> bulkheadProvider) {
+        super(target);
+        this.bulkheadProvider = bulkheadProvider;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return withPermit(() -> super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return withPermit(() -> super.getConnection(username, password));
+    }
+
+    private interface ConnectionSource {
+        Connection get() throws SQLException;
+    }
+
+    private Connection withPermit(ConnectionSource source) throws SQLException {
+        ConnectionBulkhead.Permit permit = bulkhead().acquire();
+        Connection connection;
+        try {
+            connection = source.get();
+        } catch (SQLException | RuntimeException e) {
+            permit.release();
+            throw e;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "close":
+                            try {
+                                connection.close();
+                            } finally {
+                                permit.release();
+                            }
+                            return null;
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    private ConnectionBulkhead bulkhead() {
+        ConnectionBulkhead current = bulkhead;
+        if (current == null) {
+            current = bulkheadProvider.getObject();
+            bulkhead = current;
+        }
+        return current;
+    }
+}
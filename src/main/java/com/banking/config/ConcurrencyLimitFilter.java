@@ -0,0 +1,80 @@
+package com.banking.config;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * ConcurrencyLimitFilter - Sheds load when the node is at its concurrency limit
+ *
+ * Runs just before TenantFilter, so it wraps everything a request does.
+ * A request beyond the AdaptiveConcurrencyLimiter's current limit is
+ * rejected at once with 503 Service Unavailable and Retry-After, instead
+ * of waiting on a Tomcat thread for a database connection.
+ *
+ * The latency of every admitted request is fed back to the limiter, except:
+ * - Requests rejected by the tenant rate limit (429), which did no work
+ * - Streaming exports, downloads and bulk uploads, whose duration depends
+ *   on their size rather than on how loaded the system is
+ *
+ * Actuator endpoints (/actuator/**) are never limited, so health checks
+ * and metrics keep working under overload.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class ConcurrencyLimitFilter implements Filter {
+
+    private static final String ACTUATOR_PATH = "/actuator/";
+    private static final String[] UNSAMPLED_SUFFIXES = {"/export", "/download", "/bulk"};
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    @Autowired
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        if (httpRequest.getRequestURI().startsWith(ACTUATOR_PATH)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (!limiter.tryAcquire()) {
+            httpResponse.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            httpResponse.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            httpResponse.setContentType("application/json");
+            httpResponse.getWriter().write("{\"error\": \"Server busy, retry in 1s\"}");
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean sampled = isSampled(httpRequest);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            sampled &= httpResponse.getStatus() != TOO_MANY_REQUESTS;
+            limiter.release(sampled ? Math.max(System.nanoTime() - start, 1) : 0);
+        }
+    }
+
+    private static boolean isSampled(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        for (String suffix : UNSAMPLED_SUFFIXES) {
+            if (uri.endsWith(suffix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
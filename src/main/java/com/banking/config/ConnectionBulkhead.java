@@ -0,0 +1,278 @@
+package com.banking.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * ConnectionBulkhead - Caps the database connections each tenant can hold at once
+ *
+ * All tenants share one Hikari pool. Without a cap, a tenant with slow
+ * queries (or a flood of exports) can hold every connection while the
+ * others time out. BulkheadDataSource asks this class for a permit before
+ * it borrows a connection, and gives it back when the connection is closed:
+ * - API requests count against their tenant: max-per-tenant connections,
+ *   or the tenant's own cap from banking.datasource.bulkhead.tenants
+ *   (TENANT=N,...)
+ * - Background statement work (workers, window fetches, bulk run
+ *   partitions, see TenantContext.isBackground) counts against one shared
+ *   "background" bulkhead of max-background connections, whatever the tenant
+ * - Connections without a tenant (startup, scheduled maintenance) are not capped
+ *
+ * A full bulkhead makes the caller wait at most max-wait (background-max-wait
+ * for background work), then fail with ConnectionBulkheadFullException,
+ * which the API answers with 503. Permits are handed out in arrival order.
+ *
+ * A thread that already holds a permit does not need another one for a
+ * nested connection, so it cannot block on its own bulkhead.
+ *
+ * The tenant comes from the X-Tenant-Id header, so neither state nor meters
+ * may grow with the values clients send. Tenants listed in
+ * banking.datasource.bulkhead.tenants keep their bulkhead and are tagged by
+ * name. Every other tenant gets its own semaphore while it holds or waits
+ * for a connection (dropped when it is idle again), and its metrics are
+ * tagged "other".
+ *
+ * Metrics (tag tenant: a listed tenant, "other", or "background"):
+ * banking.db.bulkhead.in-use, banking.db.bulkhead.wait and
+ * banking.db.bulkhead.rejected.
+ */
+@Component
+public class ConnectionBulkhead {
+
+    static final String BACKGROUND = "background";
+    static final String OTHER = "other";
+
+    /**
+     * Meters shared by one or more compartments
+     */
+    private final class Meters {
+
+        private final Timer wait;
+        private final Counter rejected;
+
+        Meters(String tag, Supplier<Number> inUse) {
+            this.wait = Timer.builder("banking.db.bulkhead.wait")
+                    .description("Time spent waiting for a database connection permit")
+                    .tag("tenant", tag)
+                    .register(registry);
+            this.rejected = Counter.builder("banking.db.bulkhead.rejected")
+                    .description("Connection requests rejected because the bulkhead was full")
+                    .tag("tenant", tag)
+                    .register(registry);
+            Gauge.builder("banking.db.bulkhead.in-use", inUse)
+                    .description("Database connections held")
+                    .tag("tenant", tag)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Permits of one tenant (or of the background work)
+     */
+    private final class Compartment {
+
+        private final String name;
+        private final int capacity;
+        private final Semaphore permits;
+        private final Meters meters;
+        // Unlisted tenant: dropped once no thread holds or waits for a permit
+        private final boolean dropWhenIdle;
+        // Threads holding or waiting for a permit, changed under the tenants map's lock
+        private int users;
+
+        /**
+         * Compartment with meters of its own, kept for good
+         */
+        Compartment(String name, int capacity) {
+            this.name = name;
+            this.capacity = capacity;
+            this.permits = new Semaphore(capacity, true);
+            this.meters = new Meters(name, this::inUse);
+            this.dropWhenIdle = false;
+        }
+
+        /**
+         * Compartment of an unlisted tenant, sharing the "other" meters
+         */
+        Compartment(String name, int capacity, Meters shared) {
+            this.name = name;
+            this.capacity = capacity;
+            this.permits = new Semaphore(capacity, true);
+            this.meters = shared;
+            this.dropWhenIdle = true;
+        }
+
+        int inUse() {
+            return capacity - permits.availablePermits();
+        }
+    }
+
+    /**
+     * A permit held for one connection
+     */
+    public final class Permit {
+
+        private final Compartment compartment;
+        private boolean released;
+
+        private Permit(Compartment compartment) {
+            this.compartment = compartment;
+        }
+
+        /**
+         * Give the permit back (only the first call counts)
+         */
+        public void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            if (compartment != null) {
+                compartment.permits.release();
+                leave(compartment);
+                if (held.get() == this) {
+                    held.remove();
+                }
+            }
+        }
+    }
+
+    private final boolean enabled;
+    private final int maxPerTenant;
+    private final Map<String, Integer> tenantCaps;
+    private final long maxWaitNanos;
+    private final long backgroundMaxWaitNanos;
+    private final MeterRegistry registry;
+
+    private final Compartment background;
+    private final Meters otherMeters;
+    private final ConcurrentHashMap<String, Compartment> tenants = new ConcurrentHashMap<>();
+
+    // Permit of the connection the current thread holds, if any
+    private final ThreadLocal<Permit> held = new ThreadLocal<>();
+
+    public ConnectionBulkhead(@Value("${banking.datasource.bulkhead.enabled:true}") boolean enabled,
+                              @Value("${banking.datasource.bulkhead.max-per-tenant:4}") int maxPerTenant,
+                              @Value("${banking.datasource.bulkhead.max-background:6}") int maxBackground,
+                              @Value("${banking.datasource.bulkhead.tenants:}") String tenantCaps,
+                              @Value("${banking.datasource.bulkhead.max-wait:PT0.2S}") Duration maxWait,
+                              @Value("${banking.datasource.bulkhead.background-max-wait:PT10S}") Duration backgroundMaxWait,
+                              MeterRegistry registry) {
+        this.enabled = enabled;
+        this.maxPerTenant = Math.max(maxPerTenant, 1);
+        this.tenantCaps = parseCaps(tenantCaps);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.backgroundMaxWaitNanos = backgroundMaxWait.toNanos();
+        this.registry = registry;
+        this.background = new Compartment(BACKGROUND, Math.max(maxBackground, 1));
+        this.tenantCaps.forEach((tenantId, cap) -> tenants.put(tenantId, new Compartment(tenantId, cap)));
+        this.otherMeters = new Meters(OTHER, this::otherInUse);
+    }
+
+    /**
+     * Take a permit for a new connection of the current thread
+     *
+     * @return The permit, to release when the connection is closed
+     * @throws ConnectionBulkheadFullException if none became free within the wait time
+     */
+    public Permit acquire() throws ConnectionBulkheadFullException {
+        String tenantId = TenantContext.getTenantId();
+        if (!enabled || tenantId == null || held.get() != null) {
+            return new Permit(null);
+        }
+        boolean isBackground = TenantContext.isBackground();
+        Compartment compartment = isBackground ? background : enter(tenantId);
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = compartment.permits.tryAcquire(isBackground ? backgroundMaxWaitNanos : maxWaitNanos,
+                    TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        compartment.meters.wait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            compartment.meters.rejected.increment();
+            leave(compartment);
+            throw new ConnectionBulkheadFullException(compartment.name, compartment.capacity);
+        }
+        Permit permit = new Permit(compartment);
+        held.set(permit);
+        return permit;
+    }
+
+    /**
+     * Connections currently held by a tenant (or BACKGROUND)
+     */
+    public int inUse(String name) {
+        Compartment compartment = BACKGROUND.equals(name) ? background : tenants.get(name);
+        return compartment != null ? compartment.inUse() : 0;
+    }
+
+    /**
+     * Unlisted tenants currently holding or waiting for connections
+     */
+    int trackedTenants() {
+        return (int) tenants.values().stream().filter(compartment -> compartment.dropWhenIdle).count();
+    }
+
+    /**
+     * The tenant's compartment, counted as in use until leave
+     */
+    private Compartment enter(String tenantId) {
+        return tenants.compute(tenantId, (id, compartment) -> {
+            if (compartment == null) {
+                compartment = new Compartment(id, maxPerTenant, otherMeters);
+            }
+            compartment.users++;
+            return compartment;
+        });
+    }
+
+    private void leave(Compartment compartment) {
+        if (compartment == background) {
+            return;
+        }
+        tenants.computeIfPresent(compartment.name, (id, current) -> {
+            if (current != compartment) {
+                return current;
+            }
+            current.users--;
+            // An idle unlisted tenant's compartment is a fresh semaphore again: drop it
+            return current.dropWhenIdle && current.users == 0 ? null : current;
+        });
+    }
+
+    private int otherInUse() {
+        return tenants.values().stream().filter(compartment -> compartment.dropWhenIdle)
+                .mapToInt(Compartment::inUse).sum();
+    }
+
+    /**
+     * Parse TENANT=N,... caps
+     */
+    private static Map<String, Integer> parseCaps(String caps) {
+        Map<String, Integer> parsed = new HashMap<>();
+        for (String entry : caps.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length == 2 && !parts[0].isBlank()) {
+                parsed.put(parts[0].trim(), Math.max(Integer.parseInt(parts[1].trim()), 1));
+            }
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,24 @@
+package com.banking.config;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * ConnectionBulkheadFullException - A tenant (or the background work) holds all of its connections
+ *
+ * Thrown by BulkheadDataSource when no permit became free within the
+ * bulkhead's wait time. It is a transient connection error, like a Hikari
+ * connection timeout, so the request may be retried later.
+ */
+public class ConnectionBulkheadFullException extends SQLTransientConnectionException {
+
+    private final String tenantId;
+
+    public ConnectionBulkheadFullException(String tenantId, int capacity) {
+        super("Tenant " + tenantId + " is using all of its " + capacity + " database connections");
+        this.tenantId = tenantId;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+}
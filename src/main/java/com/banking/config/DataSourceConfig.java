@@ -0,0 +1,33 @@
+package com.banking.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * DataSourceConfig - Puts the per-tenant connection bulkheads in front of the Hikari pool
+ *
+ * The auto-configured DataSource is wrapped in a BulkheadDataSource, so
+ * every connection JPA, JDBC templates and Flyway borrow goes through
+ * ConnectionBulkhead. The pool itself is still configured with the usual
+ * spring.datasource.hikari.* properties.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    public static BeanPostProcessor bulkheadDataSourcePostProcessor(ObjectProvider<ConnectionBulkhead> bulkhead) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof BulkheadDataSource)) {
+                    return new BulkheadDataSource(dataSource, bulkhead);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.banking.config;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * ReadOnlyRoutingDataSource - Hands out connections for read-only transactions
+ *
+ * Used by the application DataSource (LazyConnectionDataSourceProxy) for
+ * connections marked read-only before their first statement. Returns a
+ * replica of the current shard if ReplicaRouter picks one, otherwise the
+ * shard's primary pool. Unlike TenantRoutingDataSource, these connections
+ * do not count as writes of the tenant.
+ */
+public class ReadOnlyRoutingDataSource extends AbstractDataSource {
+
+    private final ShardDataSources shards;
+    private final ShardDirectory directory;
+    private final ReplicaRouter router;
+
+    public ReadOnlyRoutingDataSource(ShardDataSources shards, ShardDirectory directory, ReplicaRouter router) {
+        this.shards = shards;
+        this.directory = directory;
+        this.router = router;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return target().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return target().getConnection(username, password);
+    }
+
+    private DataSource target() {
+        String shard = directory.currentShard();
+        DataSource replica = router.choose(shard);
+        return replica != null ? replica : shards.get(shard);
+    }
+}
@@ -0,0 +1,22 @@
+package com.banking.config;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * ReplicaRead - Runs a method in a read-only transaction that may be served by a read replica
+ *
+ * ReplicaRouter decides per transaction: a replica of the tenant's shard
+ * that is within banking.replicas.max-lag, unless the tenant wrote recently,
+ * otherwise the primary. Only for reads that can tolerate that lag and that
+ * do not combine their results with rows read from the primary.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Transactional(transactionManager = ReplicaTransactionManager.BEAN_NAME, readOnly = true)
+public @interface ReplicaRead {
+}
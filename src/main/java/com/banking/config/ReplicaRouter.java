@@ -0,0 +1,194 @@
+package com.banking.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ReplicaRouter - Picks the read replica (or the primary) for @ReplicaRead transactions
+ *
+ * A replica of the current shard is used when:
+ * - Its lag is at most banking.replicas.max-lag. Every lag-check-interval
+ *   each node reads the replica's copy of the replication_heartbeat row and
+ *   then advances the row on the primary; the age of the replica's copy is
+ *   an upper bound of its lag (exceeding it by at most one interval, plus
+ *   the clock difference between nodes). A replica that cannot be reached
+ *   is not used
+ * - The tenant has not written within banking.replicas.sticky-window on this
+ *   node, so a client sees its own writes (read-your-writes)
+ *
+ * Replicas of a shard are used in turn. If none qualifies the read goes to
+ * the primary, which therefore always stays correct, only busier.
+ *
+ * Metrics: banking.db.replica.lag (seconds, tag replica) and
+ * banking.db.replica.reads (tag replica, "primary" for reads that fell back).
+ */
+@Component
+public class ReplicaRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRouter.class);
+
+    static final String PRIMARY = "primary";
+
+    /**
+     * State of one read replica
+     */
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final JdbcTemplate jdbc;
+        private final Counter reads;
+
+        // Seconds behind the primary; NaN while unknown or unreachable
+        private volatile double lagSeconds = Double.NaN;
+
+        Replica(String name, DataSource dataSource, MeterRegistry registry) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.jdbc = new JdbcTemplate(dataSource);
+            this.reads = Counter.builder("banking.db.replica.reads")
+                    .description("@ReplicaRead transactions by the database that served them")
+                    .tag("replica", name)
+                    .register(registry);
+            Gauge.builder("banking.db.replica.lag", this, replica -> replica.lagSeconds)
+                    .description("Replication lag of a read replica")
+                    .baseUnit("seconds")
+                    .tag("replica", name)
+                    .register(registry);
+        }
+    }
+
+    private final ShardDataSources shards;
+    private final boolean enabled;
+    private final double maxLagSeconds;
+    private final Map<String, List<Replica>> replicas = new HashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final Cache<String, Boolean> recentWriters;
+    private final Counter primaryReads;
+
+    public ReplicaRouter(ShardDataSources shards,
+                         @Value("${banking.replicas.enabled:true}") boolean enabled,
+                         @Value("${banking.replicas.max-lag:PT2S}") Duration maxLag,
+                         @Value("${banking.replicas.sticky-window:PT5S}") Duration stickyWindow,
+                         MeterRegistry registry) {
+        this.shards = shards;
+        this.enabled = enabled;
+        this.maxLagSeconds = maxLag.toNanos() / 1e9;
+        for (String shard : shards.getShards()) {
+            List<Replica> shardReplicas = new ArrayList<>();
+            for (String replica : shards.getReplicas(shard)) {
+                shardReplicas.add(new Replica(replica, shards.getReplica(replica), registry));
+            }
+            replicas.put(shard, List.copyOf(shardReplicas));
+        }
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindow)
+                .maximumSize(100_000)
+                .build();
+        this.primaryReads = Counter.builder("banking.db.replica.reads")
+                .description("@ReplicaRead transactions by the database that served them")
+                .tag("replica", PRIMARY)
+                .register(registry);
+    }
+
+    /**
+     * Replica for a read-only connection of the current thread, or null for the primary
+     */
+    public DataSource choose(String shard) {
+        if (!ReplicaTransactionManager.isReplicaRead()) {
+            return null;
+        }
+        List<Replica> candidates = replicas.getOrDefault(shard, List.of());
+        String tenantId = TenantContext.getTenantId();
+        if (enabled && !candidates.isEmpty() && (tenantId == null || recentWriters.getIfPresent(tenantId) == null)) {
+            int start = Math.floorMod(next.getAndIncrement(), candidates.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                Replica replica = candidates.get((start + i) % candidates.size());
+                // NaN (unknown lag) fails the comparison
+                if (replica.lagSeconds <= maxLagSeconds) {
+                    replica.reads.increment();
+                    return replica.dataSource;
+                }
+            }
+        }
+        primaryReads.increment();
+        return null;
+    }
+
+    /**
+     * Note that the current tenant is writing: its reads stay on the primary
+     * until sticky-window after the transaction has completed
+     */
+    public void recordWrite() {
+        String tenantId = TenantContext.getTenantId();
+        if (tenantId == null) {
+            return;
+        }
+        recentWriters.put(tenantId, Boolean.TRUE);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    recentWriters.put(tenantId, Boolean.TRUE);
+                }
+            });
+        }
+    }
+
+    /**
+     * Measure every replica's lag, then advance the primaries' heartbeats
+     */
+    @Scheduled(fixedDelayString = "${banking.replicas.lag-check-interval:PT1S}")
+    public void checkLag() {
+        replicas.forEach((shard, shardReplicas) -> {
+            if (shardReplicas.isEmpty()) {
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            for (Replica replica : shardReplicas) {
+                replica.lagSeconds = lag(replica, now);
+            }
+            try {
+                new JdbcTemplate(shards.get(shard)).update(
+                        "UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1", Timestamp.valueOf(now));
+            } catch (RuntimeException e) {
+                log.warn("Shard {}: could not advance the replication heartbeat: {}", shard, e.getMessage());
+            }
+        });
+    }
+
+    private static double lag(Replica replica, LocalDateTime now) {
+        try {
+            List<Timestamp> beats = replica.jdbc.queryForList(
+                    "SELECT beat_at FROM replication_heartbeat WHERE id = 1", Timestamp.class);
+            if (beats.isEmpty()) {
+                return Double.NaN;
+            }
+            return Math.max(Duration.between(beats.get(0).toLocalDateTime(), now).toNanos(), 0) / 1e9;
+        } catch (RuntimeException e) {
+            log.debug("Replica {} unavailable: {}", replica.name, e.getMessage());
+            return Double.NaN;
+        }
+    }
+}
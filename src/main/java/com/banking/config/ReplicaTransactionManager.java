@@ -0,0 +1,54 @@
+package com.banking.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * ReplicaTransactionManager - Starts the transactions of @ReplicaRead methods
+ *
+ * A JpaTransactionManager on the same EntityManagerFactory that marks the
+ * thread while its read-only transaction runs. Connections are borrowed
+ * lazily (at the first statement), so ReplicaRouter sees the mark and may
+ * hand out a replica connection. Transactions of the primary transaction
+ * manager, including read-only repository calls, always use the primary.
+ */
+public class ReplicaTransactionManager extends JpaTransactionManager {
+
+    public static final String BEAN_NAME = "replicaTransactionManager";
+
+    private static final ThreadLocal<Boolean> replicaRead = new ThreadLocal<>();
+
+    public ReplicaTransactionManager(EntityManagerFactory entityManagerFactory) {
+        super(entityManagerFactory);
+    }
+
+    /**
+     * True while the current thread runs a read-only transaction of this manager
+     */
+    public static boolean isReplicaRead() {
+        return Boolean.TRUE.equals(replicaRead.get());
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        if (definition.isReadOnly()) {
+            replicaRead.set(Boolean.TRUE);
+        }
+        try {
+            super.doBegin(transaction, definition);
+        } catch (RuntimeException | Error e) {
+            replicaRead.remove();
+            throw e;
+        }
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        try {
+            super.doCleanupAfterCompletion(transaction);
+        } finally {
+            replicaRead.remove();
+        }
+    }
+}
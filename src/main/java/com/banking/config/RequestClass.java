@@ -0,0 +1,38 @@
+package com.banking.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * RequestClass - Kind of API request, each with its own per-tenant rate limit
+ *
+ * - READ: GET/HEAD requests, including statement status polls and downloads
+ * - WRITE: other requests that change data (accounts, transactions)
+ * - STATEMENT: requests that start statement generation (single statements and bulk runs)
+ */
+public enum RequestClass {
+    READ,
+    WRITE,
+    STATEMENT;
+
+    private static final String STATEMENTS_PATH = "/api/statements";
+    private static final String STATEMENT_RUNS_PATH = "/api/statement-runs";
+
+    public static RequestClass of(HttpServletRequest request) {
+        String method = request.getMethod();
+        if ("GET".equals(method) || "HEAD".equals(method)) {
+            return READ;
+        }
+        String uri = request.getRequestURI();
+        if (uri.startsWith(STATEMENTS_PATH) || uri.startsWith(STATEMENT_RUNS_PATH)) {
+            return STATEMENT;
+        }
+        return WRITE;
+    }
+
+    /**
+     * Name used in configuration and metrics, e.g. "read"
+     */
+    public String key() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,32 @@
+package com.banking.config;
+
+/**
+ * ShardContext - Thread-local override of the database shard
+ *
+ * Normally the shard follows from the tenant (TenantContext, looked up in
+ * ShardDirectory). Background work that is not about one tenant (claiming
+ * statement jobs, lease recovery, retention, the daily balance close) runs
+ * once per shard instead, with the shard set here; see ShardDirectory.forEachShard.
+ */
+public class ShardContext {
+
+    private static final ThreadLocal<String> currentShard = new ThreadLocal<>();
+
+    /**
+     * Route the current thread's connections to a shard, whatever its tenant
+     */
+    public static void setShard(String shard) {
+        currentShard.set(shard);
+    }
+
+    /**
+     * The shard set for the current thread, or null to route by tenant
+     */
+    public static String getShard() {
+        return currentShard.get();
+    }
+
+    public static void clear() {
+        currentShard.remove();
+    }
+}
@@ -0,0 +1,131 @@
+package com.banking.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ShardDataSources - One connection pool per database shard and read replica
+ *
+ * - The default shard is the database of spring.datasource.*; it also holds
+ *   the tenant directory and every tenant that was never moved
+ * - Further shards are listed in banking.shards.names and configured as
+ *   banking.shards.{name}.url / username / password / driver-class-name
+ * - Read replicas are listed in banking.replicas.names and configured the
+ *   same way as banking.replicas.{name}.*, plus .shard (the shard they
+ *   replicate, default shard if not set)
+ *
+ * Every pool gets the spring.datasource.hikari.* settings and reports
+ * hikaricp.* metrics tagged with its pool name (shard-{name}, replica-{name}).
+ */
+public class ShardDataSources implements AutoCloseable {
+
+    private final String defaultShard;
+    private final Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+    private final Map<String, HikariDataSource> replicaPools = new LinkedHashMap<>();
+    private final Map<String, List<String>> replicasByShard = new LinkedHashMap<>();
+
+    public ShardDataSources(Environment environment, MeterRegistry registry) {
+        this.defaultShard = environment.getProperty("banking.shards.default-name", "main");
+        pools.put(defaultShard, pool(environment, registry, "shard-" + defaultShard, "spring.datasource"));
+        for (String name : environment.getProperty("banking.shards.names", String[].class, new String[0])) {
+            String shard = name.trim();
+            if (!shard.isEmpty() && !pools.containsKey(shard)) {
+                pools.put(shard, pool(environment, registry, "shard-" + shard, "banking.shards." + shard));
+            }
+        }
+        for (String name : environment.getProperty("banking.replicas.names", String[].class, new String[0])) {
+            String replica = name.trim();
+            if (replica.isEmpty() || replicaPools.containsKey(replica)) {
+                continue;
+            }
+            String shard = environment.getProperty("banking.replicas." + replica + ".shard", defaultShard);
+            if (!pools.containsKey(shard)) {
+                throw new IllegalStateException("Replica " + replica + " belongs to unknown shard " + shard);
+            }
+            HikariDataSource pool = pool(environment, registry, "replica-" + replica, "banking.replicas." + replica);
+            pool.setReadOnly(true);
+            replicaPools.put(replica, pool);
+            replicasByShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(replica);
+        }
+    }
+
+    public String getDefaultShard() {
+        return defaultShard;
+    }
+
+    /**
+     * Names of all shards, the default shard first
+     */
+    public Set<String> getShards() {
+        return Collections.unmodifiableSet(pools.keySet());
+    }
+
+    /**
+     * The pool of a shard (not tenant-routed)
+     *
+     * @throws IllegalArgumentException if there is no such shard
+     */
+    public DataSource get(String shard) {
+        HikariDataSource pool = pools.get(shard);
+        if (pool == null) {
+            throw new IllegalArgumentException("Unknown shard: " + shard);
+        }
+        return pool;
+    }
+
+    /**
+     * Names of the read replicas of a shard (possibly none)
+     */
+    public List<String> getReplicas(String shard) {
+        return Collections.unmodifiableList(replicasByShard.getOrDefault(shard, List.of()));
+    }
+
+    /**
+     * The pool of a read replica
+     *
+     * @throws IllegalArgumentException if there is no such replica
+     */
+    public DataSource getReplica(String replica) {
+        HikariDataSource pool = replicaPools.get(replica);
+        if (pool == null) {
+            throw new IllegalArgumentException("Unknown replica: " + replica);
+        }
+        return pool;
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+        replicaPools.values().forEach(HikariDataSource::close);
+    }
+
+    private static HikariDataSource pool(Environment environment, MeterRegistry registry, String poolName, String prefix) {
+        String url = environment.getProperty(prefix + ".url");
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException("No " + prefix + ".url configured for " + poolName);
+        }
+        HikariDataSource pool = new HikariDataSource();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(poolName);
+        pool.setJdbcUrl(url);
+        pool.setUsername(environment.getProperty(prefix + ".username"));
+        pool.setPassword(environment.getProperty(prefix + ".password"));
+        String driver = environment.getProperty(prefix + ".driver-class-name");
+        if (driver != null && !driver.isBlank()) {
+            pool.setDriverClassName(driver);
+        }
+        pool.setMetricRegistry(registry);
+        return pool;
+    }
+}
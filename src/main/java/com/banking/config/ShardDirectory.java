@@ -0,0 +1,171 @@
+package com.banking.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * ShardDirectory - Which database shard holds each tenant
+ *
+ * The directory is the tenant_shards table on the default shard; tenants
+ * without a row live on the default shard. It is cached in memory and
+ * re-read every banking.shards.directory.reload-interval, so a tenant moved
+ * by TenantShardMover is routed to its new shard on every node without a
+ * restart.
+ *
+ * A frozen tenant is being moved: its data may be read, but TenantFilter
+ * rejects its writes and the statement queue does not start its jobs.
+ *
+ * The current shard of a thread is its ShardContext if set (per-shard
+ * background work), otherwise the shard of its TenantContext tenant,
+ * otherwise the default shard. Workers get the tenant of their job through
+ * TenantContextTaskDecorator, so statement processing is routed the same
+ * way as the request that queued it.
+ */
+@Component
+public class ShardDirectory {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardDirectory.class);
+
+    /**
+     * Directory entry of one tenant
+     */
+    public static final class Entry {
+
+        private final String shard;
+        private final boolean frozen;
+
+        Entry(String shard, boolean frozen) {
+            this.shard = shard;
+            this.frozen = frozen;
+        }
+
+        public String getShard() {
+            return shard;
+        }
+
+        public boolean isFrozen() {
+            return frozen;
+        }
+    }
+
+    private final ShardDataSources shards;
+    private final JdbcTemplate directory;
+
+    private volatile Map<String, Entry> entries = Map.of();
+
+    public ShardDirectory(ShardDataSources shards) {
+        this.shards = shards;
+        this.directory = new JdbcTemplate(shards.get(shards.getDefaultShard()));
+    }
+
+    public String getDefaultShard() {
+        return shards.getDefaultShard();
+    }
+
+    public Set<String> getShards() {
+        return shards.getShards();
+    }
+
+    /**
+     * Shard holding the tenant's data
+     */
+    public String shardOf(String tenantId) {
+        Entry entry = tenantId != null ? entries.get(tenantId) : null;
+        return entry != null ? entry.shard : shards.getDefaultShard();
+    }
+
+    /**
+     * True while the tenant is being moved between shards
+     */
+    public boolean isFrozen(String tenantId) {
+        Entry entry = tenantId != null ? entries.get(tenantId) : null;
+        return entry != null && entry.frozen;
+    }
+
+    /**
+     * Shard the current thread's connections go to
+     */
+    public String currentShard() {
+        String shard = ShardContext.getShard();
+        return shard != null ? shard : shardOf(TenantContext.getTenantId());
+    }
+
+    /**
+     * Run tenant-independent background work once per shard
+     * A failure on one shard is logged and does not stop the others
+     */
+    public void forEachShard(Consumer<String> work) {
+        String previous = ShardContext.getShard();
+        try {
+            for (String shard : shards.getShards()) {
+                ShardContext.setShard(shard);
+                try {
+                    work.accept(shard);
+                } catch (RuntimeException e) {
+                    log.warn("Shard {}: {}", shard, e.getMessage());
+                }
+            }
+        } finally {
+            if (previous != null) {
+                ShardContext.setShard(previous);
+            } else {
+                ShardContext.clear();
+            }
+        }
+    }
+
+    /**
+     * All directory entries (tenants not on the default shard, or frozen)
+     */
+    public Map<String, Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Record a tenant's shard and freeze state, and apply it on this node at once
+     * Other nodes pick it up with their next reload
+     */
+    public void assign(String tenantId, String shard, boolean frozen) {
+        shards.get(shard);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int updated = directory.update("UPDATE tenant_shards SET shard = ?, frozen = ?, updated_at = ? WHERE tenant_id = ?",
+                shard, frozen, now, tenantId);
+        if (updated == 0) {
+            directory.update("INSERT INTO tenant_shards (tenant_id, shard, frozen, updated_at) VALUES (?, ?, ?, ?)",
+                    tenantId, shard, frozen, now);
+        }
+        reload();
+    }
+
+    /**
+     * Re-read the directory; on failure the previous entries stay
+     */
+    @Scheduled(fixedDelayString = "${banking.shards.directory.reload-interval:PT5S}")
+    public void reload() {
+        try {
+            Map<String, Entry> loaded = new HashMap<>();
+            directory.query("SELECT tenant_id, shard, frozen FROM tenant_shards", row -> {
+                String shard = row.getString("shard");
+                if (!shards.getShards().contains(shard)) {
+                    // Kept: failing the tenant's requests is better than serving another shard's data
+                    log.warn("Tenant {} is assigned to shard {}, which is not configured on this node",
+                            row.getString("tenant_id"), shard);
+                }
+                loaded.put(row.getString("tenant_id"), new Entry(shard, row.getBoolean("frozen")));
+            });
+            entries = Map.copyOf(loaded);
+        } catch (RuntimeException e) {
+            log.warn("Could not load the shard directory: {}", e.getMessage());
+        }
+    }
+}
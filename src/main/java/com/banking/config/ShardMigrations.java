@@ -0,0 +1,45 @@
+package com.banking.config;
+
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * ShardMigrations - Applies the Flyway migrations to every shard at startup
+ *
+ * The auto-configured Flyway only sees the routed DataSource, i.e. the
+ * default shard. Every shard is migrated here with the same configuration
+ * (locations, Java migrations, baseline settings), then the shard directory
+ * is loaded, before the application serves requests.
+ */
+@Component
+public class ShardMigrations implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardMigrations.class);
+
+    private final Flyway flyway;
+    private final ShardDataSources shards;
+    private final ShardDirectory directory;
+
+    public ShardMigrations(Flyway flyway, ShardDataSources shards, ShardDirectory directory) {
+        this.flyway = flyway;
+        this.shards = shards;
+        this.directory = directory;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        for (String shard : shards.getShards()) {
+            int applied = Flyway.configure()
+                    .configuration(flyway.getConfiguration())
+                    .dataSource(shards.get(shard))
+                    .load()
+                    .migrate()
+                    .migrationsExecuted;
+            log.info("Shard {}: {} migrations applied", shard, applied);
+        }
+        directory.reload();
+    }
+}
@@ -0,0 +1,60 @@
+package com.banking.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+import javax.sql.DataSource;
+
+/**
+ * ShardRoutingConfig - The application DataSource routes every connection to its tenant's shard
+ *
+ * Replaces the auto-configured DataSource: JPA, JDBC and Flyway all use the
+ * TenantRoutingDataSource (wrapped in the connection bulkheads by
+ * DataSourceConfig). Without banking.shards.names there is only the default
+ * shard, configured by spring.datasource.* as before.
+ *
+ * Connections are borrowed lazily, at their first statement, so that the
+ * read-only flag of the transaction is known: read-only connections come
+ * from ReadOnlyRoutingDataSource (a replica for @ReplicaRead transactions,
+ * see ReplicaRouter), all others from the shard's primary.
+ */
+@Configuration
+public class ShardRoutingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ShardDataSources shardDataSources(Environment environment, MeterRegistry registry) {
+        return new ShardDataSources(environment, registry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDataSources shards, ShardDirectory directory, ReplicaRouter replicaRouter) {
+        TenantRoutingDataSource primary = new TenantRoutingDataSource(shards, directory, replicaRouter);
+        // Not a bean of its own, so resolve its shard targets here
+        primary.afterPropertiesSet();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(new ReadOnlyRoutingDataSource(shards, directory, replicaRouter));
+        return dataSource;
+    }
+
+    /**
+     * Transaction manager of everything but @ReplicaRead methods
+     * (declared here because the replica one replaces the auto-configured manager)
+     */
+    @Bean
+    @Primary
+    public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory);
+    }
+
+    @Bean(ReplicaTransactionManager.BEAN_NAME)
+    public ReplicaTransactionManager replicaTransactionManager(EntityManagerFactory entityManagerFactory) {
+        return new ReplicaTransactionManager(entityManagerFactory);
+    }
+}
@@ -16,6 +16,7 @@ package com.banking.config;
 public class TenantContext {
 
     private static final ThreadLocal<String> currentTenant = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> background = new ThreadLocal<>();
 
     /**
      * Set the tenant ID for the current thread/request
@@ -32,10 +33,30 @@ public class TenantContext {
     }
 
     /**
-     * Clear the tenant ID after request processing
+     * Mark the current thread as background statement work (not an API request)
+     * Its database connections count against the background bulkhead, not the tenant's
+     */
+    public static void setBackground(boolean isBackground) {
+        if (isBackground) {
+            background.set(Boolean.TRUE);
+        } else {
+            background.remove();
+        }
+    }
+
+    /**
+     * True if the current thread does background statement work
+     */
+    public static boolean isBackground() {
+        return background.get() != null;
+    }
+
+    /**
+     * Clear the tenant ID (and background mark) after request processing
      * This prevents memory leaks in thread pools
      */
     public static void clear() {
         currentTenant.remove();
+        background.remove();
     }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.banking.config;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * TenantContextTaskDecorator - Carries the TenantContext over to executor threads
+ *
+ * TenantContext is a ThreadLocal, so a task submitted to a thread pool
+ * would otherwise run without a tenant (or, worse, with the tenant of the
+ * task the pooled thread ran before). The decorator captures the tenant of
+ * the submitting thread and sets it around the task, clearing it afterwards.
+ * The background mark and the ShardContext are carried over the same way.
+ */
+public class TenantContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        String tenantId = TenantContext.getTenantId();
+        boolean background = TenantContext.isBackground();
+        String shard = ShardContext.getShard();
+        return () -> {
+            String previous = TenantContext.getTenantId();
+            boolean previousBackground = TenantContext.isBackground();
+            String previousShard = ShardContext.getShard();
+            try {
+                if (tenantId != null) {
+                    TenantContext.setTenantId(tenantId);
+                } else {
+                    TenantContext.clear();
+                }
+                TenantContext.setBackground(background);
+                setShard(shard);
+                runnable.run();
+            } finally {
+                if (previous != null) {
+                    TenantContext.setTenantId(previous);
+                } else {
+                    TenantContext.clear();
+                }
+                TenantContext.setBackground(previousBackground);
+                setShard(previousShard);
+            }
+        };
+    }
+
+    private static void setShard(String shard) {
+        if (shard != null) {
+            ShardContext.setShard(shard);
+        } else {
+            ShardContext.clear();
+        }
+    }
+}
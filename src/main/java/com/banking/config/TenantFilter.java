@@ -3,6 +3,8 @@ package com.banking.config;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
@@ -16,6 +18,18 @@ import java.io.IOException;
  * 3. Validates that a tenant ID is provided
  * 4. Cleans up the context after request completion
  *
+ * Requests over the tenant's rate limit (see TenantRateLimiter) are rejected
+ * with 429 Too Many Requests and a Retry-After header, before they reach a
+ * controller or take a database connection.
+ *
+ * Writes of a tenant that is being moved to another shard (frozen in
+ * ShardDirectory) are rejected with 503 until the move completes.
+ *
+ * ConcurrencyLimitFilter runs just before this filter and bounds how many
+ * requests of all tenants are in flight at once.
+ *
+ * Actuator endpoints (/actuator/**) are not tenant-scoped and pass through
+ *
  * The @Component annotation makes this a Spring-managed bean
  * Spring Boot automatically registers it as a filter
  */
@@ -23,6 +37,14 @@ import java.io.IOException;
 public class TenantFilter implements Filter {
 
     private static final String TENANT_HEADER = "X-Tenant-Id";
+    private static final String ACTUATOR_PATH = "/actuator/";
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    @Autowired
+    private TenantRateLimiter rateLimiter;
+
+    @Autowired
+    private ShardDirectory shardDirectory;
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
@@ -31,6 +53,12 @@ public class TenantFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
+        // Actuator endpoints (health, metrics) are not tenant-scoped
+        if (httpRequest.getRequestURI().startsWith(ACTUATOR_PATH)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
         // Extract tenant ID from request header
         String tenantId = httpRequest.getHeader(TENANT_HEADER);
 
@@ -42,6 +70,27 @@ public class TenantFilter implements Filter {
             return;
         }
 
+        // Admission control: reject before any work is done for the request
+        RequestClass requestClass = RequestClass.of(httpRequest);
+        long waitNanos = rateLimiter.tryAcquire(tenantId, requestClass);
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max((waitNanos + 999_999_999L) / 1_000_000_000L, 1);
+            httpResponse.setStatus(TOO_MANY_REQUESTS);
+            httpResponse.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            httpResponse.setContentType("application/json");
+            httpResponse.getWriter().write("{\"error\": \"Rate limit exceeded, retry in " + retryAfterSeconds + "s\"}");
+            return;
+        }
+
+        // A tenant being moved between shards is read-only until the move completes
+        if (shardDirectory.isFrozen(tenantId) && requestClass != RequestClass.READ) {
+            httpResponse.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            httpResponse.setHeader(HttpHeaders.RETRY_AFTER, "5");
+            httpResponse.setContentType("application/json");
+            httpResponse.getWriter().write("{\"error\": \"Tenant is being migrated, retry in 5s\"}");
+            return;
+        }
+
         try {
             // Set tenant context for this request thread
             TenantContext.setTenantId(tenantId);
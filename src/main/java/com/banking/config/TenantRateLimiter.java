@@ -0,0 +1,299 @@
+package com.banking.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * TenantRateLimiter - Per-tenant token buckets for API admission control
+ *
+ * Every tenant has one bucket per RequestClass (reads, writes, statement
+ * requests), so one tenant's batch job cannot take all request threads and
+ * database connections from the others. A request over its tenant's limit
+ * is rejected by TenantFilter with 429 before any database work.
+ *
+ * Limits are "rate/burst": requests per second, and how many may arrive at
+ * once after the bucket has been idle. Rate 0 means unlimited.
+ * - Defaults: banking.rate-limits.read / write / statement
+ * - Per tenant: banking.rate-limits.file, a properties file of
+ *   TENANT.class=rate/burst lines (e.g. BANK001.statement=1/10). It is
+ *   re-read every reload-interval when it has changed, so limits can be
+ *   adjusted without a restart.
+ *
+ * Buckets are GCRA (generic cell rate algorithm) buckets: the whole state
+ * is one timestamp, updated with a compare-and-set, so the hot path takes
+ * no lock and allocates nothing. Buckets of tenants that have been idle long
+ * enough to refill are dropped every sweep-interval.
+ *
+ * The tenant is whatever the X-Tenant-Id header says, so neither buckets
+ * nor meters may grow with the values a client makes up:
+ * - At most max-tenants tenants have buckets of their own; tenants in the
+ *   limits file always do. Any other tenant arriving while the limit is
+ *   reached shares the buckets of "unknown" tenants (default limits).
+ * - Rejections are counted per class (banking.ratelimit.rejected), tagged
+ *   with the tenant if it is in the limits file and "unknown" otherwise.
+ */
+@Component
+public class TenantRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantRateLimiter.class);
+
+    private static final String UNKNOWN_TENANT = "unknown";
+
+    /**
+     * Rate and burst of a bucket, in GCRA terms
+     */
+    static final class Limit {
+
+        static final Limit UNLIMITED = new Limit(0, 0);
+
+        // Time one request "costs", and how far ahead of now the bucket may be booked
+        final long intervalNanos;
+        final long toleranceNanos;
+
+        private Limit(long intervalNanos, long toleranceNanos) {
+            this.intervalNanos = intervalNanos;
+            this.toleranceNanos = toleranceNanos;
+        }
+
+        static Limit of(double perSecond, int burst) {
+            if (perSecond <= 0) {
+                return UNLIMITED;
+            }
+            long interval = Math.max((long) (1_000_000_000L / perSecond), 1);
+            return new Limit(interval, interval * Math.max(burst, 1));
+        }
+
+        /**
+         * Parse "rate/burst" (burst defaults to the rate, at least 1)
+         */
+        static Limit parse(String value) {
+            String[] parts = value.trim().split("/");
+            double rate = Double.parseDouble(parts[0].trim());
+            int burst = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : (int) Math.ceil(rate);
+            return of(rate, burst);
+        }
+    }
+
+    /**
+     * One GCRA bucket: the theoretical arrival time of the next request
+     */
+    static final class Bucket {
+
+        private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+        private volatile Limit limit;
+
+        // Registered on the first rejection
+        private volatile Counter rejected;
+
+        Bucket(Limit limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * Apply a new limit; a changed limit starts from a full bucket
+         */
+        void setLimit(Limit newLimit) {
+            Limit current = limit;
+            if (current.intervalNanos != newLimit.intervalNanos || current.toleranceNanos != newLimit.toleranceNanos) {
+                limit = newLimit;
+                theoreticalArrival.set(Long.MIN_VALUE);
+            }
+        }
+
+        /**
+         * True once the bucket has refilled completely since its last request
+         */
+        boolean isFull(long now) {
+            long arrival = theoreticalArrival.get();
+            return arrival == Long.MIN_VALUE || arrival <= now;
+        }
+
+        /**
+         * @return 0 if the request is admitted, otherwise nanoseconds until it would be
+         */
+        long tryAcquire(long now) {
+            Limit current = limit;
+            if (current.intervalNanos == 0) {
+                return 0;
+            }
+            while (true) {
+                long arrival = theoreticalArrival.get();
+                long next = Math.max(arrival, now) + current.intervalNanos;
+                long allowedAt = next - current.toleranceNanos;
+                if (now < allowedAt) {
+                    return allowedAt - now;
+                }
+                if (theoreticalArrival.compareAndSet(arrival, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+
+    private final Map<RequestClass, Limit> defaults = new EnumMap<>(RequestClass.class);
+    private final Path limitsFile;
+    private final int maxTenants;
+    private final MeterRegistry registry;
+    private final ConcurrentHashMap<String, Bucket[]> buckets = new ConcurrentHashMap<>();
+    private final Function<String, Bucket[]> bucketFactory = this::newBuckets;
+    private final Bucket[] unknownBuckets;
+
+    private volatile Map<String, Map<RequestClass, Limit>> tenantLimits = Map.of();
+    private volatile FileTime loadedVersion;
+
+    public TenantRateLimiter(@Value("${banking.rate-limits.read:200/400}") String read,
+                             @Value("${banking.rate-limits.write:50/100}") String write,
+                             @Value("${banking.rate-limits.statement:5/20}") String statement,
+                             @Value("${banking.rate-limits.file:}") String limitsFile,
+                             @Value("${banking.rate-limits.max-tenants:10000}") int maxTenants,
+                             MeterRegistry registry) {
+        defaults.put(RequestClass.READ, Limit.parse(read));
+        defaults.put(RequestClass.WRITE, Limit.parse(write));
+        defaults.put(RequestClass.STATEMENT, Limit.parse(statement));
+        this.limitsFile = limitsFile.isBlank() ? null : Path.of(limitsFile);
+        this.maxTenants = maxTenants;
+        this.registry = registry;
+        this.unknownBuckets = newBuckets(UNKNOWN_TENANT);
+        reload();
+    }
+
+    /**
+     * Take a token for a request of the tenant
+     *
+     * @return 0 if the request is admitted, otherwise nanoseconds until the tenant may retry
+     */
+    public long tryAcquire(String tenantId, RequestClass requestClass) {
+        return tryAcquire(tenantId, requestClass, System.nanoTime());
+    }
+
+    long tryAcquire(String tenantId, RequestClass requestClass, long now) {
+        Bucket[] tenantBuckets = buckets.get(tenantId);
+        if (tenantBuckets == null) {
+            tenantBuckets = bucketsOf(tenantId);
+        }
+        Bucket bucket = tenantBuckets[requestClass.ordinal()];
+        long wait = bucket.tryAcquire(now);
+        if (wait > 0) {
+            Counter rejected = bucket.rejected;
+            if (rejected == null) {
+                String tag = tenantLimits.containsKey(tenantId) ? tenantId : UNKNOWN_TENANT;
+                rejected = registry.counter("banking.ratelimit.rejected", "tenant", tag,
+                        "class", requestClass.key());
+                bucket.rejected = rejected;
+            }
+            rejected.increment();
+        }
+        return wait;
+    }
+
+    /**
+     * Re-read the per-tenant limits file if it changed, and apply it to existing buckets
+     * A file that cannot be read or parsed is ignored; the previous limits stay
+     */
+    @Scheduled(fixedDelayString = "${banking.rate-limits.reload-interval:PT10S}")
+    public void reload() {
+        if (limitsFile == null) {
+            return;
+        }
+        try {
+            FileTime version = Files.exists(limitsFile) ? Files.getLastModifiedTime(limitsFile) : null;
+            if (Objects.equals(version, loadedVersion)) {
+                return;
+            }
+            tenantLimits = version == null ? Map.of() : parse(limitsFile);
+            loadedVersion = version;
+            buckets.forEach((tenantId, tenantBuckets) -> {
+                for (RequestClass requestClass : RequestClass.values()) {
+                    Bucket bucket = tenantBuckets[requestClass.ordinal()];
+                    bucket.setLimit(limitOf(tenantId, requestClass));
+                    // The tenant may have been added to or removed from the file: tag it anew
+                    bucket.rejected = null;
+                }
+            });
+            log.info("Loaded rate limits of {} tenants from {}", tenantLimits.size(), limitsFile);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load rate limits from {}: {}", limitsFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Drop the buckets of tenants whose buckets are all full again
+     * A full bucket behaves exactly like a new one, so nothing is lost
+     */
+    @Scheduled(fixedDelayString = "${banking.rate-limits.sweep-interval:PT1M}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.forEach((tenantId, tenantBuckets) -> {
+            for (Bucket bucket : tenantBuckets) {
+                if (!bucket.isFull(now)) {
+                    return;
+                }
+            }
+            buckets.remove(tenantId, tenantBuckets);
+        });
+    }
+
+    /**
+     * A tenant's own buckets, or the shared ones once max-tenants tenants have theirs
+     */
+    private Bucket[] bucketsOf(String tenantId) {
+        if (!tenantLimits.containsKey(tenantId) && buckets.mappingCount() >= maxTenants) {
+            return unknownBuckets;
+        }
+        return buckets.computeIfAbsent(tenantId, bucketFactory);
+    }
+
+    private Bucket[] newBuckets(String tenantId) {
+        Bucket[] tenantBuckets = new Bucket[RequestClass.values().length];
+        for (RequestClass requestClass : RequestClass.values()) {
+            tenantBuckets[requestClass.ordinal()] = new Bucket(limitOf(tenantId, requestClass));
+        }
+        return tenantBuckets;
+    }
+
+    private Limit limitOf(String tenantId, RequestClass requestClass) {
+        Map<RequestClass, Limit> limits = tenantLimits.get(tenantId);
+        Limit limit = limits != null ? limits.get(requestClass) : null;
+        return limit != null ? limit : defaults.get(requestClass);
+    }
+
+    /**
+     * Parse TENANT.class=rate/burst lines
+     */
+    private static Map<String, Map<RequestClass, Limit>> parse(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        Map<String, Map<RequestClass, Limit>> limits = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            int dot = name.lastIndexOf('.');
+            if (dot <= 0) {
+                throw new IllegalArgumentException("Invalid rate limit '" + name + "', expected TENANT.class");
+            }
+            RequestClass requestClass = RequestClass.valueOf(name.substring(dot + 1).toUpperCase());
+            limits.computeIfAbsent(name.substring(0, dot), tenant -> new EnumMap<>(RequestClass.class))
+                    .put(requestClass, Limit.parse(properties.getProperty(name)));
+        }
+        return limits;
+    }
+}
@@ -0,0 +1,50 @@
+package com.banking.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * TenantRoutingDataSource - Hands out connections of the current thread's shard
+ *
+ * The shard is resolved by ShardDirectory.currentShard() when a connection
+ * is borrowed, i.e. when a transaction starts. A tenant's transaction
+ * therefore always runs on one shard.
+ *
+ * These are the primary connections of read-write transactions (read-only
+ * ones go through ReadOnlyRoutingDataSource), so every connection handed
+ * out here counts as a write of the tenant for ReplicaRouter.
+ */
+public class TenantRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ShardDirectory directory;
+    private final ReplicaRouter replicaRouter;
+
+    public TenantRoutingDataSource(ShardDataSources shards, ShardDirectory directory, ReplicaRouter replicaRouter) {
+        this.directory = directory;
+        this.replicaRouter = replicaRouter;
+        Map<Object, Object> targets = new HashMap<>();
+        for (String shard : shards.getShards()) {
+            targets.put(shard, shards.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(shards.getDefaultShard()));
+        // A tenant on a shard this node does not know must fail, not fall back to the default
+        setLenientFallback(false);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        replicaRouter.recordWrite();
+        return connection;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return directory.currentShard();
+    }
+}
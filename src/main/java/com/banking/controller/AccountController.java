@@ -1,23 +1,40 @@
 package com.banking.controller;
 
 import com.banking.dto.AccountRequest;
+import com.banking.dto.AccountView;
+import com.banking.dto.PageResponse;
 import com.banking.entity.Account;
+import com.banking.service.AccountProvisioningService;
 import com.banking.service.AccountService;
+import com.banking.service.BalanceService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * AccountController - REST API endpoints for account management
  *
  * Endpoints:
  * - POST   /api/accounts             - Create new account
- * - GET    /api/accounts             - List all accounts (for current tenant)
+ * - POST   /api/accounts/bulk        - Create many accounts (JSON array or NDJSON)
+ * - GET    /api/accounts             - List accounts page by page (for current tenant)
  * - GET    /api/accounts/{id}        - Get specific account
+ * - GET    /api/accounts/{id}/balance - Get balance, optionally as of a point in time
  * - PUT    /api/accounts/{id}        - Update account
  * - DELETE /api/accounts/{id}        - Delete account
  *
@@ -30,6 +47,12 @@ public class AccountController {
     @Autowired
     private AccountService accountService;
 
+    @Autowired
+    private AccountProvisioningService accountProvisioningService;
+
+    @Autowired
+    private BalanceService balanceService;
+
     /**
      * Create a new account
      *
@@ -44,15 +67,54 @@ public class AccountController {
     }
 
     /**
-     * Get all accounts for the current tenant
+     * Create many accounts at once (tenant onboarding)
+     *
+     * POST /api/accounts/bulk
+     * Headers: X-Tenant-Id: BANK001
+     *          Content-Type: application/json or application/x-ndjson
+     * Body: [ { "customerName": "Alice", "balance": 1000.00 }, ... ]
+     *   or: one AccountRequest object per line
+     *
+     * Response: 200 OK, application/x-ndjson, one line per item in request order
+     *   {"index":0,"accountId":"uuid"}
+     *   {"index":1,"error":"Customer name is required"}
+     *
+     * The request is read and the response written as a stream, so payloads
+     * of any size are handled with constant memory.
+     */
+    @PostMapping(value = "/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void createAccountsBulk(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        accountProvisioningService.createAccounts(request.getInputStream(), response.getOutputStream());
+    }
+
+    /**
+     * Get accounts for the current tenant, one page at a time
      *
-     * GET /api/accounts
+     * GET /api/accounts?limit=50&cursor=...
      * Headers: X-Tenant-Id: BANK001
+     *
+     * Returns: { "items": [ ... ], "nextCursor": "..." }
+     * nextCursor is null on the last page.
      */
     @GetMapping
-    public ResponseEntity<List<Account>> getAllAccounts() {
-        List<Account> accounts = accountService.getAllAccounts();
-        return ResponseEntity.ok(accounts);
+    public ResponseEntity<?> getAccounts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            PageResponse<AccountView> page = accountService.getAccounts(cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (DataAccessException | TransactionException e) {
+            // Database unavailable or bulkhead full: GlobalExceptionHandler answers 503
+            throw e;
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body("{\"error\": \"" + e.getMessage() + "\"}");
+        }
     }
 
     /**
@@ -62,12 +124,44 @@ public class AccountController {
      * Headers: X-Tenant-Id: BANK001
      */
     @GetMapping("/{accountId}")
-    public ResponseEntity<Account> getAccountById(@PathVariable String accountId) {
+    public ResponseEntity<Account> getAccountById(@PathVariable UUID accountId) {
         return accountService.getAccountById(accountId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Get the balance of an account, optionally as of a point in time
+     *
+     * GET /api/accounts/{accountId}/balance?asOf=2025-12-01T00:00:00
+     * Headers: X-Tenant-Id: BANK001
+     *
+     * Returns: { "accountId": "...", "asOf": "2025-12-01T00:00:00", "balance": 1000.00 }
+     * The balance includes every transaction before asOf; without asOf it is
+     * the current balance.
+     */
+    @GetMapping("/{accountId}/balance")
+    public ResponseEntity<?> getBalance(
+            @PathVariable UUID accountId,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
+        try {
+            BigDecimal balance = balanceService.getBalance(accountId, asOf);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("accountId", accountId);
+            response.put("asOf", asOf);
+            response.put("balance", balance);
+            return ResponseEntity.ok(response);
+        } catch (DataAccessException | TransactionException e) {
+            // Database unavailable or bulkhead full: GlobalExceptionHandler answers 503
+            throw e;
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body("{\"error\": \"" + e.getMessage() + "\"}");
+        }
+    }
+
     /**
      * Update an existing account
      *
@@ -77,11 +171,14 @@ public class AccountController {
      */
     @PutMapping("/{accountId}")
     public ResponseEntity<Account> updateAccount(
-            @PathVariable String accountId,
+            @PathVariable UUID accountId,
             @Valid @RequestBody AccountRequest request) {
         try {
             Account account = accountService.updateAccount(accountId, request);
             return ResponseEntity.ok(account);
+        } catch (DataAccessException | TransactionException e) {
+            // Database unavailable or bulkhead full: GlobalExceptionHandler answers 503
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -94,10 +191,13 @@ public class AccountController {
      * Headers: X-Tenant-Id: BANK001
      */
     @DeleteMapping("/{accountId}")
-    public ResponseEntity<Void> deleteAccount(@PathVariable String accountId) {
+    public ResponseEntity<Void> deleteAccount(@PathVariable UUID accountId) {
         try {
             accountService.deleteAccount(accountId);
             return ResponseEntity.noContent().build();
+        } catch (DataAccessException | TransactionException e) {
+            // Database unavailable or bulkhead full: GlobalExceptionHandler answers 503
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
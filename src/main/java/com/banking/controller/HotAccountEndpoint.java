@@ -0,0 +1,39 @@
+package com.banking.controller;
+
+import com.banking.service.AccountBalanceSlots;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * HotAccountEndpoint - Operator endpoint for hot account balance slots
+ *
+ * Endpoints (actuator, not exposed over HTTP unless listed in
+ * management.endpoints.web.exposure.include):
+ * - POST /actuator/hotaccounts {"tenantId": "BANK001", "accountId": "uuid", "slots": 16}
+ *   - Split the account's balance into 16 slots; 0 makes it a normal account again
+ */
+@Component
+@Endpoint(id = "hotaccounts")
+public class HotAccountEndpoint {
+
+    private final AccountBalanceSlots balanceSlots;
+
+    public HotAccountEndpoint(AccountBalanceSlots balanceSlots) {
+        this.balanceSlots = balanceSlots;
+    }
+
+    @WriteOperation
+    public Map<String, Object> configure(String tenantId, String accountId, int slots) {
+        UUID id = UUID.fromString(accountId);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("tenantId", tenantId);
+        result.put("accountId", id);
+        result.put("slots", balanceSlots.configure(tenantId, id, slots));
+        return result;
+    }
+}
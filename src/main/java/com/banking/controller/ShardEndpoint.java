@@ -0,0 +1,53 @@
+package com.banking.controller;
+
+import com.banking.config.ShardDirectory;
+import com.banking.service.TenantShardMover;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * ShardEndpoint - Operator endpoint for the tenant shard directory
+ *
+ * Endpoints (actuator, not exposed over HTTP unless listed in
+ * management.endpoints.web.exposure.include):
+ * - GET  /actuator/shards - Shards and the tenants not on the default shard
+ * - POST /actuator/shards {"tenantId": "BANK001", "shard": "shard2"} - Move a tenant
+ */
+@Component
+@Endpoint(id = "shards")
+public class ShardEndpoint {
+
+    private final ShardDirectory directory;
+    private final TenantShardMover mover;
+
+    public ShardEndpoint(ShardDirectory directory, TenantShardMover mover) {
+        this.directory = directory;
+        this.mover = mover;
+    }
+
+    @ReadOperation
+    public Map<String, Object> shards() {
+        Map<String, Object> tenants = new TreeMap<>();
+        directory.getEntries().forEach((tenantId, entry) ->
+                tenants.put(tenantId, Map.of("shard", entry.getShard(), "frozen", entry.isFrozen())));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("defaultShard", directory.getDefaultShard());
+        result.put("shards", directory.getShards());
+        result.put("tenants", tenants);
+        return result;
+    }
+
+    /**
+     * Move a tenant to another shard; returns when the move is complete
+     */
+    @WriteOperation
+    public TenantShardMover.MoveResult move(String tenantId, String shard) {
+        return mover.moveTenant(tenantId, shard);
+    }
+}
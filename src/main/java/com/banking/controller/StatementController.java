@@ -1,36 +1,78 @@
 package com.banking.controller;
 
+import com.banking.dto.StatementJobStatus;
 import com.banking.dto.StatementRequest;
+import com.banking.entity.JobStatus;
 import com.banking.entity.StatementJob;
 import com.banking.service.StatementService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * StatementController - REST API endpoints for async statement generation
  *
  * Endpoints:
  * - POST /api/statements        - Request statement generation (returns jobId)
- * - GET  /api/statements/{jobId} - Check job status and get result
+ * - GET  /api/statements/{jobId} - Check job status (optionally long-poll with ?waitSeconds=)
+ * - GET  /api/statements/{jobId}/events - Stream job status changes (Server-Sent Events)
+ * - GET  /api/statements/{jobId}/download - Download the generated statement
  *
  * Flow:
  * 1. Client POSTs to /api/statements → receives jobId
  * 2. Background processing starts
- * 3. Client polls GET /api/statements/{jobId} until status is COMPLETED
+ * 3. Client waits for COMPLETED: SSE stream, long-poll, or plain polling
+ * 4. Client downloads the statement from /api/statements/{jobId}/download
  */
 @RestController
 @RequestMapping("/api/statements")
 public class StatementController {
 
+    // Tomcat's sendfile request attributes (org.apache.coyote.Constants)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     @Autowired
     private StatementService statementService;
 
+    // Upper bound for ?waitSeconds= long-polls
+    @Value("${banking.statements.max-wait:PT60S}")
+    private Duration maxWait;
+
+    // Lifetime of an SSE status stream
+    @Value("${banking.statements.events-timeout:PT10M}")
+    private Duration eventsTimeout;
+
     /**
      * Request a statement generation
      *
@@ -43,55 +85,215 @@ public class StatementController {
      * }
      *
      * Returns: { "jobId": "uuid-here", "status": "PENDING" }
+     *
+     * If the same statement was already generated and no transaction of the
+     * period changed since, returns 200 OK with the completed job's status
+     * (including downloadUrl) instead.
      */
     @PostMapping
     public ResponseEntity<?> requestStatement(@Valid @RequestBody StatementRequest request) {
         try {
             StatementJob job = statementService.requestStatement(request);
 
-            // Return jobId immediately so client can poll for results
+            // Same statement generated before and unchanged since: ready for download
+            if (job.getStatus() == JobStatus.COMPLETED) {
+                return ResponseEntity.ok(StatementJobStatus.from(job).toResponse());
+            }
+
+            // Return jobId immediately so client can wait for results
             Map<String, Object> response = new HashMap<>();
             response.put("jobId", job.getJobId());
             response.put("status", job.getStatus());
-            response.put("message", "Statement generation started. Poll /api/statements/" +
-                    job.getJobId() + " for results");
+            response.put("message", "Statement generation started. Follow /api/statements/" +
+                    job.getJobId() + "/events or poll /api/statements/" + job.getJobId() +
+                    "?waitSeconds=30 for results");
 
             return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+        } catch (DataAccessException | TransactionException e) {
+            // Database unavailable or bulkhead full: GlobalExceptionHandler answers 503
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
     /**
-     * Get the status and result of a statement job
+     * Get the status of a statement job, optionally waiting for it to finish
      *
-     * GET /api/statements/{jobId}
+     * GET /api/statements/{jobId}?waitSeconds=30
      * Headers: X-Tenant-Id: BANK001
      *
      * Returns:
      * - If PENDING/PROCESSING: { "jobId": "...", "status": "PROCESSING" }
-     * - If COMPLETED: { "jobId": "...", "status": "COMPLETED", "result": "..." }
-     * - If FAILED: { "jobId": "...", "status": "FAILED", "result": "error message" }
+     * - If COMPLETED: { "jobId": "...", "status": "COMPLETED", "downloadUrl": "...",
+     *                   "size": 1234, "contentLength": 5678, "expiresAt": "..." }
+     * - If FAILED: { "jobId": "...", "status": "FAILED", "error": "error message" }
+     * - If EXPIRED: { "jobId": "...", "status": "EXPIRED" }
+     *
+     * With waitSeconds (long-poll), the response is held until the job
+     * finishes or the wait runs out (capped at banking.statements.max-wait),
+     * then the latest status is returned. Waiting uses no request thread and
+     * no database queries.
+     *
+     * The statement itself is never part of this response; it is fetched
+     * from downloadUrl.
      */
     @GetMapping("/{jobId}")
-    public ResponseEntity<?> getJobStatus(@PathVariable String jobId) {
-        return statementService.getJobStatus(jobId)
-                .map(job -> {
-                    Map<String, Object> response = new HashMap<>();
-                    response.put("jobId", job.getJobId());
-                    response.put("status", job.getStatus());
-                    response.put("accountId", job.getAccountId());
-                    response.put("createdAt", job.getCreatedAt());
-                    response.put("completedAt", job.getCompletedAt());
-
-                    // Include result if job is completed or failed
-                    if (job.getStatus().toString().equals("COMPLETED") ||
-                            job.getStatus().toString().equals("FAILED")) {
-                        response.put("result", job.getResult());
-                    }
-
-                    return ResponseEntity.ok(response);
-                })
-                .orElse(ResponseEntity.notFound().build());
+    public DeferredResult<ResponseEntity<?>> getJobStatus(
+            @PathVariable UUID jobId,
+            @RequestParam(required = false) Integer waitSeconds) {
+        Optional<StatementJobStatus> current = statementService.getJobStatus(jobId);
+
+        if (current.isEmpty() || current.get().isFinished() || waitSeconds == null || waitSeconds <= 0) {
+            DeferredResult<ResponseEntity<?>> result = new DeferredResult<>();
+            result.setResult(current.<ResponseEntity<?>>map(status -> ResponseEntity.ok(status.toResponse()))
+                    .orElse(ResponseEntity.notFound().build()));
+            return result;
+        }
+
+        long waitMillis = Math.min(TimeUnit.SECONDS.toMillis(waitSeconds), maxWait.toMillis());
+        AtomicReference<StatementJobStatus> latest = new AtomicReference<>(current.get());
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(waitMillis,
+                () -> ResponseEntity.ok(latest.get().toResponse()));
+
+        Runnable unsubscribe = statementService.subscribe(jobId, status -> {
+            latest.set(status);
+            if (status.isFinished()) {
+                result.setResult(ResponseEntity.ok(status.toResponse()));
+            }
+        });
+        result.onCompletion(unsubscribe);
+
+        // The job may have finished between the first lookup and subscribing
+        statementService.getJobStatus(jobId)
+                .filter(StatementJobStatus::isFinished)
+                .ifPresent(status -> result.setResult(ResponseEntity.ok(status.toResponse())));
+        return result;
+    }
+
+    /**
+     * Stream status changes of a statement job as Server-Sent Events
+     *
+     * GET /api/statements/{jobId}/events
+     * Headers: X-Tenant-Id: BANK001
+     *
+     * Sends a "status" event with the current status right away and one per
+     * change (same data as GET /api/statements/{jobId}). The stream ends after
+     * the job finishes or after banking.statements.events-timeout.
+     */
+    @GetMapping("/{jobId}/events")
+    public ResponseEntity<SseEmitter> streamJobStatus(@PathVariable UUID jobId) {
+        Optional<StatementJobStatus> current = statementService.getJobStatus(jobId);
+        if (current.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        SseEmitter emitter = new SseEmitter(eventsTimeout.toMillis());
+        Consumer<StatementJobStatus> sender = status -> {
+            try {
+                emitter.send(SseEmitter.event().name("status").data(status.toResponse()));
+                if (status.isFinished()) {
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter already completed
+                emitter.completeWithError(e);
+            }
+        };
+
+        Runnable unsubscribe = statementService.subscribe(jobId, sender);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+
+        // Read again after subscribing so no change between lookup and subscription is lost
+        sender.accept(statementService.getJobStatus(jobId).orElse(current.get()));
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(emitter);
+    }
+
+    /**
+     * Download a generated statement
+     *
+     * GET /api/statements/{jobId}/download
+     * Headers: X-Tenant-Id: BANK001
+     *          Range: bytes=0-1023 (optional)
+     *
+     * Returns: 200 OK (or 206 Partial Content for a Range request),
+     * application/gzip, the gzip-compressed statement text.
+     *
+     * On a connector with sendfile support (Tomcat's NIO connector by default)
+     * the file is handed to the container, which sends it from the page cache
+     * to the socket without copying it through the heap. Elsewhere the bytes
+     * are copied to the response stream through a buffer. A single byte range
+     * is honoured (resuming interrupted downloads); requests for several
+     * ranges get the whole file.
+     */
+    @GetMapping("/{jobId}/download")
+    public void downloadStatement(
+            @PathVariable UUID jobId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        StatementJob job = statementService.getDownloadableJob(jobId);
+        Path file = statementService.locateArtifact(job);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            long start = 0;
+            long end = length - 1;
+
+            List<HttpRange> ranges = parseRanges(rangeHeader);
+            if (ranges.size() == 1) {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+                if (start >= length || start > end) {
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            } else {
+                response.setStatus(HttpStatus.OK.value());
+            }
+
+            long count = end - start + 1;
+            response.setContentType("application/gzip");
+            response.setContentLengthLong(count);
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            response.setHeader(HttpHeaders.ETAG, "\"" + job.getArtifactChecksum() + "\"");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"statement-" + job.getJobId() + ".txt.gz\"");
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                // Tomcat sends the range after this method returns; the end is exclusive
+                request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1);
+                return;
+            }
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                position += channel.transferTo(position, end - position + 1, target);
+            }
+            response.flushBuffer();
+        }
+    }
+
+    /**
+     * Parse a Range header; a malformed header is ignored and the whole file is sent
+     */
+    private static List<HttpRange> parseRanges(String rangeHeader) {
+        if (rangeHeader == null) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
     }
-}
\ No newline at end of file
+}
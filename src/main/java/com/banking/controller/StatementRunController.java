@@ -0,0 +1,181 @@
+package com.banking.controller;
+
+import com.banking.dto.PageResponse;
+import com.banking.dto.StatementRunRequest;
+import com.banking.entity.StatementJob;
+import com.banking.entity.StatementRun;
+import com.banking.entity.StatementRunStatus;
+import com.banking.service.StatementRunService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * StatementRunController - REST API endpoints for bulk statement runs
+ *
+ * Endpoints:
+ * - POST /api/statement-runs                   - Start a run for every account of the tenant
+ * - GET  /api/statement-runs/{runId}            - Progress and throughput of a run
+ * - GET  /api/statement-runs/{runId}/statements - Statements written so far, page by page
+ * - POST /api/statement-runs/{runId}/resume     - Retry the failed partitions of a run
+ *
+ * Statements are downloaded through /api/statements/{jobId}/download.
+ */
+@RestController
+@RequestMapping("/api/statement-runs")
+public class StatementRunController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    @Autowired
+    private StatementRunService statementRunService;
+
+    /**
+     * Start a bulk statement run
+     *
+     * POST /api/statement-runs
+     * Headers: X-Tenant-Id: BANK001
+     * Body: { "startDate": "2025-12-01", "endDate": "2025-12-31" }
+     *
+     * Returns: 202 Accepted with the run's progress (status PENDING)
+     */
+    @PostMapping
+    public ResponseEntity<?> startRun(@Valid @RequestBody StatementRunRequest request) {
+        try {
+            StatementRun run = statementRunService.startRun(request.getStartDate(), request.getEndDate());
+            return new ResponseEntity<>(runResponse(run), HttpStatus.ACCEPTED);
+        } catch (DataAccessException | TransactionException e) {
+            // Database unavailable or bulkhead full: GlobalExceptionHandler answers 503
+            throw e;
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("{\"error\": \"" + e.getMessage() + "\"}");
+        }
+    }
+
+    /**
+     * Get the progress of a run
+     *
+     * GET /api/statement-runs/{runId}
+     * Headers: X-Tenant-Id: BANK001
+     *
+     * Returns:
+     * {
+     *   "runId": "...", "status": "PROCESSING",
+     *   "partitions": 20, "completedPartitions": 12, "failedPartitions": 0,
+     *   "accounts": 10000, "statements": 6000, "transactions": 250000,
+     *   "progress": 0.6, "elapsedSeconds": 42.5,
+     *   "statementsPerSecond": 141.2, "transactionsPerSecond": 5882.4
+     * }
+     */
+    @GetMapping("/{runId}")
+    public ResponseEntity<?> getRun(@PathVariable UUID runId) {
+        return statementRunService.getRun(runId)
+                .<ResponseEntity<?>>map(run -> ResponseEntity.ok(runResponse(run)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * List the statements a run has written, in account order
+     *
+     * GET /api/statement-runs/{runId}/statements?limit=500&cursor=...
+     * Headers: X-Tenant-Id: BANK001
+     *
+     * Returns: { "items": [ { "accountId": "...", "jobId": "...", "downloadUrl": "..." } ],
+     *            "nextCursor": "..." }
+     */
+    @GetMapping("/{runId}/statements")
+    public ResponseEntity<?> getRunStatements(@PathVariable UUID runId,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer limit) {
+        try {
+            int pageSize = PageResponse.resolvePageSize(limit, 100, MAX_PAGE_SIZE);
+            UUID after = cursor != null ? UUID.fromString(cursor) : null;
+            List<StatementJob> jobs = statementRunService.getRunStatements(runId, after, pageSize + 1);
+
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (StatementJob job : jobs) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("accountId", job.getAccountId());
+                row.put("jobId", job.getJobId());
+                row.put("status", job.getStatus());
+                row.put("downloadUrl", "/api/statements/" + job.getJobId() + "/download");
+                rows.add(row);
+            }
+            return ResponseEntity.ok(PageResponse.of(rows, pageSize, row -> row.get("accountId").toString()));
+        } catch (DataAccessException | TransactionException e) {
+            // Database unavailable or bulkhead full: GlobalExceptionHandler answers 503
+            throw e;
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("{\"error\": \"" + e.getMessage() + "\"}");
+        }
+    }
+
+    /**
+     * Retry the failed partitions of a FAILED run
+     *
+     * POST /api/statement-runs/{runId}/resume
+     * Headers: X-Tenant-Id: BANK001
+     *
+     * Returns: 202 Accepted with the run's progress (status PENDING)
+     */
+    @PostMapping("/{runId}/resume")
+    public ResponseEntity<?> resumeRun(@PathVariable UUID runId) {
+        try {
+            StatementRun run = statementRunService.resumeRun(runId);
+            return new ResponseEntity<>(runResponse(run), HttpStatus.ACCEPTED);
+        } catch (DataAccessException | TransactionException e) {
+            // Database unavailable or bulkhead full: GlobalExceptionHandler answers 503
+            throw e;
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("{\"error\": \"" + e.getMessage() + "\"}");
+        }
+    }
+
+    /**
+     * Progress and throughput of a run
+     * Elapsed time runs from the first start to completion (or now)
+     */
+    private static Map<String, Object> runResponse(StatementRun run) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("runId", run.getRunId());
+        response.put("status", run.getStatus());
+        response.put("startDate", run.getStartDate());
+        response.put("endDate", run.getEndDate());
+        response.put("partitions", run.getTotalPartitions());
+        response.put("completedPartitions", run.getCompletedPartitions());
+        response.put("failedPartitions", run.getFailedPartitions());
+        response.put("accounts", run.getTotalAccounts());
+        response.put("statements", run.getStatementsWritten());
+        response.put("transactions", run.getTransactionsScanned());
+        response.put("progress", run.getTotalAccounts() == 0
+                ? (run.getStatus() == StatementRunStatus.COMPLETED ? 1.0 : 0.0)
+                : (double) run.getStatementsWritten() / run.getTotalAccounts());
+        response.put("createdAt", run.getCreatedAt());
+        response.put("startedAt", run.getStartedAt());
+        response.put("completedAt", run.getCompletedAt());
+
+        if (run.getStartedAt() != null) {
+            LocalDateTime end = run.getCompletedAt() != null ? run.getCompletedAt() : LocalDateTime.now();
+            double seconds = Math.max(Duration.between(run.getStartedAt(), end).toMillis(), 1) / 1000.0;
+            response.put("elapsedSeconds", seconds);
+            response.put("statementsPerSecond", run.getStatementsWritten() / seconds);
+            response.put("transactionsPerSecond", run.getTransactionsScanned() / seconds);
+        }
+        if (run.getErrorMessage() != null) {
+            response.put("error", run.getErrorMessage());
+        }
+        return response;
+    }
+}
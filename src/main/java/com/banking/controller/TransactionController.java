@@ -1,36 +1,59 @@
 package com.banking.controller;
 
+import com.banking.dto.BatchTransactionItem;
+import com.banking.dto.BatchTransactionRequest;
+import com.banking.dto.BatchTransactionResult;
+import com.banking.dto.ExportFormat;
+import com.banking.dto.PageResponse;
 import com.banking.dto.TransactionRequest;
+import com.banking.dto.TransactionView;
 import com.banking.entity.Transaction;
+import com.banking.service.PostingOutcomeUnknownException;
+import com.banking.service.TransactionExportService;
 import com.banking.service.TransactionService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * TransactionController - REST API endpoints for transaction management
  *
  * This controller handles all transaction-related operations:
  * - Creating deposits and withdrawals
+ * - Posting batches of deposits and withdrawals
  * - Retrieving transaction history for accounts
  *
  * All operations are automatically filtered by tenant via TenantFilter
  *
  * Endpoints:
- * - POST /api/accounts/{accountId}/transactions - Create a new transaction
- * - GET  /api/accounts/{accountId}/transactions - List all transactions for an account
+ * - POST /api/accounts/{accountId}/transactions       - Create a new transaction
+ * - POST /api/accounts/{accountId}/transactions/batch - Post a batch for one account
+ * - POST /api/transactions/batch                      - Post a batch across accounts
+ * - GET  /api/accounts/{accountId}/transactions       - List transactions for an account, page by page
+ * - GET  /api/accounts/{accountId}/transactions/export - Stream all transactions as NDJSON or CSV
  */
 @RestController
-@RequestMapping("/api/accounts")
+@RequestMapping("/api")
 public class TransactionController {
 
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private TransactionExportService transactionExportService;
+
     /**
      * Create a new transaction (deposit or withdrawal)
      *
@@ -59,17 +82,133 @@ public class TransactionController {
      * For DEPOSIT: balance increases
      * For WITHDRAWAL: balance decreases (if sufficient funds)
      *
+     * With group commit enabled, or for a tenant on the ledger engine, a full
+     * posting queue is answered with 503 Service Unavailable and Retry-After:
+     * the transaction was not posted. 504 Gateway Timeout means its outcome
+     * is unknown (it may have been committed): look it up before retrying.
+     *
      * @param accountId The account ID from the URL path
      * @param request The transaction details (type and amount)
      * @return ResponseEntity with created transaction or error message
      */
-    @PostMapping("/{accountId}/transactions")
+    @PostMapping("/accounts/{accountId}/transactions")
     public ResponseEntity<?> createTransaction(
-            @PathVariable String accountId,
+            @PathVariable UUID accountId,
             @Valid @RequestBody TransactionRequest request) {
         try {
             Transaction transaction = transactionService.createTransaction(accountId, request);
             return new ResponseEntity<>(transaction, HttpStatus.CREATED);
+        } catch (RejectedExecutionException e) {
+            // Group commit queue or ledger full: back off and retry
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("{\"error\": \"" + e.getMessage() + "\"}");
+        } catch (PostingOutcomeUnknownException e) {
+            // May have been committed: neither "not posted" (503) nor a client error
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                    .body("{\"error\": \"" + e.getMessage() + "\", \"outcome\": \"UNKNOWN\"}");
+        } catch (DataAccessException | TransactionException e) {
+            // Database unavailable or bulkhead full: GlobalExceptionHandler answers 503
+            throw e;
+        } catch (RuntimeException e) {
+            // Return error message in JSON format
+            return ResponseEntity.badRequest()
+                    .body("{\"error\": \"" + e.getMessage() + "\"}");
+        }
+    }
+
+    /**
+     * Post a batch of transactions for one account
+     *
+     * Endpoint: POST /api/accounts/{accountId}/transactions/batch
+     *
+     * Headers:
+     *   X-Tenant-Id: BANK001 (required)
+     *
+     * Request Body:
+     * {
+     *   "transactions": [
+     *     { "type": "DEPOSIT", "amount": 500.00 },
+     *     { "type": "WITHDRAWAL", "amount": 200.00 }
+     *   ]
+     * }
+     *
+     * Response: 200 OK
+     * {
+     *   "applied": 2,
+     *   "rejected": 0,
+     *   "results": [
+     *     { "index": 0, "accountId": "account-uuid", "status": "APPLIED", "transactionId": "uuid1" },
+     *     { "index": 1, "accountId": "account-uuid", "status": "APPLIED", "transactionId": "uuid2" }
+     *   ]
+     * }
+     *
+     * All items are applied in one database transaction. Items that fail
+     * (e.g. insufficient balance) are reported as REJECTED with an error.
+     *
+     * @param accountId The account ID from the URL path (overrides any accountId in the items)
+     * @param request The transactions to post
+     * @return ResponseEntity with one result per item
+     */
+    @PostMapping("/accounts/{accountId}/transactions/batch")
+    public ResponseEntity<?> createAccountTransactionsBatch(
+            @PathVariable UUID accountId,
+            @Valid @RequestBody BatchTransactionRequest request) {
+        for (BatchTransactionItem item : request.getTransactions()) {
+            item.setAccountId(accountId);
+        }
+        return createTransactionsBatch(request);
+    }
+
+    /**
+     * Post a batch of transactions across several accounts
+     *
+     * Endpoint: POST /api/transactions/batch
+     *
+     * Headers:
+     *   X-Tenant-Id: BANK001 (required)
+     *
+     * Request Body:
+     * {
+     *   "transactions": [
+     *     { "accountId": "account-uuid-1", "type": "DEPOSIT", "amount": 500.00 },
+     *     { "accountId": "account-uuid-2", "type": "WITHDRAWAL", "amount": 200.00 }
+     *   ]
+     * }
+     *
+     * Response: 200 OK (same format as the per-account batch endpoint)
+     *
+     * @param request The transactions to post, each with its accountId
+     * @return ResponseEntity with one result per item
+     */
+    @PostMapping("/transactions/batch")
+    public ResponseEntity<?> createTransactionsBatch(@Valid @RequestBody BatchTransactionRequest request) {
+        try {
+            List<BatchTransactionResult> results =
+                    transactionService.createTransactionsBatch(request.getTransactions());
+
+            long applied = results.stream()
+                    .filter(result -> BatchTransactionResult.APPLIED.equals(result.getStatus()))
+                    .count();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("applied", applied);
+            response.put("rejected", results.size() - applied);
+            response.put("results", results);
+
+            return ResponseEntity.ok(response);
+        } catch (RejectedExecutionException e) {
+            // Ledger overloaded or stopping: back off and retry
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("{\"error\": \"" + e.getMessage() + "\"}");
+        } catch (PostingOutcomeUnknownException e) {
+            // May have been committed: neither "not posted" (503) nor a client error
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                    .body("{\"error\": \"" + e.getMessage() + "\", \"outcome\": \"UNKNOWN\"}");
+        } catch (DataAccessException | TransactionException e) {
+            // Database unavailable or bulkhead full: GlobalExceptionHandler answers 503
+            throw e;
         } catch (RuntimeException e) {
             // Return error message in JSON format
             return ResponseEntity.badRequest()
@@ -78,49 +217,94 @@ public class TransactionController {
     }
 
     /**
-     * Get all transactions for a specific account
+     * Get transactions for a specific account, one page at a time
      *
-     * Endpoint: GET /api/accounts/{accountId}/transactions
+     * Endpoint: GET /api/accounts/{accountId}/transactions?limit=50&cursor=...
      *
      * Headers:
      *   X-Tenant-Id: BANK001 (required)
      *
      * Response: 200 OK
-     * [
-     *   {
-     *     "transactionId": "uuid1",
-     *     "accountId": "account-uuid",
-     *     "tenantId": "BANK001",
-     *     "type": "DEPOSIT",
-     *     "amount": 500.00,
-     *     "timestamp": "2025-12-01T10:30:00"
-     *   },
-     *   {
-     *     "transactionId": "uuid2",
-     *     "accountId": "account-uuid",
-     *     "tenantId": "BANK001",
-     *     "type": "WITHDRAWAL",
-     *     "amount": 200.00,
-     *     "timestamp": "2025-12-01T11:00:00"
-     *   }
-     * ]
+     * {
+     *   "items": [
+     *     {
+     *       "transactionId": "uuid1",
+     *       "accountId": "account-uuid",
+     *       "tenantId": "BANK001",
+     *       "type": "DEPOSIT",
+     *       "amount": 500.00,
+     *       "timestamp": "2025-12-01T10:30:00"
+     *     }
+     *   ],
+     *   "nextCursor": "opaque-token"
+     * }
+     *
+     * Transactions are ordered by (timestamp, transactionId). Pass nextCursor
+     * back as "cursor" to get the next page; it is null on the last page.
      *
      * Only returns transactions that belong to:
      * 1. The specified account
      * 2. The current tenant (from X-Tenant-Id header)
      *
      * @param accountId The account ID from the URL path
-     * @return ResponseEntity with list of transactions or error message
+     * @param cursor Continuation token from the previous page (optional)
+     * @param limit Page size (optional, capped)
+     * @return ResponseEntity with a page of transactions or error message
      */
-    @GetMapping("/{accountId}/transactions")
-    public ResponseEntity<?> getTransactions(@PathVariable String accountId) {
+    @GetMapping("/accounts/{accountId}/transactions")
+    public ResponseEntity<?> getTransactions(
+            @PathVariable UUID accountId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
-            List<Transaction> transactions = transactionService.getTransactionsByAccount(accountId);
-            return ResponseEntity.ok(transactions);
+            PageResponse<TransactionView> page = transactionService.getTransactionsByAccount(accountId, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (DataAccessException | TransactionException e) {
+            // Database unavailable or bulkhead full: GlobalExceptionHandler answers 503
+            throw e;
         } catch (RuntimeException e) {
             // Return error message in JSON format
             return ResponseEntity.badRequest()
                     .body("{\"error\": \"" + e.getMessage() + "\"}");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Export every transaction of an account in a single download
+     *
+     * Endpoint: GET /api/accounts/{accountId}/transactions/export?format=ndjson
+     *
+     * Headers:
+     *   X-Tenant-Id: BANK001 (required)
+     *
+     * Response: 200 OK
+     *   format=ndjson (default): application/x-ndjson, one transaction per line
+     *   format=csv: text/csv with header
+     *     transactionId,accountId,type,amount,timestamp
+     *
+     * Transactions are ordered by (timestamp, transactionId) and streamed from
+     * the database as they are read, so accounts with millions of rows are
+     * exported with constant memory.
+     *
+     * @param accountId The account ID from the URL path
+     * @param format ndjson or csv
+     * @param response The servlet response the export is written to
+     */
+    @GetMapping("/accounts/{accountId}/transactions/export")
+    public void exportTransactions(
+            @PathVariable UUID accountId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+
+        // Headers are only set once the account check has passed, so errors
+        // are still returned as JSON by GlobalExceptionHandler
+        transactionExportService.exportTransactions(accountId, exportFormat, () -> {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(exportFormat.getContentType());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"transactions-" + accountId + "." + exportFormat.getFileExtension() + "\"");
+            return response.getOutputStream();
+        });
+    }
+}
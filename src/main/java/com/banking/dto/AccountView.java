@@ -0,0 +1,57 @@
+package com.banking.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * AccountView - An account as listed by GET /api/accounts
+ *
+ * Selected directly by AccountRepository (JPQL constructor expression), so a
+ * listing never creates managed Account entities or dirty-checking
+ * snapshots. Serialises to the same JSON as the Account entity: a field
+ * added to one must be added to the other.
+ */
+public class AccountView {
+
+    private final UUID accountId;
+    private final String tenantId;
+    private final String customerName;
+    private final BigDecimal balance;
+    private final int balanceSlots;
+    private final LocalDateTime createdAt;
+
+    public AccountView(UUID accountId, String tenantId, String customerName, BigDecimal balance,
+                       int balanceSlots, LocalDateTime createdAt) {
+        this.accountId = accountId;
+        this.tenantId = tenantId;
+        this.customerName = customerName;
+        this.balance = balance;
+        this.balanceSlots = balanceSlots;
+        this.createdAt = createdAt;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public int getBalanceSlots() {
+        return balanceSlots;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
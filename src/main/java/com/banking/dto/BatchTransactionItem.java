@@ -0,0 +1,59 @@
+package com.banking.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * BatchTransactionItem - One deposit or withdrawal inside a batch
+ *
+ * accountId is required for the cross-account endpoint (POST /api/transactions/batch).
+ * For POST /api/accounts/{accountId}/transactions/batch it is taken from the URL.
+ */
+public class BatchTransactionItem {
+
+    private UUID accountId;
+
+    @NotBlank(message = "Transaction type is required")
+    private String type; // DEPOSIT or WITHDRAWAL
+
+    @NotNull(message = "Amount is required")
+    @Positive(message = "Amount must be positive")
+    private BigDecimal amount;
+
+    // Constructors
+    public BatchTransactionItem() {}
+
+    public BatchTransactionItem(UUID accountId, String type, BigDecimal amount) {
+        this.accountId = accountId;
+        this.type = type;
+        this.amount = amount;
+    }
+
+    // Getters and Setters
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(UUID accountId) {
+        this.accountId = accountId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+}
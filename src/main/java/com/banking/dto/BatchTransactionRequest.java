@@ -0,0 +1,34 @@
+package com.banking.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * BatchTransactionRequest - DTO for posting many transactions at once
+ *
+ * All items are applied in a single database transaction.
+ */
+public class BatchTransactionRequest {
+
+    @NotEmpty(message = "At least one transaction is required")
+    @Size(max = 10000, message = "A batch may contain at most 10000 transactions")
+    private List<@Valid BatchTransactionItem> transactions;
+
+    // Constructors
+    public BatchTransactionRequest() {}
+
+    public BatchTransactionRequest(List<BatchTransactionItem> transactions) {
+        this.transactions = transactions;
+    }
+
+    // Getters and Setters
+    public List<BatchTransactionItem> getTransactions() {
+        return transactions;
+    }
+
+    public void setTransactions(List<BatchTransactionItem> transactions) {
+        this.transactions = transactions;
+    }
+}
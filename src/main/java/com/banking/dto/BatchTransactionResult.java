@@ -0,0 +1,83 @@
+package com.banking.dto;
+
+import java.util.UUID;
+
+/**
+ * BatchTransactionResult - Outcome of one item of a transaction batch
+ *
+ * status is APPLIED (transactionId is set) or REJECTED (error is set).
+ * index refers to the position of the item in the request.
+ */
+public class BatchTransactionResult {
+
+    public static final String APPLIED = "APPLIED";
+    public static final String REJECTED = "REJECTED";
+
+    private int index;
+    private UUID accountId;
+    private String status;
+    private UUID transactionId;
+    private String error;
+
+    // Constructors
+    public BatchTransactionResult() {}
+
+    public static BatchTransactionResult applied(int index, UUID accountId, UUID transactionId) {
+        BatchTransactionResult result = new BatchTransactionResult();
+        result.index = index;
+        result.accountId = accountId;
+        result.status = APPLIED;
+        result.transactionId = transactionId;
+        return result;
+    }
+
+    public static BatchTransactionResult rejected(int index, UUID accountId, String error) {
+        BatchTransactionResult result = new BatchTransactionResult();
+        result.index = index;
+        result.accountId = accountId;
+        result.status = REJECTED;
+        result.error = error;
+        return result;
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(UUID accountId) {
+        this.accountId = accountId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public UUID getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(UUID transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
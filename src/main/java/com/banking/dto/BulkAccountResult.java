@@ -0,0 +1,54 @@
+package com.banking.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+/**
+ * BulkAccountResult - Compact outcome of one item of a bulk account import
+ *
+ * Written as one NDJSON line per item:
+ *   {"index":0,"accountId":"uuid"}          - account created
+ *   {"index":1,"error":"Balance is required"} - item rejected
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkAccountResult {
+
+    private int index;
+    private UUID accountId;
+    private String error;
+
+    // Constructors
+    public BulkAccountResult() {}
+
+    public BulkAccountResult(int index, UUID accountId, String error) {
+        this.index = index;
+        this.accountId = accountId;
+        this.error = error;
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(UUID accountId) {
+        this.accountId = accountId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,43 @@
+package com.banking.dto;
+
+import org.springframework.http.MediaType;
+
+/**
+ * ExportFormat - Output formats supported by the transaction export
+ *
+ * - NDJSON: one JSON transaction per line (application/x-ndjson)
+ * - CSV: header line followed by one row per transaction (text/csv)
+ */
+public enum ExportFormat {
+
+    NDJSON(MediaType.APPLICATION_NDJSON_VALUE, "ndjson"),
+    CSV("text/csv;charset=UTF-8", "csv");
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    /**
+     * Resolve the "format" request parameter (case-insensitive)
+     */
+    public static ExportFormat fromParameter(String format) {
+        for (ExportFormat value : values()) {
+            if (value.name().equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new RuntimeException("Invalid export format. Use ndjson or csv");
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+}
@@ -0,0 +1,66 @@
+package com.banking.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * PageCursor - Opaque continuation token for keyset pagination
+ *
+ * A cursor holds the sort key of the last row of a page:
+ * - timestamp: createdAt (accounts) or timestamp (transactions)
+ * - id: accountId or transactionId, used as tie-breaker
+ *
+ * Clients only ever see the Base64 (URL-safe) encoded form and send it back
+ * unchanged to fetch the next page.
+ */
+public class PageCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime timestamp;
+    private final UUID id;
+
+    public PageCursor(LocalDateTime timestamp, UUID id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    /**
+     * Encode a sort key into an opaque token
+     */
+    public static String encode(LocalDateTime timestamp, UUID id) {
+        String raw = timestamp + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token received from a client
+     *
+     * @throws RuntimeException if the token was not produced by encode()
+     */
+    public static PageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new PageCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    // Getters
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+}
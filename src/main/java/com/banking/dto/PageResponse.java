@@ -0,0 +1,61 @@
+package com.banking.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * PageResponse - One page of a keyset-paginated listing
+ *
+ * Response format:
+ * {
+ *   "items": [ ... ],
+ *   "nextCursor": "opaque-token"   // null on the last page
+ * }
+ *
+ * Pass nextCursor as the "cursor" query parameter to fetch the following page.
+ */
+public class PageResponse<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public PageResponse(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Build a page from rows fetched with limit + 1
+     * The extra row only tells us that another page exists; it is not returned.
+     *
+     * @param rows Rows in sort order, at most limit + 1
+     * @param limit Requested page size
+     * @param cursorOf Produces the cursor token for a row
+     */
+    public static <T> PageResponse<T> of(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new PageResponse<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new PageResponse<>(items, cursorOf.apply(items.get(limit - 1)));
+    }
+
+    /**
+     * Apply the default and the cap to a client-supplied page size
+     */
+    public static int resolvePageSize(Integer requested, int defaultSize, int maxSize) {
+        if (requested == null || requested < 1) {
+            return defaultSize;
+        }
+        return Math.min(requested, maxSize);
+    }
+
+    // Getters
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
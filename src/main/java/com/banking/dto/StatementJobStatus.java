@@ -0,0 +1,120 @@
+package com.banking.dto;
+
+import com.banking.entity.JobStatus;
+import com.banking.entity.StatementJob;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * StatementJobStatus - Immutable snapshot of a statement job's status
+ *
+ * Published by StatementJobStatusHub to waiting clients and kept in its
+ * cache, so status polls and waits do not need to load the job entity.
+ */
+public class StatementJobStatus {
+
+    private final UUID jobId;
+    private final String tenantId;
+    private final UUID accountId;
+    private final JobStatus status;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime completedAt;
+    private final Long size;
+    private final Long contentLength;
+    private final LocalDateTime expiresAt;
+    private final String error;
+
+    public StatementJobStatus(UUID jobId, String tenantId, UUID accountId, JobStatus status,
+                              LocalDateTime createdAt, LocalDateTime completedAt,
+                              Long size, Long contentLength, LocalDateTime expiresAt, String error) {
+        this.jobId = jobId;
+        this.tenantId = tenantId;
+        this.accountId = accountId;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.completedAt = completedAt;
+        this.size = size;
+        this.contentLength = contentLength;
+        this.expiresAt = expiresAt;
+        this.error = error;
+    }
+
+    public static StatementJobStatus from(StatementJob job) {
+        return new StatementJobStatus(job.getJobId(), job.getTenantId(), job.getAccountId(), job.getStatus(),
+                job.getCreatedAt(), job.getCompletedAt(), job.getArtifactSize(), job.getContentLength(),
+                job.getExpiresAt(), job.getErrorMessage());
+    }
+
+    /**
+     * True once the job will not change any more (apart from expiring)
+     */
+    public boolean isFinished() {
+        return status == JobStatus.COMPLETED || status == JobStatus.FAILED || status == JobStatus.EXPIRED;
+    }
+
+    /**
+     * Response body of the status endpoints
+     * Download details are only included for completed jobs, the error only for failed ones
+     */
+    public Map<String, Object> toResponse() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobId", jobId);
+        response.put("status", status);
+        response.put("accountId", accountId);
+        response.put("createdAt", createdAt);
+        response.put("completedAt", completedAt);
+
+        if (status == JobStatus.COMPLETED) {
+            response.put("downloadUrl", "/api/statements/" + jobId + "/download");
+            response.put("size", size);
+            response.put("contentLength", contentLength);
+            response.put("expiresAt", expiresAt);
+        } else if (status == JobStatus.FAILED) {
+            response.put("error", error);
+        }
+        return response;
+    }
+
+    public UUID getJobId() {
+        return jobId;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public Long getContentLength() {
+        return contentLength;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -1,8 +1,9 @@
 package com.banking.dto;
 
-import jakarta.validation.constraints.NotBlank;
+import com.banking.entity.JobPriority;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDate;
+import java.util.UUID;
 
 /**
  * StatementRequest - DTO for requesting account statements
@@ -11,11 +12,12 @@ import java.time.LocalDate;
  * - accountId: Which account to generate statement for
  * - startDate: Beginning of date range
  * - endDate: End of date range
+ * - priority: INTERACTIVE (default) or BULK, optional
  */
 public class StatementRequest {
 
-    @NotBlank(message = "Account ID is required")
-    private String accountId;
+    @NotNull(message = "Account ID is required")
+    private UUID accountId;
 
     @NotNull(message = "Start date is required")
     private LocalDate startDate;
@@ -23,21 +25,23 @@ public class StatementRequest {
     @NotNull(message = "End date is required")
     private LocalDate endDate;
 
+    private JobPriority priority;
+
     // Constructors
     public StatementRequest() {}
 
-    public StatementRequest(String accountId, LocalDate startDate, LocalDate endDate) {
+    public StatementRequest(UUID accountId, LocalDate startDate, LocalDate endDate) {
         this.accountId = accountId;
         this.startDate = startDate;
         this.endDate = endDate;
     }
 
     // Getters and Setters
-    public String getAccountId() {
+    public UUID getAccountId() {
         return accountId;
     }
 
-    public void setAccountId(String accountId) {
+    public void setAccountId(UUID accountId) {
         this.accountId = accountId;
     }
 
@@ -56,4 +60,12 @@ public class StatementRequest {
     public void setEndDate(LocalDate endDate) {
         this.endDate = endDate;
     }
-}
\ No newline at end of file
+
+    public JobPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(JobPriority priority) {
+        this.priority = priority;
+    }
+}
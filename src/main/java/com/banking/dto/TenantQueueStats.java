@@ -0,0 +1,56 @@
+package com.banking.dto;
+
+import com.banking.entity.JobPriority;
+
+import java.time.LocalDateTime;
+
+/**
+ * TenantQueueStats - Pending statement jobs of one tenant and priority class
+ *
+ * Loaded by StatementJobQueue on every poll; the fair-share scheduler
+ * decides from it which tenants get the idle workers, and the queue
+ * metrics report it as depth and wait time per tenant.
+ */
+public class TenantQueueStats {
+
+    private final String tenantId;
+    private final JobPriority priority;
+    private final long pending;
+    private final LocalDateTime oldestDueAt;
+
+    public TenantQueueStats(String tenantId, JobPriority priority, long pending, LocalDateTime oldestDueAt) {
+        this.tenantId = tenantId;
+        this.priority = priority;
+        this.pending = pending;
+        this.oldestDueAt = oldestDueAt;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public JobPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Number of PENDING jobs, including ones waiting for a retry
+     */
+    public long getPending() {
+        return pending;
+    }
+
+    /**
+     * Earliest nextAttemptAt of the pending jobs
+     */
+    public LocalDateTime getOldestDueAt() {
+        return oldestDueAt;
+    }
+
+    /**
+     * True if at least one of the jobs can be claimed now
+     */
+    public boolean isDue(LocalDateTime now) {
+        return pending > 0 && !oldestDueAt.isAfter(now);
+    }
+}
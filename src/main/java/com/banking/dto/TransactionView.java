@@ -0,0 +1,58 @@
+package com.banking.dto;
+
+import com.banking.entity.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * TransactionView - A transaction as listed by GET /api/accounts/{id}/transactions
+ *
+ * Selected directly by TransactionRepository (JPQL constructor expression),
+ * so a listing never creates managed Transaction entities or dirty-checking
+ * snapshots. Serialises to the same JSON as the Transaction entity.
+ */
+public class TransactionView {
+
+    private final UUID transactionId;
+    private final UUID accountId;
+    private final String tenantId;
+    private final TransactionType type;
+    private final BigDecimal amount;
+    private final LocalDateTime timestamp;
+
+    public TransactionView(UUID transactionId, UUID accountId, String tenantId, TransactionType type,
+                           BigDecimal amount, LocalDateTime timestamp) {
+        this.transactionId = transactionId;
+        this.accountId = accountId;
+        this.tenantId = tenantId;
+        this.type = type;
+        this.amount = amount;
+        this.timestamp = timestamp;
+    }
+
+    public UUID getTransactionId() {
+        return transactionId;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+}
@@ -1,8 +1,16 @@
 package com.banking.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Formula;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UuidGenerator;
+import org.hibernate.type.SqlTypes;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 /**
  * Account Entity - Represents a bank account in the system
@@ -11,19 +19,32 @@ import java.time.LocalDateTime;
  * Each account belongs to a specific tenant (bank/branch).
  *
  * Key fields:
- * - accountId: Unique identifier (auto-generated UUID)
+ * - accountId: Unique identifier (time-ordered UUIDv7, stored as BINARY(16))
  * - tenantId: Identifies which bank/branch owns this account
  * - customerName: Name of the account holder
  * - balance: Current account balance
+ * - balanceSlots: Number of sub-balance slots of a hot account, 0 for a normal one
  * - createdAt: Timestamp when account was created
+ * - updatedAt: Timestamp of the last entity update (rename or balance set),
+ *   null if never updated; not part of the JSON
+ *
+ * The balance of a hot account (see AccountBalanceSlots) is split between the
+ * balance column and its rows in account_balance_slots. getBalance() returns
+ * the total as of when the account was loaded.
+ *
+ * Updates only write changed columns (@DynamicUpdate): renaming an account
+ * must not write back a balance that concurrent postings have moved on from.
  */
 @Entity
+@DynamicUpdate
 @Table(name = "accounts")
 public class Account {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    private String accountId;
+    @UuidGenerator(style = UuidGenerator.Style.VERSION_7)
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    private UUID accountId;
 
     @Column(nullable = false)
     private String tenantId;
@@ -34,15 +55,31 @@ public class Account {
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal balance;
 
+    @Column(nullable = false)
+    private int balanceSlots;
+
+    // Sum of the sub-balance slots, read with the account
+    @Formula("(CASE WHEN balance_slots > 0 THEN (SELECT COALESCE(SUM(s.balance), 0) FROM account_balance_slots s "
+            + "WHERE s.tenant_id = tenant_id AND s.account_id = account_id) ELSE 0 END)")
+    private BigDecimal slotBalance;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    private LocalDateTime updatedAt;
+
     // Automatically set creation timestamp before persisting
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
     }
 
+    // Balance deltas are bulk UPDATEs and do not pass here
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
     // Constructors
     public Account() {}
 
@@ -53,11 +90,11 @@ public class Account {
     }
 
     // Getters and Setters
-    public String getAccountId() {
+    public UUID getAccountId() {
         return accountId;
     }
 
-    public void setAccountId(String accountId) {
+    public void setAccountId(UUID accountId) {
         this.accountId = accountId;
     }
 
@@ -78,11 +115,24 @@ public class Account {
     }
 
     public BigDecimal getBalance() {
-        return balance;
+        return slotBalance == null ? balance : balance.add(slotBalance);
     }
 
+    /**
+     * Set the balance column; the slots of a hot account must be cleared as well
+     * (AccountBalanceSlots.clear) for this to be the account's balance
+     */
     public void setBalance(BigDecimal balance) {
         this.balance = balance;
+        this.slotBalance = null;
+    }
+
+    public int getBalanceSlots() {
+        return balanceSlots;
+    }
+
+    public void setBalanceSlots(int balanceSlots) {
+        this.balanceSlots = balanceSlots;
     }
 
     public LocalDateTime getCreatedAt() {
@@ -92,4 +142,9 @@ public class Account {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    @JsonIgnore
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.banking.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * AccountBalanceSlot Entity - One sub-balance of a hot account
+ *
+ * Deposits to a hot account add to one of its slots instead of the account
+ * row, so concurrent deposits lock different rows. Slots only ever grow
+ * until a withdrawal moves them back into the account row (see
+ * AccountBalanceSlots), so a slot balance is never negative.
+ */
+@Entity
+@Table(name = "account_balance_slots")
+@IdClass(AccountBalanceSlotId.class)
+public class AccountBalanceSlot {
+
+    @Id
+    @Column(nullable = false)
+    private String tenantId;
+
+    @Id
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(nullable = false, length = 16)
+    private UUID accountId;
+
+    @Id
+    @Column(nullable = false)
+    private int slot;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+
+    // Constructors
+    public AccountBalanceSlot() {}
+
+    public AccountBalanceSlot(String tenantId, UUID accountId, int slot, BigDecimal balance) {
+        this.tenantId = tenantId;
+        this.accountId = accountId;
+        this.slot = slot;
+        this.balance = balance;
+    }
+
+    // Getters
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+}
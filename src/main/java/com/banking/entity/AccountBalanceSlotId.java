@@ -0,0 +1,42 @@
+package com.banking.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * AccountBalanceSlotId - Composite primary key of AccountBalanceSlot
+ * (tenantId, accountId, slot)
+ */
+public class AccountBalanceSlotId implements Serializable {
+
+    private String tenantId;
+    private UUID accountId;
+    private int slot;
+
+    public AccountBalanceSlotId() {}
+
+    public AccountBalanceSlotId(String tenantId, UUID accountId, int slot) {
+        this.tenantId = tenantId;
+        this.accountId = accountId;
+        this.slot = slot;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AccountBalanceSlotId other)) {
+            return false;
+        }
+        return Objects.equals(tenantId, other.tenantId)
+                && Objects.equals(accountId, other.accountId)
+                && slot == other.slot;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tenantId, accountId, slot);
+    }
+}
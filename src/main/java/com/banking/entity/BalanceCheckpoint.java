@@ -0,0 +1,108 @@
+package com.banking.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * BalanceCheckpoint Entity - End-of-day balance of an account
+ *
+ * A checkpoint for checkpointDate D holds the balance after every transaction
+ * with a timestamp before D+1 00:00. Balances at any other point in time are
+ * derived from the nearest checkpoint plus the transactions in between, so
+ * the cost does not depend on how old the account is.
+ *
+ * Checkpoints are written by the daily close job (BalanceService.closeDay).
+ */
+@Entity
+@Table(name = "balance_checkpoints")
+@IdClass(BalanceCheckpointId.class)
+public class BalanceCheckpoint {
+
+    @Id
+    @Column(nullable = false)
+    private String tenantId;
+
+    @Id
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(nullable = false, length = 16)
+    private UUID accountId;
+
+    @Id
+    @Column(nullable = false)
+    private LocalDate checkpointDate;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public BalanceCheckpoint() {}
+
+    public BalanceCheckpoint(String tenantId, UUID accountId, LocalDate checkpointDate, BigDecimal balance) {
+        this.tenantId = tenantId;
+        this.accountId = accountId;
+        this.checkpointDate = checkpointDate;
+        this.balance = balance;
+    }
+
+    /**
+     * First instant not covered by this checkpoint (start of the following day)
+     */
+    public LocalDateTime getClosedBefore() {
+        return checkpointDate.plusDays(1).atStartOfDay();
+    }
+
+    // Getters and Setters
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(UUID accountId) {
+        this.accountId = accountId;
+    }
+
+    public LocalDate getCheckpointDate() {
+        return checkpointDate;
+    }
+
+    public void setCheckpointDate(LocalDate checkpointDate) {
+        this.checkpointDate = checkpointDate;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
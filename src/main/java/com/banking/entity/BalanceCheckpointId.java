@@ -0,0 +1,43 @@
+package com.banking.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * BalanceCheckpointId - Composite primary key of BalanceCheckpoint
+ * (tenantId, accountId, checkpointDate)
+ */
+public class BalanceCheckpointId implements Serializable {
+
+    private String tenantId;
+    private UUID accountId;
+    private LocalDate checkpointDate;
+
+    public BalanceCheckpointId() {}
+
+    public BalanceCheckpointId(String tenantId, UUID accountId, LocalDate checkpointDate) {
+        this.tenantId = tenantId;
+        this.accountId = accountId;
+        this.checkpointDate = checkpointDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BalanceCheckpointId other)) {
+            return false;
+        }
+        return Objects.equals(tenantId, other.tenantId)
+                && Objects.equals(accountId, other.accountId)
+                && Objects.equals(checkpointDate, other.checkpointDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tenantId, accountId, checkpointDate);
+    }
+}
@@ -0,0 +1,13 @@
+package com.banking.entity;
+
+/**
+ * JobPriority Enum - Priority class of a statement job
+ *
+ * INTERACTIVE: Requested by a user who is waiting for it (the default)
+ * BULK: Part of a large run (e.g. month-end statements); only uses the
+ *       workers not reserved for interactive jobs
+ */
+public enum JobPriority {
+    INTERACTIVE,
+    BULK
+}
@@ -7,10 +7,12 @@ package com.banking.entity;
  * PROCESSING: Job is currently being processed
  * COMPLETED: Job finished successfully
  * FAILED: Job encountered an error
+ * EXPIRED: Job completed, but its statement file was removed after the retention period
  */
 public enum JobStatus {
     PENDING,
     PROCESSING,
     COMPLETED,
-    FAILED
+    FAILED,
+    EXPIRED
 }
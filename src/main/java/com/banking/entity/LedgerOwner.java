@@ -0,0 +1,61 @@
+package com.banking.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * LedgerOwner Entity - The node serving a ledger tenant
+ *
+ * A ledger tenant's balances live in the memory and journal of one node
+ * (see LedgerEngine), which holds a lease (leaseOwner, leaseExpiresAt)
+ * renewed by heartbeats. leaseExpiresAt is null once the owner released
+ * the tenant on a clean stop.
+ */
+@Entity
+@Table(name = "ledger_owners")
+public class LedgerOwner {
+
+    @Id
+    @Column(nullable = false)
+    private String tenantId;
+
+    @Column(nullable = false, length = 100)
+    private String leaseOwner;
+
+    private LocalDateTime leaseExpiresAt;
+
+    // Constructors
+    public LedgerOwner() {}
+
+    public LedgerOwner(String tenantId, String leaseOwner, LocalDateTime leaseExpiresAt) {
+        this.tenantId = tenantId;
+        this.leaseOwner = leaseOwner;
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    // Getters and Setters
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+}
@@ -1,7 +1,12 @@
 package com.banking.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UuidGenerator;
+import org.hibernate.type.SqlTypes;
+
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 /**
  * StatementJob Entity - Tracks asynchronous statement generation jobs
@@ -12,22 +17,42 @@ import java.time.LocalDateTime;
  * - COMPLETED: Successfully finished
  * - FAILED: Error occurred during processing
  *
- * The result field stores the generated statement (as JSON or text)
+ * - EXPIRED: Statement file removed after the retention period
+ *
+ * The table doubles as a durable work queue: workers claim PENDING jobs,
+ * hold a lease (leaseOwner, leaseExpiresAt) renewed by heartbeats while
+ * PROCESSING, and failed attempts are retried at nextAttemptAt. Which
+ * tenant's jobs are claimed first depends on the tenant and the priority
+ * class (interactive or bulk).
+ *
+ * Jobs written by a bulk statement run carry its runId; they are created
+ * COMPLETED and never pass through the queue.
+ *
+ * The generated statement itself is kept off-row in a StatementArtifactStore;
+ * the job only holds its key and metadata (size, checksum, expiry).
  */
 @Entity
 @Table(name = "statement_jobs")
 public class StatementJob {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    private String jobId;
+    @UuidGenerator(style = UuidGenerator.Style.VERSION_7)
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    private UUID jobId;
 
-    @Column(nullable = false)
-    private String accountId;
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(nullable = false, length = 16)
+    private UUID accountId;
 
     @Column(nullable = false)
     private String tenantId;
 
+    // Bulk statement run that wrote this statement (null for single requests)
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    private UUID runId;
+
     @Column(nullable = false)
     private LocalDateTime startDate;
 
@@ -38,8 +63,41 @@ public class StatementJob {
     @Column(nullable = false)
     private JobStatus status;
 
-    @Column(length = 10000)
-    private String result;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobPriority priority;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    // Reference into the StatementArtifactStore
+    private String artifactKey;
+
+    // Stored (compressed) size in bytes
+    private Long artifactSize;
+
+    // Uncompressed statement size in bytes
+    private Long contentLength;
+
+    // SHA-256 of the stored bytes
+    @Column(length = 64)
+    private String artifactChecksum;
+
+    private LocalDateTime expiresAt;
+
+    // Queue state: processing attempts so far and when the job may next be claimed
+    @Column(nullable = false)
+    private int attempts;
+
+    private LocalDateTime nextAttemptAt;
+
+    // Lease held by the worker processing the job, renewed by heartbeats
+    @Column(length = 100)
+    private String leaseOwner;
+
+    private LocalDateTime leaseExpiresAt;
+
+    private LocalDateTime heartbeatAt;
 
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -52,33 +110,40 @@ public class StatementJob {
         if (status == null) {
             status = JobStatus.PENDING;
         }
+        if (priority == null) {
+            priority = JobPriority.INTERACTIVE;
+        }
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
     }
 
     // Constructors
     public StatementJob() {}
 
-    public StatementJob(String accountId, String tenantId, LocalDateTime startDate, LocalDateTime endDate) {
+    public StatementJob(UUID accountId, String tenantId, LocalDateTime startDate, LocalDateTime endDate) {
         this.accountId = accountId;
         this.tenantId = tenantId;
         this.startDate = startDate;
         this.endDate = endDate;
         this.status = JobStatus.PENDING;
+        this.priority = JobPriority.INTERACTIVE;
     }
 
     // Getters and Setters
-    public String getJobId() {
+    public UUID getJobId() {
         return jobId;
     }
 
-    public void setJobId(String jobId) {
+    public void setJobId(UUID jobId) {
         this.jobId = jobId;
     }
 
-    public String getAccountId() {
+    public UUID getAccountId() {
         return accountId;
     }
 
-    public void setAccountId(String accountId) {
+    public void setAccountId(UUID accountId) {
         this.accountId = accountId;
     }
 
@@ -90,6 +155,14 @@ public class StatementJob {
         this.tenantId = tenantId;
     }
 
+    public UUID getRunId() {
+        return runId;
+    }
+
+    public void setRunId(UUID runId) {
+        this.runId = runId;
+    }
+
     public LocalDateTime getStartDate() {
         return startDate;
     }
@@ -114,12 +187,60 @@ public class StatementJob {
         this.status = status;
     }
 
-    public String getResult() {
-        return result;
+    public JobPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(JobPriority priority) {
+        this.priority = priority;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public String getArtifactKey() {
+        return artifactKey;
+    }
+
+    public void setArtifactKey(String artifactKey) {
+        this.artifactKey = artifactKey;
+    }
+
+    public Long getArtifactSize() {
+        return artifactSize;
+    }
+
+    public void setArtifactSize(Long artifactSize) {
+        this.artifactSize = artifactSize;
+    }
+
+    public Long getContentLength() {
+        return contentLength;
+    }
+
+    public void setContentLength(Long contentLength) {
+        this.contentLength = contentLength;
     }
 
-    public void setResult(String result) {
-        this.result = result;
+    public String getArtifactChecksum() {
+        return artifactChecksum;
+    }
+
+    public void setArtifactChecksum(String artifactChecksum) {
+        this.artifactChecksum = artifactChecksum;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
     }
 
     public LocalDateTime getCreatedAt() {
@@ -137,4 +258,44 @@ public class StatementJob {
     public void setCompletedAt(LocalDateTime completedAt) {
         this.completedAt = completedAt;
     }
-}
\ No newline at end of file
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public LocalDateTime getHeartbeatAt() {
+        return heartbeatAt;
+    }
+
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+}
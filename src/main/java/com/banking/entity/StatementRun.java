@@ -0,0 +1,238 @@
+package com.banking.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UuidGenerator;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * StatementRun Entity - A bulk run generating one statement per account of a tenant
+ *
+ * The tenant's accounts are split into partitions (StatementRunPartition),
+ * contiguous account ID ranges that are generated in parallel. A run is
+ * processed by one node at a time, which holds a lease (leaseOwner,
+ * leaseExpiresAt) renewed by heartbeats; if the node dies, another node
+ * takes over and continues with the partitions not yet COMPLETED.
+ *
+ * The counters are updated in the same transaction that completes a
+ * partition, so they always match the statements actually written.
+ */
+@Entity
+@Table(name = "statement_runs")
+public class StatementRun {
+
+    @Id
+    @UuidGenerator(style = UuidGenerator.Style.VERSION_7)
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    private UUID runId;
+
+    @Column(nullable = false)
+    private String tenantId;
+
+    @Column(nullable = false)
+    private LocalDateTime startDate;
+
+    @Column(nullable = false)
+    private LocalDateTime endDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatementRunStatus status;
+
+    @Column(nullable = false)
+    private int totalPartitions;
+
+    @Column(nullable = false)
+    private int completedPartitions;
+
+    @Column(nullable = false)
+    private int failedPartitions;
+
+    @Column(nullable = false)
+    private long totalAccounts;
+
+    @Column(nullable = false)
+    private long statementsWritten;
+
+    @Column(nullable = false)
+    private long transactionsScanned;
+
+    // Lease of the node processing the run, renewed by heartbeats
+    @Column(length = 100)
+    private String leaseOwner;
+
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime completedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (status == null) {
+            status = StatementRunStatus.PENDING;
+        }
+        // A new run can be claimed right away
+        if (leaseExpiresAt == null) {
+            leaseExpiresAt = createdAt;
+        }
+    }
+
+    // Constructors
+    public StatementRun() {}
+
+    public StatementRun(String tenantId, LocalDateTime startDate, LocalDateTime endDate) {
+        this.tenantId = tenantId;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.status = StatementRunStatus.PENDING;
+    }
+
+    // Getters and Setters
+    public UUID getRunId() {
+        return runId;
+    }
+
+    public void setRunId(UUID runId) {
+        this.runId = runId;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public LocalDateTime getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDateTime startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDateTime endDate) {
+        this.endDate = endDate;
+    }
+
+    public StatementRunStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(StatementRunStatus status) {
+        this.status = status;
+    }
+
+    public int getTotalPartitions() {
+        return totalPartitions;
+    }
+
+    public void setTotalPartitions(int totalPartitions) {
+        this.totalPartitions = totalPartitions;
+    }
+
+    public int getCompletedPartitions() {
+        return completedPartitions;
+    }
+
+    public void setCompletedPartitions(int completedPartitions) {
+        this.completedPartitions = completedPartitions;
+    }
+
+    public int getFailedPartitions() {
+        return failedPartitions;
+    }
+
+    public void setFailedPartitions(int failedPartitions) {
+        this.failedPartitions = failedPartitions;
+    }
+
+    public long getTotalAccounts() {
+        return totalAccounts;
+    }
+
+    public void setTotalAccounts(long totalAccounts) {
+        this.totalAccounts = totalAccounts;
+    }
+
+    public long getStatementsWritten() {
+        return statementsWritten;
+    }
+
+    public void setStatementsWritten(long statementsWritten) {
+        this.statementsWritten = statementsWritten;
+    }
+
+    public long getTransactionsScanned() {
+        return transactionsScanned;
+    }
+
+    public void setTransactionsScanned(long transactionsScanned) {
+        this.transactionsScanned = transactionsScanned;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+}
@@ -0,0 +1,139 @@
+package com.banking.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * StatementRunPartition Entity - One slice of a bulk statement run
+ *
+ * Covers the tenant's accounts with IDs from firstAccountId to
+ * lastAccountId (inclusive), as planned when the run was created. A
+ * partition is generated in one ordered pass over its transactions and
+ * marked COMPLETED together with the statement jobs it wrote, so a resumed
+ * run never writes a partition twice.
+ */
+@Entity
+@Table(name = "statement_run_partitions")
+@IdClass(StatementRunPartitionId.class)
+public class StatementRunPartition {
+
+    @Id
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(nullable = false, length = 16)
+    private UUID runId;
+
+    @Id
+    @Column(nullable = false)
+    private int partitionNo;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(nullable = false, length = 16)
+    private UUID firstAccountId;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(nullable = false, length = 16)
+    private UUID lastAccountId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatementRunStatus status;
+
+    @Column(nullable = false)
+    private int statements;
+
+    @Column(nullable = false)
+    private long transactions;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    private LocalDateTime completedAt;
+
+    // Constructors
+    public StatementRunPartition() {}
+
+    public StatementRunPartition(UUID runId, int partitionNo, UUID firstAccountId, UUID lastAccountId) {
+        this.runId = runId;
+        this.partitionNo = partitionNo;
+        this.firstAccountId = firstAccountId;
+        this.lastAccountId = lastAccountId;
+        this.status = StatementRunStatus.PENDING;
+    }
+
+    // Getters and Setters
+    public UUID getRunId() {
+        return runId;
+    }
+
+    public void setRunId(UUID runId) {
+        this.runId = runId;
+    }
+
+    public int getPartitionNo() {
+        return partitionNo;
+    }
+
+    public void setPartitionNo(int partitionNo) {
+        this.partitionNo = partitionNo;
+    }
+
+    public UUID getFirstAccountId() {
+        return firstAccountId;
+    }
+
+    public void setFirstAccountId(UUID firstAccountId) {
+        this.firstAccountId = firstAccountId;
+    }
+
+    public UUID getLastAccountId() {
+        return lastAccountId;
+    }
+
+    public void setLastAccountId(UUID lastAccountId) {
+        this.lastAccountId = lastAccountId;
+    }
+
+    public StatementRunStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(StatementRunStatus status) {
+        this.status = status;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public void setStatements(int statements) {
+        this.statements = statements;
+    }
+
+    public long getTransactions() {
+        return transactions;
+    }
+
+    public void setTransactions(long transactions) {
+        this.transactions = transactions;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+}
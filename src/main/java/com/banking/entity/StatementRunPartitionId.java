@@ -0,0 +1,38 @@
+package com.banking.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * StatementRunPartitionId - Composite primary key of StatementRunPartition
+ * (runId, partitionNo)
+ */
+public class StatementRunPartitionId implements Serializable {
+
+    private UUID runId;
+    private int partitionNo;
+
+    public StatementRunPartitionId() {}
+
+    public StatementRunPartitionId(UUID runId, int partitionNo) {
+        this.runId = runId;
+        this.partitionNo = partitionNo;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StatementRunPartitionId other)) {
+            return false;
+        }
+        return Objects.equals(runId, other.runId) && partitionNo == other.partitionNo;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(runId, partitionNo);
+    }
+}
@@ -0,0 +1,16 @@
+package com.banking.entity;
+
+/**
+ * StatementRunStatus Enum - Status of a bulk statement run and of its partitions
+ *
+ * PENDING: Waiting for a node to pick it up
+ * PROCESSING: Statements are being generated (a run holds a lease while it is)
+ * COMPLETED: Every statement was written
+ * FAILED: At least one partition failed; the run can be resumed
+ */
+public enum StatementRunStatus {
+    PENDING,
+    PROCESSING,
+    COMPLETED,
+    FAILED
+}
@@ -1,8 +1,13 @@
 package com.banking.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UuidGenerator;
+import org.hibernate.type.SqlTypes;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 /**
  * Transaction Entity - Represents a financial transaction
@@ -10,6 +15,9 @@ import java.time.LocalDateTime;
  * This entity records all deposits and withdrawals for accounts.
  * Each transaction belongs to both an account and a tenant.
  *
+ * transactionId is a time-ordered UUIDv7 stored as BINARY(16): new rows are
+ * appended at the end of the clustered primary key instead of at random pages.
+ *
  * TransactionType enum defines the two types of transactions:
  * - DEPOSIT: Money added to account
  * - WITHDRAWAL: Money removed from account
@@ -19,11 +27,14 @@ import java.time.LocalDateTime;
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    private String transactionId;
+    @UuidGenerator(style = UuidGenerator.Style.VERSION_7)
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    private UUID transactionId;
 
-    @Column(nullable = false)
-    private String accountId;
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(nullable = false, length = 16)
+    private UUID accountId;
 
     @Column(nullable = false)
     private String tenantId;
@@ -47,7 +58,7 @@ public class Transaction {
     // Constructors
     public Transaction() {}
 
-    public Transaction(String accountId, String tenantId, TransactionType type, BigDecimal amount) {
+    public Transaction(UUID accountId, String tenantId, TransactionType type, BigDecimal amount) {
         this.accountId = accountId;
         this.tenantId = tenantId;
         this.type = type;
@@ -55,19 +66,19 @@ public class Transaction {
     }
 
     // Getters and Setters
-    public String getTransactionId() {
+    public UUID getTransactionId() {
         return transactionId;
     }
 
-    public void setTransactionId(String transactionId) {
+    public void setTransactionId(UUID transactionId) {
         this.transactionId = transactionId;
     }
 
-    public String getAccountId() {
+    public UUID getAccountId() {
         return accountId;
     }
 
-    public void setAccountId(String accountId) {
+    public void setAccountId(UUID accountId) {
         this.accountId = accountId;
     }
 
@@ -1,7 +1,12 @@
 package com.banking.exception;
 
+import com.banking.config.ConnectionBulkheadFullException;
+import com.banking.service.PostingOutcomeUnknownException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -51,6 +56,42 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handle database errors; a tenant over its connection bulkhead gets 503
+     *
+     * Example: "Tenant BANK001 is using all of its 4 database connections"
+     */
+    @ExceptionHandler({DataAccessException.class, TransactionException.class})
+    public ResponseEntity<Map<String, Object>> handleDataAccessException(RuntimeException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectionBulkheadFullException full) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("timestamp", LocalDateTime.now());
+                response.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+                response.put("message", full.getMessage());
+
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(response);
+            }
+        }
+        return handleRuntimeException(ex);
+    }
+
+    /**
+     * Handle a posting that may or may not have been applied: 504, never a client error
+     */
+    @ExceptionHandler(PostingOutcomeUnknownException.class)
+    public ResponseEntity<Map<String, Object>> handlePostingOutcomeUnknown(PostingOutcomeUnknownException ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.GATEWAY_TIMEOUT.value());
+        response.put("message", ex.getMessage());
+        response.put("outcome", "UNKNOWN");
+
+        return new ResponseEntity<>(response, HttpStatus.GATEWAY_TIMEOUT);
+    }
+
     /**
      * Handle general runtime exceptions
      *
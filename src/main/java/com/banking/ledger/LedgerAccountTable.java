@@ -0,0 +1,184 @@
+package com.banking.ledger;
+
+import java.util.Arrays;
+
+/**
+ * LedgerAccountTable - Account balances of one ledger partition
+ *
+ * An open-addressing hash table (linear probing) keyed by the two halves of
+ * the account UUID, with balances in cents. Keys, tenants and balances sit in
+ * parallel arrays, so a lookup allocates nothing and touches no boxed values.
+ *
+ * Not thread-safe: a table belongs to its partition thread.
+ */
+final class LedgerAccountTable {
+
+    private static final double MAX_LOAD = 0.6;
+
+    /**
+     * Receives the entries of a table (snapshots)
+     */
+    interface Visitor {
+        void visit(long accountHi, long accountLo, String tenantId, long balance);
+    }
+
+    private long[] keyHi;
+    private long[] keyLo;
+    private long[] balances;
+    // null marks a free slot
+    private String[] tenants;
+    private int mask;
+    private int size;
+
+    LedgerAccountTable(int expectedSize) {
+        int capacity = Integer.highestOneBit((int) Math.max(16, expectedSize / MAX_LOAD) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keyHi = new long[capacity];
+        keyLo = new long[capacity];
+        balances = new long[capacity];
+        tenants = new String[capacity];
+        mask = capacity - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Slot of an account, or -1 if it is not in the table
+     */
+    int indexOf(long accountHi, long accountLo) {
+        int i = home(accountHi, accountLo);
+        while (tenants[i] != null) {
+            if (keyHi[i] == accountHi && keyLo[i] == accountLo) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    String tenantAt(int index) {
+        return tenants[index];
+    }
+
+    long balanceAt(int index) {
+        return balances[index];
+    }
+
+    void setBalance(int index, long balance) {
+        balances[index] = balance;
+    }
+
+    /**
+     * Add an account, or replace its tenant and balance
+     *
+     * @return The account's slot
+     */
+    int put(long accountHi, long accountLo, String tenantId, long balance) {
+        int existing = indexOf(accountHi, accountLo);
+        if (existing >= 0) {
+            tenants[existing] = tenantId;
+            balances[existing] = balance;
+            return existing;
+        }
+        if (size + 1 > (mask + 1) * MAX_LOAD) {
+            grow();
+        }
+        int i = home(accountHi, accountLo);
+        while (tenants[i] != null) {
+            i = (i + 1) & mask;
+        }
+        keyHi[i] = accountHi;
+        keyLo[i] = accountLo;
+        tenants[i] = tenantId;
+        balances[i] = balance;
+        size++;
+        return i;
+    }
+
+    /**
+     * Remove an account; later entries of its probe sequence are shifted back
+     * so that no tombstones are needed
+     */
+    boolean remove(long accountHi, long accountLo) {
+        int free = indexOf(accountHi, accountLo);
+        if (free < 0) {
+            return false;
+        }
+        int i = free;
+        while (true) {
+            i = (i + 1) & mask;
+            if (tenants[i] == null) {
+                break;
+            }
+            int home = home(keyHi[i], keyLo[i]);
+            // Move the entry unless its home lies cyclically in (free, i]
+            boolean stays = free <= i ? free < home && home <= i : free < home || home <= i;
+            if (!stays) {
+                keyHi[free] = keyHi[i];
+                keyLo[free] = keyLo[i];
+                tenants[free] = tenants[i];
+                balances[free] = balances[i];
+                free = i;
+            }
+        }
+        tenants[free] = null;
+        balances[free] = 0;
+        size--;
+        return true;
+    }
+
+    void forEach(Visitor visitor) {
+        for (int i = 0; i <= mask; i++) {
+            if (tenants[i] != null) {
+                visitor.visit(keyHi[i], keyLo[i], tenants[i], balances[i]);
+            }
+        }
+    }
+
+    /**
+     * Independent copy, for writing a snapshot outside the partition thread
+     */
+    LedgerAccountTable copy() {
+        LedgerAccountTable copy = new LedgerAccountTable(16);
+        copy.keyHi = Arrays.copyOf(keyHi, keyHi.length);
+        copy.keyLo = Arrays.copyOf(keyLo, keyLo.length);
+        copy.balances = Arrays.copyOf(balances, balances.length);
+        copy.tenants = Arrays.copyOf(tenants, tenants.length);
+        copy.mask = mask;
+        copy.size = size;
+        return copy;
+    }
+
+    private void grow() {
+        long[] oldHi = keyHi;
+        long[] oldLo = keyLo;
+        long[] oldBalances = balances;
+        String[] oldTenants = tenants;
+        allocate((mask + 1) * 2);
+        size = 0;
+        for (int i = 0; i < oldTenants.length; i++) {
+            if (oldTenants[i] != null) {
+                put(oldHi[i], oldLo[i], oldTenants[i], oldBalances[i]);
+            }
+        }
+    }
+
+    private int home(long accountHi, long accountLo) {
+        return (int) mix(accountHi, accountLo) & mask;
+    }
+
+    /**
+     * 64-bit hash of an account ID; the table uses the low bits, partitioning the high ones
+     */
+    static long mix(long accountHi, long accountLo) {
+        long h = accountHi * 0x9E3779B97F4A7C15L ^ accountLo;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -0,0 +1,586 @@
+package com.banking.ledger;
+
+import com.banking.config.ShardDirectory;
+import com.banking.dto.BatchTransactionItem;
+import com.banking.dto.BatchTransactionResult;
+import com.banking.entity.Account;
+import com.banking.entity.Transaction;
+import com.banking.entity.TransactionType;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.BalanceCheckpointRepository;
+import com.banking.repository.LedgerOwnerRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.service.AccountBalanceSlots;
+import com.banking.service.PostingOutcomeUnknownException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LedgerEngine - In-memory authoritative ledger for selected tenants
+ *
+ * For the tenants listed in banking.ledger.tenants, balances live in memory
+ * and TransactionService posts their deposits and withdrawals here instead of
+ * running a database transaction per posting:
+ * - Accounts are hashed to single-threaded partitions (LedgerPartition); a
+ *   partition checks and applies a posting in its own account table, without
+ *   locks or database round trips
+ * - Every accepted posting is first appended to the partition's memory-mapped
+ *   journal (LedgerJournal), which is forced once per drained batch
+ * - A background thread (LedgerPersister) writes the postings and the net
+ *   balance changes to the database in batches, idempotently
+ * - Snapshots of the account tables (LedgerSnapshot) are taken every
+ *   banking.ledger.snapshot-interval, and journal segments no snapshot needs
+ *   any more are deleted
+ *
+ * On start, each partition loads its newest snapshot and replays the journal
+ * after it; postings the database has not seen yet are persisted before the
+ * node serves requests. Replay is deterministic: the same journal always
+ * rebuilds the same balances.
+ *
+ * The ledger is the authority for its tenants' balances, so balances only
+ * change through postings and exactly one node serves a ledger tenant: the
+ * holder of the tenant's ownership lease (LedgerOwnership), renewed every
+ * banking.ledger.heartbeat-interval. Without the lease a node refuses to
+ * post for the tenant (RejectedExecutionException). A node releases its
+ * tenants on a clean stop, once all their postings are persisted; only then
+ * can another node take them over, loading their balances afresh from the
+ * database.
+ *
+ * Listings, statements and balance history read the database and reflect a
+ * posting once it is persisted (normally within milliseconds;
+ * banking.ledger.persist.backlog shows the lag). A posting is not part of a
+ * caller's database transaction: it is final when post() returns.
+ *
+ * Metrics: banking.ledger.postings (Timer), banking.ledger.rejected,
+ * banking.ledger.persist.batch-size, banking.ledger.persist.backlog and
+ * banking.ledger.persist.unmatched.
+ */
+@Component
+public class LedgerEngine implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerEngine.class);
+
+    private static final String META_FILE = "ledger.properties";
+    private static final int SNAPSHOTS_KEPT = 2;
+    private static final long CLOSE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private final AccountRepository accountRepository;
+    private final Set<String> tenants;
+    private final int partitionCount;
+    private final Path dir;
+    private final int segmentSize;
+    private final boolean fsync;
+    private final int queueCapacity;
+    private final int maxBacklog;
+    private final Duration recoveryTimeout;
+    private final LedgerPersister persister;
+    private final LedgerOwnership ownership;
+
+    private final Timer postings;
+    private final Counter rejected;
+
+    private volatile boolean running;
+    private LedgerPartition[] partitions;
+    // Identity of this node's ledger directory in ledger_owners
+    private String nodeId;
+
+    public LedgerEngine(AccountRepository accountRepository,
+                        TransactionRepository transactionRepository,
+                        LedgerOwnerRepository ownerRepository,
+                        BalanceCheckpointRepository checkpointRepository,
+                        AccountBalanceSlots balanceSlots,
+                        ShardDirectory shardDirectory,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry registry,
+                        @Value("${banking.ledger.tenants:}") String tenants,
+                        @Value("${banking.ledger.partitions:4}") int partitions,
+                        @Value("${banking.ledger.dir:./data/ledger}") Path dir,
+                        @Value("${banking.ledger.journal.segment-size:64MB}") DataSize segmentSize,
+                        @Value("${banking.ledger.journal.fsync:true}") boolean fsync,
+                        @Value("${banking.ledger.queue-capacity:10000}") int queueCapacity,
+                        @Value("${banking.ledger.max-backlog:100000}") int maxBacklog,
+                        @Value("${banking.ledger.persist.batch-size:500}") int persistBatchSize,
+                        @Value("${banking.ledger.recovery-timeout:PT5M}") Duration recoveryTimeout,
+                        @Value("${banking.ledger.lease:PT30S}") Duration lease) {
+        this.accountRepository = accountRepository;
+        this.tenants = parseTenants(tenants);
+        this.partitionCount = Math.max(partitions, 1);
+        this.dir = dir.toAbsolutePath().normalize();
+        this.segmentSize = (int) Math.min(Math.max(segmentSize.toBytes(), 64 * 1024), Integer.MAX_VALUE);
+        this.fsync = fsync;
+        this.queueCapacity = queueCapacity;
+        this.maxBacklog = Math.max(maxBacklog, 1);
+        this.recoveryTimeout = recoveryTimeout;
+        this.persister = new LedgerPersister(transactionRepository, accountRepository, checkpointRepository,
+                balanceSlots, shardDirectory, transactionManager, this.partitionCount, persistBatchSize, registry);
+        this.ownership = new LedgerOwnership(ownerRepository, shardDirectory, transactionManager, lease);
+
+        this.postings = Timer.builder("banking.ledger.postings")
+                .description("Time to accept or reject a ledger posting, including the journal force")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.rejected = Counter.builder("banking.ledger.rejected")
+                .description("Ledger postings refused: queue full, persistence behind or tenant not served by this node")
+                .register(registry);
+    }
+
+    /**
+     * Whether the ledger is the authority for a tenant's balances
+     */
+    public boolean handles(String tenantId) {
+        return tenantId != null && tenants.contains(tenantId);
+    }
+
+    /**
+     * Recover the partitions and persist what the database is missing, then
+     * start serving
+     */
+    @Override
+    public void start() {
+        if (tenants.isEmpty()) {
+            running = true;
+            return;
+        }
+        try {
+            loadLayout();
+            partitions = new LedgerPartition[partitionCount];
+            for (int i = 0; i < partitionCount; i++) {
+                partitions[i] = new LedgerPartition(i, dir.resolve("p" + i), segmentSize, fsync, queueCapacity,
+                        maxBacklog, persister);
+                partitions[i].recover();
+                partitions[i].retainTenants(tenants);
+            }
+            persister.start();
+            if (!persister.awaitEmpty(recoveryTimeout.toMillis())) {
+                throw new IllegalStateException("Ledger postings could not be persisted within " + recoveryTimeout);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ledger recovery failed in " + dir, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during ledger recovery", e);
+        }
+        for (LedgerPartition partition : partitions) {
+            partition.start();
+        }
+        running = true;
+        for (String tenantId : tenants) {
+            acquire(tenantId);
+        }
+        log.info("Ledger engine: tenants {}, {} partitions in {}, fsync {}, node {}", tenants, partitionCount, dir,
+                fsync, nodeId);
+    }
+
+    /**
+     * Stop taking postings, persist what is queued and leave a final snapshot
+     * behind, so the next start has little journal to replay
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (partitions == null) {
+            return;
+        }
+        for (LedgerPartition partition : partitions) {
+            partition.stop();
+        }
+        persister.stop();
+        boolean intact = persister.backlog() == 0;
+        for (LedgerPartition partition : partitions) {
+            if (partition.failed()) {
+                // Its memory may be ahead of its journal: the restart replays the journal
+                intact = false;
+            } else {
+                try {
+                    writeSnapshot(partition, partition.snapshot());
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Final ledger snapshot of {} failed: {}", partition.dir(), e.getMessage());
+                }
+            }
+            partition.close();
+        }
+        if (intact) {
+            for (String tenantId : tenants) {
+                ownership.release(tenantId, nodeId);
+            }
+        } else {
+            // The leases expire without being released: no other node takes the tenants
+            // over before this one has persisted the rest of its journal
+            ownership.abandon();
+            log.warn("Ledger postings are left in the journal of {}; its tenants stay with node {}", dir, nodeId);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Start before the web server and stop after it, so that requests in
+     * flight during shutdown can still post
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    /**
+     * Post a deposit or withdrawal, loading the account on its first posting
+     *
+     * @return The accepted transaction; it reaches the database shortly after
+     * @throws RejectedExecutionException if the ledger is overloaded or stopping
+     * @throws RuntimeException with the rejection reason, e.g. "Insufficient balance"
+     */
+    public Transaction post(String tenantId, UUID accountId, TransactionType type, BigDecimal amount) {
+        checkOwner(tenantId);
+        long cents = toCents(amount);
+        long start = System.nanoTime();
+        try {
+            Object result = await(submit(accountId, new LedgerPartition.Post(tenantId, accountId, type, cents)));
+            if (result == LedgerPartition.NEEDS_OPEN) {
+                open(tenantId, accountId);
+                result = await(submit(accountId, new LedgerPartition.Post(tenantId, accountId, type, cents)));
+                if (result == LedgerPartition.NEEDS_OPEN) {
+                    // Deleted in the meantime
+                    throw new RuntimeException("Account not found or access denied");
+                }
+            }
+            return (Transaction) result;
+        } finally {
+            postings.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Post a batch: items are accepted or rejected one by one, in order, with
+     * the rules of TransactionService.createTransactionsBatch. Items of
+     * different partitions are processed in parallel.
+     *
+     * @return One result per item, in order
+     * @throws PostingOutcomeUnknownException if an item may or may not have been applied
+     */
+    public List<BatchTransactionResult> postBatch(String tenantId, List<BatchTransactionItem> items) {
+        checkOwner(tenantId);
+        // Load every account of the batch first, so no posting is deferred behind a later one
+        Set<UUID> accountIds = new TreeSet<>();
+        for (BatchTransactionItem item : items) {
+            if (item.getAccountId() != null) {
+                accountIds.add(item.getAccountId());
+            }
+        }
+        Map<UUID, RuntimeException> unavailable = new LinkedHashMap<>();
+        for (UUID accountId : accountIds) {
+            try {
+                if (balanceCents(tenantId, accountId) == null) {
+                    open(tenantId, accountId);
+                }
+            } catch (RejectedExecutionException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                unavailable.put(accountId, e);
+            }
+        }
+
+        List<BatchTransactionResult> results = new ArrayList<>(items.size());
+        List<CompletableFuture<Object>> pending = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            BatchTransactionItem item = items.get(i);
+            UUID accountId = item.getAccountId();
+            pending.add(null);
+            if (accountId == null) {
+                results.add(BatchTransactionResult.rejected(i, null, "Account ID is required"));
+                continue;
+            }
+            if (unavailable.containsKey(accountId)) {
+                results.add(BatchTransactionResult.rejected(i, accountId, unavailable.get(accountId).getMessage()));
+                continue;
+            }
+            try {
+                TransactionType type = parseType(item.getType());
+                pending.set(i, submit(accountId,
+                        new LedgerPartition.Post(tenantId, accountId, type, toCents(item.getAmount()))));
+                results.add(null);
+            } catch (RejectedExecutionException e) {
+                rejected.increment();
+                results.add(BatchTransactionResult.rejected(i, accountId, e.getMessage()));
+            } catch (RuntimeException e) {
+                results.add(BatchTransactionResult.rejected(i, accountId, e.getMessage()));
+            }
+        }
+        for (int i = 0; i < items.size(); i++) {
+            if (pending.get(i) == null) {
+                continue;
+            }
+            UUID accountId = items.get(i).getAccountId();
+            try {
+                Object result = await(pending.get(i));
+                if (result == LedgerPartition.NEEDS_OPEN) {
+                    results.set(i, BatchTransactionResult.rejected(i, accountId, "Account not found or access denied"));
+                } else {
+                    results.set(i, BatchTransactionResult.applied(i, accountId, ((Transaction) result).getTransactionId()));
+                }
+            } catch (PostingOutcomeUnknownException e) {
+                // Not a rejection: the item may be applied, so the batch as a whole has no definite result
+                throw e;
+            } catch (RuntimeException e) {
+                results.set(i, BatchTransactionResult.rejected(i, accountId, e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Current balance of an account the ledger holds
+     *
+     * @return Empty if the account has not been loaded into the ledger (its
+     * database balance is current), does not belong to the tenant or the
+     * tenant is served by another node
+     */
+    public Optional<BigDecimal> currentBalance(String tenantId, UUID accountId) {
+        if (!ownership.holds(tenantId)) {
+            return Optional.empty();
+        }
+        Long cents = balanceCents(tenantId, accountId);
+        return cents == null ? Optional.empty() : Optional.of(BigDecimal.valueOf(cents, 2));
+    }
+
+    /**
+     * Drop an account from the ledger before it is deleted, and wait until
+     * its postings are in the database
+     *
+     * @throws RejectedExecutionException if this node does not serve the
+     * tenant or persistence is too far behind; the account row must not be
+     * deleted then
+     */
+    public void close(String tenantId, UUID accountId) {
+        checkOwner(tenantId);
+        long lastPosted = (Long) await(submit(accountId, new LedgerPartition.Close(tenantId, accountId)));
+        try {
+            if (!persister.awaitPersisted(partitionOf(accountId), lastPosted, CLOSE_TIMEOUT_MILLIS)) {
+                throw new RejectedExecutionException("Ledger persistence is behind");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for ledger persistence");
+        }
+    }
+
+    /**
+     * Renew the ownership leases of this node's tenants, and claim those it
+     * does not hold (released by their owner, or lost while the database was
+     * unavailable)
+     */
+    @Scheduled(fixedDelayString = "${banking.ledger.heartbeat-interval:PT10S}")
+    public void heartbeat() {
+        if (!running || partitions == null) {
+            return;
+        }
+        for (String tenantId : tenants) {
+            try {
+                if (ownership.holds(tenantId)) {
+                    if (!ownership.renew(tenantId, nodeId)) {
+                        log.error("Ledger tenant {}: lease lost, no longer serving it", tenantId);
+                    }
+                } else {
+                    acquire(tenantId);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Ledger tenant {}: lease not renewed: {}", tenantId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Snapshot every partition and delete the journal segments no snapshot needs
+     */
+    @Scheduled(fixedDelayString = "${banking.ledger.snapshot-interval:PT5M}")
+    public void snapshot() {
+        if (!running || partitions == null) {
+            return;
+        }
+        for (LedgerPartition partition : partitions) {
+            try {
+                LedgerSnapshot snapshot = (LedgerSnapshot) await(partition.submit(new LedgerPartition.Snapshot()));
+                long obsolete = writeSnapshot(partition, snapshot);
+                await(partition.submit(new LedgerPartition.Truncate(obsolete)));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Ledger snapshot of {} failed: {}", partition.dir(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return Journal position before which no kept snapshot needs the journal
+     */
+    private long writeSnapshot(LedgerPartition partition, LedgerSnapshot snapshot) throws IOException {
+        snapshot.write(partition.dir());
+        return LedgerSnapshot.prune(partition.dir(), SNAPSHOTS_KEPT);
+    }
+
+    /**
+     * Claim a tenant; when it was last served elsewhere, the accounts this node
+     * still remembers are dropped first, to be loaded afresh from the database
+     */
+    private void acquire(String tenantId) {
+        try {
+            if (ownership.acquire(tenantId, nodeId, () -> forget(tenantId))) {
+                log.info("Ledger tenant {}: served by node {}", tenantId, nodeId);
+            } else {
+                log.warn("Ledger tenant {}: owned by another node, not serving it", tenantId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Ledger tenant {}: could not claim it: {}", tenantId, e.getMessage());
+        }
+    }
+
+    private void forget(String tenantId) {
+        for (LedgerPartition partition : partitions) {
+            await(partition.submit(new LedgerPartition.Forget(tenantId)));
+        }
+    }
+
+    private void checkOwner(String tenantId) {
+        if (!ownership.holds(tenantId)) {
+            rejected.increment();
+            throw new RejectedExecutionException("Ledger tenant " + tenantId + " is not served by this node");
+        }
+    }
+
+    private Long balanceCents(String tenantId, UUID accountId) {
+        return (Long) await(submit(accountId, new LedgerPartition.Balance(tenantId, accountId)));
+    }
+
+    /**
+     * Load an account's balance from the database into its partition
+     */
+    private void open(String tenantId, UUID accountId) {
+        Account account = accountRepository.findByAccountIdAndTenantId(accountId, tenantId)
+                .orElseThrow(() -> new RuntimeException("Account not found or access denied"));
+        await(submit(accountId, new LedgerPartition.Open(tenantId, accountId, toCents(account.getBalance()))));
+    }
+
+    private CompletableFuture<Object> submit(UUID accountId, LedgerPartition.Command command) {
+        if (!running || partitions == null) {
+            throw new RejectedExecutionException("Ledger is not running");
+        }
+        try {
+            return partitions[partitionOf(accountId)].submit(command);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    private int partitionOf(UUID accountId) {
+        long hash = LedgerAccountTable.mix(accountId.getMostSignificantBits(), accountId.getLeastSignificantBits());
+        return (int) Long.remainderUnsigned(hash >>> 32, partitionCount);
+    }
+
+    private Object await(CompletableFuture<Object> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RejectedExecutionException cause) {
+                rejected.increment();
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The partition count decides which partition holds an account, so it
+     * cannot change while journals and snapshots exist. The node ID names
+     * the directory in ledger_owners: whoever has the journal owns its tenants
+     */
+    private void loadLayout() throws IOException {
+        Files.createDirectories(dir);
+        Path meta = dir.resolve(META_FILE);
+        Properties properties = new Properties();
+        if (Files.exists(meta)) {
+            try (var in = Files.newInputStream(meta)) {
+                properties.load(in);
+            }
+            int existing = Integer.parseInt(properties.getProperty("partitions"));
+            if (existing != partitionCount) {
+                throw new IllegalStateException("Ledger in " + dir + " has " + existing
+                        + " partitions; banking.ledger.partitions is " + partitionCount);
+            }
+        } else {
+            properties.setProperty("partitions", String.valueOf(partitionCount));
+        }
+        nodeId = properties.getProperty("node");
+        if (nodeId == null) {
+            nodeId = UUID.randomUUID().toString();
+            properties.setProperty("node", nodeId);
+            try (var out = Files.newOutputStream(meta)) {
+                properties.store(out, "Ledger engine layout");
+            }
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        try {
+            return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new RuntimeException("Amount too large");
+        }
+    }
+
+    /**
+     * Same rules and message as TransactionService
+     */
+    private static TransactionType parseType(String type) {
+        String typeStr = type.toUpperCase();
+        if (typeStr.equals("DEPOSIT")) {
+            return TransactionType.DEPOSIT;
+        } else if (typeStr.equals("WITHDRAWAL")) {
+            return TransactionType.WITHDRAWAL;
+        }
+        throw new RuntimeException("Invalid transaction type. Use DEPOSIT or WITHDRAWAL");
+    }
+
+    private static Set<String> parseTenants(String tenants) {
+        Set<String> parsed = new TreeSet<>();
+        for (String tenant : tenants.split(",")) {
+            if (!tenant.isBlank()) {
+                parsed.add(tenant.trim());
+            }
+        }
+        return parsed;
+    }
+}
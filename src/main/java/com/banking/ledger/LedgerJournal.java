@@ -0,0 +1,250 @@
+package com.banking.ledger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * LedgerJournal - Write-ahead journal of one ledger partition
+ *
+ * Records are appended to memory-mapped segment files of a fixed size
+ * (journal-<start>.log); a record is a frame of [int length][int CRC32C]
+ * followed by the encoded LedgerRecord. A length of 0 marks the end of the
+ * written part of a segment. Positions are logical: segment start plus
+ * offset, growing without gaps across segments, so "everything before
+ * position P" names a prefix of the journal.
+ *
+ * Appending is a memory copy; force() makes everything appended so far
+ * durable (msync of the dirty range). With fsync disabled, force() does
+ * nothing and durability is left to the OS page cache, which survives a
+ * crash of the process but not of the machine.
+ *
+ * On open, the journal is read from a given position and the first frame
+ * that is incomplete or fails its checksum ends it (a torn write from a
+ * crash): the rest of that segment is zeroed and appending continues there.
+ *
+ * Not thread-safe: a journal belongs to its partition thread.
+ */
+final class LedgerJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerJournal.class);
+
+    private static final int FRAME_HEADER = 8;
+
+    /**
+     * Receives the records of a journal on replay
+     */
+    interface Replay {
+        /**
+         * @param position Position of the record
+         * @param end Position right after it
+         */
+        void apply(long position, long end, LedgerRecord record);
+    }
+
+    private final Path dir;
+    private final int segmentSize;
+    private final boolean fsync;
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer scratch = ByteBuffer.allocate(1024);
+
+    // Segment files by start position
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private long currentStart;
+    private FileChannel channel;
+    private MappedByteBuffer current;
+    private int forcedUpTo;
+
+    private LedgerJournal(Path dir, int segmentSize, boolean fsync) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Open the journal in a directory, replaying its records from a position
+     *
+     * @param from Replay records at or after this position
+     * @param minimumStart An empty journal starts at the first segment
+     * boundary at or after this position
+     */
+    static LedgerJournal open(Path dir, int segmentSize, boolean fsync, long from, long minimumStart,
+                              Replay replay) throws IOException {
+        Files.createDirectories(dir);
+        LedgerJournal journal = new LedgerJournal(dir, segmentSize, fsync);
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(file -> file.getFileName().toString().matches("journal-\\d+\\.log"))
+                    .forEach(file -> {
+                        String name = file.getFileName().toString();
+                        journal.segments.put(Long.parseLong(name.substring(8, name.length() - 4)), file);
+                    });
+        }
+        if (journal.segments.isEmpty()) {
+            long start = Math.max(minimumStart, 0);
+            journal.map((start + segmentSize - 1) / segmentSize * segmentSize);
+            return journal;
+        }
+        for (var segment : new ArrayList<>(journal.segments.entrySet())) {
+            long start = segment.getKey();
+            boolean last = start == journal.segments.lastKey();
+            if (!last && start + Files.size(segment.getValue()) <= from) {
+                continue;
+            }
+            if (last) {
+                journal.map(start);
+                int end = journal.read(journal.current, start, from, replay);
+                journal.truncate(end);
+            } else {
+                try (FileChannel channel = FileChannel.open(segment.getValue(), StandardOpenOption.READ)) {
+                    journal.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), start, from, replay);
+                }
+            }
+        }
+        return journal;
+    }
+
+    /**
+     * Position after the last appended record
+     */
+    long position() {
+        return currentStart + current.position();
+    }
+
+    /**
+     * Append a record; it is durable after the next force()
+     *
+     * @return Position right after the record
+     */
+    long append(LedgerRecord record) throws IOException {
+        scratch.clear();
+        if (scratch.capacity() < record.encodedSize()) {
+            scratch = ByteBuffer.allocate(record.encodedSize());
+        }
+        record.encode(scratch);
+        scratch.flip();
+        int length = scratch.remaining();
+        // Keep room for the end marker
+        if (current.remaining() < FRAME_HEADER + length + 4) {
+            roll();
+        }
+        crc.reset();
+        crc.update(scratch.array(), 0, length);
+        current.putInt(length);
+        current.putInt((int) crc.getValue());
+        current.put(scratch);
+        return position();
+    }
+
+    /**
+     * Make everything appended so far durable (no-op with fsync disabled)
+     */
+    void force() {
+        int position = current.position();
+        if (fsync && position > forcedUpTo) {
+            current.force(forcedUpTo, position - forcedUpTo);
+        }
+        forcedUpTo = position;
+    }
+
+    /**
+     * Delete the segments that only hold records before a position
+     * The segment being written is never deleted.
+     */
+    void deleteBefore(long position) throws IOException {
+        List<Long> obsolete = new ArrayList<>();
+        for (var segment : segments.headMap(currentStart, false).entrySet()) {
+            if (segment.getKey() + Files.size(segment.getValue()) <= position) {
+                obsolete.add(segment.getKey());
+            }
+        }
+        for (Long start : obsolete) {
+            Files.deleteIfExists(segments.remove(start));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            if (fsync) {
+                current.force();
+            }
+            channel.close();
+        }
+    }
+
+    private void roll() throws IOException {
+        if (current.remaining() >= 4) {
+            current.putInt(0);
+        }
+        current.force();
+        long next = currentStart + current.capacity();
+        channel.close();
+        map(next);
+    }
+
+    private void map(long start) throws IOException {
+        Path file = segments.computeIfAbsent(start, s -> dir.resolve(String.format("journal-%020d.log", s)));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // An existing segment keeps its size, even if the configured size changed since
+        long size = channel.size() > 0 ? channel.size() : segmentSize;
+        current = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        currentStart = start;
+        forcedUpTo = 0;
+    }
+
+    /**
+     * Replay the valid frames of a segment
+     *
+     * @return Offset after the last valid frame
+     */
+    private int read(ByteBuffer segment, long start, long from, Replay replay) {
+        int offset = 0;
+        while (segment.limit() - offset >= FRAME_HEADER) {
+            int length = segment.getInt(offset);
+            if (length <= 0 || length > segment.limit() - offset - FRAME_HEADER) {
+                break;
+            }
+            ByteBuffer payload = segment.slice(offset + FRAME_HEADER, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != segment.getInt(offset + 4)) {
+                log.warn("Ledger journal {} ends with a torn record at position {}", dir, start + offset);
+                break;
+            }
+            long end = start + offset + FRAME_HEADER + length;
+            if (start + offset >= from) {
+                replay.apply(start + offset, end, LedgerRecord.decode(payload));
+            }
+            offset += FRAME_HEADER + length;
+        }
+        return offset;
+    }
+
+    /**
+     * Continue appending at an offset of the current segment, zeroing what
+     * follows so that a stale frame after a torn one can never be replayed
+     */
+    private void truncate(int offset) {
+        for (int i = offset; i < current.limit(); i++) {
+            if (current.get(i) != 0) {
+                current.put(i, (byte) 0);
+            }
+        }
+        current.position(offset);
+        current.force();
+        forcedUpTo = offset;
+    }
+}
@@ -0,0 +1,148 @@
+package com.banking.ledger;
+
+import com.banking.config.ShardContext;
+import com.banking.config.ShardDirectory;
+import com.banking.entity.LedgerOwner;
+import com.banking.repository.LedgerOwnerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * LedgerOwnership - Ownership leases of the ledger tenants
+ *
+ * A ledger tenant's balances are only right on the node whose journal holds
+ * its postings, so exactly one node may post for it. The tenant's
+ * ledger_owners row (on the tenant's shard) names that node and carries a
+ * lease renewed by heartbeats, like the leases of statement jobs and runs;
+ * a node that cannot renew stops posting once its lease runs out.
+ *
+ * Nodes are identified by the ID kept in their ledger directory, so a
+ * restarted node resumes the tenants of its own journal. Another node only
+ * takes over a tenant that its owner released: the owner releases its
+ * tenants on a clean stop, once every posting is in the database. A lease
+ * that merely expired is not taken over, as the owner's journal may still
+ * hold postings the database has not seen; restart that node instead (or,
+ * if its ledger directory is lost for good, clear lease_expires_at by hand).
+ */
+final class LedgerOwnership {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerOwnership.class);
+
+    private final LedgerOwnerRepository repository;
+    private final ShardDirectory shardDirectory;
+    private final TransactionTemplate transaction;
+    private final Duration lease;
+
+    // Tenants this node holds, with the System.nanoTime() at which the lease runs out
+    private final Map<String, Long> heldUntil = new ConcurrentHashMap<>();
+
+    LedgerOwnership(LedgerOwnerRepository repository, ShardDirectory shardDirectory,
+                    PlatformTransactionManager transactionManager, Duration lease) {
+        this.repository = repository;
+        this.shardDirectory = shardDirectory;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.lease = lease;
+    }
+
+    /**
+     * Whether this node may post for the tenant right now
+     */
+    boolean holds(String tenantId) {
+        Long until = heldUntil.get(tenantId);
+        return until != null && until - System.nanoTime() > 0;
+    }
+
+    /**
+     * Claim a tenant that has no owner, is owned by this node or was
+     * released by its owner
+     *
+     * @param onTakeOver Run before the tenant is served when it was last
+     *                   served by another node (or never), to drop what this
+     *                   node still remembers of it
+     * @return false if another node owns the tenant
+     */
+    boolean acquire(String tenantId, String nodeId, Runnable onTakeOver) {
+        long started = System.nanoTime();
+        LocalDateTime expires = LocalDateTime.now().plus(lease);
+        Boolean takeOver = onShard(tenantId, () -> transaction.execute(status -> {
+            LedgerOwner owner = repository.findByIdForUpdate(tenantId).orElse(null);
+            if (owner == null) {
+                repository.save(new LedgerOwner(tenantId, nodeId, expires));
+                return true;
+            }
+            if (nodeId.equals(owner.getLeaseOwner())) {
+                owner.setLeaseExpiresAt(expires);
+                return false;
+            }
+            if (owner.getLeaseExpiresAt() == null) {
+                owner.setLeaseOwner(nodeId);
+                owner.setLeaseExpiresAt(expires);
+                return true;
+            }
+            return null;
+        }));
+        if (takeOver == null) {
+            return false;
+        }
+        if (takeOver) {
+            onTakeOver.run();
+        }
+        heldUntil.put(tenantId, started + lease.toNanos());
+        return true;
+    }
+
+    /**
+     * Extend the lease of a tenant this node holds
+     *
+     * @return false if the lease was lost
+     */
+    boolean renew(String tenantId, String nodeId) {
+        long started = System.nanoTime();
+        LocalDateTime expires = LocalDateTime.now().plus(lease);
+        Integer extended = onShard(tenantId, () -> transaction.execute(status ->
+                repository.extendLease(tenantId, nodeId, expires)));
+        if (extended == null || extended == 0) {
+            heldUntil.remove(tenantId);
+            return false;
+        }
+        heldUntil.put(tenantId, started + lease.toNanos());
+        return true;
+    }
+
+    /**
+     * Stop serving a tenant and let another node take it over
+     */
+    void release(String tenantId, String nodeId) {
+        heldUntil.remove(tenantId);
+        try {
+            onShard(tenantId, () -> transaction.execute(status -> repository.release(tenantId, nodeId)));
+        } catch (RuntimeException e) {
+            log.warn("Could not release ledger tenant {}: {}", tenantId, e.getMessage());
+        }
+    }
+
+    /**
+     * Forget every lease without releasing it, e.g. when this node's journal
+     * may hold postings the database does not have
+     */
+    void abandon() {
+        heldUntil.clear();
+    }
+
+    private <T> T onShard(String tenantId, Supplier<T> work) {
+        ShardContext.setShard(shardDirectory.shardOf(tenantId));
+        try {
+            return work.get();
+        } finally {
+            ShardContext.clear();
+        }
+    }
+}
@@ -0,0 +1,512 @@
+package com.banking.ledger;
+
+import com.banking.entity.Transaction;
+import com.banking.entity.TransactionType;
+import com.banking.service.PostingOutcomeUnknownException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * LedgerPartition - One single-threaded shard of the ledger engine
+ *
+ * Owns the balances of the accounts hashed to it (LedgerAccountTable) and
+ * their journal. Requests are queued as commands and executed by the
+ * partition thread one at a time, so balance checks need no locks. The thread
+ * drains whatever is queued, executes it, forces the journal once for the
+ * whole drain and only then completes the callers' futures: an accepted
+ * posting is durable before anyone learns about it.
+ *
+ * A posting for an account the partition does not hold yet answers
+ * NEEDS_OPEN; the engine then loads the account's balance from the database,
+ * submits it as an Open command (journaled as an OPEN record) and resubmits
+ * the posting.
+ *
+ * If the journal cannot be forced, the drained postings are applied in memory
+ * but may or may not be on disk. The partition then fails: its callers learn
+ * that the outcome is unknown (PostingOutcomeUnknownException), and it takes no more requests until a restart
+ * rebuilds it from whatever the journal holds.
+ */
+final class LedgerPartition {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerPartition.class);
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    /**
+     * Answer to a posting for an account that is not loaded yet
+     */
+    static final Object NEEDS_OPEN = new Object();
+
+    /**
+     * A request executed on the partition thread
+     */
+    abstract static class Command {
+
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        /**
+         * @return The result, completed after the journal has been forced
+         */
+        abstract Object execute(LedgerPartition partition) throws IOException;
+    }
+
+    private final int index;
+    private final Path dir;
+    private final int segmentSize;
+    private final boolean fsync;
+    private final int maxBacklog;
+    private final LedgerPersister persister;
+    private final BlockingQueue<Command> queue;
+
+    private LedgerAccountTable table;
+    private LedgerJournal journal;
+    private final List<LedgerPersister.Entry> posted = new ArrayList<>();
+    // End of the last posting journaled since the start
+    private long lastPosted;
+
+    private volatile boolean running;
+    private volatile boolean failed;
+    private Thread thread;
+
+    LedgerPartition(int index, Path dir, int segmentSize, boolean fsync, int queueCapacity, int maxBacklog,
+                    LedgerPersister persister) {
+        this.index = index;
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        this.maxBacklog = maxBacklog;
+        this.persister = persister;
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueCapacity, 1));
+    }
+
+    /**
+     * Load the newest snapshot and replay the journal after it; postings not
+     * persisted yet are handed to the persister again
+     */
+    void recover() throws IOException {
+        LedgerSnapshot snapshot = LedgerSnapshot.readLatest(dir);
+        table = snapshot.table;
+        persister.setPersisted(index, snapshot.persisted);
+        long[] replayed = new long[2];
+        journal = LedgerJournal.open(dir, segmentSize, fsync, snapshot.persisted, snapshot.position,
+                (position, end, record) -> {
+                    if (position >= snapshot.position) {
+                        apply(record);
+                        replayed[0]++;
+                    }
+                    if (record.type == LedgerRecord.POST) {
+                        persister.enqueue(new LedgerPersister.Entry(index, end, record));
+                        replayed[1]++;
+                    }
+                });
+        log.info("Ledger partition {}: {} accounts, {} records replayed, {} postings to persist",
+                index, table.size(), replayed[0], replayed[1]);
+    }
+
+    /**
+     * Drop the accounts of tenants that are no longer handled by the ledger,
+     * so that their balances are loaded afresh if they come back
+     */
+    void retainTenants(Set<String> tenants) throws IOException {
+        closeAccounts(tenantId -> !tenants.contains(tenantId));
+        journal.force();
+    }
+
+    /**
+     * Journal a CLOSE record for every account of the matching tenants
+     */
+    private void closeAccounts(Predicate<String> tenants) throws IOException {
+        List<LedgerRecord> closes = new ArrayList<>();
+        table.forEach((accountHi, accountLo, tenantId, balance) -> {
+            if (tenants.test(tenantId)) {
+                closes.add(LedgerRecord.close(accountHi, accountLo, tenantId));
+            }
+        });
+        for (LedgerRecord close : closes) {
+            journal.append(close);
+            apply(close);
+        }
+    }
+
+    void start() {
+        running = true;
+        thread = new Thread(this::run, "ledger-partition-" + index);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Command left;
+        while ((left = queue.poll()) != null) {
+            left.result.completeExceptionally(new RejectedExecutionException("Ledger is shutting down"));
+        }
+    }
+
+    /**
+     * Close the journal, after stop()
+     */
+    void close() {
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+        } catch (IOException e) {
+            log.warn("Closing ledger journal {} failed: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Queue a command for the partition thread
+     *
+     * @throws RejectedExecutionException if the queue is full or the partition stopped
+     */
+    CompletableFuture<Object> submit(Command command) {
+        if (failed) {
+            throw new RejectedExecutionException("Ledger partition " + index + " failed; restart the node to recover it");
+        }
+        if (!running) {
+            throw new RejectedExecutionException("Ledger is shutting down");
+        }
+        if (!queue.offer(command)) {
+            throw new RejectedExecutionException("Too many ledger postings waiting");
+        }
+        // Stopped or failed in the meantime: the leftover queue may already have been
+        // drained, so take the command back unless the partition thread has it
+        if ((failed || !running) && queue.remove(command)) {
+            throw new RejectedExecutionException("Ledger is shutting down");
+        }
+        return command.result;
+    }
+
+    /**
+     * Copy of the table with its journal position; call on the partition
+     * thread (Snapshot command) or once the thread has stopped
+     */
+    LedgerSnapshot snapshot() {
+        return new LedgerSnapshot(journal.position(), persister.persisted(index), table.copy());
+    }
+
+    void deleteJournalBefore(long position) throws IOException {
+        journal.deleteBefore(position);
+    }
+
+    Path dir() {
+        return dir;
+    }
+
+    /**
+     * Whether the journal could not be forced; the in-memory state may then
+     * be ahead of the journal and must not be snapshotted
+     */
+    boolean failed() {
+        return failed;
+    }
+
+    private void run() {
+        List<Command> batch = new ArrayList<>();
+        List<Object> results = new ArrayList<>();
+        while (running) {
+            try {
+                Command first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch);
+                for (Command command : batch) {
+                    try {
+                        results.add(command.execute(this));
+                    } catch (IOException e) {
+                        results.add(new UncheckedIOException("Ledger journal unavailable", e));
+                    } catch (RuntimeException e) {
+                        results.add(e);
+                    }
+                }
+                RuntimeException forceFailure = null;
+                try {
+                    journal.force();
+                } catch (RuntimeException e) {
+                    // The drain is applied in memory but may or may not be on disk. Persisting
+                    // it would turn a failed answer into a posting a client retry doubles;
+                    // dropping it could lose one that is on disk. Stop here and let the
+                    // restart decide from the journal
+                    log.error("Ledger partition {} could not force its journal and stops taking requests; "
+                            + "restart the node to recover it", index, e);
+                    failed = true;
+                    forceFailure = new PostingOutcomeUnknownException(
+                            "Ledger journal could not be written; the outcome of this posting is unknown");
+                }
+                if (forceFailure == null && !posted.isEmpty()) {
+                    persister.enqueue(new ArrayList<>(posted));
+                }
+                posted.clear();
+                for (int i = 0; i < batch.size(); i++) {
+                    Object result = forceFailure != null ? forceFailure : results.get(i);
+                    if (result instanceof RuntimeException e) {
+                        batch.get(i).result.completeExceptionally(e);
+                    } else {
+                        batch.get(i).result.complete(result);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+                results.clear();
+            }
+            if (failed) {
+                running = false;
+                Command left;
+                while ((left = queue.poll()) != null) {
+                    left.result.completeExceptionally(new RejectedExecutionException(
+                            "Ledger partition " + index + " failed; restart the node to recover it"));
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Apply a replayed record to the table
+     */
+    private void apply(LedgerRecord record) {
+        switch (record.type) {
+            case LedgerRecord.OPEN -> table.put(record.accountHi, record.accountLo, record.tenantId, record.cents);
+            case LedgerRecord.POST -> {
+                int slot = table.indexOf(record.accountHi, record.accountLo);
+                if (slot >= 0) {
+                    table.setBalance(slot, table.balanceAt(slot) + record.delta());
+                }
+            }
+            case LedgerRecord.CLOSE -> table.remove(record.accountHi, record.accountLo);
+            default -> throw new IllegalStateException("Unknown ledger record type " + record.type);
+        }
+    }
+
+    /**
+     * Load an account with its balance from the database, unless the
+     * partition holds it already
+     */
+    static final class Open extends Command {
+
+        private final String tenantId;
+        private final UUID accountId;
+        private final long balance;
+
+        Open(String tenantId, UUID accountId, long balance) {
+            this.tenantId = tenantId;
+            this.accountId = accountId;
+            this.balance = balance;
+        }
+
+        @Override
+        Object execute(LedgerPartition partition) throws IOException {
+            long hi = accountId.getMostSignificantBits();
+            long lo = accountId.getLeastSignificantBits();
+            int slot = partition.table.indexOf(hi, lo);
+            if (slot < 0) {
+                partition.journal.append(LedgerRecord.open(hi, lo, tenantId, balance));
+                partition.table.put(hi, lo, tenantId, balance);
+            } else if (!partition.table.tenantAt(slot).equals(tenantId)) {
+                throw new RuntimeException("Account not found or access denied");
+            }
+            return Boolean.TRUE;
+        }
+    }
+
+    /**
+     * Accept or reject a posting
+     */
+    static final class Post extends Command {
+
+        private final String tenantId;
+        private final UUID accountId;
+        private final TransactionType type;
+        private final long amount;
+
+        Post(String tenantId, UUID accountId, TransactionType type, long amount) {
+            this.tenantId = tenantId;
+            this.accountId = accountId;
+            this.type = type;
+            this.amount = amount;
+        }
+
+        @Override
+        Object execute(LedgerPartition partition) throws IOException {
+            LedgerAccountTable table = partition.table;
+            long hi = accountId.getMostSignificantBits();
+            long lo = accountId.getLeastSignificantBits();
+            int slot = table.indexOf(hi, lo);
+            if (slot < 0) {
+                return NEEDS_OPEN;
+            }
+            if (!table.tenantAt(slot).equals(tenantId)) {
+                throw new RuntimeException("Account not found or access denied");
+            }
+            if (partition.persister.backlog() + partition.posted.size() >= partition.maxBacklog) {
+                throw new RejectedExecutionException("Ledger persistence is behind");
+            }
+            boolean deposit = type == TransactionType.DEPOSIT;
+            long balance = table.balanceAt(slot);
+            long next;
+            try {
+                next = deposit ? Math.addExact(balance, amount) : balance - amount;
+            } catch (ArithmeticException e) {
+                throw new RuntimeException("Amount too large");
+            }
+            if (next < 0) {
+                throw new RuntimeException("Insufficient balance");
+            }
+
+            UUID transactionId = nextId();
+            LocalDateTime timestamp = LocalDateTime.now();
+            LedgerRecord record = LedgerRecord.post(hi, lo, tenantId, transactionId.getMostSignificantBits(),
+                    transactionId.getLeastSignificantBits(), deposit, amount, timestamp);
+            long end = partition.journal.append(record);
+            partition.lastPosted = end;
+            table.setBalance(slot, next);
+            partition.posted.add(new LedgerPersister.Entry(partition.index, end, record));
+
+            Transaction transaction = new Transaction(accountId, tenantId, type, BigDecimal.valueOf(amount, 2));
+            transaction.setTransactionId(transactionId);
+            transaction.setTimestamp(timestamp);
+            return transaction;
+        }
+    }
+
+    /**
+     * Current balance in cents, or null if the partition does not hold the account
+     */
+    static final class Balance extends Command {
+
+        private final String tenantId;
+        private final UUID accountId;
+
+        Balance(String tenantId, UUID accountId) {
+            this.tenantId = tenantId;
+            this.accountId = accountId;
+        }
+
+        @Override
+        Object execute(LedgerPartition partition) {
+            int slot = partition.table.indexOf(accountId.getMostSignificantBits(), accountId.getLeastSignificantBits());
+            if (slot < 0 || !partition.table.tenantAt(slot).equals(tenantId)) {
+                return null;
+            }
+            return partition.table.balanceAt(slot);
+        }
+    }
+
+    /**
+     * Drop an account (deleted accounts)
+     *
+     * Answers the journal position the persister has to reach before the
+     * account row may be deleted: the end of the partition's last posting
+     */
+    static final class Close extends Command {
+
+        private final String tenantId;
+        private final UUID accountId;
+
+        Close(String tenantId, UUID accountId) {
+            this.tenantId = tenantId;
+            this.accountId = accountId;
+        }
+
+        @Override
+        Object execute(LedgerPartition partition) throws IOException {
+            long hi = accountId.getMostSignificantBits();
+            long lo = accountId.getLeastSignificantBits();
+            int slot = partition.table.indexOf(hi, lo);
+            if (slot >= 0 && partition.table.tenantAt(slot).equals(tenantId)) {
+                partition.journal.append(LedgerRecord.close(hi, lo, tenantId));
+                partition.table.remove(hi, lo);
+            }
+            return partition.lastPosted;
+        }
+    }
+
+    /**
+     * Drop every account of a tenant, so they are loaded afresh from the
+     * database (a tenant taken over from another node)
+     */
+    static final class Forget extends Command {
+
+        private final String tenantId;
+
+        Forget(String tenantId) {
+            this.tenantId = tenantId;
+        }
+
+        @Override
+        Object execute(LedgerPartition partition) throws IOException {
+            partition.closeAccounts(tenantId::equals);
+            return Boolean.TRUE;
+        }
+    }
+
+    /**
+     * Copy the table for a snapshot
+     */
+    static final class Snapshot extends Command {
+
+        @Override
+        Object execute(LedgerPartition partition) {
+            return partition.snapshot();
+        }
+    }
+
+    /**
+     * Delete journal segments no snapshot needs any more
+     */
+    static final class Truncate extends Command {
+
+        private final long position;
+
+        Truncate(long position) {
+            this.position = position;
+        }
+
+        @Override
+        Object execute(LedgerPartition partition) throws IOException {
+            partition.deleteJournalBefore(position);
+            return Boolean.TRUE;
+        }
+    }
+
+    /**
+     * Time-ordered UUIDv7, the same layout Hibernate generates for Transaction IDs
+     */
+    private static UUID nextId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = System.currentTimeMillis() << 16 | 0x7000L | (random.nextInt() & 0x0FFF);
+        long lsb = random.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
@@ -0,0 +1,325 @@
+package com.banking.ledger;
+
+import com.banking.config.ShardContext;
+import com.banking.config.ShardDirectory;
+import com.banking.entity.TransactionType;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.BalanceCheckpointRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.service.AccountBalanceSlots;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LedgerPersister - Writes ledger postings to the database in the background
+ *
+ * Partitions hand over their journaled POST records; one thread writes them
+ * in batches, one database transaction per shard: each posting is inserted
+ * with TransactionRepository.insertIfAbsent, and the net change per account
+ * is applied with one AccountRepository.applyBalanceDelta. A posting that is
+ * already in the database (persisted before a crash, replayed from the
+ * journal after it) is skipped together with its balance change, so
+ * persisting a record twice is harmless.
+ *
+ * Persistence may fall behind by more than banking.balances.close-lag (the
+ * database was unavailable, say), so a posting can arrive after the daily
+ * close has checkpointed its day. Its balance change is then also added to
+ * those checkpoints (BalanceCheckpointRepository.applyLateDelta), in the
+ * same transaction.
+ *
+ * A posting and its balance change are committed together or not at all: if
+ * a balance change cannot be applied (the account row is gone, or the stored
+ * balance would go negative, i.e. something other than the ledger changed
+ * it), the whole batch rolls back. banking.ledger.persist.unmatched counts
+ * these; persistence stalls on the batch until the row is put right, and
+ * once max-backlog postings are waiting the ledger refuses new ones.
+ *
+ * After a batch commits, the persisted watermark of each partition moves to
+ * the end of its last record in the batch. A failed batch is retried until
+ * it succeeds; the journal keeps every record after the watermark, so
+ * nothing is lost while the database is unavailable.
+ */
+final class LedgerPersister {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerPersister.class);
+
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final long RETRY_MILLIS = 1000;
+    private static final int ATTEMPTS_WHEN_STOPPING = 3;
+
+    /**
+     * A journaled posting waiting to be persisted
+     */
+    static final class Entry {
+
+        final int partition;
+        final long end;
+        final LedgerRecord record;
+
+        Entry(int partition, long end, LedgerRecord record) {
+            this.partition = partition;
+            this.end = end;
+            this.record = record;
+        }
+    }
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final BalanceCheckpointRepository checkpointRepository;
+    private final AccountBalanceSlots balanceSlots;
+    private final ShardDirectory shardDirectory;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final AtomicLongArray persisted;
+    // Handed over and not yet committed, including the batch being written
+    private final AtomicInteger pending = new AtomicInteger();
+    private final DistributionSummary batchSizes;
+    private final Counter unmatched;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    LedgerPersister(TransactionRepository transactionRepository,
+                    AccountRepository accountRepository,
+                    BalanceCheckpointRepository checkpointRepository,
+                    AccountBalanceSlots balanceSlots,
+                    ShardDirectory shardDirectory,
+                    PlatformTransactionManager transactionManager,
+                    int partitions,
+                    int batchSize,
+                    MeterRegistry registry) {
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.balanceSlots = balanceSlots;
+        this.shardDirectory = shardDirectory;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(batchSize, 1);
+        this.persisted = new AtomicLongArray(partitions);
+
+        this.batchSizes = DistributionSummary.builder("banking.ledger.persist.batch-size")
+                .description("Ledger postings written to the database per batch")
+                .register(registry);
+        this.unmatched = Counter.builder("banking.ledger.persist.unmatched")
+                .description("Ledger persistence batches rolled back because a balance change could not be applied")
+                .register(registry);
+        Gauge.builder("banking.ledger.persist.backlog", this, LedgerPersister::backlog)
+                .description("Ledger postings not yet in the database")
+                .register(registry);
+    }
+
+    void start() {
+        running = true;
+        writer = new Thread(this::writeLoop, "ledger-persister");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Write what is queued, giving up on a database that stays unavailable;
+     * whatever is left is persisted again from the journal on the next start
+     */
+    void stop() {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    void enqueue(Entry entry) {
+        pending.incrementAndGet();
+        queue.add(entry);
+    }
+
+    void enqueue(List<Entry> entries) {
+        pending.addAndGet(entries.size());
+        queue.addAll(entries);
+    }
+
+    /**
+     * Postings handed over but not yet committed to the database
+     */
+    int backlog() {
+        return pending.get();
+    }
+
+    long persisted(int partition) {
+        return persisted.get(partition);
+    }
+
+    void setPersisted(int partition, long position) {
+        persisted.set(partition, position);
+    }
+
+    /**
+     * Wait until a partition's postings up to a journal position are in the database
+     *
+     * @return false if that did not happen within the timeout
+     */
+    boolean awaitPersisted(int partition, long position, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (persisted.get(partition) < position) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    /**
+     * Wait until everything handed over so far is in the database
+     *
+     * @return false if that did not happen within the timeout
+     */
+    boolean awaitEmpty(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (backlog() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private void writeLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Entry> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                if (!writeWithRetry(batch)) {
+                    return;
+                }
+                pending.addAndGet(-batch.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private boolean writeWithRetry(List<Entry> batch) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                write(batch);
+                return true;
+            } catch (RuntimeException e) {
+                if (!running && attempt >= ATTEMPTS_WHEN_STOPPING) {
+                    log.error("Giving up on {} ledger postings while stopping; they stay in the journal: {}",
+                            batch.size(), e.getMessage());
+                    return false;
+                }
+                log.error("Persisting {} ledger postings failed (attempt {}), retrying: {}",
+                        batch.size(), attempt, e.getMessage());
+                Thread.sleep(RETRY_MILLIS);
+            }
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        Map<String, List<Entry>> byShard = new HashMap<>();
+        for (Entry entry : batch) {
+            byShard.computeIfAbsent(shardDirectory.shardOf(entry.record.tenantId), shard -> new ArrayList<>()).add(entry);
+        }
+        byShard.forEach((shard, entries) -> {
+            ShardContext.setShard(shard);
+            try {
+                transaction.executeWithoutResult(status -> writeOnShard(entries));
+            } finally {
+                ShardContext.clear();
+            }
+        });
+        batchSizes.record(batch.size());
+        for (Entry entry : batch) {
+            if (entry.end > persisted.get(entry.partition)) {
+                persisted.set(entry.partition, entry.end);
+            }
+        }
+    }
+
+    private void writeOnShard(List<Entry> entries) {
+        Map<UUID, Long> deltas = new LinkedHashMap<>();
+        Map<UUID, String> tenants = new HashMap<>();
+        // Only days before today can have a checkpoint
+        LocalDate today = LocalDate.now();
+        Map<UUID, Map<LocalDate, Long>> lateDeltas = new HashMap<>();
+        for (Entry entry : entries) {
+            LedgerRecord record = entry.record;
+            int inserted = transactionRepository.insertIfAbsent(
+                    bytes(record.transactionHi, record.transactionLo),
+                    bytes(record.accountHi, record.accountLo),
+                    record.tenantId,
+                    (record.deposit ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL).name(),
+                    BigDecimal.valueOf(record.cents, 2),
+                    record.timestamp);
+            if (inserted == 1) {
+                UUID accountId = new UUID(record.accountHi, record.accountLo);
+                deltas.merge(accountId, record.delta(), Long::sum);
+                tenants.put(accountId, record.tenantId);
+                LocalDate day = record.timestamp.toLocalDate();
+                if (day.isBefore(today)) {
+                    lateDeltas.computeIfAbsent(accountId, id -> new HashMap<>()).merge(day, record.delta(), Long::sum);
+                }
+            }
+        }
+        lateDeltas.forEach((accountId, days) -> days.forEach((day, cents) ->
+                checkpointRepository.applyLateDelta(tenants.get(accountId), accountId, day, BigDecimal.valueOf(cents, 2))));
+        deltas.forEach((accountId, cents) -> {
+            if (cents == 0) {
+                return;
+            }
+            String tenantId = tenants.get(accountId);
+            BigDecimal delta = BigDecimal.valueOf(cents, 2);
+            if (accountRepository.applyBalanceDelta(accountId, tenantId, delta) == 1) {
+                return;
+            }
+            // Part of the balance may sit in the slots of a hot account
+            if (cents < 0 && balanceSlots.sweep(tenantId, accountId).signum() > 0
+                    && accountRepository.applyBalanceDelta(accountId, tenantId, delta) == 1) {
+                return;
+            }
+            // Never commit a posting without its balance change
+            unmatched.increment();
+            throw new IllegalStateException("Ledger balance change " + delta + " for account " + accountId + " of "
+                    + tenantId + (accountRepository.existsByAccountIdAndTenantId(accountId, tenantId)
+                    ? " would overdraw the stored balance" : " matched no account row"));
+        });
+    }
+
+    private static byte[] bytes(long hi, long lo) {
+        return ByteBuffer.allocate(16).putLong(hi).putLong(lo).array();
+    }
+}
@@ -0,0 +1,127 @@
+package com.banking.ledger;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * LedgerRecord - One journal entry of a ledger partition
+ *
+ * OPEN loads an account into the partition with its balance at that moment,
+ * POST is an accepted transaction, CLOSE drops an account again. Replaying
+ * the records of a partition in order rebuilds its table exactly.
+ *
+ * Encoding (big-endian): type byte, account ID (2 longs), tenant (short
+ * length + UTF-8), then
+ * - OPEN: balance in cents
+ * - POST: transaction ID (2 longs), deposit flag, amount in cents,
+ *   timestamp (UTC epoch second + nanos)
+ * - CLOSE: nothing
+ */
+final class LedgerRecord {
+
+    static final byte OPEN = 1;
+    static final byte POST = 2;
+    static final byte CLOSE = 3;
+
+    final byte type;
+    final long accountHi;
+    final long accountLo;
+    final String tenantId;
+    // OPEN: opening balance; POST: amount (always positive)
+    final long cents;
+    final long transactionHi;
+    final long transactionLo;
+    final boolean deposit;
+    final LocalDateTime timestamp;
+
+    private LedgerRecord(byte type, long accountHi, long accountLo, String tenantId, long cents,
+                         long transactionHi, long transactionLo, boolean deposit, LocalDateTime timestamp) {
+        this.type = type;
+        this.accountHi = accountHi;
+        this.accountLo = accountLo;
+        this.tenantId = tenantId;
+        this.cents = cents;
+        this.transactionHi = transactionHi;
+        this.transactionLo = transactionLo;
+        this.deposit = deposit;
+        this.timestamp = timestamp;
+    }
+
+    static LedgerRecord open(long accountHi, long accountLo, String tenantId, long balance) {
+        return new LedgerRecord(OPEN, accountHi, accountLo, tenantId, balance, 0, 0, false, null);
+    }
+
+    static LedgerRecord post(long accountHi, long accountLo, String tenantId, long transactionHi, long transactionLo,
+                             boolean deposit, long amount, LocalDateTime timestamp) {
+        return new LedgerRecord(POST, accountHi, accountLo, tenantId, amount, transactionHi, transactionLo,
+                deposit, timestamp);
+    }
+
+    static LedgerRecord close(long accountHi, long accountLo, String tenantId) {
+        return new LedgerRecord(CLOSE, accountHi, accountLo, tenantId, 0, 0, 0, false, null);
+    }
+
+    /**
+     * Signed change of the account balance
+     */
+    long delta() {
+        return deposit ? cents : -cents;
+    }
+
+    int encodedSize() {
+        int size = 1 + 16 + 2 + tenantId.length() * 3;
+        return switch (type) {
+            case OPEN -> size + 8;
+            case POST -> size + 16 + 1 + 8 + 12;
+            default -> size;
+        };
+    }
+
+    void encode(ByteBuffer buffer) {
+        byte[] tenant = tenantId.getBytes(StandardCharsets.UTF_8);
+        buffer.put(type);
+        buffer.putLong(accountHi);
+        buffer.putLong(accountLo);
+        buffer.putShort((short) tenant.length);
+        buffer.put(tenant);
+        if (type == OPEN) {
+            buffer.putLong(cents);
+        } else if (type == POST) {
+            buffer.putLong(transactionHi);
+            buffer.putLong(transactionLo);
+            buffer.put(deposit ? (byte) 1 : 0);
+            buffer.putLong(cents);
+            buffer.putLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+            buffer.putInt(timestamp.getNano());
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException for an unknown record type
+     */
+    static LedgerRecord decode(ByteBuffer buffer) {
+        byte type = buffer.get();
+        long accountHi = buffer.getLong();
+        long accountLo = buffer.getLong();
+        byte[] tenant = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(tenant);
+        String tenantId = new String(tenant, StandardCharsets.UTF_8);
+        switch (type) {
+            case OPEN:
+                return open(accountHi, accountLo, tenantId, buffer.getLong());
+            case POST:
+                long transactionHi = buffer.getLong();
+                long transactionLo = buffer.getLong();
+                boolean deposit = buffer.get() == 1;
+                long amount = buffer.getLong();
+                LocalDateTime timestamp = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+                return post(accountHi, accountLo, tenantId, transactionHi, transactionLo, deposit, amount, timestamp);
+            case CLOSE:
+                return close(accountHi, accountLo, tenantId);
+            default:
+                throw new IllegalArgumentException("Unknown ledger record type " + type);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.banking.ledger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * LedgerSnapshot - Point-in-time copy of a ledger partition
+ *
+ * Holds the account table as of journal position {@code position}, and the
+ * persisted watermark at that time: every POST before {@code persisted} is
+ * in the database. Recovery loads the newest readable snapshot, re-applies
+ * the journal from {@code position} and re-persists it from {@code persisted}.
+ *
+ * Layout: snapshot-<position>.snap, written to a temporary name, synced and
+ * moved into place atomically, and checked with a CRC32C trailer on read, so
+ * a snapshot interrupted by a crash is never loaded.
+ */
+final class LedgerSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerSnapshot.class);
+
+    private static final int MAGIC = 0x4C444753;
+    private static final int VERSION = 1;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    final long position;
+    final long persisted;
+    final LedgerAccountTable table;
+
+    LedgerSnapshot(long position, long persisted, LedgerAccountTable table) {
+        this.position = position;
+        this.persisted = persisted;
+        this.table = table;
+    }
+
+    void write(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path target = dir.resolve(String.format("%s%020d%s", PREFIX, position, SUFFIX));
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        CRC32C crc = new CRC32C();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024), crc))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(position);
+            out.writeLong(persisted);
+            out.writeInt(table.size());
+            IOException[] failure = new IOException[1];
+            table.forEach((accountHi, accountLo, tenantId, balance) -> {
+                if (failure[0] != null) {
+                    return;
+                }
+                try {
+                    out.writeLong(accountHi);
+                    out.writeLong(accountLo);
+                    out.writeUTF(tenantId);
+                    out.writeLong(balance);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            // The trailer itself is not part of the checksum
+            out.writeLong(crc.getValue());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * The newest snapshot in a directory that reads back intact, or an empty
+     * table at position 0 if there is none
+     */
+    static LedgerSnapshot readLatest(Path dir) throws IOException {
+        for (Path file : list(dir)) {
+            try {
+                return read(file);
+            } catch (IOException e) {
+                log.warn("Skipping unreadable ledger snapshot {}: {}", file, e.getMessage());
+            }
+        }
+        return new LedgerSnapshot(0, 0, new LedgerAccountTable(1024));
+    }
+
+    /**
+     * Delete all but the newest snapshots of a directory
+     *
+     * @return Persisted watermark of the oldest snapshot kept: the journal
+     * before it is no longer needed for recovery
+     */
+    static long prune(Path dir, int keep) throws IOException {
+        List<Path> files = list(dir);
+        long oldestKept = 0;
+        for (int i = 0; i < files.size(); i++) {
+            if (i < keep) {
+                try (DataInputStream in = new DataInputStream(Files.newInputStream(files.get(i)))) {
+                    in.readInt();
+                    in.readInt();
+                    in.readLong();
+                    oldestKept = in.readLong();
+                }
+            } else {
+                Files.deleteIfExists(files.get(i));
+            }
+        }
+        return oldestKept;
+    }
+
+    private static LedgerSnapshot read(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 64 * 1024), crc))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("not a ledger snapshot");
+            }
+            long position = in.readLong();
+            long persisted = in.readLong();
+            int size = in.readInt();
+            LedgerAccountTable table = new LedgerAccountTable(size);
+            for (int i = 0; i < size; i++) {
+                table.put(in.readLong(), in.readLong(), in.readUTF(), in.readLong());
+            }
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("checksum mismatch");
+            }
+            return new LedgerSnapshot(position, persisted, table);
+        }
+    }
+
+    /**
+     * Snapshot files of a directory, newest first
+     */
+    private static List<Path> list(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted((a, b) -> b.getFileName().toString().compareTo(a.getFileName().toString()))
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.banking.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * V3 - Store all entity IDs as 16-byte binary UUIDs instead of 36-character strings
+ *
+ * Existing rows keep their IDs: the string form of every ID (and of the
+ * account_id references in transactions and statement_jobs) is converted to
+ * the same UUID in binary form, so IDs already handed out to clients stay valid.
+ * New rows get time-ordered UUIDv7 IDs from Hibernate.
+ *
+ * For each column the migration adds a BINARY(16) column, fills it, drops the
+ * old column and renames the new one into place. The indexes that contain the
+ * converted columns are dropped first and recreated at the end.
+ *
+ * This is a Java migration because the string-to-binary conversion is
+ * database specific: MySQL does it in one UPDATE with UNHEX, other databases
+ * (H2 in tests) are converted row by row over JDBC.
+ *
+ * Registered with Flyway as a Spring bean.
+ */
+@Component
+public class V3__BinaryUuidKeys extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP INDEX idx_accounts_tenant_created ON accounts");
+            statement.execute("DROP INDEX idx_transactions_tenant_account_ts ON transactions");
+        }
+
+        convertColumn(connection, mysql, "accounts", "account_id", true);
+        convertColumn(connection, mysql, "transactions", "transaction_id", true);
+        convertColumn(connection, mysql, "transactions", "account_id", false);
+        convertColumn(connection, mysql, "statement_jobs", "job_id", true);
+        convertColumn(connection, mysql, "statement_jobs", "account_id", false);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX idx_accounts_tenant_created " +
+                    "ON accounts (tenant_id, created_at, account_id)");
+            statement.execute("CREATE INDEX idx_transactions_tenant_account_ts " +
+                    "ON transactions (tenant_id, account_id, timestamp, transaction_id)");
+        }
+    }
+
+    /**
+     * Replace a VARCHAR UUID column with a BINARY(16) column holding the same values
+     */
+    private void convertColumn(Connection connection, boolean mysql, String table, String column,
+                               boolean primaryKey) throws SQLException {
+        String binaryColumn = column + "_bin";
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE " + table + " ADD COLUMN " + binaryColumn + " BINARY(16)");
+
+            if (mysql) {
+                statement.executeUpdate("UPDATE " + table + " SET " + binaryColumn +
+                        " = UNHEX(REPLACE(" + column + ", '-', ''))");
+            } else {
+                copyRowByRow(connection, table, column, binaryColumn);
+            }
+
+            if (primaryKey) {
+                statement.execute("ALTER TABLE " + table + " DROP PRIMARY KEY");
+            }
+            statement.execute("ALTER TABLE " + table + " DROP COLUMN " + column);
+            statement.execute("ALTER TABLE " + table + " RENAME COLUMN " + binaryColumn + " TO " + column);
+            statement.execute("ALTER TABLE " + table + " MODIFY " + column + " BINARY(16) NOT NULL");
+            if (primaryKey) {
+                statement.execute("ALTER TABLE " + table + " ADD PRIMARY KEY (" + column + ")");
+            }
+        }
+    }
+
+    private void copyRowByRow(Connection connection, String table, String column, String binaryColumn)
+            throws SQLException {
+        String select = "SELECT DISTINCT " + column + " FROM " + table;
+        String update = "UPDATE " + table + " SET " + binaryColumn + " = ? WHERE " + column + " = ?";
+
+        try (Statement query = connection.createStatement();
+             ResultSet rows = query.executeQuery(select);
+             PreparedStatement write = connection.prepareStatement(update)) {
+
+            int pending = 0;
+            while (rows.next()) {
+                String id = rows.getString(1);
+                write.setBytes(1, toBytes(UUID.fromString(id)));
+                write.setString(2, id);
+                write.addBatch();
+
+                if (++pending == BATCH_SIZE) {
+                    write.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                write.executeBatch();
+            }
+        }
+    }
+
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -0,0 +1,60 @@
+package com.banking.repository;
+
+import com.banking.entity.AccountBalanceSlot;
+import com.banking.entity.AccountBalanceSlotId;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * AccountBalanceSlotRepository - Data access layer for the sub-balances of hot accounts
+ *
+ * All queries include tenantId to maintain data isolation between tenants.
+ */
+@Repository
+public interface AccountBalanceSlotRepository extends JpaRepository<AccountBalanceSlot, AccountBalanceSlotId> {
+
+    /**
+     * Add a deposit to one slot; locks only that slot's row
+     *
+     * @return 1 if the slot exists, 0 if not (the account is not, or no longer, hot)
+     */
+    @Modifying
+    @Query("UPDATE AccountBalanceSlot s SET s.balance = s.balance + :amount " +
+            "WHERE s.tenantId = :tenantId AND s.accountId = :accountId AND s.slot = :slot")
+    int addToSlot(@Param("tenantId") String tenantId,
+                  @Param("accountId") UUID accountId,
+                  @Param("slot") int slot,
+                  @Param("amount") BigDecimal amount);
+
+    /**
+     * Lock all slots of an account, in slot order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountBalanceSlot s WHERE s.tenantId = :tenantId AND s.accountId = :accountId " +
+            "ORDER BY s.slot")
+    List<AccountBalanceSlot> findAllForUpdate(@Param("tenantId") String tenantId,
+                                              @Param("accountId") UUID accountId);
+
+    /**
+     * Empty all slots of an account (after their sum was moved to the account row)
+     */
+    @Modifying
+    @Query("UPDATE AccountBalanceSlot s SET s.balance = 0 WHERE s.tenantId = :tenantId AND s.accountId = :accountId")
+    int clearSlots(@Param("tenantId") String tenantId, @Param("accountId") UUID accountId);
+
+    /**
+     * Delete all slots of an account (account deleted, or no longer hot)
+     */
+    @Modifying
+    @Query("DELETE FROM AccountBalanceSlot s WHERE s.tenantId = :tenantId AND s.accountId = :accountId")
+    void deleteByTenantIdAndAccountId(@Param("tenantId") String tenantId, @Param("accountId") UUID accountId);
+}
@@ -1,11 +1,22 @@
 package com.banking.repository;
 
+import com.banking.dto.AccountView;
 import com.banking.entity.Account;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * AccountRepository - Data access layer for Account entity
@@ -14,28 +25,129 @@ import java.util.Optional;
  * The key methods filter by tenantId to ensure data isolation.
  *
  * Multi-tenant filtering:
- * - findByTenantId: Get all accounts for a specific tenant
+ * - findFirstPage / findPageAfter: Page through a tenant's accounts (keyset pagination)
  * - findByAccountIdAndTenantId: Get specific account only if it belongs to tenant
+ * - applyBalanceDelta: Atomically change a balance without loading the account
+ * - setBalanceSlots: Mark an account as hot (see AccountBalanceSlots)
+ * - findAccountIdsAfter / findByTenantIdAndAccountIdBetween...: Walk a tenant's
+ *   accounts in ID order (bulk statement runs)
  *
  * This prevents tenants from accessing each other's data.
  */
 @Repository
-public interface AccountRepository extends JpaRepository<Account, String> {
+public interface AccountRepository extends JpaRepository<Account, UUID> {
 
     /**
-     * Find all accounts belonging to a specific tenant
-     * Used for GET /api/accounts
+     * First page of a tenant's accounts, ordered by (createdAt, accountId)
+     * Used for GET /api/accounts without a cursor; returns unmanaged views
      */
-    List<Account> findByTenantId(String tenantId);
+    @Query("SELECT new com.banking.dto.AccountView(a.accountId, a.tenantId, a.customerName, " +
+            "a.balance + a.slotBalance, a.balanceSlots, a.createdAt) " +
+            "FROM Account a WHERE a.tenantId = :tenantId " +
+            "ORDER BY a.createdAt, a.accountId")
+    List<AccountView> findFirstPage(@Param("tenantId") String tenantId, Limit limit);
+
+    /**
+     * Next page of a tenant's accounts after the given (createdAt, accountId) key
+     * Seeks directly to the key instead of skipping rows, so deep pages cost the same as the first
+     */
+    @Query("SELECT new com.banking.dto.AccountView(a.accountId, a.tenantId, a.customerName, " +
+            "a.balance + a.slotBalance, a.balanceSlots, a.createdAt) " +
+            "FROM Account a WHERE a.tenantId = :tenantId " +
+            "AND (a.createdAt > :createdAt OR (a.createdAt = :createdAt AND a.accountId > :accountId)) " +
+            "ORDER BY a.createdAt, a.accountId")
+    List<AccountView> findPageAfter(@Param("tenantId") String tenantId,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("accountId") UUID accountId,
+                                    Limit limit);
+
+    /**
+     * Count a tenant's accounts
+     */
+    long countByTenantId(String tenantId);
 
     /**
      * Find a specific account only if it belongs to the tenant
      * This ensures tenant isolation - a tenant can only access their own accounts
      */
-    Optional<Account> findByAccountIdAndTenantId(String accountId, String tenantId);
+    Optional<Account> findByAccountIdAndTenantId(UUID accountId, String tenantId);
+
+    /**
+     * Check that an account exists and belongs to the tenant
+     */
+    boolean existsByAccountIdAndTenantId(UUID accountId, String tenantId);
+
+    /**
+     * When the account was last updated (null if never, or if it does not exist)
+     * Part of the statement result cache key
+     */
+    @Query("SELECT a.updatedAt FROM Account a WHERE a.accountId = :accountId AND a.tenantId = :tenantId")
+    LocalDateTime findUpdatedAt(@Param("accountId") UUID accountId, @Param("tenantId") String tenantId);
+
+    /**
+     * Lock a set of the tenant's accounts for the rest of the transaction
+     * Rows are locked in accountId order so that concurrent batches cannot deadlock
+     * Used by batch transaction ingestion
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.tenantId = :tenantId AND a.accountId IN :accountIds " +
+            "ORDER BY a.accountId")
+    List<Account> findAllForUpdate(@Param("tenantId") String tenantId,
+                                   @Param("accountIds") Collection<UUID> accountIds);
+
+    /**
+     * Add a (possibly negative) delta to the balance in a single conditional UPDATE
+     *
+     * The database evaluates the "balance + delta >= 0" guard under the row lock,
+     * so concurrent withdrawals can never overdraw the account or lose an update.
+     *
+     * @param accountId The account ID
+     * @param tenantId The tenant ID (ensures data isolation)
+     * @param delta Positive for deposits, negative for withdrawals
+     * @return 1 if the balance was changed, 0 if the account is missing or the funds are insufficient
+     */
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance + :delta " +
+            "WHERE a.accountId = :accountId AND a.tenantId = :tenantId " +
+            "AND a.balance + :delta >= 0")
+    int applyBalanceDelta(@Param("accountId") UUID accountId,
+                          @Param("tenantId") String tenantId,
+                          @Param("delta") BigDecimal delta);
+
+    /**
+     * Set the number of sub-balance slots of an account (0 for a normal account)
+     */
+    @Modifying
+    @Query("UPDATE Account a SET a.balanceSlots = :slots WHERE a.accountId = :accountId AND a.tenantId = :tenantId")
+    int setBalanceSlots(@Param("accountId") UUID accountId,
+                        @Param("tenantId") String tenantId,
+                        @Param("slots") int slots);
+
+    /**
+     * Accounts of all tenants in primary key order, after the given accountId
+     * Used by the daily balance close job to walk every account in batches
+     */
+    List<Account> findByAccountIdGreaterThanOrderByAccountId(UUID accountId, Limit limit);
+
+    /**
+     * IDs of a tenant's accounts in ID order, after the given accountId
+     * Used to split a tenant into bulk statement run partitions
+     */
+    @Query("SELECT a.accountId FROM Account a WHERE a.tenantId = :tenantId AND a.accountId > :after " +
+            "ORDER BY a.accountId")
+    List<UUID> findAccountIdsAfter(@Param("tenantId") String tenantId,
+                                   @Param("after") UUID after,
+                                   Limit limit);
+
+    /**
+     * A tenant's accounts in an ID range (inclusive), in ID order
+     * Loads the accounts of one bulk statement run partition
+     */
+    List<Account> findByTenantIdAndAccountIdBetweenOrderByAccountId(String tenantId, UUID firstAccountId,
+                                                                    UUID lastAccountId);
 
     /**
      * Delete an account only if it belongs to the tenant
      */
-    void deleteByAccountIdAndTenantId(String accountId, String tenantId);
+    void deleteByAccountIdAndTenantId(UUID accountId, String tenantId);
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.banking.repository;
+
+import com.banking.entity.BalanceCheckpoint;
+import com.banking.entity.BalanceCheckpointId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * BalanceCheckpointRepository - Data access layer for BalanceCheckpoint entity
+ *
+ * Finds the checkpoint nearest to a point in time, on either side of it,
+ * and corrects checkpoints closed before a transaction was committed.
+ * All queries include tenantId to maintain data isolation between tenants.
+ */
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, BalanceCheckpointId> {
+
+    /**
+     * Latest checkpoint dated before the given day (i.e. closed at or before its start)
+     */
+    Optional<BalanceCheckpoint> findFirstByTenantIdAndAccountIdAndCheckpointDateBeforeOrderByCheckpointDateDesc(
+            String tenantId, UUID accountId, LocalDate date);
+
+    /**
+     * Earliest checkpoint dated on or after the given day (i.e. closed after it)
+     */
+    Optional<BalanceCheckpoint> findFirstByTenantIdAndAccountIdAndCheckpointDateGreaterThanEqualOrderByCheckpointDateAsc(
+            String tenantId, UUID accountId, LocalDate date);
+
+    /**
+     * Add the balance change of a transaction committed after its day was
+     * closed to every checkpoint that should have included it (dated on or
+     * after the transaction's day)
+     *
+     * @return Number of checkpoints corrected
+     */
+    @Modifying
+    @Query("UPDATE BalanceCheckpoint c SET c.balance = c.balance + :delta " +
+            "WHERE c.tenantId = :tenantId AND c.accountId = :accountId AND c.checkpointDate >= :day")
+    int applyLateDelta(@Param("tenantId") String tenantId,
+                       @Param("accountId") UUID accountId,
+                       @Param("day") LocalDate day,
+                       @Param("delta") BigDecimal delta);
+
+    /**
+     * Delete all checkpoints of an account (when the account is deleted)
+     */
+    void deleteByTenantIdAndAccountId(String tenantId, UUID accountId);
+}
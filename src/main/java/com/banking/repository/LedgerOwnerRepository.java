@@ -0,0 +1,51 @@
+package com.banking.repository;
+
+import com.banking.entity.LedgerOwner;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * LedgerOwnerRepository - Data access layer for LedgerOwner entity
+ *
+ * Used by the ledger engine to claim, renew and release the ownership
+ * lease of its tenants.
+ */
+@Repository
+public interface LedgerOwnerRepository extends JpaRepository<LedgerOwner, String> {
+
+    /**
+     * Lock a tenant's ownership row to decide whether this node may claim it
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM LedgerOwner o WHERE o.tenantId = :tenantId")
+    Optional<LedgerOwner> findByIdForUpdate(@Param("tenantId") String tenantId);
+
+    /**
+     * Heartbeat: extend the lease while this node still holds it
+     *
+     * @return 1 if the lease was extended, 0 if it was lost or released
+     */
+    @Modifying
+    @Query("UPDATE LedgerOwner o SET o.leaseExpiresAt = :leaseExpiresAt " +
+            "WHERE o.tenantId = :tenantId AND o.leaseOwner = :owner AND o.leaseExpiresAt IS NOT NULL")
+    int extendLease(@Param("tenantId") String tenantId,
+                    @Param("owner") String owner,
+                    @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    /**
+     * Give up the lease after a clean stop; the owner stays recorded
+     *
+     * @return 1 if released, 0 if this node did not own the tenant
+     */
+    @Modifying
+    @Query("UPDATE LedgerOwner o SET o.leaseExpiresAt = NULL WHERE o.tenantId = :tenantId AND o.leaseOwner = :owner")
+    int release(@Param("tenantId") String tenantId, @Param("owner") String owner);
+}
@@ -1,23 +1,110 @@
 package com.banking.repository;
 
+import com.banking.dto.TenantQueueStats;
+import com.banking.entity.JobPriority;
+import com.banking.entity.JobStatus;
 import com.banking.entity.StatementJob;
+import org.springframework.data.domain.Limit;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * StatementJobRepository - Data access layer for StatementJob entity
  *
  * Manages async statement generation jobs.
  * Ensures tenants can only access their own jobs.
+ *
+ * The queue methods (findQueueStats, claimNextForTenant, findExpiredLeases, extendLeases) are used by
+ * StatementJobQueue and work across tenants.
  */
 @Repository
-public interface StatementJobRepository extends JpaRepository<StatementJob, String> {
+public interface StatementJobRepository extends JpaRepository<StatementJob, UUID> {
 
     /**
      * Find a job only if it belongs to the requesting tenant
      * This prevents tenants from seeing each other's statement jobs
      */
-    Optional<StatementJob> findByJobIdAndTenantId(String jobId, String tenantId);
-}
\ No newline at end of file
+    Optional<StatementJob> findByJobIdAndTenantId(UUID jobId, String tenantId);
+
+    /**
+     * Statements written by a bulk run, in account order, after the given accountId
+     */
+    List<StatementJob> findByRunIdAndAccountIdGreaterThanOrderByAccountId(UUID runId, UUID accountId, Limit limit);
+
+    /**
+     * Find jobs in a status whose statement expired before the given time
+     * Used by the retention cleanup, one batch at a time
+     */
+    List<StatementJob> findByStatusAndExpiresAtBefore(JobStatus status, LocalDateTime expiresAt, Limit limit);
+
+    /**
+     * Pending jobs per tenant and priority class, with the earliest due time
+     * Input of the queue's fair-share scheduler and metrics
+     */
+    @Query("SELECT new com.banking.dto.TenantQueueStats(j.tenantId, j.priority, COUNT(j), MIN(j.nextAttemptAt)) " +
+            "FROM StatementJob j WHERE j.status = com.banking.entity.JobStatus.PENDING " +
+            "GROUP BY j.tenantId, j.priority")
+    List<TenantQueueStats> findQueueStats();
+
+    /**
+     * Claim due PENDING jobs of one tenant and priority class, oldest first
+     *
+     * Rows are locked with FOR UPDATE SKIP LOCKED (lock timeout -2), so
+     * workers on several nodes can claim concurrently without waiting on or
+     * double-claiming each other's rows. The caller marks them PROCESSING
+     * in the same transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT j FROM StatementJob j WHERE j.status = com.banking.entity.JobStatus.PENDING " +
+            "AND j.tenantId = :tenantId AND j.priority = :priority " +
+            "AND j.nextAttemptAt <= :now ORDER BY j.nextAttemptAt")
+    List<StatementJob> claimNextForTenant(@Param("tenantId") String tenantId,
+                                          @Param("priority") JobPriority priority,
+                                          @Param("now") LocalDateTime now,
+                                          Limit limit);
+
+    /**
+     * Lock PROCESSING jobs whose lease expired (their worker died or hung)
+     * Skips rows locked by another node that is recovering them already
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT j FROM StatementJob j WHERE j.status = com.banking.entity.JobStatus.PROCESSING " +
+            "AND j.leaseExpiresAt < :now ORDER BY j.leaseExpiresAt")
+    List<StatementJob> findExpiredLeases(@Param("now") LocalDateTime now, Limit limit);
+
+    /**
+     * Lock a single job, e.g. to check the lease before recording the outcome
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM StatementJob j WHERE j.jobId = :jobId")
+    Optional<StatementJob> findByIdForUpdate(@Param("jobId") UUID jobId);
+
+    /**
+     * Heartbeat: extend the leases this worker still holds
+     *
+     * @return Number of leases extended
+     */
+    @Modifying
+    @Query("UPDATE StatementJob j SET j.leaseExpiresAt = :leaseExpiresAt, j.heartbeatAt = :now " +
+            "WHERE j.jobId IN :jobIds AND j.leaseOwner = :owner " +
+            "AND j.status = com.banking.entity.JobStatus.PROCESSING")
+    int extendLeases(@Param("jobIds") Collection<UUID> jobIds,
+                     @Param("owner") String owner,
+                     @Param("now") LocalDateTime now,
+                     @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+}
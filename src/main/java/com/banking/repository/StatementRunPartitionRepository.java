@@ -0,0 +1,21 @@
+package com.banking.repository;
+
+import com.banking.entity.StatementRunPartition;
+import com.banking.entity.StatementRunPartitionId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * StatementRunPartitionRepository - Data access layer for StatementRunPartition entity
+ */
+@Repository
+public interface StatementRunPartitionRepository extends JpaRepository<StatementRunPartition, StatementRunPartitionId> {
+
+    /**
+     * All partitions of a run, in account order
+     */
+    List<StatementRunPartition> findByRunIdOrderByPartitionNo(UUID runId);
+}
@@ -0,0 +1,66 @@
+package com.banking.repository;
+
+import com.banking.entity.StatementRun;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * StatementRunRepository - Data access layer for StatementRun entity
+ *
+ * Runs are looked up by tenant for the API; the claim, lock and lease
+ * methods are used by StatementRunService and work across tenants.
+ */
+@Repository
+public interface StatementRunRepository extends JpaRepository<StatementRun, UUID> {
+
+    /**
+     * Find a run only if it belongs to the requesting tenant
+     */
+    Optional<StatementRun> findByRunIdAndTenantId(UUID runId, String tenantId);
+
+    /**
+     * Claim a run to process: a new one, or one whose node stopped renewing its lease
+     *
+     * Locked with FOR UPDATE SKIP LOCKED, so nodes polling at the same time
+     * claim different runs. New runs have leaseExpiresAt = createdAt.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM StatementRun r WHERE r.status IN (com.banking.entity.StatementRunStatus.PENDING, " +
+            "com.banking.entity.StatementRunStatus.PROCESSING) AND r.leaseExpiresAt <= :now " +
+            "ORDER BY r.leaseExpiresAt")
+    List<StatementRun> claimRunnable(@Param("now") LocalDateTime now, Limit limit);
+
+    /**
+     * Lock a run, e.g. to check the lease before completing a partition
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StatementRun r WHERE r.runId = :runId")
+    Optional<StatementRun> findByIdForUpdate(@Param("runId") UUID runId);
+
+    /**
+     * Heartbeat: extend the lease while this node still holds it
+     *
+     * @return 1 if the lease was extended, 0 if it was lost
+     */
+    @Modifying
+    @Query("UPDATE StatementRun r SET r.leaseExpiresAt = :leaseExpiresAt " +
+            "WHERE r.runId = :runId AND r.leaseOwner = :owner " +
+            "AND r.status = com.banking.entity.StatementRunStatus.PROCESSING")
+    int extendLease(@Param("runId") UUID runId,
+                    @Param("owner") String owner,
+                    @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+}
@@ -1,49 +1,197 @@
 package com.banking.repository;
 
+import com.banking.dto.TransactionView;
 import com.banking.entity.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * TransactionRepository - Data access layer for Transaction entity
  *
  * Provides methods to:
- * - Find transactions by account and tenant
+ * - Page through transactions by account and tenant (keyset pagination)
  * - Find transactions within a date range (for statement generation)
+ * - Sum balance changes over a time range (for balances as of a point in time)
+ * - Stream all of an account's transactions (for exports)
+ * - Stream the transactions of a range of accounts in one pass (bulk statement runs)
+ * - Count the transactions before a point in time (statement cache watermark)
+ * - Insert a transaction unless it exists (ledger persistence, see LedgerPersister)
  *
  * All queries include tenantId to maintain data isolation between tenants
  */
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, String> {
+public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
 
     /**
-     * Find all transactions for a specific account belonging to a tenant
-     * Used for GET /api/accounts/{accountId}/transactions
+     * First page of an account's transactions, ordered by (timestamp, transactionId)
+     * Used for GET /api/accounts/{accountId}/transactions without a cursor
      *
      * @param accountId The account ID to search for
      * @param tenantId The tenant ID (ensures data isolation)
-     * @return List of transactions for the account
+     * @param limit Maximum number of rows
+     * @return Transactions in sort order, as unmanaged views
      */
-    List<Transaction> findByAccountIdAndTenantId(String accountId, String tenantId);
+    @Query("SELECT new com.banking.dto.TransactionView(t.transactionId, t.accountId, t.tenantId, t.type, t.amount, " +
+            "t.timestamp) FROM Transaction t WHERE t.accountId = :accountId AND t.tenantId = :tenantId " +
+            "ORDER BY t.timestamp, t.transactionId")
+    List<TransactionView> findFirstPage(@Param("accountId") UUID accountId,
+                                        @Param("tenantId") String tenantId,
+                                        Limit limit);
 
     /**
-     * Find transactions within a date range for statement generation
-     * Returns all transactions for an account between startDate and endDate
-     * This is used by the async statement generation process
+     * Next page of an account's transactions after the given (timestamp, transactionId) key
+     *
+     * @param accountId The account ID to search for
+     * @param tenantId The tenant ID (ensures data isolation)
+     * @param timestamp Timestamp of the last row of the previous page
+     * @param transactionId Transaction ID of the last row of the previous page
+     * @param limit Maximum number of rows
+     * @return Transactions in sort order, as unmanaged views
+     */
+    @Query("SELECT new com.banking.dto.TransactionView(t.transactionId, t.accountId, t.tenantId, t.type, t.amount, " +
+            "t.timestamp) FROM Transaction t WHERE t.accountId = :accountId AND t.tenantId = :tenantId " +
+            "AND (t.timestamp > :timestamp OR (t.timestamp = :timestamp AND t.transactionId > :transactionId)) " +
+            "ORDER BY t.timestamp, t.transactionId")
+    List<TransactionView> findPageAfter(@Param("accountId") UUID accountId,
+                                        @Param("tenantId") String tenantId,
+                                        @Param("timestamp") LocalDateTime timestamp,
+                                        @Param("transactionId") UUID transactionId,
+                                        Limit limit);
+
+    /**
+     * Stream all transactions of an account, ordered by (timestamp, transactionId)
+     * Used by the NDJSON/CSV export
+     *
+     * Rows are read through a forward-only cursor in fetch-size batches and
+     * loaded read-only (no dirty-checking snapshot). The caller must consume
+     * the stream inside a transaction and close it.
+     *
+     * @param accountId The account ID to search for
+     * @param tenantId The tenant ID (ensures data isolation)
+     * @return Transactions in sort order
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Transaction t WHERE t.accountId = :accountId AND t.tenantId = :tenantId " +
+            "ORDER BY t.timestamp, t.transactionId")
+    Stream<Transaction> streamByAccount(@Param("accountId") UUID accountId,
+                                        @Param("tenantId") String tenantId);
+
+    /**
+     * Stream the transactions of a tenant's accounts with IDs from firstAccountId
+     * to lastAccountId (inclusive) in the half-open range [from, to), ordered
+     * by (accountId, timestamp, transactionId)
+     *
+     * One pass over idx_transactions_tenant_account_ts for a whole bulk
+     * statement run partition. Same cursor and read-only settings as
+     * streamByAccount.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Transaction t WHERE t.tenantId = :tenantId " +
+            "AND t.accountId BETWEEN :firstAccountId AND :lastAccountId " +
+            "AND t.timestamp >= :from AND t.timestamp < :to " +
+            "ORDER BY t.accountId, t.timestamp, t.transactionId")
+    Stream<Transaction> streamForAccountRange(@Param("tenantId") String tenantId,
+                                              @Param("firstAccountId") UUID firstAccountId,
+                                              @Param("lastAccountId") UUID lastAccountId,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to);
+
+    /**
+     * Count the transactions of an account
+     */
+    long countByAccountIdAndTenantId(UUID accountId, String tenantId);
+
+    /**
+     * Find an account's transactions in the half-open range [from, to), in
+     * (timestamp, transactionId) order. Used for statement generation.
      *
      * @param accountId The account ID
      * @param tenantId The tenant ID (ensures data isolation)
-     * @param startDate Start of date range
-     * @param endDate End of date range
-     * @return List of transactions in the date range
-     */
-    List<Transaction> findByAccountIdAndTenantIdAndTimestampBetween(
-            String accountId,
-            String tenantId,
-            LocalDateTime startDate,
-            LocalDateTime endDate
-    );
-}
\ No newline at end of file
+     * @param from Start of the range (inclusive)
+     * @param to End of the range (exclusive)
+     * @return Transactions in the range
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.accountId = :accountId AND t.tenantId = :tenantId " +
+            "AND t.timestamp >= :from AND t.timestamp < :to " +
+            "ORDER BY t.timestamp, t.transactionId")
+    List<Transaction> findInRange(@Param("accountId") UUID accountId,
+                                  @Param("tenantId") String tenantId,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to);
+
+    /**
+     * Net balance change (deposits - withdrawals) in the half-open range [from, to)
+     * Used with balance checkpoints to compute the balance at a point in time
+     */
+    @Query("SELECT COALESCE(SUM(CASE WHEN t.type = com.banking.entity.TransactionType.DEPOSIT " +
+            "THEN t.amount ELSE -t.amount END), 0) FROM Transaction t " +
+            "WHERE t.accountId = :accountId AND t.tenantId = :tenantId " +
+            "AND t.timestamp >= :from AND t.timestamp < :to")
+    BigDecimal sumDeltaInRange(@Param("accountId") UUID accountId,
+                               @Param("tenantId") String tenantId,
+                               @Param("from") LocalDateTime from,
+                               @Param("to") LocalDateTime to);
+
+    /**
+     * Net balance change (deposits - withdrawals) from the given time onwards
+     * Subtracted from the current balance when no later checkpoint exists
+     */
+    @Query("SELECT COALESCE(SUM(CASE WHEN t.type = com.banking.entity.TransactionType.DEPOSIT " +
+            "THEN t.amount ELSE -t.amount END), 0) FROM Transaction t " +
+            "WHERE t.accountId = :accountId AND t.tenantId = :tenantId AND t.timestamp >= :from")
+    BigDecimal sumDeltaSince(@Param("accountId") UUID accountId,
+                             @Param("tenantId") String tenantId,
+                             @Param("from") LocalDateTime from);
+
+    /**
+     * Count an account's transactions before the given time
+     * Used as the watermark of a statement: transactions are never changed or
+     * removed, so every commit into the statement's range raises the count,
+     * whatever its timestamp (a late group commit or ledger batch included)
+     */
+    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.accountId = :accountId AND t.tenantId = :tenantId " +
+            "AND t.timestamp < :to")
+    long countBefore(@Param("accountId") UUID accountId,
+                     @Param("tenantId") String tenantId,
+                     @Param("to") LocalDateTime to);
+
+    /**
+     * Insert a transaction with a given ID and timestamp unless a row with
+     * that ID exists. Used by the ledger engine, which may persist the same
+     * posting again after a crash; the caller applies the balance change
+     * only for rows that were inserted.
+     *
+     * @param transactionId The transaction ID as 16 bytes
+     * @param accountId The account ID as 16 bytes
+     * @return 1 if the row was inserted, 0 if it already existed
+     */
+    @Modifying
+    @Query(value = "INSERT INTO transactions (transaction_id, account_id, tenant_id, type, amount, timestamp) " +
+            "SELECT :transactionId, :accountId, :tenantId, :type, :amount, :timestamp FROM DUAL " +
+            "WHERE NOT EXISTS (SELECT 1 FROM transactions WHERE transaction_id = :transactionId)", nativeQuery = true)
+    int insertIfAbsent(@Param("transactionId") byte[] transactionId,
+                       @Param("accountId") byte[] accountId,
+                       @Param("tenantId") String tenantId,
+                       @Param("type") String type,
+                       @Param("amount") BigDecimal amount,
+                       @Param("timestamp") LocalDateTime timestamp);
+}
@@ -0,0 +1,175 @@
+package com.banking.service;
+
+import com.banking.config.ShardContext;
+import com.banking.config.ShardDirectory;
+import com.banking.entity.AccountBalanceSlot;
+import com.banking.repository.AccountBalanceSlotRepository;
+import com.banking.repository.AccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * AccountBalanceSlots - Sub-balances of hot accounts
+ *
+ * Every deposit to an account updates its row, so deposits to one busy
+ * account (payroll, merchant settlement) queue up on a single row lock.
+ * An account marked hot with N slots keeps part of its balance in N rows of
+ * account_balance_slots instead:
+ * - A deposit adds to a random slot, so concurrent deposits mostly lock
+ *   different rows and never the account row
+ * - A withdrawal is first tried against the account row. If that is not
+ *   enough, the slots are moved into the account row (sweep) and it is tried
+ *   again, so a withdrawal only fails if the whole balance is insufficient
+ * - Reads add up the account row and the slots (Account.slotBalance), so
+ *   GET /api/accounts/{id} and the listings still show one balance
+ *
+ * Slots only grow between sweeps and are never negative; the account row
+ * stays guarded by "balance + delta >= 0" as before. Locks are always taken
+ * account row first, then slots, so sweeps and re-configuration cannot
+ * deadlock with each other; deposits lock a single slot only.
+ *
+ * Metrics: banking.accounts.hot.slot-deposits and banking.accounts.hot.sweeps.
+ */
+@Component
+public class AccountBalanceSlots {
+
+    private final AccountRepository accountRepository;
+    private final AccountBalanceSlotRepository slotRepository;
+    private final AccountCache accountCache;
+    private final ShardDirectory shardDirectory;
+    private final TransactionTemplate transaction;
+    private final int maxSlots;
+    private final Counter slotDeposits;
+    private final Counter sweeps;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public AccountBalanceSlots(AccountRepository accountRepository,
+                               AccountBalanceSlotRepository slotRepository,
+                               AccountCache accountCache,
+                               ShardDirectory shardDirectory,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${banking.accounts.hot.max-slots:64}") int maxSlots,
+                               MeterRegistry registry) {
+        this.accountRepository = accountRepository;
+        this.slotRepository = slotRepository;
+        this.accountCache = accountCache;
+        this.shardDirectory = shardDirectory;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.maxSlots = maxSlots;
+        this.slotDeposits = Counter.builder("banking.accounts.hot.slot-deposits")
+                .description("Deposits added to a sub-balance slot of a hot account")
+                .register(registry);
+        this.sweeps = Counter.builder("banking.accounts.hot.sweeps")
+                .description("Withdrawals that moved the slots of a hot account into its balance")
+                .register(registry);
+    }
+
+    /**
+     * Add a deposit to a random slot of a hot account, in the caller's transaction
+     *
+     * @param slots Slot count of the account as cached; may be stale
+     * @return false if the slot does not exist (the account is not hot any more):
+     * the caller then applies the deposit to the account row
+     */
+    public boolean deposit(String tenantId, UUID accountId, int slots, BigDecimal amount) {
+        int slot = ThreadLocalRandom.current().nextInt(slots);
+        if (slotRepository.addToSlot(tenantId, accountId, slot, amount) == 0) {
+            return false;
+        }
+        slotDeposits.increment();
+        return true;
+    }
+
+    /**
+     * Move the slots of an account into its balance column, in the caller's transaction
+     * Locks the account row and then its slots until the transaction ends.
+     *
+     * @return The amount moved; zero for an account that is not hot, or not the tenant's
+     */
+    public BigDecimal sweep(String tenantId, UUID accountId) {
+        if (accountRepository.findAllForUpdate(tenantId, List.of(accountId)).isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal total = lockSlots(tenantId, accountId);
+        if (total.signum() > 0) {
+            accountRepository.applyBalanceDelta(accountId, tenantId, total);
+            slotRepository.clearSlots(tenantId, accountId);
+            sweeps.increment();
+        }
+        return total;
+    }
+
+    /**
+     * Empty the slots of an account whose balance column is about to be overwritten
+     */
+    public void clear(String tenantId, UUID accountId) {
+        accountRepository.findAllForUpdate(tenantId, List.of(accountId));
+        lockSlots(tenantId, accountId);
+        slotRepository.clearSlots(tenantId, accountId);
+    }
+
+    /**
+     * Mark an account as hot with the given number of slots, or as a normal
+     * account with 0 (or 1). The current slots are moved into the balance
+     * column first, so the balance does not change.
+     *
+     * @return The account's slot count now
+     * @throws IllegalArgumentException if slots is negative or above banking.accounts.hot.max-slots
+     */
+    public int configure(String tenantId, UUID accountId, int slots) {
+        if (slots < 0 || slots > maxSlots) {
+            throw new IllegalArgumentException("slots must be between 0 and " + maxSlots);
+        }
+        int count = slots > 1 ? slots : 0;
+        String previous = ShardContext.getShard();
+        ShardContext.setShard(shardDirectory.shardOf(tenantId));
+        try {
+            transaction.executeWithoutResult(status -> {
+                if (accountRepository.findAllForUpdate(tenantId, List.of(accountId)).isEmpty()) {
+                    throw new IllegalArgumentException("Account not found or access denied");
+                }
+                sweep(tenantId, accountId);
+                slotRepository.deleteByTenantIdAndAccountId(tenantId, accountId);
+                for (int slot = 0; slot < count; slot++) {
+                    entityManager.persist(new AccountBalanceSlot(tenantId, accountId, slot, BigDecimal.ZERO));
+                }
+                accountRepository.setBalanceSlots(accountId, tenantId, count);
+                accountCache.invalidate(tenantId, accountId);
+            });
+        } finally {
+            if (previous != null) {
+                ShardContext.setShard(previous);
+            } else {
+                ShardContext.clear();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Lock the slots of an account and add them up
+     * The slots are detached again: later statements change them in bulk,
+     * which would leave managed copies stale for the rest of the transaction.
+     */
+    private BigDecimal lockSlots(String tenantId, UUID accountId) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (AccountBalanceSlot slot : slotRepository.findAllForUpdate(tenantId, accountId)) {
+            total = total.add(slot.getBalance());
+            entityManager.detach(slot);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,169 @@
+package com.banking.service;
+
+import com.banking.entity.Account;
+import com.banking.repository.AccountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * AccountCache - Read-through cache of account ownership and metadata
+ *
+ * Almost every request first checks that the account exists and belongs to
+ * the tenant. Those checks are answered from memory:
+ * - Entries are keyed by (tenant, account), so a lookup never finds another
+ *   tenant's account
+ * - Only metadata is cached, never the balance: balance checks (withdrawals)
+ *   and balance reads always go to the database. The number of balance slots
+ *   is cached, as deposits use it to pick a slot; a stale count only sends a
+ *   deposit to the account row instead (see AccountBalanceSlots)
+ * - AccountService invalidates an entry when the account is updated or
+ *   deleted, once the change is committed
+ * - Entries expire after banking.accounts.cache.ttl, which bounds how long
+ *   other nodes can still see an account deleted elsewhere
+ *
+ * Missing accounts are not cached. Hits, misses and evictions are exported
+ * as cache.* metrics with cache=accounts.
+ */
+@Component
+public class AccountCache {
+
+    /**
+     * The cached part of an account
+     */
+    public static final class AccountMetadata {
+
+        private final UUID accountId;
+        private final String tenantId;
+        private final String customerName;
+        private final LocalDateTime createdAt;
+        private final int balanceSlots;
+
+        AccountMetadata(Account account) {
+            this.accountId = account.getAccountId();
+            this.tenantId = account.getTenantId();
+            this.customerName = account.getCustomerName();
+            this.createdAt = account.getCreatedAt();
+            this.balanceSlots = account.getBalanceSlots();
+        }
+
+        public UUID getAccountId() {
+            return accountId;
+        }
+
+        public String getTenantId() {
+            return tenantId;
+        }
+
+        public String getCustomerName() {
+            return customerName;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public int getBalanceSlots() {
+            return balanceSlots;
+        }
+    }
+
+    private static final class Key {
+
+        private final String tenantId;
+        private final UUID accountId;
+
+        Key(String tenantId, UUID accountId) {
+            this.tenantId = tenantId;
+            this.accountId = accountId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return tenantId.equals(other.tenantId) && accountId.equals(other.accountId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenantId, accountId);
+        }
+    }
+
+    private final AccountRepository accountRepository;
+    private final Cache<Key, AccountMetadata> accounts;
+
+    public AccountCache(AccountRepository accountRepository,
+                        @Value("${banking.accounts.cache.max-size:100000}") long maxSize,
+                        @Value("${banking.accounts.cache.ttl:PT1M}") Duration ttl,
+                        MeterRegistry registry) {
+        this.accountRepository = accountRepository;
+        this.accounts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, accounts, "accounts");
+    }
+
+    /**
+     * Metadata of an account, only if it belongs to the tenant
+     * Loaded from the database on a miss
+     */
+    public Optional<AccountMetadata> find(String tenantId, UUID accountId) {
+        if (accountId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(accounts.get(new Key(tenantId, accountId), key ->
+                accountRepository.findByAccountIdAndTenantId(key.accountId, key.tenantId)
+                        .map(AccountMetadata::new)
+                        .orElse(null)));
+    }
+
+    /**
+     * Check that an account exists and belongs to the tenant
+     *
+     * @throws RuntimeException if it does not
+     */
+    public AccountMetadata require(String tenantId, UUID accountId) {
+        return find(tenantId, accountId)
+                .orElseThrow(() -> new RuntimeException("Account not found or access denied"));
+    }
+
+    /**
+     * Drop an account's entry, after the current transaction commits
+     *
+     * Dropping it only after the commit means a concurrent lookup cannot put
+     * back the old state: a load still in progress is removed when it
+     * completes, and later loads read the committed row.
+     */
+    public void invalidate(String tenantId, UUID accountId) {
+        Key key = new Key(tenantId, accountId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    accounts.invalidate(key);
+                }
+            });
+        } else {
+            accounts.invalidate(key);
+        }
+    }
+}
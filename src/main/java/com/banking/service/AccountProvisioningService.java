@@ -0,0 +1,209 @@
+package com.banking.service;
+
+import com.banking.config.TenantContext;
+import com.banking.dto.AccountRequest;
+import com.banking.dto.BulkAccountResult;
+import com.banking.entity.Account;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DatabindException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.SequenceWriter;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * AccountProvisioningService - Bulk account creation for tenant onboarding
+ *
+ * Reads a JSON array or NDJSON stream of AccountRequests item by item and
+ * writes one compact NDJSON result per item. Nothing is buffered beyond the
+ * current commit interval, so memory use does not depend on payload size:
+ * - Valid accounts are inserted in chunks (flush + clear per chunk)
+ * - A transaction is committed every "commit interval" chunks
+ * - Results are written to the response once their transaction has committed
+ * - At most one transaction's worth of results (chunk size x commit interval)
+ *   is held back: when that many are waiting, whatever is open is committed
+ *   early, however few accounts it holds (e.g. after a run of invalid items)
+ *
+ * Accounts committed before a failure stay committed; their results have
+ * already been sent to the client.
+ */
+@Service
+public class AccountProvisioningService {
+
+    private static final String NOT_AN_ACCOUNT = "Item must be an account object";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Number of accounts inserted per flush
+    @Value("${banking.accounts.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    // Number of chunks per database transaction
+    @Value("${banking.accounts.bulk.commit-interval:10}")
+    private int commitInterval;
+
+    /**
+     * Create accounts for the current tenant from a stream of AccountRequests
+     *
+     * @param in JSON array or NDJSON of AccountRequest objects
+     * @param out Receives one BulkAccountResult per item as NDJSON
+     */
+    public void createAccounts(InputStream in, OutputStream out) {
+        String tenantId = TenantContext.getTenantId();
+
+        try (MappingIterator<AccountRequest> requests =
+                     objectMapper.readerFor(AccountRequest.class).readValues(in);
+             SequenceWriter writer = objectMapper.writerFor(BulkAccountResult.class)
+                     .withRootValueSeparator("\n")
+                     .writeValues(out)) {
+
+            int maxPendingResults = chunkSize * commitInterval;
+            List<BulkAccountResult> pendingResults = new ArrayList<>();
+            List<Account> chunk = new ArrayList<>(chunkSize);
+            TransactionStatus transaction = null;
+            int chunksInTransaction = 0;
+            int index = 0;
+
+            try {
+                while (true) {
+                    AccountRequest request = null;
+                    String error;
+                    boolean nullItem = false;
+                    try {
+                        if (!requests.hasNextValue()) {
+                            break;
+                        }
+                        nullItem = requests.parser().currentToken() == JsonToken.VALUE_NULL;
+                        request = requests.next();
+                        error = validate(request);
+                    } catch (DatabindException e) {
+                        // Well-formed but not an account (a null line, a mistyped field): only this item fails
+                        error = nullItem ? NOT_AN_ACCOUNT : "Invalid item: " + e.getOriginalMessage();
+                    } catch (JacksonException e) {
+                        // The stream cannot be resumed after a syntax error; report it and stop
+                        pendingResults.add(new BulkAccountResult(index, null,
+                                "Malformed JSON: " + e.getOriginalMessage()));
+                        break;
+                    }
+
+                    if (error != null) {
+                        pendingResults.add(new BulkAccountResult(index++, null, error));
+                    } else {
+                        Account account = new Account(tenantId, request.getCustomerName(), request.getBalance());
+                        chunk.add(account);
+                        pendingResults.add(new BulkAccountResult(index++, null, null));
+
+                        if (chunk.size() == chunkSize) {
+                            if (transaction == null) {
+                                transaction = transactionManager.getTransaction(new DefaultTransactionDefinition());
+                            }
+                            insertChunk(chunk, pendingResults);
+                            chunksInTransaction++;
+                        }
+                    }
+
+                    if (chunksInTransaction == commitInterval || pendingResults.size() >= maxPendingResults) {
+                        // Commit early if needed, so results never pile up behind it
+                        if (!chunk.isEmpty()) {
+                            if (transaction == null) {
+                                transaction = transactionManager.getTransaction(new DefaultTransactionDefinition());
+                            }
+                            insertChunk(chunk, pendingResults);
+                        }
+                        if (transaction != null) {
+                            transactionManager.commit(transaction);
+                            transaction = null;
+                        }
+                        chunksInTransaction = 0;
+                        writeResults(writer, pendingResults);
+                    }
+                }
+
+                // Insert the last partial chunk and commit whatever is left
+                if (!chunk.isEmpty()) {
+                    if (transaction == null) {
+                        transaction = transactionManager.getTransaction(new DefaultTransactionDefinition());
+                    }
+                    insertChunk(chunk, pendingResults);
+                }
+                if (transaction != null) {
+                    transactionManager.commit(transaction);
+                    transaction = null;
+                }
+                writeResults(writer, pendingResults);
+            } finally {
+                if (transaction != null && !transaction.isCompleted()) {
+                    transactionManager.rollback(transaction);
+                }
+            }
+        }
+    }
+
+    /**
+     * Run bean validation on one item, returning the first error message or null
+     */
+    private String validate(AccountRequest request) {
+        if (request == null) {
+            return NOT_AN_ACCOUNT;
+        }
+        Set<ConstraintViolation<AccountRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.iterator().next().getMessage();
+    }
+
+    /**
+     * Persist one chunk in JDBC batches and record the generated account IDs
+     */
+    private void insertChunk(List<Account> chunk, List<BulkAccountResult> pendingResults) {
+        for (Account account : chunk) {
+            entityManager.persist(account);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // The chunk's accounts are the last successful entries still missing an ID
+        int next = 0;
+        for (BulkAccountResult result : pendingResults) {
+            if (result.getError() == null && result.getAccountId() == null) {
+                result.setAccountId(chunk.get(next++).getAccountId());
+            }
+        }
+        chunk.clear();
+    }
+
+    private void writeResults(SequenceWriter writer, List<BulkAccountResult> results) {
+        for (BulkAccountResult result : results) {
+            writer.write(result);
+        }
+        writer.flush();
+        results.clear();
+    }
+}
@@ -1,15 +1,26 @@
 package com.banking.service;
 
+import com.banking.config.ReplicaRead;
 import com.banking.config.TenantContext;
 import com.banking.dto.AccountRequest;
+import com.banking.dto.AccountView;
+import com.banking.dto.PageCursor;
+import com.banking.dto.PageResponse;
 import com.banking.entity.Account;
+import com.banking.ledger.LedgerEngine;
+import com.banking.repository.AccountBalanceSlotRepository;
 import com.banking.repository.AccountRepository;
+import com.banking.repository.BalanceCheckpointRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * AccountService - Business logic for account operations
@@ -19,7 +30,8 @@ import java.util.Optional;
  * - Implements CRUD operations for accounts
  * - Ensures all operations respect multi-tenant boundaries
  *
- * @Transactional ensures database consistency
+ * @Transactional ensures database consistency; the read methods are
+ * @ReplicaRead and may be served by a read replica
  */
 @Service
 @Transactional
@@ -28,6 +40,27 @@ public class AccountService {
     @Autowired
     private AccountRepository accountRepository;
 
+    @Autowired
+    private BalanceCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private AccountBalanceSlots balanceSlots;
+
+    @Autowired
+    private AccountBalanceSlotRepository slotRepository;
+
+    @Autowired
+    private LedgerEngine ledger;
+
+    @Value("${banking.pagination.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${banking.pagination.max-page-size:500}")
+    private int maxPageSize;
+
     /**
      * Create a new account for the current tenant
      */
@@ -44,33 +77,74 @@ public class AccountService {
     }
 
     /**
-     * Get all accounts for the current tenant
+     * Get one page of accounts for the current tenant
+     * Accounts are ordered by (createdAt, accountId) and returned as views, not entities
+     *
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit Requested page size (defaulted and capped)
      */
-    public List<Account> getAllAccounts() {
+    @ReplicaRead
+    public PageResponse<AccountView> getAccounts(String cursor, Integer limit) {
         String tenantId = TenantContext.getTenantId();
-        return accountRepository.findByTenantId(tenantId);
+        int pageSize = PageResponse.resolvePageSize(limit, defaultPageSize, maxPageSize);
+
+        // Fetch one extra row to know whether there is a next page
+        List<AccountView> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = accountRepository.findFirstPage(tenantId, Limit.of(pageSize + 1));
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            rows = accountRepository.findPageAfter(
+                    tenantId, after.getTimestamp(), after.getId(), Limit.of(pageSize + 1));
+        }
+
+        return PageResponse.of(rows, pageSize,
+                account -> PageCursor.encode(account.getCreatedAt(), account.getAccountId()));
     }
 
     /**
      * Get a specific account (only if it belongs to current tenant)
+     * For a ledger tenant the balance is the ledger's, which may be ahead of the database
      */
-    public Optional<Account> getAccountById(String accountId) {
+    @ReplicaRead
+    public Optional<Account> getAccountById(UUID accountId) {
         String tenantId = TenantContext.getTenantId();
-        return accountRepository.findByAccountIdAndTenantId(accountId, tenantId);
+        Optional<Account> account = accountRepository.findByAccountIdAndTenantId(accountId, tenantId);
+        if (ledger.handles(tenantId)) {
+            // Read-only transaction: the entity is not flushed
+            account.ifPresent(found -> ledger.currentBalance(tenantId, accountId).ifPresent(found::setBalance));
+        }
+        return account;
     }
 
     /**
      * Update an existing account
      * Only updates if account belongs to current tenant
+     *
+     * The balance of a ledger tenant's account only changes through
+     * transactions; the request must repeat the current balance.
      */
-    public Account updateAccount(String accountId, AccountRequest request) {
+    public Account updateAccount(UUID accountId, AccountRequest request) {
         String tenantId = TenantContext.getTenantId();
 
         Account account = accountRepository.findByAccountIdAndTenantId(accountId, tenantId)
                 .orElseThrow(() -> new RuntimeException("Account not found or access denied"));
 
         account.setCustomerName(request.getCustomerName());
+        if (ledger.handles(tenantId)) {
+            BigDecimal current = ledger.currentBalance(tenantId, accountId).orElse(account.getBalance());
+            if (request.getBalance().compareTo(current) != 0) {
+                throw new RuntimeException("The balance of a ledger account only changes through transactions");
+            }
+            accountCache.invalidate(tenantId, accountId);
+            return accountRepository.save(account);
+        }
+        if (account.getBalanceSlots() > 0) {
+            // The new balance replaces the slots of a hot account as well
+            balanceSlots.clear(tenantId, accountId);
+        }
         account.setBalance(request.getBalance());
+        accountCache.invalidate(tenantId, accountId);
 
         return accountRepository.save(account);
     }
@@ -78,13 +152,19 @@ public class AccountService {
     /**
      * Delete an account (only if it belongs to current tenant)
      */
-    public void deleteAccount(String accountId) {
+    public void deleteAccount(UUID accountId) {
         String tenantId = TenantContext.getTenantId();
 
         // Verify account exists and belongs to tenant
         accountRepository.findByAccountIdAndTenantId(accountId, tenantId)
                 .orElseThrow(() -> new RuntimeException("Account not found or access denied"));
 
+        if (ledger.handles(tenantId)) {
+            ledger.close(tenantId, accountId);
+        }
+        checkpointRepository.deleteByTenantIdAndAccountId(tenantId, accountId);
+        slotRepository.deleteByTenantIdAndAccountId(tenantId, accountId);
         accountRepository.deleteByAccountIdAndTenantId(accountId, tenantId);
+        accountCache.invalidate(tenantId, accountId);
     }
 }
\ No newline at end of file
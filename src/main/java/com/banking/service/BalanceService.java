@@ -0,0 +1,194 @@
+package com.banking.service;
+
+import com.banking.config.ShardDirectory;
+import com.banking.config.TenantContext;
+import com.banking.entity.Account;
+import com.banking.entity.BalanceCheckpoint;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.BalanceCheckpointRepository;
+import com.banking.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * BalanceService - Account balances at a point in time
+ *
+ * The balance "as of" a time T includes every transaction with a timestamp
+ * before T. It is computed from the checkpoint nearest to T plus the
+ * transactions between the checkpoint and T:
+ * - Earlier checkpoint: checkpoint balance + changes in [checkpoint, T)
+ * - Later checkpoint: checkpoint balance - changes in [T, checkpoint)
+ * - No later checkpoint: the current balance counts as one, closed "now"
+ *
+ * With daily checkpoints the delta query never spans more than about a day,
+ * so the cost no longer grows with the age of the account.
+ *
+ * The daily close job writes yesterday's checkpoint for every account.
+ * A checkpoint only sees transactions committed when it is written, and a
+ * transaction may commit a while after its timestamp (group commits, batch
+ * ingestion). So a day is only closed once close-lag has passed since its
+ * end. Ledger postings can be persisted even later; LedgerPersister adds
+ * those to the checkpoints already written.
+ */
+@Service
+@Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+public class BalanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceService.class);
+
+    private static final int CLOSE_BATCH_SIZE = 500;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BalanceCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShardDirectory shardDirectory;
+
+    // How long after the end of a day its transactions may still be committing
+    @Value("${banking.balances.close-lag:PT1H}")
+    private Duration closeLag;
+
+    /**
+     * Balance of one of the current tenant's accounts as of a point in time
+     *
+     * @param accountId The account ID
+     * @param asOf Point in time, or null for the current balance
+     */
+    public BigDecimal getBalance(UUID accountId, LocalDateTime asOf) {
+        String tenantId = TenantContext.getTenantId();
+
+        Account account = accountRepository.findByAccountIdAndTenantId(accountId, tenantId)
+                .orElseThrow(() -> new RuntimeException("Account not found or access denied"));
+
+        return asOf == null ? account.getBalance() : balanceAsOf(account, asOf);
+    }
+
+    /**
+     * Balance including every transaction with a timestamp before asOf
+     *
+     * Runs in one REPEATABLE_READ transaction (when called on its own) so the
+     * current balance and the transaction sums come from the same snapshot.
+     */
+    public BigDecimal balanceAsOf(Account account, LocalDateTime asOf) {
+        String tenantId = account.getTenantId();
+        UUID accountId = account.getAccountId();
+
+        // Checkpoint for day D covers everything before D+1 00:00
+        Optional<BalanceCheckpoint> before = checkpointRepository
+                .findFirstByTenantIdAndAccountIdAndCheckpointDateBeforeOrderByCheckpointDateDesc(
+                        tenantId, accountId, asOf.toLocalDate());
+        Optional<BalanceCheckpoint> after = checkpointRepository
+                .findFirstByTenantIdAndAccountIdAndCheckpointDateGreaterThanEqualOrderByCheckpointDateAsc(
+                        tenantId, accountId, asOf.toLocalDate());
+
+        LocalDateTime afterBoundary = after.map(BalanceCheckpoint::getClosedBefore).orElse(LocalDateTime.now());
+        boolean useBefore = before.isPresent() && Duration.between(before.get().getClosedBefore(), asOf)
+                .compareTo(Duration.between(asOf, afterBoundary)) <= 0;
+
+        if (useBefore) {
+            BalanceCheckpoint checkpoint = before.get();
+            return checkpoint.getBalance().add(transactionRepository.sumDeltaInRange(
+                    accountId, tenantId, checkpoint.getClosedBefore(), asOf));
+        }
+        if (after.isPresent()) {
+            BalanceCheckpoint checkpoint = after.get();
+            return checkpoint.getBalance().subtract(transactionRepository.sumDeltaInRange(
+                    accountId, tenantId, asOf, checkpoint.getClosedBefore()));
+        }
+        return account.getBalance().subtract(transactionRepository.sumDeltaSince(accountId, tenantId, asOf));
+    }
+
+    /**
+     * Daily close: checkpoint the closing balance of every account for the
+     * last day that ended at least close-lag ago (yesterday, with the default
+     * schedule and lag)
+     */
+    @Scheduled(cron = "${banking.balances.close-cron:0 15 1 * * *}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void closeYesterday() {
+        LocalDate day = LocalDateTime.now().minus(closeLag).toLocalDate().minusDays(1);
+        shardDirectory.forEachShard(shard -> {
+            int written = closeDay(day);
+            log.info("Balance close on shard {}: {} checkpoints written", shard, written);
+        });
+    }
+
+    /**
+     * Write the end-of-day checkpoint for the given day for every account
+     * of the current shard that existed at the end of that day. Each batch of accounts is closed
+     * in its own REPEATABLE_READ transaction; re-running a day overwrites
+     * its checkpoints, so the job is idempotent.
+     *
+     * @return Number of checkpoints written
+     * @throws IllegalArgumentException if close-lag has not passed since the end of the day
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int closeDay(LocalDate day) {
+        LocalDateTime closedBefore = day.plusDays(1).atStartOfDay();
+        if (LocalDateTime.now().isBefore(closedBefore.plus(closeLag))) {
+            throw new IllegalArgumentException("Day " + day + " cannot be closed before "
+                    + closedBefore.plus(closeLag) + ", its transactions may still be committing");
+        }
+        // Accounts left behind on a tenant's previous shard, or being moved, are skipped
+        // (a missing checkpoint only makes balanceAsOf read a longer range)
+        String shard = shardDirectory.currentShard();
+        Predicate<Account> existed = account -> account.getCreatedAt().isBefore(closedBefore)
+                && shard.equals(shardDirectory.shardOf(account.getTenantId()))
+                && !shardDirectory.isFrozen(account.getTenantId());
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+        int written = 0;
+        UUID lastAccountId = new UUID(0, 0);
+        while (true) {
+            UUID after = lastAccountId;
+            List<Account> batch = transaction.execute(status -> {
+                List<Account> accounts = accountRepository.findByAccountIdGreaterThanOrderByAccountId(
+                        after, Limit.of(CLOSE_BATCH_SIZE));
+                for (Account account : accounts) {
+                    if (existed.test(account)) {
+                        checkpointRepository.save(new BalanceCheckpoint(account.getTenantId(),
+                                account.getAccountId(), day, balanceAsOf(account, closedBefore)));
+                    }
+                }
+                return accounts;
+            });
+
+            written += (int) batch.stream().filter(existed).count();
+            if (batch.size() < CLOSE_BATCH_SIZE) {
+                return written;
+            }
+            lastAccountId = batch.get(batch.size() - 1).getAccountId();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.banking.service;
+
+/**
+ * PostingOutcomeUnknownException - A posting may or may not have been applied
+ *
+ * Thrown when the caller stops waiting for a posting that was already
+ * handed to the writer (group commit timeout), or whose journal write failed
+ * (ledger). Unlike a RejectedExecutionException it does not mean "not
+ * posted": the API answers 504 so clients look the transaction up before
+ * retrying, instead of treating it as a client error that was not applied.
+ */
+public class PostingOutcomeUnknownException extends RuntimeException {
+
+    public PostingOutcomeUnknownException(String message) {
+        super(message);
+    }
+}
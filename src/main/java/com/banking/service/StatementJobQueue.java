@@ -0,0 +1,465 @@
+package com.banking.service;
+
+import com.banking.config.ShardDirectory;
+import com.banking.config.TenantContext;
+import com.banking.dto.TenantQueueStats;
+import com.banking.entity.JobPriority;
+import com.banking.entity.JobStatus;
+import com.banking.entity.StatementJob;
+import com.banking.repository.StatementJobRepository;
+import com.banking.storage.StoredArtifact;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * StatementJobQueue - Durable statement job queue on the statement_jobs table
+ *
+ * Every node runs the same loop, so throughput scales with the number of
+ * app instances:
+ * 1. A poller claims due PENDING jobs with SELECT ... FOR UPDATE SKIP LOCKED,
+ *    never more than there are idle worker threads, and marks them
+ *    PROCESSING with a lease owned by this node. TenantFairShareScheduler
+ *    decides how the idle workers are shared between tenants and priority
+ *    classes
+ * 2. Worker threads generate the statements; a heartbeat extends the leases
+ *    of jobs still in flight
+ * 3. The outcome is only recorded if this node still holds the lease;
+ *    failures are retried with exponential backoff up to max-attempts
+ * 4. Jobs whose lease expired (node crashed or hung) are put back to
+ *    PENDING by whichever node notices first
+ *
+ * Nothing is queued in memory: a restart loses no work, and a full node
+ * simply stops claiming. banking.statements.workers=0 turns a node into an
+ * API-only node that never processes statements.
+ */
+@Component
+public class StatementJobQueue implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementJobQueue.class);
+
+    private static final int RECOVERY_BATCH_SIZE = 100;
+
+    /**
+     * Published (after commit) when a new job has been queued
+     */
+    public static class JobSubmitted {
+
+        private final UUID jobId;
+
+        public JobSubmitted(UUID jobId) {
+            this.jobId = jobId;
+        }
+
+        public UUID getJobId() {
+            return jobId;
+        }
+    }
+
+    @Autowired
+    private StatementJobRepository jobRepository;
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private StatementJobStatusHub statusHub;
+
+    @Autowired
+    private TenantFairShareScheduler scheduler;
+
+    @Autowired
+    private StatementQueueMetrics metrics;
+
+    @Autowired
+    private ShardDirectory shardDirectory;
+
+    @Autowired
+    @Qualifier("statementWorkerExecutor")
+    private ThreadPoolTaskExecutor workerExecutor;
+
+    private final TransactionTemplate transaction;
+
+    private final int workers;
+    private final String nodeId;
+
+    @Value("${banking.statements.queue.lease:PT2M}")
+    private Duration lease;
+
+    @Value("${banking.statements.queue.poll-interval:PT1S}")
+    private Duration pollInterval;
+
+    @Value("${banking.statements.queue.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${banking.statements.queue.retry-backoff:PT5S}")
+    private Duration retryBackoff;
+
+    @Value("${banking.statements.queue.retry-backoff-max:PT5M}")
+    private Duration retryBackoffMax;
+
+    // Jobs this node is processing (heartbeat extends their leases)
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+
+    // Running jobs per tenant and BULK jobs running, for the fair-share scheduler
+    private final Map<String, Integer> runningByTenant = new ConcurrentHashMap<>();
+    private final AtomicInteger runningBulk = new AtomicInteger();
+
+    private final Semaphore idleWorkers;
+
+    private final Object signal = new Object();
+    private boolean signalled;
+
+    private volatile boolean running;
+    private Thread poller;
+
+    public StatementJobQueue(PlatformTransactionManager transactionManager,
+                             @Value("${banking.statements.workers:4}") int workers,
+                             @Value("${banking.statements.queue.node-id:}") String nodeId) {
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.workers = Math.max(workers, 0);
+        this.idleWorkers = new Semaphore(this.workers);
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (workers == 0) {
+            log.info("Statement queue: no workers on node {}", nodeId);
+            return;
+        }
+        poller = new Thread(this::pollLoop, "statement-queue-poller");
+        poller.setDaemon(true);
+        poller.start();
+        log.info("Statement queue: {} workers on node {}", workers, nodeId);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        wakeUp();
+        if (poller != null) {
+            try {
+                poller.join(pollInterval.toMillis() * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @TransactionalEventListener
+    public void onJobSubmitted(JobSubmitted event) {
+        wakeUp();
+    }
+
+    private void pollLoop() {
+        while (running) {
+            try {
+                if (claimAndDispatch() == 0) {
+                    awaitSignal();
+                }
+            } catch (RuntimeException e) {
+                log.warn("Statement queue poll failed: {}", e.getMessage());
+                awaitSignal();
+            }
+        }
+    }
+
+    /**
+     * Claim up to as many jobs as there are idle workers and hand them over
+     *
+     * @return Number of jobs claimed
+     */
+    int claimAndDispatch() {
+        LocalDateTime now = LocalDateTime.now();
+        // Each tenant's jobs are on its shard (a moved tenant's old rows are ignored)
+        List<TenantQueueStats> queued = new ArrayList<>();
+        shardDirectory.forEachShard(shard -> {
+            for (TenantQueueStats stats : jobRepository.findQueueStats()) {
+                if (shard.equals(shardDirectory.shardOf(stats.getTenantId()))) {
+                    queued.add(stats);
+                }
+            }
+        });
+        metrics.update(queued, runningByTenant, now);
+        // Tenants being moved between shards start no jobs until the move is done
+        queued.removeIf(stats -> shardDirectory.isFrozen(stats.getTenantId()));
+
+        int permits = idleWorkers.drainPermits();
+        if (permits == 0) {
+            return 0;
+        }
+
+        List<StatementJob> jobs = List.of();
+        try {
+            jobs = claim(permits, queued, now);
+        } finally {
+            // Permits of claimed jobs are released by their worker
+            idleWorkers.release(permits - jobs.size());
+        }
+        for (StatementJob job : jobs) {
+            inFlight.add(job.getJobId());
+            started(job);
+            // The task decorator hands the job's tenant over to the worker thread,
+            // marked as background work for the connection bulkheads
+            TenantContext.setTenantId(job.getTenantId());
+            TenantContext.setBackground(true);
+            try {
+                workerExecutor.execute(() -> process(job));
+            } catch (TaskRejectedException e) {
+                // Only when the executor is shutting down: give the job back at once
+                // instead of leaving it PROCESSING under a lease this node keeps extending
+                log.warn("Statement job {}: worker rejected it, returned to the queue", job.getJobId());
+                release(job);
+                recordOutcome(job.getJobId(), this::requeue);
+            } finally {
+                TenantContext.clear();
+            }
+        }
+        return jobs.size();
+    }
+
+    private List<StatementJob> claim(int max, List<TenantQueueStats> queued, LocalDateTime now) {
+        List<TenantFairShareScheduler.Allocation> allocations =
+                scheduler.allocate(max, queued, now, runningByTenant, runningBulk.get());
+        if (allocations.isEmpty()) {
+            return List.of();
+        }
+        // One claim transaction per shard
+        Map<String, List<TenantFairShareScheduler.Allocation>> byShard = new HashMap<>();
+        for (TenantFairShareScheduler.Allocation allocation : allocations) {
+            byShard.computeIfAbsent(shardDirectory.shardOf(allocation.getTenantId()), shard -> new ArrayList<>())
+                    .add(allocation);
+        }
+        List<StatementJob> claimed = new ArrayList<>();
+        shardDirectory.forEachShard(shard -> {
+            List<TenantFairShareScheduler.Allocation> shardAllocations = byShard.get(shard);
+            if (shardAllocations != null) {
+                claimed.addAll(claimOnShard(shardAllocations, now));
+            }
+        });
+        return claimed;
+    }
+
+    private List<StatementJob> claimOnShard(List<TenantFairShareScheduler.Allocation> allocations, LocalDateTime now) {
+        return transaction.execute(status -> {
+            List<StatementJob> jobs = new ArrayList<>();
+            for (TenantFairShareScheduler.Allocation allocation : allocations) {
+                jobs.addAll(jobRepository.claimNextForTenant(allocation.getTenantId(), allocation.getPriority(),
+                        now, Limit.of(allocation.getCount())));
+            }
+            for (StatementJob job : jobs) {
+                metrics.recordWait(job.getTenantId(), job.getPriority(), Duration.between(job.getNextAttemptAt(), now));
+                job.setStatus(JobStatus.PROCESSING);
+                job.setAttempts(job.getAttempts() + 1);
+                job.setLeaseOwner(nodeId);
+                job.setLeaseExpiresAt(now.plus(lease));
+                job.setHeartbeatAt(now);
+                statusHub.publish(job);
+            }
+            return jobs;
+        });
+    }
+
+    private void started(StatementJob job) {
+        runningByTenant.merge(job.getTenantId(), 1, Integer::sum);
+        if (job.getPriority() == JobPriority.BULK) {
+            runningBulk.incrementAndGet();
+        }
+    }
+
+    private void finished(StatementJob job) {
+        runningByTenant.computeIfPresent(job.getTenantId(), (tenantId, count) -> count > 1 ? count - 1 : null);
+        if (job.getPriority() == JobPriority.BULK) {
+            runningBulk.decrementAndGet();
+        }
+    }
+
+    private void process(StatementJob job) {
+        try {
+            StoredArtifact artifact = statementService.generateStatement(job);
+            recordOutcome(job.getJobId(), claimed -> statementService.markCompleted(claimed, artifact));
+        } catch (Exception e) {
+            log.warn("Statement job {} attempt {} failed: {}", job.getJobId(), job.getAttempts(), e.getMessage());
+            recordOutcome(job.getJobId(), claimed -> retryOrFail(claimed, "Error: " + e.getMessage()));
+        } finally {
+            release(job);
+        }
+    }
+
+    /**
+     * Undo the bookkeeping of a dispatched job and free its worker
+     */
+    private void release(StatementJob job) {
+        inFlight.remove(job.getJobId());
+        finished(job);
+        idleWorkers.release();
+        wakeUp();
+    }
+
+    /**
+     * Put a claimed job back to PENDING without counting the attempt
+     */
+    private void requeue(StatementJob job) {
+        job.setStatus(JobStatus.PENDING);
+        job.setAttempts(Math.max(job.getAttempts() - 1, 0));
+        job.setNextAttemptAt(LocalDateTime.now());
+    }
+
+    /**
+     * Apply the outcome of an attempt, but only while this node still holds
+     * the lease; otherwise the job was recovered and belongs to someone else
+     */
+    private void recordOutcome(UUID jobId, Consumer<StatementJob> outcome) {
+        try {
+            transaction.executeWithoutResult(status -> {
+                StatementJob job = jobRepository.findByIdForUpdate(jobId).orElse(null);
+                if (job == null || job.getStatus() != JobStatus.PROCESSING || !nodeId.equals(job.getLeaseOwner())) {
+                    log.warn("Statement job {}: lease lost, outcome discarded", jobId);
+                    return;
+                }
+                outcome.accept(job);
+                job.setLeaseOwner(null);
+                job.setLeaseExpiresAt(null);
+                statusHub.publish(job);
+            });
+        } catch (RuntimeException e) {
+            // The lease expires and the job is recovered
+            log.warn("Statement job {}: could not record outcome: {}", jobId, e.getMessage());
+        }
+    }
+
+    /**
+     * Queue the job for another attempt after a backoff, or fail it for good
+     */
+    private void retryOrFail(StatementJob job, String error) {
+        job.setErrorMessage(error.length() <= 1000 ? error : error.substring(0, 1000));
+        if (job.getAttempts() >= maxAttempts) {
+            job.setStatus(JobStatus.FAILED);
+            job.setCompletedAt(LocalDateTime.now());
+        } else {
+            job.setStatus(JobStatus.PENDING);
+            job.setNextAttemptAt(LocalDateTime.now().plus(backoff(job.getAttempts())));
+        }
+    }
+
+    /**
+     * retry-backoff doubled per attempt, capped at retry-backoff-max
+     */
+    Duration backoff(int attempts) {
+        Duration delay = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(retryBackoffMax) > 0 ? retryBackoffMax : delay;
+    }
+
+    /**
+     * Extend the leases of the jobs this node is still processing
+     */
+    @Scheduled(fixedDelayString = "${banking.statements.queue.heartbeat-interval:PT30S}")
+    public void heartbeat() {
+        List<UUID> jobIds = new ArrayList<>(inFlight);
+        if (jobIds.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        AtomicInteger extended = new AtomicInteger();
+        shardDirectory.forEachShard(shard -> {
+            Integer onShard = transaction.execute(status ->
+                    jobRepository.extendLeases(jobIds, nodeId, now, now.plus(lease)));
+            extended.addAndGet(onShard == null ? 0 : onShard);
+        });
+        if (extended.get() < jobIds.size()) {
+            log.warn("Statement queue: {} of {} leases could not be extended", jobIds.size() - extended.get(),
+                    jobIds.size());
+        }
+    }
+
+    /**
+     * Put jobs whose lease expired back in the queue (or fail them when out of attempts)
+     *
+     * @return Number of jobs recovered
+     */
+    @Scheduled(fixedDelayString = "${banking.statements.queue.recovery-interval:PT30S}")
+    public int recoverExpiredLeases() {
+        AtomicInteger total = new AtomicInteger();
+        shardDirectory.forEachShard(shard -> total.addAndGet(recoverExpiredLeasesOnShard()));
+        if (total.get() > 0) {
+            wakeUp();
+        }
+        return total.get();
+    }
+
+    private int recoverExpiredLeasesOnShard() {
+        Integer recovered = transaction.execute(status -> {
+            List<StatementJob> jobs = jobRepository.findExpiredLeases(LocalDateTime.now(), Limit.of(RECOVERY_BATCH_SIZE));
+            for (StatementJob job : jobs) {
+                log.warn("Statement job {}: lease of {} expired", job.getJobId(), job.getLeaseOwner());
+                retryOrFail(job, "Error: worker " + job.getLeaseOwner() + " stopped responding");
+                job.setLeaseOwner(null);
+                job.setLeaseExpiresAt(null);
+                statusHub.publish(job);
+            }
+            return jobs.size();
+        });
+        return recovered == null ? 0 : recovered;
+    }
+
+    private void wakeUp() {
+        synchronized (signal) {
+            signalled = true;
+            signal.notifyAll();
+        }
+    }
+
+    private void awaitSignal() {
+        synchronized (signal) {
+            try {
+                if (!signalled && running) {
+                    signal.wait(pollInterval.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            signalled = false;
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host = System.getenv().getOrDefault("HOSTNAME", "node");
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
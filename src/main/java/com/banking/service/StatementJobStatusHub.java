@@ -0,0 +1,157 @@
+package com.banking.service;
+
+import com.banking.config.ShardDirectory;
+import com.banking.dto.StatementJobStatus;
+import com.banking.entity.StatementJob;
+import com.banking.repository.StatementJobRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * StatementJobStatusHub - In-process status cache and change notifications
+ * for statement jobs
+ *
+ * - Every status change is published here (after its transaction commits)
+ * - The latest status of each job is cached, so status polls are served
+ *   from memory instead of the statement_jobs table
+ * - SSE streams and long-polls subscribe to a job and are notified of each
+ *   change, so waiting clients cause no database queries at all
+ *
+ * Listeners of a job are dropped once it reaches a finished status.
+ *
+ * Jobs may be processed on another node, whose notifications never reach
+ * this one. So unfinished statuses are only cached briefly (active-ttl),
+ * and the jobs local clients are waiting for are re-read from the database
+ * every refresh-interval - one query per node, however many clients wait.
+ */
+@Component
+public class StatementJobStatusHub {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementJobStatusHub.class);
+
+    private final Cache<UUID, StatementJobStatus> statuses;
+
+    private final ConcurrentMap<UUID, Set<Consumer<StatementJobStatus>>> listeners = new ConcurrentHashMap<>();
+
+    @Autowired
+    private StatementJobRepository jobRepository;
+
+    @Autowired
+    private ShardDirectory shardDirectory;
+
+    public StatementJobStatusHub(
+            @Value("${banking.statements.status-cache.max-size:100000}") long maxSize,
+            @Value("${banking.statements.status-cache.ttl:PT30M}") Duration ttl,
+            @Value("${banking.statements.status-cache.active-ttl:PT2S}") Duration activeTtl) {
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.writing((UUID jobId, StatementJobStatus status) ->
+                        status.isFinished() ? ttl : activeTtl))
+                .build();
+    }
+
+    /**
+     * Cached status of a job, if present
+     */
+    public Optional<StatementJobStatus> get(UUID jobId) {
+        return Optional.ofNullable(statuses.getIfPresent(jobId));
+    }
+
+    /**
+     * Cache a status loaded from the database
+     * Never replaces a published status, which is at least as recent
+     */
+    public void cache(StatementJobStatus status) {
+        statuses.asMap().putIfAbsent(status.getJobId(), status);
+    }
+
+    /**
+     * Publish the job's current status
+     * Inside a transaction, delivery waits until it commits, so a listener
+     * told COMPLETED can immediately read the finished job.
+     */
+    public void publish(StatementJob job) {
+        StatementJobStatus status = StatementJobStatus.from(job);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(status);
+                }
+            });
+        } else {
+            deliver(status);
+        }
+    }
+
+    /**
+     * Subscribe to status changes of a job
+     *
+     * @return Unsubscribes the listener; safe to call more than once
+     */
+    public Runnable subscribe(UUID jobId, Consumer<StatementJobStatus> listener) {
+        listeners.computeIfAbsent(jobId, id -> ConcurrentHashMap.newKeySet()).add(listener);
+        return () -> listeners.computeIfPresent(jobId, (id, jobListeners) -> {
+            jobListeners.remove(listener);
+            return jobListeners.isEmpty() ? null : jobListeners;
+        });
+    }
+
+    /**
+     * Re-read the jobs local clients are waiting for and deliver changes
+     * made on other nodes
+     */
+    @Scheduled(fixedDelayString = "${banking.statements.status-cache.refresh-interval:PT1S}")
+    public void refreshWatched() {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        shardDirectory.forEachShard(shard -> {
+            for (StatementJob job : jobRepository.findAllById(listeners.keySet())) {
+                // Rows left behind on a tenant's previous shard are ignored
+                if (!shard.equals(shardDirectory.shardOf(job.getTenantId()))) {
+                    continue;
+                }
+                StatementJobStatus cached = statuses.getIfPresent(job.getJobId());
+                if (cached == null || cached.getStatus() != job.getStatus()) {
+                    deliver(StatementJobStatus.from(job));
+                }
+            }
+        });
+    }
+
+    private void deliver(StatementJobStatus status) {
+        statuses.put(status.getJobId(), status);
+
+        Set<Consumer<StatementJobStatus>> jobListeners = status.isFinished()
+                ? listeners.remove(status.getJobId())
+                : listeners.get(status.getJobId());
+        if (jobListeners == null) {
+            return;
+        }
+        for (Consumer<StatementJobStatus> listener : jobListeners) {
+            try {
+                listener.accept(status);
+            } catch (RuntimeException e) {
+                log.debug("Statement status listener failed: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.banking.service;
+
+import com.banking.dto.TenantQueueStats;
+import com.banking.entity.JobPriority;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StatementQueueMetrics - Per-tenant metrics of the statement job queue
+ *
+ * Published through Micrometer (GET /actuator/metrics/{name}?tag=tenant:BANK001):
+ * - banking.statements.queue.depth: PENDING jobs per tenant and priority
+ * - banking.statements.queue.oldest-wait: seconds the oldest due job has been waiting
+ * - banking.statements.queue.wait: time from due to claimed, per claimed job
+ * - banking.statements.running: jobs running on this node per tenant
+ *
+ * Depth and oldest-wait are refreshed on every poll of the queue, so they
+ * are only reported by nodes with workers.
+ */
+@Component
+public class StatementQueueMetrics {
+
+    private final MeterRegistry registry;
+    private final MultiGauge depth;
+    private final MultiGauge oldestWait;
+    private final MultiGauge running;
+
+    public StatementQueueMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.depth = MultiGauge.builder("banking.statements.queue.depth")
+                .description("Pending statement jobs")
+                .register(registry);
+        this.oldestWait = MultiGauge.builder("banking.statements.queue.oldest-wait")
+                .description("Time the oldest due statement job has been waiting")
+                .baseUnit("seconds")
+                .register(registry);
+        this.running = MultiGauge.builder("banking.statements.running")
+                .description("Statement jobs running on this node")
+                .register(registry);
+    }
+
+    /**
+     * Replace the gauges with the queue as seen by the latest poll
+     */
+    public void update(List<TenantQueueStats> queued, Map<String, Integer> runningByTenant, LocalDateTime now) {
+        List<MultiGauge.Row<?>> depthRows = new ArrayList<>();
+        List<MultiGauge.Row<?>> waitRows = new ArrayList<>();
+        for (TenantQueueStats stats : queued) {
+            Tags tags = tags(stats.getTenantId(), stats.getPriority());
+            depthRows.add(MultiGauge.Row.of(tags, stats.getPending()));
+            long waiting = stats.isDue(now) ? Duration.between(stats.getOldestDueAt(), now).toMillis() : 0;
+            waitRows.add(MultiGauge.Row.of(tags, waiting / 1000.0));
+        }
+        depth.register(depthRows, true);
+        oldestWait.register(waitRows, true);
+
+        List<MultiGauge.Row<?>> runningRows = new ArrayList<>();
+        runningByTenant.forEach((tenantId, count) -> runningRows.add(MultiGauge.Row.of(Tags.of("tenant", tenantId), count)));
+        running.register(runningRows, true);
+    }
+
+    /**
+     * Record how long a claimed job waited after it became due
+     */
+    public void recordWait(String tenantId, JobPriority priority, Duration waited) {
+        Timer.builder("banking.statements.queue.wait")
+                .description("Time statement jobs wait in the queue before a worker picks them up")
+                .tags(tags(tenantId, priority))
+                .register(registry)
+                .record(waited.isNegative() ? Duration.ZERO : waited);
+    }
+
+    private static Tags tags(String tenantId, JobPriority priority) {
+        return Tags.of("tenant", tenantId, "priority", priority.name());
+    }
+}
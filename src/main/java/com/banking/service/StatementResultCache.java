@@ -0,0 +1,148 @@
+package com.banking.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * StatementResultCache - Maps statement requests to the job that produces them
+ *
+ * A statement only depends on the account's transactions up to the end of
+ * the period, and transactions are never changed once posted. So a request
+ * is keyed by (tenant, account, period, watermark, account update time),
+ * where the watermark is the number of the account's transactions up to the
+ * end of the period. A count is raised by every commit into the period,
+ * including one committed after a newer transaction (group commit, ledger
+ * batches), which the latest transaction ID would not show. The update time
+ * covers PUT /api/accounts/{id}, which changes the customer name or sets the
+ * balance without a transaction; it is read from the database, so an update
+ * on another node is seen as well:
+ * - Same key, job COMPLETED: the existing statement is returned right away
+ * - Same key, job PENDING/PROCESSING: the request joins the running job
+ * - New transaction in the period or account updated: new key, so a new statement
+ *
+ * Only a placeholder future is created inside the cache's atomic mapping;
+ * the job itself is created outside of it, so a slow database transaction
+ * never blocks unrelated keys that share a hash bin.
+ *
+ * The cache is per node and size-bounded (LRU-like eviction by Caffeine).
+ * Hits, misses and evictions are exported as cache.* metrics with
+ * cache=statementResults.
+ */
+@Component
+public class StatementResultCache {
+
+    /**
+     * Everything a generated statement depends on
+     */
+    public static final class Key {
+
+        private final String tenantId;
+        private final UUID accountId;
+        private final LocalDateTime startDate;
+        private final LocalDateTime endDate;
+        private final long watermark;
+        private final LocalDateTime accountUpdatedAt;
+
+        public Key(String tenantId, UUID accountId, LocalDateTime startDate, LocalDateTime endDate, long watermark,
+                   LocalDateTime accountUpdatedAt) {
+            this.tenantId = tenantId;
+            this.accountId = accountId;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.watermark = watermark;
+            this.accountUpdatedAt = accountUpdatedAt;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return tenantId.equals(other.tenantId) && accountId.equals(other.accountId)
+                    && startDate.equals(other.startDate) && endDate.equals(other.endDate)
+                    && watermark == other.watermark && Objects.equals(accountUpdatedAt, other.accountUpdatedAt);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenantId, accountId, startDate, endDate, watermark, accountUpdatedAt);
+        }
+    }
+
+    private final Cache<Key, CompletableFuture<UUID>> jobs;
+
+    public StatementResultCache(
+            @Value("${banking.statements.result-cache.max-size:10000}") long maxSize,
+            @Value("${banking.statements.result-cache.ttl:P1D}") Duration ttl,
+            MeterRegistry registry) {
+        this.jobs = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, jobs, "statementResults");
+    }
+
+    /**
+     * The job for a key, creating it if there is none
+     *
+     * Concurrent calls for the same key wait for a single creation, so
+     * identical requests arriving together are coalesced into one job.
+     * The creator must commit the job before returning its ID. If it fails,
+     * its exception is thrown to it alone and a waiting call creates the job.
+     */
+    public UUID getOrCreate(Key key, Supplier<UUID> create) {
+        while (true) {
+            CompletableFuture<UUID> placeholder = new CompletableFuture<>();
+            CompletableFuture<UUID> job = jobs.get(key, k -> placeholder);
+            if (job == placeholder) {
+                return create(key, placeholder, create);
+            }
+            try {
+                return job.join();
+            } catch (CompletionException | CancellationException e) {
+                // The creator failed and removed its placeholder: try again
+                jobs.asMap().remove(key, job);
+            }
+        }
+    }
+
+    private UUID create(Key key, CompletableFuture<UUID> placeholder, Supplier<UUID> create) {
+        try {
+            UUID jobId = create.get();
+            placeholder.complete(jobId);
+            return jobId;
+        } catch (RuntimeException | Error e) {
+            jobs.asMap().remove(key, placeholder);
+            placeholder.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Forget a job that can no longer serve its key (failed, expired or deleted)
+     * No-op if the key already points to another job
+     */
+    public void invalidate(Key key, UUID jobId) {
+        CompletableFuture<UUID> job = jobs.asMap().get(key);
+        if (job != null && jobId.equals(job.getNow(null))) {
+            jobs.asMap().remove(key, job);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.banking.service;
+
+import com.banking.config.ShardDirectory;
+import com.banking.entity.JobStatus;
+import com.banking.entity.StatementJob;
+import com.banking.repository.StatementJobRepository;
+import com.banking.storage.StatementArtifactStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * StatementRetentionService - Removes statement files after the retention period
+ *
+ * Runs every banking.statements.cleanup-interval:
+ * 1. Completed jobs past expiresAt lose their artifact and become EXPIRED
+ *    (on every shard)
+ * 2. Files older than retention + grace are deleted even if no job refers
+ *    to them (e.g. written by a job that crashed before it was updated)
+ */
+@Service
+public class StatementRetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementRetentionService.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private StatementJobRepository jobRepository;
+
+    @Autowired
+    private ShardDirectory shardDirectory;
+
+    @Autowired
+    private StatementArtifactStore artifactStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StatementJobStatusHub statusHub;
+
+    @Value("${banking.statements.retention:P7D}")
+    private Duration retention;
+
+    // Extra age before unreferenced files are swept
+    @Value("${banking.statements.orphan-grace:P1D}")
+    private Duration orphanGrace;
+
+    @Scheduled(fixedDelayString = "${banking.statements.cleanup-interval:PT1H}",
+            initialDelayString = "${banking.statements.cleanup-interval:PT1H}")
+    public void cleanup() {
+        LocalDateTime now = LocalDateTime.now();
+        AtomicInteger expiredJobs = new AtomicInteger();
+        shardDirectory.forEachShard(shard -> expiredJobs.addAndGet(expireStatements(now)));
+        int expired = expiredJobs.get();
+        int orphans = 0;
+        try {
+            orphans = artifactStore.deleteOlderThan(Instant.now().minus(retention).minus(orphanGrace));
+        } catch (IOException e) {
+            log.warn("Statement orphan sweep failed: {}", e.getMessage());
+        }
+        if (expired > 0 || orphans > 0) {
+            log.info("Statement retention: {} jobs expired, {} orphaned files deleted", expired, orphans);
+        }
+    }
+
+    /**
+     * Expire completed jobs whose expiresAt is before now, one batch per transaction
+     *
+     * @return Number of jobs expired
+     */
+    public int expireStatements(LocalDateTime now) {
+        int total = 0;
+        while (true) {
+            Integer expired = transactionTemplate.execute(status -> {
+                List<StatementJob> jobs = jobRepository.findByStatusAndExpiresAtBefore(
+                        JobStatus.COMPLETED, now, Limit.of(BATCH_SIZE));
+                for (StatementJob job : jobs) {
+                    deleteArtifact(job.getArtifactKey());
+                    job.setArtifactKey(null);
+                    job.setStatus(JobStatus.EXPIRED);
+                    statusHub.publish(job);
+                }
+                return jobs.size();
+            });
+            total += expired;
+            if (expired < BATCH_SIZE) {
+                return total;
+            }
+        }
+    }
+
+    private void deleteArtifact(String key) {
+        try {
+            artifactStore.delete(key);
+        } catch (IOException | RuntimeException e) {
+            // The orphan sweep removes it later
+            log.warn("Could not delete statement artifact {}: {}", key, e.getMessage());
+        }
+    }
+}
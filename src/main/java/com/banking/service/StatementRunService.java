@@ -0,0 +1,583 @@
+package com.banking.service;
+
+import com.banking.config.ShardContext;
+import com.banking.config.ShardDirectory;
+import com.banking.config.TenantContext;
+import com.banking.entity.Account;
+import com.banking.entity.JobPriority;
+import com.banking.entity.StatementJob;
+import com.banking.entity.StatementRun;
+import com.banking.entity.StatementRunPartition;
+import com.banking.entity.StatementRunPartitionId;
+import com.banking.entity.StatementRunStatus;
+import com.banking.entity.Transaction;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.StatementJobRepository;
+import com.banking.repository.StatementRunPartitionRepository;
+import com.banking.repository.StatementRunRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.storage.StatementArtifactStore;
+import com.banking.storage.StoredArtifact;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * StatementRunService - Bulk statement runs (one statement per account of a tenant)
+ *
+ * Month-end statements for a whole tenant would otherwise be one request,
+ * account lookup and range query per account. A run instead:
+ * 1. Splits the tenant's accounts into partitions of partition-size
+ *    consecutive account IDs when it is created
+ * 2. Generates the partitions in parallel on a ForkJoinPool; each one is a
+ *    single ordered pass over its accounts' transactions for the period
+ *    (idx_transactions_tenant_account_ts), writing one statement per account
+ * 3. Commits each partition's statement jobs in one batch, together with
+ *    the partition status and the run's progress counters
+ *
+ * Runs survive crashes: the node processing a run holds a lease renewed by
+ * heartbeats; when it expires, any node claims the run and continues with
+ * the partitions that are not COMPLETED. Failed partitions can be retried
+ * with resumeRun. banking.statements.runs.parallelism=0 makes a node never
+ * process runs.
+ *
+ * The statements are ordinary COMPLETED statement jobs (priority BULK, with
+ * the runId), downloadable through /api/statements/{jobId}/download.
+ */
+@Service
+@Transactional
+public class StatementRunService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementRunService.class);
+
+    // Runnable runs locked per claim, so runs of a frozen tenant do not block the others
+    private static final int CLAIM_CANDIDATES = 10;
+
+    /**
+     * Published (after commit) when a run was created or resumed
+     */
+    public static class RunSubmitted {
+
+        private final UUID runId;
+
+        public RunSubmitted(UUID runId) {
+            this.runId = runId;
+        }
+
+        public UUID getRunId() {
+            return runId;
+        }
+    }
+
+    /**
+     * Thrown when this node no longer holds the lease of the run it is processing
+     */
+    private static class LeaseLostException extends RuntimeException {
+
+        LeaseLostException(UUID runId) {
+            super("Lease of statement run " + runId + " lost");
+        }
+    }
+
+    @Autowired
+    private StatementRunRepository runRepository;
+
+    @Autowired
+    private StatementRunPartitionRepository partitionRepository;
+
+    @Autowired
+    private StatementJobRepository jobRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private StatementArtifactStore artifactStore;
+
+    @Autowired
+    private StatementJobQueue jobQueue;
+
+    @Autowired
+    private ShardDirectory shardDirectory;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${banking.statements.runs.partition-size:500}")
+    private int partitionSize;
+
+    @Value("${banking.statements.runs.lease:PT2M}")
+    private Duration lease;
+
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final int parallelism;
+    private final ForkJoinPool partitionPool;
+    private final ExecutorService runDriver;
+
+    // Run this node is processing (at most one) and its shard, for the heartbeat
+    private final AtomicBoolean busy = new AtomicBoolean();
+    private volatile UUID currentRun;
+    private volatile String currentShard;
+    private volatile boolean leaseLost;
+
+    public StatementRunService(PlatformTransactionManager transactionManager,
+                               @Value("${banking.statements.runs.parallelism:4}") int parallelism) {
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.parallelism = Math.max(parallelism, 0);
+        this.partitionPool = new ForkJoinPool(Math.max(parallelism, 1));
+        this.runDriver = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "statement-run-driver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Unfinished runs are resumed by another node once the lease expires
+        runDriver.shutdownNow();
+        partitionPool.shutdownNow();
+    }
+
+    /**
+     * Start a run generating the statements of every account of the current tenant
+     *
+     * @param startDate First day of the period
+     * @param endDate Last day of the period
+     * @return The new run (PENDING), with its partitions planned
+     */
+    public StatementRun startRun(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new RuntimeException("End date must not be before start date");
+        }
+        String tenantId = TenantContext.getTenantId();
+
+        StatementRun run = runRepository.save(
+                new StatementRun(tenantId, startDate.atStartOfDay(), endDate.atTime(23, 59, 59)));
+
+        // Each page of account IDs becomes one partition
+        List<StatementRunPartition> partitions = new ArrayList<>();
+        long accounts = 0;
+        UUID after = new UUID(0, 0);
+        while (true) {
+            List<UUID> accountIds = accountRepository.findAccountIdsAfter(tenantId, after, Limit.of(partitionSize));
+            if (accountIds.isEmpty()) {
+                break;
+            }
+            after = accountIds.get(accountIds.size() - 1);
+            partitions.add(new StatementRunPartition(run.getRunId(), partitions.size(), accountIds.get(0), after));
+            accounts += accountIds.size();
+            if (accountIds.size() < partitionSize) {
+                break;
+            }
+        }
+        partitionRepository.saveAll(partitions);
+
+        run.setTotalPartitions(partitions.size());
+        run.setTotalAccounts(accounts);
+
+        events.publishEvent(new RunSubmitted(run.getRunId()));
+        return run;
+    }
+
+    /**
+     * Get a run only if it belongs to the current tenant
+     */
+    @Transactional(readOnly = true)
+    public Optional<StatementRun> getRun(UUID runId) {
+        return runRepository.findByRunIdAndTenantId(runId, TenantContext.getTenantId());
+    }
+
+    /**
+     * Statements written by a run, in account order
+     *
+     * @param runId The run ID
+     * @param afterAccountId Last account of the previous page, or null for the first page
+     * @param limit Page size
+     */
+    @Transactional(readOnly = true)
+    public List<StatementJob> getRunStatements(UUID runId, UUID afterAccountId, int limit) {
+        StatementRun run = getRun(runId)
+                .orElseThrow(() -> new RuntimeException("Statement run not found or access denied"));
+        UUID after = afterAccountId != null ? afterAccountId : new UUID(0, 0);
+        return jobRepository.findByRunIdAndAccountIdGreaterThanOrderByAccountId(run.getRunId(), after, Limit.of(limit));
+    }
+
+    /**
+     * Retry the failed partitions of a FAILED run
+     * Completed partitions are kept; the run is picked up again like a new one
+     */
+    public StatementRun resumeRun(UUID runId) {
+        StatementRun run = getRun(runId)
+                .orElseThrow(() -> new RuntimeException("Statement run not found or access denied"));
+        run = runRepository.findByIdForUpdate(run.getRunId()).orElseThrow();
+        if (run.getStatus() != StatementRunStatus.FAILED) {
+            throw new RuntimeException("Only failed statement runs can be resumed");
+        }
+        for (StatementRunPartition partition : partitionRepository.findByRunIdOrderByPartitionNo(runId)) {
+            if (partition.getStatus() == StatementRunStatus.FAILED) {
+                partition.setStatus(StatementRunStatus.PENDING);
+                partition.setErrorMessage(null);
+            }
+        }
+        run.setStatus(StatementRunStatus.PENDING);
+        run.setFailedPartitions(0);
+        run.setErrorMessage(null);
+        run.setCompletedAt(null);
+        run.setLeaseExpiresAt(LocalDateTime.now());
+
+        events.publishEvent(new RunSubmitted(run.getRunId()));
+        return run;
+    }
+
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onRunSubmitted(RunSubmitted event) {
+        poll();
+    }
+
+    /**
+     * Look for a run to process, unless this node is busy with one
+     */
+    @Scheduled(fixedDelayString = "${banking.statements.runs.poll-interval:PT5S}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void poll() {
+        if (parallelism == 0 || busy.get()) {
+            return;
+        }
+        runDriver.execute(this::processNextRun);
+    }
+
+    /**
+     * Claim one run and process its remaining partitions (blocks until done)
+     * Shards are searched in turn; the run is processed on the shard it was claimed from
+     *
+     * @return True if a run was processed
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean processNextRun() {
+        if (!busy.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            for (String shard : shardDirectory.getShards()) {
+                ShardContext.setShard(shard);
+                StatementRun run = claimRun();
+                if (run != null) {
+                    currentShard = shard;
+                    processRun(run);
+                    return true;
+                }
+            }
+            return false;
+        } catch (RuntimeException e) {
+            log.warn("Statement run processing failed: {}", e.getMessage());
+            return false;
+        } finally {
+            ShardContext.clear();
+            currentRun = null;
+            currentShard = null;
+            busy.set(false);
+        }
+    }
+
+    private StatementRun claimRun() {
+        return transaction.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            // Runs of tenants being moved between shards wait until the move is done
+            StatementRun run = runRepository.claimRunnable(now, Limit.of(CLAIM_CANDIDATES)).stream()
+                    .filter(candidate -> !shardDirectory.isFrozen(candidate.getTenantId()))
+                    .findFirst()
+                    .orElse(null);
+            if (run == null) {
+                return null;
+            }
+            if (run.getStatus() == StatementRunStatus.PROCESSING) {
+                log.warn("Statement run {}: lease of {} expired, resuming", run.getRunId(), run.getLeaseOwner());
+            }
+            run.setStatus(StatementRunStatus.PROCESSING);
+            run.setLeaseOwner(jobQueue.getNodeId());
+            run.setLeaseExpiresAt(now.plus(lease));
+            if (run.getStartedAt() == null) {
+                run.setStartedAt(now);
+            }
+            return run;
+        });
+    }
+
+    private void processRun(StatementRun run) {
+        currentRun = run.getRunId();
+        leaseLost = false;
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (StatementRunPartition partition : partitionRepository.findByRunIdOrderByPartitionNo(run.getRunId())) {
+            if (partition.getStatus() == StatementRunStatus.PENDING) {
+                tasks.add(() -> {
+                    runPartition(run, partition);
+                    return null;
+                });
+            }
+        }
+        log.info("Statement run {}: {} of {} partitions to generate", run.getRunId(), tasks.size(),
+                run.getTotalPartitions());
+
+        partitionPool.invokeAll(tasks);
+        if (!leaseLost) {
+            finishRun(run.getRunId());
+        }
+    }
+
+    private void runPartition(StatementRun run, StatementRunPartition partition) {
+        if (leaseLost) {
+            return;
+        }
+        TenantContext.setTenantId(run.getTenantId());
+        TenantContext.setBackground(true);
+        try {
+            List<StatementJob> jobs = new ArrayList<>();
+            long transactions = generatePartition(run, partition, jobs);
+            completePartition(run.getRunId(), partition.getPartitionNo(), jobs, transactions);
+        } catch (LeaseLostException e) {
+            leaseLost = true;
+            log.warn(e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Statement run {} partition {} failed: {}", run.getRunId(), partition.getPartitionNo(),
+                    e.getMessage());
+            failPartition(run.getRunId(), partition.getPartitionNo(), "Error: " + e.getMessage());
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    /**
+     * Write the statements of one partition in a single pass over its transactions
+     *
+     * @param jobs Receives one COMPLETED job per account (not yet saved)
+     * @return Number of transactions read
+     */
+    private long generatePartition(StatementRun run, StatementRunPartition partition, List<StatementJob> jobs) {
+        String tenantId = run.getTenantId();
+        LocalDateTime from = run.getStartDate();
+        LocalDateTime to = run.getEndDate().toLocalDate().plusDays(1).atStartOfDay();
+
+        Map<UUID, Account> accounts = new LinkedHashMap<>();
+        for (Account account : accountRepository.findByTenantIdAndAccountIdBetweenOrderByAccountId(
+                tenantId, partition.getFirstAccountId(), partition.getLastAccountId())) {
+            accounts.put(account.getAccountId(), account);
+        }
+
+        // Opening balances first, so no other query runs while the cursor is open
+        Map<UUID, BigDecimal> openingBalances = new LinkedHashMap<>();
+        for (Account account : accounts.values()) {
+            openingBalances.put(account.getAccountId(), balanceService.balanceAsOf(account, from));
+        }
+
+        Long transactions = readOnlyTransaction.execute(status -> {
+            long read = 0;
+            try (Stream<Transaction> stream = transactionRepository.streamForAccountRange(tenantId,
+                    partition.getFirstAccountId(), partition.getLastAccountId(), from, to)) {
+                Iterator<Transaction> cursor = stream.iterator();
+                Transaction next = nextOf(cursor, accounts);
+
+                // Both the accounts and the transactions are in account ID order
+                for (Account account : accounts.values()) {
+                    List<Transaction> accountTransactions = new ArrayList<>();
+                    while (next != null && next.getAccountId().equals(account.getAccountId())) {
+                        accountTransactions.add(next);
+                        entityManager.detach(next);
+                        next = nextOf(cursor, accounts);
+                    }
+                    read += accountTransactions.size();
+                    jobs.add(writeStatement(run, account, openingBalances.get(account.getAccountId()),
+                            accountTransactions));
+                }
+            }
+            return read;
+        });
+        return transactions == null ? 0 : transactions;
+    }
+
+    /**
+     * Next transaction of one of the partition's accounts
+     * Skips accounts created after the partition's accounts were loaded
+     */
+    private static Transaction nextOf(Iterator<Transaction> cursor, Map<UUID, Account> accounts) {
+        while (cursor.hasNext()) {
+            Transaction transaction = cursor.next();
+            if (accounts.containsKey(transaction.getAccountId())) {
+                return transaction;
+            }
+        }
+        return null;
+    }
+
+    private StatementJob writeStatement(StatementRun run, Account account, BigDecimal openingBalance,
+                                        List<Transaction> transactions) {
+        // One key per run and account: a partition redone after a crash overwrites its files
+        String key = StatementService.tenantDirectory(run.getTenantId()) + "/runs/" + run.getRunId()
+                + "/" + account.getAccountId();
+        StoredArtifact artifact;
+        try {
+            artifact = artifactStore.write(key, out -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                StatementService.renderStatement(writer, account, run.getStartDate(), run.getEndDate(),
+                        openingBalance, transactions);
+                writer.flush();
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        StatementJob job = new StatementJob(account.getAccountId(), run.getTenantId(),
+                run.getStartDate(), run.getEndDate());
+        job.setRunId(run.getRunId());
+        job.setPriority(JobPriority.BULK);
+        job.setAttempts(1);
+        statementService.markCompleted(job, artifact);
+        return job;
+    }
+
+    /**
+     * Save a partition's statement jobs and mark it COMPLETED, while this node holds the lease
+     */
+    private void completePartition(UUID runId, int partitionNo, List<StatementJob> jobs, long transactions) {
+        transaction.executeWithoutResult(status -> {
+            StatementRun run = lockOwnedRun(runId);
+            jobRepository.saveAll(jobs);
+
+            StatementRunPartition partition = partitionRepository
+                    .findById(new StatementRunPartitionId(runId, partitionNo)).orElseThrow();
+            partition.setStatus(StatementRunStatus.COMPLETED);
+            partition.setStatements(jobs.size());
+            partition.setTransactions(transactions);
+            partition.setCompletedAt(LocalDateTime.now());
+
+            run.setCompletedPartitions(run.getCompletedPartitions() + 1);
+            run.setStatementsWritten(run.getStatementsWritten() + jobs.size());
+            run.setTransactionsScanned(run.getTransactionsScanned() + transactions);
+        });
+    }
+
+    private void failPartition(UUID runId, int partitionNo, String error) {
+        try {
+            transaction.executeWithoutResult(status -> {
+                StatementRun run = lockOwnedRun(runId);
+                StatementRunPartition partition = partitionRepository
+                        .findById(new StatementRunPartitionId(runId, partitionNo)).orElseThrow();
+                partition.setStatus(StatementRunStatus.FAILED);
+                partition.setErrorMessage(truncate(error));
+                run.setFailedPartitions(run.getFailedPartitions() + 1);
+            });
+        } catch (LeaseLostException e) {
+            leaseLost = true;
+        }
+    }
+
+    private void finishRun(UUID runId) {
+        transaction.executeWithoutResult(status -> {
+            StatementRun run = lockOwnedRun(runId);
+            if (run.getFailedPartitions() > 0) {
+                run.setStatus(StatementRunStatus.FAILED);
+                run.setErrorMessage(run.getFailedPartitions() + " of " + run.getTotalPartitions()
+                        + " partitions failed");
+            } else {
+                run.setStatus(StatementRunStatus.COMPLETED);
+            }
+            run.setCompletedAt(LocalDateTime.now());
+            run.setLeaseOwner(null);
+            run.setLeaseExpiresAt(null);
+            log.info("Statement run {} {}: {} statements, {} transactions", runId, run.getStatus(),
+                    run.getStatementsWritten(), run.getTransactionsScanned());
+        });
+    }
+
+    private StatementRun lockOwnedRun(UUID runId) {
+        StatementRun run = runRepository.findByIdForUpdate(runId).orElseThrow(() -> new LeaseLostException(runId));
+        if (run.getStatus() != StatementRunStatus.PROCESSING || !jobQueue.getNodeId().equals(run.getLeaseOwner())) {
+            throw new LeaseLostException(runId);
+        }
+        return run;
+    }
+
+    /**
+     * Extend the lease of the run this node is processing
+     */
+    @Scheduled(fixedDelayString = "${banking.statements.runs.heartbeat-interval:PT30S}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void heartbeat() {
+        UUID runId = currentRun;
+        String shard = currentShard;
+        if (runId == null || shard == null) {
+            return;
+        }
+        Integer extended;
+        ShardContext.setShard(shard);
+        try {
+            extended = transaction.execute(status ->
+                    runRepository.extendLease(runId, jobQueue.getNodeId(), LocalDateTime.now().plus(lease)));
+        } finally {
+            ShardContext.clear();
+        }
+        if (extended == null || extended == 0) {
+            log.warn("Statement run {}: lease lost, stopping", runId);
+            leaseLost = true;
+        }
+    }
+
+    private static String truncate(String error) {
+        return error.length() <= 1000 ? error : error.substring(0, 1000);
+    }
+}
@@ -1,6 +1,8 @@
 package com.banking.service;
 
+import com.banking.config.ReplicaRead;
 import com.banking.config.TenantContext;
+import com.banking.dto.StatementJobStatus;
 import com.banking.dto.StatementRequest;
 import com.banking.entity.Account;
 import com.banking.entity.JobStatus;
@@ -10,25 +12,42 @@ import com.banking.entity.TransactionType;
 import com.banking.repository.AccountRepository;
 import com.banking.repository.StatementJobRepository;
 import com.banking.repository.TransactionRepository;
+import com.banking.storage.StatementArtifactStore;
+import com.banking.storage.StoredArtifact;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * StatementService - Handles asynchronous statement generation
  *
  * This service demonstrates async processing:
- * 1. Client requests statement → receives jobId immediately
- * 2. Statement is generated in background thread
- * 3. Client polls for job status and result
+ * 1. Client requests statement → receives jobId immediately (or the
+ *    existing job, if the same statement was requested before)
+ * 2. A StatementJobQueue worker (on any node) claims and generates it
+ * 3. Client polls for job status, then downloads the statement file
  *
- * The @Async annotation makes methods run in a separate thread pool
+ * Statements are written compressed to the StatementArtifactStore; the job
+ * row only stores the artifact key and metadata.
  */
 @Service
 @Transactional
@@ -43,129 +62,278 @@ public class StatementService {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private StatementArtifactStore artifactStore;
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private StatementJobStatusHub statusHub;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private StatementResultCache resultCache;
+
+    @Autowired
+    private StatementWindowRenderer windowRenderer;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // How long a generated statement can be downloaded
+    @Value("${banking.statements.retention:P7D}")
+    private Duration retention;
+
     /**
      * Request a statement generation
      * Returns immediately with a job ID
+     *
+     * Repeated requests for an unchanged statement return the existing job
+     * (see StatementResultCache): a COMPLETED one can be downloaded at once,
+     * a PENDING/PROCESSING one is shared instead of generated twice.
+     *
+     * Runs without a surrounding transaction: a new job is committed before
+     * it is cached, so requests waiting on the same key can read it.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public StatementJob requestStatement(StatementRequest request) {
         String tenantId = TenantContext.getTenantId();
-        String accountId = request.getAccountId();
+        UUID accountId = request.getAccountId();
 
         // Verify account exists and belongs to tenant
-        accountRepository.findByAccountIdAndTenantId(accountId, tenantId)
-                .orElseThrow(() -> new RuntimeException("Account not found or access denied"));
+        accountCache.require(tenantId, accountId);
 
-        // Create job record
         LocalDateTime startDateTime = request.getStartDate().atStartOfDay();
         LocalDateTime endDateTime = request.getEndDate().atTime(23, 59, 59);
 
-        StatementJob job = new StatementJob(
-                accountId,
-                tenantId,
-                startDateTime,
-                endDateTime
-        );
+        // Transactions the statement would contain (or that its balances depend on)
+        long watermark = transactionRepository.countBefore(accountId, tenantId,
+                request.getEndDate().plusDays(1).atStartOfDay());
+        // Renaming the account or setting its balance changes the statement too
+        LocalDateTime accountUpdatedAt = accountRepository.findUpdatedAt(accountId, tenantId);
+        StatementResultCache.Key key = new StatementResultCache.Key(tenantId, accountId, startDateTime, endDateTime,
+                watermark, accountUpdatedAt);
 
-        job = jobRepository.save(job);
+        StatementJob created = null;
+        for (int attempt = 0; attempt < 2; attempt++) {
+            StatementJob[] newJob = new StatementJob[1];
+            UUID jobId = resultCache.getOrCreate(key, () -> {
+                newJob[0] = createJob(request, tenantId, startDateTime, endDateTime);
+                return newJob[0].getJobId();
+            });
+            if (newJob[0] != null) {
+                created = newJob[0];
+                break;
+            }
 
-        // Trigger async processing
-        // We pass the jobId and tenantId explicitly because @Async runs in a different thread
-        // and won't have access to the ThreadLocal TenantContext
-        processStatementAsync(job.getJobId(), tenantId);
+            // Cached: reuse the job while it is (or will be) downloadable
+            Optional<StatementJob> existing = jobRepository.findByJobIdAndTenantId(jobId, tenantId);
+            if (existing.isPresent() && existing.get().getStatus() != JobStatus.FAILED
+                    && existing.get().getStatus() != JobStatus.EXPIRED) {
+                return existing.get();
+            }
+            resultCache.invalidate(key, jobId);
+        }
+        return created != null ? created : createJob(request, tenantId, startDateTime, endDateTime);
+    }
 
-        return job;
+    /**
+     * Create and commit a PENDING job
+     */
+    private StatementJob createJob(StatementRequest request, String tenantId,
+                                   LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        return transactionTemplate.execute(status -> {
+            StatementJob job = new StatementJob(
+                    request.getAccountId(),
+                    tenantId,
+                    startDateTime,
+                    endDateTime
+            );
+            if (request.getPriority() != null) {
+                job.setPriority(request.getPriority());
+            }
+
+            job = jobRepository.save(job);
+            statusHub.publish(job);
+
+            // Wake up this node's queue poller once the job is committed;
+            // workers on any node would also find it on their next poll
+            events.publishEvent(new StatementJobQueue.JobSubmitted(job.getJobId()));
+
+            return job;
+        });
     }
 
     /**
-     * Process statement generation asynchronously
+     * Generate and store the statement of a claimed job
+     *
+     * Called by StatementJobQueue on a worker thread. Runs without a
+     * surrounding transaction, so no connection is held while the file is
+     * written; the queue records the outcome under the job's lease.
      *
-     * @Async makes this run in a background thread
-     * The method returns void and processes independently
+     * Note: tenantId comes from the job; the worker's TenantContext is set
+     * to the same tenant by the executor's task decorator
      *
-     * Note: We pass tenantId as parameter because this runs in a different thread
-     * and doesn't have access to TenantContext ThreadLocal
+     * @return The stored statement
      */
-    @Async("taskExecutor")
-    public void processStatementAsync(String jobId, String tenantId) {
-        try {
-            // Retrieve job
-            StatementJob job = jobRepository.findById(jobId)
-                    .orElseThrow(() -> new RuntimeException("Job not found"));
-
-            // Update status to PROCESSING
-            job.setStatus(JobStatus.PROCESSING);
-            jobRepository.save(job);
-
-            // Simulate processing time (remove in production or reduce significantly)
-            Thread.sleep(3000);
-
-            // Get account info
-            Account account = accountRepository.findByAccountIdAndTenantId(
-                    job.getAccountId(),
-                    tenantId
-            ).orElseThrow(() -> new RuntimeException("Account not found"));
-
-            // Get transactions in date range
-            List<Transaction> transactions = transactionRepository
-                    .findByAccountIdAndTenantIdAndTimestampBetween(
-                            job.getAccountId(),
-                            tenantId,
-                            job.getStartDate(),
-                            job.getEndDate()
-                    );
-
-            // Calculate opening balance (current balance - all transactions in period)
-            BigDecimal openingBalance = account.getBalance();
-            for (Transaction t : transactions) {
-                if (t.getType() == TransactionType.DEPOSIT) {
-                    openingBalance = openingBalance.subtract(t.getAmount());
-                } else {
-                    openingBalance = openingBalance.add(t.getAmount());
-                }
-            }
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StoredArtifact generateStatement(StatementJob job) throws IOException {
+        String tenantId = job.getTenantId();
 
-            // Generate statement result
-            StringBuilder statement = new StringBuilder();
-            statement.append("=== ACCOUNT STATEMENT ===\n");
-            statement.append("Account ID: ").append(account.getAccountId()).append("\n");
-            statement.append("Customer: ").append(account.getCustomerName()).append("\n");
-            statement.append("Period: ").append(job.getStartDate()).append(" to ")
-                    .append(job.getEndDate()).append("\n\n");
-            statement.append("Opening Balance: $").append(openingBalance).append("\n\n");
-            statement.append("TRANSACTIONS:\n");
-
-            for (Transaction t : transactions) {
-                statement.append(t.getTimestamp()).append(" | ")
-                        .append(t.getType()).append(" | $")
-                        .append(t.getAmount()).append("\n");
-            }
+        // Get account info
+        Account account = accountRepository.findByAccountIdAndTenantId(job.getAccountId(), tenantId)
+                .orElseThrow(() -> new RuntimeException("Account not found"));
 
-            statement.append("\nClosing Balance: $").append(account.getBalance()).append("\n");
-            statement.append("========================");
-
-            // Update job with result
-            job.setResult(statement.toString());
-            job.setStatus(JobStatus.COMPLETED);
-            job.setCompletedAt(LocalDateTime.now());
-            jobRepository.save(job);
-
-        } catch (Exception e) {
-            // Mark job as failed
-            StatementJob job = jobRepository.findById(jobId).orElse(null);
-            if (job != null) {
-                job.setStatus(JobStatus.FAILED);
-                job.setResult("Error: " + e.getMessage());
-                job.setCompletedAt(LocalDateTime.now());
-                jobRepository.save(job);
-            }
+        // The period is [startDate, day after endDate 00:00); endDate is stored as 23:59:59
+        LocalDateTime from = job.getStartDate();
+        LocalDateTime to = job.getEndDate().toLocalDate().plusDays(1).atStartOfDay();
+
+        // The opening balance comes from the nearest checkpoint, so it is correct
+        // even if transactions were posted after the period
+        BigDecimal openingBalance = balanceService.balanceAsOf(account, from);
+
+        // Write the statement to the artifact store; only the reference is kept on the job.
+        // Long periods are fetched and rendered in time windows, in parallel.
+        return artifactStore.write(artifactKey(job), out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            renderHeader(writer, account, job.getStartDate(), job.getEndDate(), openingBalance);
+            BigDecimal closingBalance = windowRenderer.renderTransactions(writer, job.getAccountId(), tenantId,
+                    from, to, openingBalance);
+            renderFooter(writer, closingBalance);
+            writer.flush();
+        });
+    }
+
+    /**
+     * Record a stored statement on its job and mark the job COMPLETED
+     */
+    public void markCompleted(StatementJob job, StoredArtifact artifact) {
+        job.setArtifactKey(artifact.getKey());
+        job.setArtifactSize(artifact.getSize());
+        job.setContentLength(artifact.getContentLength());
+        job.setArtifactChecksum(artifact.getChecksum());
+        job.setErrorMessage(null);
+        job.setStatus(JobStatus.COMPLETED);
+        job.setCompletedAt(LocalDateTime.now());
+        job.setExpiresAt(job.getCompletedAt().plus(retention));
+    }
+
+    /**
+     * Render the statement text
+     * Transactions are written one line at a time, never held as one string
+     * Also used by StatementRunService for bulk runs
+     */
+    static void renderStatement(Writer writer, Account account, LocalDateTime startDate, LocalDateTime endDate,
+                                BigDecimal openingBalance, List<Transaction> transactions) throws IOException {
+        renderHeader(writer, account, startDate, endDate, openingBalance);
+
+        BigDecimal balance = openingBalance;
+        for (Transaction t : transactions) {
+            balance = applyTransaction(balance, t);
+            writer.write(transactionLine(t) + " | $" + balance + "\n");
+        }
+
+        renderFooter(writer, balance);
+    }
+
+    static void renderHeader(Writer writer, Account account, LocalDateTime startDate, LocalDateTime endDate,
+                             BigDecimal openingBalance) throws IOException {
+        writer.write("=== ACCOUNT STATEMENT ===\n");
+        writer.write("Account ID: " + account.getAccountId() + "\n");
+        writer.write("Customer: " + account.getCustomerName() + "\n");
+        writer.write("Period: " + startDate + " to " + endDate + "\n\n");
+        writer.write("Opening Balance: $" + openingBalance + "\n\n");
+        writer.write("TRANSACTIONS:\n");
+    }
+
+    /**
+     * Statement line of a transaction, without the running balance
+     */
+    static String transactionLine(Transaction t) {
+        return t.getTimestamp() + " | " + t.getType() + " | $" + t.getAmount();
+    }
+
+    static BigDecimal applyTransaction(BigDecimal balance, Transaction t) {
+        return t.getType() == TransactionType.DEPOSIT ? balance.add(t.getAmount()) : balance.subtract(t.getAmount());
+    }
+
+    static void renderFooter(Writer writer, BigDecimal closingBalance) throws IOException {
+        writer.write("\nClosing Balance: $" + closingBalance + "\n");
+        writer.write("========================");
+    }
+
+    /**
+     * Artifact key of a job: one directory per tenant
+     * Tenant IDs come from a request header, so anything outside [A-Za-z0-9_-] is replaced
+     */
+    private static String artifactKey(StatementJob job) {
+        return tenantDirectory(job.getTenantId()) + "/" + job.getJobId();
+    }
+
+    static String tenantDirectory(String tenantId) {
+        return tenantId.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    /**
+     * Get a completed job whose statement can be downloaded
+     *
+     * @throws RuntimeException if the job does not exist for the current tenant
+     *         or has no statement (still running, failed or expired)
+     */
+    public StatementJob getDownloadableJob(UUID jobId) {
+        StatementJob job = jobRepository.findByJobIdAndTenantId(jobId, TenantContext.getTenantId())
+                .orElseThrow(() -> new RuntimeException("Statement job not found"));
+        if (job.getStatus() != JobStatus.COMPLETED || job.getArtifactKey() == null) {
+            throw new RuntimeException("Statement is not available for download (status: " + job.getStatus() + ")");
         }
+        return job;
     }
 
     /**
-     * Get the status and result of a statement job
+     * Local file of a job's stored statement
      */
-    public Optional<StatementJob> getJobStatus(String jobId) {
+    public Path locateArtifact(StatementJob job) throws IOException {
+        try {
+            return artifactStore.locate(job.getArtifactKey());
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("Statement file is no longer available");
+        }
+    }
+
+    /**
+     * Get the status and statement metadata of a job
+     *
+     * Served from StatementJobStatusHub when cached; only a miss reads the
+     * statement_jobs table (possibly on a read replica: an unfinished status
+     * is only cached briefly). Jobs of other tenants are reported as missing.
+     */
+    @ReplicaRead
+    public Optional<StatementJobStatus> getJobStatus(UUID jobId) {
         String tenantId = TenantContext.getTenantId();
-        return jobRepository.findByJobIdAndTenantId(jobId, tenantId);
+
+        Optional<StatementJobStatus> cached = statusHub.get(jobId);
+        if (cached.isPresent()) {
+            return cached.filter(status -> status.getTenantId().equals(tenantId));
+        }
+
+        Optional<StatementJobStatus> loaded = jobRepository.findByJobIdAndTenantId(jobId, tenantId)
+                .map(StatementJobStatus::from);
+        loaded.ifPresent(statusHub::cache);
+        return loaded;
+    }
+
+    /**
+     * Subscribe to status changes of a job (see StatementJobStatusHub)
+     *
+     * @return Unsubscribes the listener
+     */
+    public Runnable subscribe(UUID jobId, Consumer<StatementJobStatus> listener) {
+        return statusHub.subscribe(jobId, listener);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,169 @@
+package com.banking.service;
+
+import com.banking.entity.Transaction;
+import com.banking.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * StatementWindowRenderer - Renders the transaction lines of a statement window by window
+ *
+ * A statement over a long period of a busy account would otherwise load
+ * every transaction of the period in one list before anything is written.
+ * Instead the period is split into windows of banking.statements.windows.size:
+ * - Windows are fetched and rendered in parallel on the statementWindowExecutor
+ * - They are written in order as they complete; each window's lines carry
+ *   the running balance where the previous window left off
+ * - At most max-in-flight windows of a statement are fetched or held at a
+ *   time, so memory stays bounded however long the period is
+ *
+ * Periods that fit in one window are rendered on the calling thread.
+ */
+@Component
+public class StatementWindowRenderer {
+
+    private final TransactionRepository transactionRepository;
+    private final AsyncTaskExecutor windowExecutor;
+    private final Duration windowSize;
+    private final int maxInFlight;
+
+    public StatementWindowRenderer(TransactionRepository transactionRepository,
+                                   @Qualifier("statementWindowExecutor") AsyncTaskExecutor windowExecutor,
+                                   @Value("${banking.statements.windows.size:P31D}") Duration windowSize,
+                                   @Value("${banking.statements.windows.max-in-flight:4}") int maxInFlight) {
+        this.transactionRepository = transactionRepository;
+        this.windowExecutor = windowExecutor;
+        this.windowSize = windowSize;
+        this.maxInFlight = Math.max(maxInFlight, 1);
+    }
+
+    /**
+     * Write the transaction lines of an account in the half-open range [from, to)
+     *
+     * @param openingBalance Balance at from
+     * @return Balance after the last transaction (the closing balance)
+     */
+    public BigDecimal renderTransactions(Writer writer, UUID accountId, String tenantId,
+                                         LocalDateTime from, LocalDateTime to,
+                                         BigDecimal openingBalance) throws IOException {
+        List<LocalDateTime> bounds = windowBounds(from, to);
+        if (bounds.size() <= 2) {
+            return fetch(accountId, tenantId, from, to).writeTo(writer, openingBalance);
+        }
+
+        int windows = bounds.size() - 1;
+        Deque<Future<Window>> inFlight = new ArrayDeque<>();
+        int next = 0;
+        BigDecimal balance = openingBalance;
+        try {
+            while (next < windows && inFlight.size() < maxInFlight) {
+                inFlight.addLast(submit(accountId, tenantId, bounds.get(next), bounds.get(next + 1)));
+                next++;
+            }
+            while (!inFlight.isEmpty()) {
+                Window window = await(inFlight.pollFirst());
+                // Start the next window before writing, so fetching overlaps the write
+                if (next < windows) {
+                    inFlight.addLast(submit(accountId, tenantId, bounds.get(next), bounds.get(next + 1)));
+                    next++;
+                }
+                balance = window.writeTo(writer, balance);
+            }
+        } finally {
+            for (Future<Window> pending : inFlight) {
+                pending.cancel(true);
+            }
+        }
+        return balance;
+    }
+
+    /**
+     * Window boundaries from, from + size, ..., to
+     */
+    List<LocalDateTime> windowBounds(LocalDateTime from, LocalDateTime to) {
+        List<LocalDateTime> bounds = new ArrayList<>();
+        bounds.add(from);
+        if (!windowSize.isZero() && !windowSize.isNegative()) {
+            for (LocalDateTime bound = from.plus(windowSize); bound.isBefore(to); bound = bound.plus(windowSize)) {
+                bounds.add(bound);
+            }
+        }
+        bounds.add(to);
+        return bounds;
+    }
+
+    private Future<Window> submit(UUID accountId, String tenantId, LocalDateTime from, LocalDateTime to) {
+        return windowExecutor.submit(() -> fetch(accountId, tenantId, from, to));
+    }
+
+    private Window fetch(UUID accountId, String tenantId, LocalDateTime from, LocalDateTime to) {
+        List<Transaction> transactions = transactionRepository.findInRange(accountId, tenantId, from, to);
+        Window window = new Window(transactions.size());
+        for (Transaction t : transactions) {
+            window.add(t);
+        }
+        return window;
+    }
+
+    private static Window await(Future<Window> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while rendering statement");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Rendered lines of one window, with balances relative to the window's start
+     * Only the strings are kept, not the transactions they were rendered from
+     */
+    private static class Window {
+
+        private final List<String> lines;
+        private final List<BigDecimal> balances;
+        private BigDecimal change = BigDecimal.ZERO;
+
+        Window(int size) {
+            this.lines = new ArrayList<>(size);
+            this.balances = new ArrayList<>(size);
+        }
+
+        void add(Transaction t) {
+            change = StatementService.applyTransaction(change, t);
+            lines.add(StatementService.transactionLine(t));
+            balances.add(change);
+        }
+
+        /**
+         * @return Balance at the end of the window
+         */
+        BigDecimal writeTo(Writer writer, BigDecimal startBalance) throws IOException {
+            for (int i = 0; i < lines.size(); i++) {
+                writer.write(lines.get(i) + " | $" + startBalance.add(balances.get(i)) + "\n");
+            }
+            return startBalance.add(change);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.banking.service;
+
+import com.banking.dto.TenantQueueStats;
+import com.banking.entity.JobPriority;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * TenantFairShareScheduler - Decides which tenants' statement jobs get the idle workers
+ *
+ * Without it the queue is one FIFO for everybody, and a tenant that
+ * requests 10k month-end statements makes every other tenant wait until
+ * they are all done. Instead, each node shares its workers between tenants:
+ * - Every tenant has its own queue (its PENDING jobs) and the tenants with
+ *   due jobs are served by deficit round-robin: on its turn a tenant may
+ *   start as many jobs as its weight (default 1), then the next tenant
+ *   gets its turn, so tenants share the workers in proportion to their weights
+ *   no matter how many jobs each of them queued
+ * - A tenant never runs more than max-per-tenant jobs at once on a node
+ * - INTERACTIVE jobs are always dispatched before BULK jobs, and BULK jobs
+ *   never take the last interactive-reserved workers, so a user waiting
+ *   for one statement is not stuck behind a bulk run
+ *
+ * Only called from the queue's poller thread, so the round-robin state is
+ * not synchronized.
+ */
+@Component
+public class TenantFairShareScheduler {
+
+    /**
+     * Jobs of one tenant and priority class to claim now
+     */
+    public static class Allocation {
+
+        private final String tenantId;
+        private final JobPriority priority;
+        private int count;
+
+        Allocation(String tenantId, JobPriority priority) {
+            this.tenantId = tenantId;
+            this.priority = priority;
+        }
+
+        public String getTenantId() {
+            return tenantId;
+        }
+
+        public JobPriority getPriority() {
+            return priority;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+    private final int workers;
+    private final int maxPerTenant;
+    private final int interactiveReserved;
+    private final int defaultWeight;
+    private final Map<String, Integer> weights;
+
+    private final Map<JobPriority, RoundRobin> rounds = new HashMap<>();
+
+    public TenantFairShareScheduler(@Value("${banking.statements.workers:4}") int workers,
+                                    @Value("${banking.statements.fair-share.max-per-tenant:2}") int maxPerTenant,
+                                    @Value("${banking.statements.fair-share.interactive-reserved:1}") int interactiveReserved,
+                                    @Value("${banking.statements.fair-share.default-weight:1}") int defaultWeight,
+                                    @Value("${banking.statements.fair-share.weights:}") String weights) {
+        this.workers = Math.max(workers, 0);
+        this.maxPerTenant = Math.max(maxPerTenant, 1);
+        this.interactiveReserved = Math.max(interactiveReserved, 0);
+        this.defaultWeight = Math.max(defaultWeight, 1);
+        this.weights = parseWeights(weights);
+        for (JobPriority priority : JobPriority.values()) {
+            rounds.put(priority, new RoundRobin());
+        }
+    }
+
+    /**
+     * Share the idle workers between the tenants with due jobs
+     *
+     * @param idle Number of idle workers on this node
+     * @param queued Pending jobs per tenant and priority class
+     * @param now Current time (jobs due before it can be claimed)
+     * @param runningByTenant Jobs each tenant is running on this node
+     * @param runningBulk BULK jobs running on this node
+     * @return Jobs to claim per tenant and priority class, in dispatch order
+     */
+    public List<Allocation> allocate(int idle, List<TenantQueueStats> queued, LocalDateTime now,
+                                     Map<String, Integer> runningByTenant, int runningBulk) {
+        Map<String, Integer> running = new HashMap<>(runningByTenant);
+        List<Allocation> allocations = new ArrayList<>();
+
+        int remaining = rounds.get(JobPriority.INTERACTIVE)
+                .serve(JobPriority.INTERACTIVE, due(queued, JobPriority.INTERACTIVE, now), idle, running, allocations);
+
+        // BULK leaves interactive-reserved workers idle, and never runs on more than the rest
+        int bulkRoom = Math.min(remaining - interactiveReserved, workers - interactiveReserved - runningBulk);
+        rounds.get(JobPriority.BULK)
+                .serve(JobPriority.BULK, due(queued, JobPriority.BULK, now), Math.max(bulkRoom, 0), running, allocations);
+
+        // A tenant may get several turns in one round; claim its jobs at once
+        Map<String, Allocation> merged = new LinkedHashMap<>();
+        for (Allocation allocation : allocations) {
+            merged.merge(allocation.priority + "/" + allocation.tenantId, allocation, (first, next) -> {
+                first.count += next.count;
+                return first;
+            });
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    int weightOf(String tenantId) {
+        return weights.getOrDefault(tenantId, defaultWeight);
+    }
+
+    private static Map<String, Long> due(List<TenantQueueStats> queued, JobPriority priority, LocalDateTime now) {
+        Map<String, Long> backlog = new LinkedHashMap<>();
+        for (TenantQueueStats stats : queued) {
+            if (stats.getPriority() == priority && stats.isDue(now)) {
+                backlog.put(stats.getTenantId(), stats.getPending());
+            }
+        }
+        return backlog;
+    }
+
+    /**
+     * Parse "BANK001=3,BANK002=2" into tenant weights
+     */
+    private static Map<String, Integer> parseWeights(String weights) {
+        Map<String, Integer> parsed = new HashMap<>();
+        for (String entry : weights.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid tenant weight '" + entry + "', expected TENANT=WEIGHT");
+            }
+            parsed.put(parts[0].trim(), Math.max(Integer.parseInt(parts[1].trim()), 1));
+        }
+        return parsed;
+    }
+
+    /**
+     * Deficit round-robin over the tenants of one priority class
+     *
+     * The tenant at the head of the ring is the one whose turn it is. A turn
+     * that runs out of idle workers continues on the next poll, so the
+     * shares hold even when only one worker is free at a time.
+     */
+    private class RoundRobin {
+
+        private final ArrayDeque<String> ring = new ArrayDeque<>();
+        private final Map<String, Integer> deficit = new HashMap<>();
+        private boolean headCharged;
+
+        int serve(JobPriority priority, Map<String, Long> backlog, int slots,
+                  Map<String, Integer> running, List<Allocation> allocations) {
+            sync(backlog);
+
+            int remaining = slots;
+            int skipped = 0;
+            while (remaining > 0 && !ring.isEmpty() && skipped < ring.size()) {
+                String tenantId = ring.peekFirst();
+                if (!canRun(tenantId, backlog, running)) {
+                    // At its cap: the tenant loses this turn, without banking credit
+                    endTurn(tenantId, backlog);
+                    skipped++;
+                    continue;
+                }
+                if (!headCharged) {
+                    deficit.merge(tenantId, weightOf(tenantId), Integer::sum);
+                    headCharged = true;
+                }
+
+                Allocation allocation = new Allocation(tenantId, priority);
+                while (deficit.get(tenantId) > 0 && remaining > 0 && canRun(tenantId, backlog, running)) {
+                    allocation.count++;
+                    deficit.merge(tenantId, -1, Integer::sum);
+                    backlog.merge(tenantId, -1L, Long::sum);
+                    running.merge(tenantId, 1, Integer::sum);
+                    remaining--;
+                }
+                allocations.add(allocation);
+                skipped = 0;
+
+                if (remaining == 0 && deficit.get(tenantId) > 0 && canRun(tenantId, backlog, running)) {
+                    break;
+                }
+                endTurn(tenantId, backlog);
+            }
+            return remaining;
+        }
+
+        /**
+         * Add tenants that have due jobs to the end of the ring, drop the others
+         */
+        private void sync(Map<String, Long> backlog) {
+            String head = ring.peekFirst();
+            Set<String> inRing = new HashSet<>(ring);
+            ring.removeIf(tenantId -> !backlog.containsKey(tenantId));
+            deficit.keySet().removeIf(tenantId -> !backlog.containsKey(tenantId));
+            if (head != null && !head.equals(ring.peekFirst())) {
+                headCharged = false;
+            }
+            for (String tenantId : backlog.keySet()) {
+                if (!inRing.contains(tenantId)) {
+                    ring.addLast(tenantId);
+                }
+            }
+        }
+
+        private void endTurn(String tenantId, Map<String, Long> backlog) {
+            ring.pollFirst();
+            headCharged = false;
+            if (backlog.getOrDefault(tenantId, 0L) > 0) {
+                ring.addLast(tenantId);
+            }
+            // Credit left over (tenant ran out of jobs or hit its cap) is not banked
+            deficit.put(tenantId, 0);
+        }
+
+        private boolean canRun(String tenantId, Map<String, Long> backlog, Map<String, Integer> running) {
+            return backlog.getOrDefault(tenantId, 0L) > 0 && running.getOrDefault(tenantId, 0) < maxPerTenant;
+        }
+    }
+}
@@ -0,0 +1,579 @@
+package com.banking.service;
+
+import com.banking.config.ShardDataSources;
+import com.banking.config.ShardDirectory;
+import com.banking.ledger.LedgerEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * TenantShardMover - Moves one tenant's data to another shard while the tenant stays online
+ *
+ * 1. Copy: every row of the tenant (accounts, transactions, checkpoints,
+ *    statement jobs, runs and partitions) is copied to the target shard in
+ *    keyset batches. The tenant is fully available meanwhile
+ * 2. Freeze: the tenant is marked frozen in the directory; after settle-time
+ *    every node rejects its writes (503) and stops starting its statement
+ *    work. The mover then waits until its running jobs and runs are done
+ * 3. Catch-up: accounts, balance slots and statement runs are copied again.
+ *    Of transactions, checkpoints and statement jobs only the rows written
+ *    since the copy started (minus resync-margin for clock skew) are copied
+ *    again, plus the jobs that were unfinished when copied. Row counts (and
+ *    the checkpoint balance total) of both shards must match; a table that
+ *    still differs, e.g. after an account was deleted, is copied again in full
+ * 4. Switch: the directory points the tenant to the target shard (still
+ *    frozen until every node has seen the change), then unfreezes it
+ * 5. The tenant's rows are deleted from the old shard
+ *
+ * Reads are served throughout; writes are only rejected during steps 2-4,
+ * whose length depends on the tenant's accounts and recent activity, not on
+ * its transaction, checkpoint or statement history. If anything fails before the switch, the tenant is unfrozen on
+ * its old shard and the partial copy is removed by the next attempt.
+ *
+ * Ledger tenants (banking.ledger.tenants) are not moved: their balances live
+ * in a node's journal, persisted behind the postings, and their ownership
+ * lease in ledger_owners is tied to the shard. Take a tenant off the ledger
+ * (on every node, restarting cleanly) and delete its ledger_owners row first.
+ */
+@Service
+public class TenantShardMover {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantShardMover.class);
+
+    private static final String TENANT_FILTER = "tenant_id = ?";
+    private static final String RUN_FILTER = "run_id IN (SELECT run_id FROM statement_runs WHERE tenant_id = ?)";
+
+    /**
+     * A table to move: the rows matching filter, walked in key order
+     *
+     * The catch-up copies a table again in full, unless it has changedSince:
+     * a condition on a time (one parameter) that selects every row inserted
+     * since. unfinished selects, on the target, copied rows that may have been
+     * updated since (one parameter: a time by which completed rows may have
+     * expired); they are copied again by key.
+     * checksum is a column whose sum must match on both shards, to notice
+     * updates neither condition selects.
+     */
+    private static final class Table {
+
+        private final String name;
+        private final String filter;
+        private final List<String> key;
+        private final String changedSince;
+        private final String unfinished;
+        private final String checksum;
+
+        Table(String name, String filter, String... key) {
+            this(name, filter, List.of(key), null, null, null);
+        }
+
+        private Table(String name, String filter, List<String> key, String changedSince, String unfinished,
+                      String checksum) {
+            this.name = name;
+            this.filter = filter;
+            this.key = key;
+            this.changedSince = changedSince;
+            this.unfinished = unfinished;
+            this.checksum = checksum;
+        }
+
+        Table changedSince(String condition) {
+            return new Table(name, filter, key, condition, unfinished, checksum);
+        }
+
+        Table unfinished(String condition) {
+            return new Table(name, filter, key, changedSince, condition, checksum);
+        }
+
+        Table checksum(String column) {
+            return new Table(name, filter, key, changedSince, unfinished, column);
+        }
+
+        /**
+         * The rows inserted since a time
+         */
+        Table recent() {
+            return new Table(name, filter + " AND " + changedSince, key, null, null, null);
+        }
+
+        /**
+         * The rows with the given keys (single-column key)
+         */
+        Table withKeys(int count) {
+            StringJoiner keys = new StringJoiner(", ", filter + " AND " + key.get(0) + " IN (", ")");
+            for (int i = 0; i < count; i++) {
+                keys.add("?");
+            }
+            return new Table(name, keys.toString(), key, null, null, null);
+        }
+    }
+
+    // Runs before partitions: the partition filter refers to the tenant's runs,
+    // so rows are copied in this order and deleted in reverse.
+    // Transactions are immutable. Checkpoints are inserted by the daily close
+    // (a re-close updates the balance: checksum). Jobs change status until
+    // they are final, and completed ones expire
+    private static final List<Table> TABLES = List.of(
+            new Table("accounts", TENANT_FILTER, "account_id"),
+            new Table("account_balance_slots", TENANT_FILTER, "account_id", "slot"),
+            new Table("transactions", TENANT_FILTER, "transaction_id")
+                    .changedSince("timestamp >= ?"),
+            new Table("balance_checkpoints", TENANT_FILTER, "account_id", "checkpoint_date")
+                    .changedSince("created_at >= ?")
+                    .checksum("balance"),
+            new Table("statement_jobs", TENANT_FILTER, "job_id")
+                    .changedSince("created_at >= ?")
+                    .unfinished("(status IN ('PENDING', 'PROCESSING') OR (status = 'COMPLETED' AND expires_at < ?))"),
+            new Table("statement_runs", TENANT_FILTER, "run_id"),
+            new Table("statement_run_partitions", RUN_FILTER, "run_id", "partition_no"));
+
+    /**
+     * Outcome of a move
+     */
+    public static class MoveResult {
+
+        private final String tenantId;
+        private final String fromShard;
+        private final String toShard;
+        private final Map<String, Long> rows;
+        private final long frozenMillis;
+
+        MoveResult(String tenantId, String fromShard, String toShard, Map<String, Long> rows, long frozenMillis) {
+            this.tenantId = tenantId;
+            this.fromShard = fromShard;
+            this.toShard = toShard;
+            this.rows = rows;
+            this.frozenMillis = frozenMillis;
+        }
+
+        public String getTenantId() {
+            return tenantId;
+        }
+
+        public String getFromShard() {
+            return fromShard;
+        }
+
+        public String getToShard() {
+            return toShard;
+        }
+
+        public Map<String, Long> getRows() {
+            return rows;
+        }
+
+        public long getFrozenMillis() {
+            return frozenMillis;
+        }
+    }
+
+    private final ShardDataSources shards;
+    private final ShardDirectory directory;
+    private final LedgerEngine ledger;
+    private final int batchSize;
+    private final Duration settleTime;
+    private final Duration freezeTimeout;
+    private final Duration resyncMargin;
+
+    public TenantShardMover(ShardDataSources shards, ShardDirectory directory, LedgerEngine ledger,
+                            @Value("${banking.shards.move.batch-size:1000}") int batchSize,
+                            @Value("${banking.shards.move.settle-time:PT15S}") Duration settleTime,
+                            @Value("${banking.shards.move.freeze-timeout:PT2M}") Duration freezeTimeout,
+                            @Value("${banking.shards.move.resync-margin:PT5M}") Duration resyncMargin) {
+        this.shards = shards;
+        this.directory = directory;
+        this.ledger = ledger;
+        this.batchSize = Math.max(batchSize, 1);
+        this.settleTime = settleTime;
+        this.freezeTimeout = freezeTimeout;
+        this.resyncMargin = resyncMargin;
+    }
+
+    /**
+     * Move a tenant to another shard (blocks until done)
+     *
+     * @throws IllegalArgumentException if the shard is unknown or already the tenant's
+     * @throws IllegalStateException if the tenant is a ledger tenant or the move
+     *         failed; the tenant stays on its shard
+     */
+    public synchronized MoveResult moveTenant(String tenantId, String targetShard) {
+        String sourceShard = directory.shardOf(tenantId);
+        shards.get(targetShard);
+        if (sourceShard.equals(targetShard)) {
+            throw new IllegalArgumentException("Tenant " + tenantId + " is already on shard " + targetShard);
+        }
+        if (directory.isFrozen(tenantId)) {
+            throw new IllegalStateException("Tenant " + tenantId + " is already being moved");
+        }
+        requireNotLedgerTenant(sourceShard, tenantId);
+        log.info("Moving tenant {} from shard {} to shard {}", tenantId, sourceShard, targetShard);
+
+        // 1. Bulk copy while the tenant is live
+        LocalDateTime copyStart = LocalDateTime.now();
+        try {
+            deleteAll(targetShard, tenantId);
+            for (Table table : TABLES) {
+                copy(sourceShard, targetShard, table, tenantId);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Copying tenant " + tenantId + " failed: " + e.getMessage(), e);
+        }
+
+        // 2-4. Freeze, catch up and switch
+        long frozenAt = System.nanoTime();
+        Map<String, Long> rows;
+        directory.assign(tenantId, sourceShard, true);
+        try {
+            settle();
+            awaitIdle(sourceShard, tenantId);
+            rows = catchUp(sourceShard, targetShard, tenantId, copyStart.minus(resyncMargin));
+        } catch (RuntimeException | SQLException e) {
+            directory.assign(tenantId, sourceShard, false);
+            throw new IllegalStateException("Moving tenant " + tenantId + " failed: " + e.getMessage(), e);
+        }
+        directory.assign(tenantId, targetShard, true);
+        settle();
+        directory.assign(tenantId, targetShard, false);
+        long frozenMillis = (System.nanoTime() - frozenAt) / 1_000_000;
+
+        // 5. Remove the old copy
+        try {
+            deleteAll(sourceShard, tenantId);
+        } catch (SQLException e) {
+            log.warn("Tenant {} moved, but its rows on shard {} could not be deleted: {}", tenantId, sourceShard,
+                    e.getMessage());
+        }
+        log.info("Tenant {} moved to shard {} ({} ms frozen): {}", tenantId, targetShard, frozenMillis, rows);
+        return new MoveResult(tenantId, sourceShard, targetShard, rows, frozenMillis);
+    }
+
+    /**
+     * Copy what changed since the bulk copy and check that both shards hold the same rows
+     *
+     * @return Rows per table
+     */
+    private Map<String, Long> catchUp(String sourceShard, String targetShard, String tenantId, LocalDateTime since)
+            throws SQLException {
+        Timestamp recent = Timestamp.valueOf(since);
+        // Completed jobs another node's clock may already have expired
+        Timestamp expiring = Timestamp.valueOf(LocalDateTime.now().plus(resyncMargin));
+        Map<String, List<Object>> unfinished = new LinkedHashMap<>();
+        for (int i = TABLES.size() - 1; i >= 0; i--) {
+            Table table = TABLES.get(i);
+            if (table.changedSince == null) {
+                delete(targetShard, table.name, table.filter, tenantId);
+                continue;
+            }
+            delete(targetShard, table.name, table.recent().filter, tenantId, recent);
+            if (table.unfinished != null) {
+                List<Object> keys = keys(targetShard, table, table.filter + " AND " + table.unfinished, tenantId, expiring);
+                for (List<Object> chunk : chunks(keys)) {
+                    delete(targetShard, table.name, table.withKeys(chunk.size()).filter, params(tenantId, chunk));
+                }
+                unfinished.put(table.name, keys);
+            }
+        }
+        Map<String, Long> rows = new LinkedHashMap<>();
+        for (Table table : TABLES) {
+            if (table.changedSince == null) {
+                copy(sourceShard, targetShard, table, tenantId);
+            } else {
+                copy(sourceShard, targetShard, table.recent(), tenantId, recent);
+                for (List<Object> chunk : chunks(unfinished.getOrDefault(table.name, List.of()))) {
+                    copy(sourceShard, targetShard, table.withKeys(chunk.size()), params(tenantId, chunk));
+                }
+                if (!matches(sourceShard, targetShard, table, tenantId)) {
+                    log.info("Tenant {}: {} differs after the catch-up, copying it again", tenantId, table.name);
+                    delete(targetShard, table.name, table.filter, tenantId);
+                    copy(sourceShard, targetShard, table, tenantId);
+                }
+            }
+            long source = count(sourceShard, table, tenantId);
+            long target = count(targetShard, table, tenantId);
+            if (source != target) {
+                throw new IllegalStateException(table.name + ": " + source + " rows on shard " + sourceShard
+                        + " but " + target + " on shard " + targetShard);
+            }
+            rows.put(table.name, source);
+        }
+        return rows;
+    }
+
+    /**
+     * Whether both shards hold as many rows of the tenant, with the same checksum
+     */
+    private boolean matches(String sourceShard, String targetShard, Table table, String tenantId) throws SQLException {
+        if (count(sourceShard, table, tenantId) != count(targetShard, table, tenantId)) {
+            return false;
+        }
+        if (table.checksum == null) {
+            return true;
+        }
+        String sql = "SELECT COALESCE(SUM(" + table.checksum + "), 0) FROM " + table.name + " WHERE " + table.filter;
+        return sum(sourceShard, sql, tenantId).compareTo(sum(targetShard, sql, tenantId)) == 0;
+    }
+
+    /**
+     * Refuse a tenant served by the ledger on this node or owned by any node:
+     * its journal may hold postings not yet persisted to the source shard
+     */
+    private void requireNotLedgerTenant(String shard, String tenantId) {
+        long owners;
+        try {
+            owners = query(shard, "SELECT COUNT(*) FROM ledger_owners WHERE tenant_id = ?", tenantId);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Checking the ledger owner of tenant " + tenantId + " failed: "
+                    + e.getMessage(), e);
+        }
+        if (ledger.handles(tenantId) || owners > 0) {
+            throw new IllegalStateException("Tenant " + tenantId + " is a ledger tenant; take it off "
+                    + "banking.ledger.tenants and delete its ledger_owners row before moving it");
+        }
+    }
+
+    /**
+     * Wait until no statement job or run of the tenant is being processed
+     */
+    private void awaitIdle(String shard, String tenantId) throws SQLException {
+        long deadline = System.nanoTime() + freezeTimeout.toNanos();
+        while (true) {
+            long processing = query(shard, "SELECT COUNT(*) FROM statement_jobs WHERE tenant_id = ? AND status = 'PROCESSING'",
+                    tenantId) + query(shard, "SELECT COUNT(*) FROM statement_runs WHERE tenant_id = ? AND status = 'PROCESSING'",
+                    tenantId);
+            if (processing == 0) {
+                return;
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException(processing + " statement jobs/runs still processing after "
+                        + freezeTimeout);
+            }
+            sleep(Duration.ofSeconds(1));
+        }
+    }
+
+    /**
+     * Copy the matching rows of a table in keyset batches, one transaction per batch
+     *
+     * @return Rows copied
+     */
+    private long copy(String sourceShard, String targetShard, Table table, Object... params) throws SQLException {
+        long copied = 0;
+        Object[] last = null;
+        try (Connection from = shards.get(sourceShard).getConnection();
+             Connection to = shards.get(targetShard).getConnection()) {
+            to.setAutoCommit(false);
+            while (true) {
+                List<Object[]> batch = new ArrayList<>();
+                String[] columns;
+                try (PreparedStatement select = from.prepareStatement(selectBatch(table, last != null))) {
+                    int index = bind(select, 1, params);
+                    if (last != null) {
+                        index = bindKeyset(select, index, last);
+                    }
+                    select.setInt(index, batchSize);
+                    try (ResultSet rs = select.executeQuery()) {
+                        ResultSetMetaData meta = rs.getMetaData();
+                        columns = new String[meta.getColumnCount()];
+                        for (int i = 0; i < columns.length; i++) {
+                            columns[i] = meta.getColumnName(i + 1);
+                        }
+                        while (rs.next()) {
+                            Object[] row = new Object[columns.length];
+                            for (int i = 0; i < columns.length; i++) {
+                                row[i] = rs.getObject(i + 1);
+                            }
+                            batch.add(row);
+                        }
+                    }
+                }
+                if (batch.isEmpty()) {
+                    return copied;
+                }
+                insert(to, table.name, columns, batch);
+                to.commit();
+                copied += batch.size();
+                if (batch.size() < batchSize) {
+                    return copied;
+                }
+                last = keyOf(table, columns, batch.get(batch.size() - 1));
+            }
+        }
+    }
+
+    private String selectBatch(Table table, boolean after) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM ").append(table.name).append(" WHERE ").append(table.filter);
+        if (after) {
+            // (k1 > ?) or, with two key columns, (k1 > ? OR (k1 = ? AND k2 > ?))
+            String first = table.key.get(0);
+            sql.append(" AND (").append(first).append(" > ?");
+            if (table.key.size() > 1) {
+                sql.append(" OR (").append(first).append(" = ? AND ").append(table.key.get(1)).append(" > ?)");
+            }
+            sql.append(")");
+        }
+        sql.append(" ORDER BY ").append(String.join(", ", table.key)).append(" LIMIT ?");
+        return sql.toString();
+    }
+
+    private static int bindKeyset(PreparedStatement statement, int index, Object[] last) throws SQLException {
+        statement.setObject(index++, last[0]);
+        if (last.length > 1) {
+            statement.setObject(index++, last[0]);
+            statement.setObject(index++, last[1]);
+        }
+        return index;
+    }
+
+    private static Object[] keyOf(Table table, String[] columns, Object[] row) {
+        Object[] key = new Object[table.key.size()];
+        for (int k = 0; k < key.length; k++) {
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i].equalsIgnoreCase(table.key.get(k))) {
+                    key[k] = row[i];
+                }
+            }
+        }
+        return key;
+    }
+
+    private static void insert(Connection to, String table, String[] columns, List<Object[]> rows) throws SQLException {
+        StringJoiner names = new StringJoiner(", ");
+        StringJoiner values = new StringJoiner(", ");
+        for (String column : columns) {
+            names.add(column);
+            values.add("?");
+        }
+        try (PreparedStatement insert = to.prepareStatement(
+                "INSERT INTO " + table + " (" + names + ") VALUES (" + values + ")")) {
+            for (Object[] row : rows) {
+                bind(insert, 1, row);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    /**
+     * Delete all rows of the tenant from a shard
+     */
+    private void deleteAll(String shard, String tenantId) throws SQLException {
+        for (int i = TABLES.size() - 1; i >= 0; i--) {
+            delete(shard, TABLES.get(i).name, TABLES.get(i).filter, tenantId);
+        }
+    }
+
+    /**
+     * Delete the matching rows in batches, one transaction per batch
+     */
+    private void delete(String shard, String table, String filter, Object... params) throws SQLException {
+        try (Connection connection = shards.get(shard).getConnection();
+             PreparedStatement delete = connection.prepareStatement(
+                     "DELETE FROM " + table + " WHERE " + filter + " LIMIT " + batchSize)) {
+            bind(delete, 1, params);
+            while (delete.executeUpdate() == batchSize) {
+                // Next batch
+            }
+        }
+    }
+
+    /**
+     * Keys (single-column) of the rows matching a filter
+     */
+    private List<Object> keys(String shard, Table table, String filter, Object... params) throws SQLException {
+        List<Object> keys = new ArrayList<>();
+        try (Connection connection = shards.get(shard).getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT " + table.key.get(0) + " FROM " + table.name + " WHERE " + filter)) {
+            bind(statement, 1, params);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    keys.add(rs.getObject(1));
+                }
+            }
+        }
+        return keys;
+    }
+
+    private List<List<Object>> chunks(List<Object> keys) {
+        List<List<Object>> chunks = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i += batchSize) {
+            chunks.add(keys.subList(i, Math.min(i + batchSize, keys.size())));
+        }
+        return chunks;
+    }
+
+    private static Object[] params(String tenantId, List<Object> keys) {
+        Object[] params = new Object[keys.size() + 1];
+        params[0] = tenantId;
+        for (int i = 0; i < keys.size(); i++) {
+            params[i + 1] = keys.get(i);
+        }
+        return params;
+    }
+
+    private long count(String shard, Table table, String tenantId) throws SQLException {
+        return query(shard, "SELECT COUNT(*) FROM " + table.name + " WHERE " + table.filter, tenantId);
+    }
+
+    private long query(String shard, String sql, Object... params) throws SQLException {
+        try (Connection connection = shards.get(shard).getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            bind(statement, 1, params);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private BigDecimal sum(String shard, String sql, Object... params) throws SQLException {
+        try (Connection connection = shards.get(shard).getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            bind(statement, 1, params);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getBigDecimal(1);
+            }
+        }
+    }
+
+    private static int bind(PreparedStatement statement, int index, Object[] params) throws SQLException {
+        for (Object param : params) {
+            statement.setObject(index++, param);
+        }
+        return index;
+    }
+
+    /**
+     * Give every node time to reload the directory and finish requests started before
+     */
+    private void settle() {
+        sleep(settleTime);
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while moving tenant", e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.banking.service;
+
+import com.banking.config.TenantContext;
+import com.banking.dto.ExportFormat;
+import com.banking.entity.Transaction;
+import com.banking.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.function.ThrowingSupplier;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.SequenceWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * TransactionExportService - Streams an account's full transaction history
+ *
+ * Rows are read from a forward-only repository cursor and written straight
+ * to the output, so heap use stays flat regardless of how many transactions
+ * an account has:
+ * - Each entity is detached from the persistence context once written
+ * - Output is flushed to the client every "flush-rows" rows
+ *
+ * The whole export runs in one read-only transaction, which keeps the
+ * cursor open and gives the client a consistent snapshot.
+ */
+@Service
+@Transactional(readOnly = true)
+public class TransactionExportService {
+
+    private static final String CSV_HEADER = "transactionId,accountId,type,amount,timestamp";
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Number of rows written between flushes to the client
+    @Value("${banking.export.flush-rows:1000}")
+    private int flushRows;
+
+    /**
+     * Export all transactions of an account for the current tenant
+     *
+     * The account is checked before the output is opened, so "not found"
+     * errors can still be returned as a normal error response.
+     *
+     * @param accountId The account to export
+     * @param format NDJSON or CSV
+     * @param output Opens the output stream (e.g. sets response headers first)
+     * @return Number of transactions written
+     */
+    public long exportTransactions(UUID accountId, ExportFormat format, ThrowingSupplier<OutputStream> output) {
+        String tenantId = TenantContext.getTenantId();
+
+        accountCache.require(tenantId, accountId);
+
+        try (Stream<Transaction> transactions = transactionRepository.streamByAccount(accountId, tenantId)) {
+            OutputStream out = output.get();
+            return format == ExportFormat.CSV
+                    ? writeCsv(transactions.iterator(), out)
+                    : writeNdjson(transactions.iterator(), out);
+        } catch (IOException e) {
+            // Typically the client disconnected mid-export
+            throw new UncheckedIOException("Export aborted: " + e.getMessage(), e);
+        }
+    }
+
+    private long writeNdjson(Iterator<Transaction> transactions, OutputStream out) throws IOException {
+        long count = 0;
+        // Closing the SequenceWriter must not close the response stream
+        try (SequenceWriter writer = objectMapper.writerFor(Transaction.class)
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            while (transactions.hasNext()) {
+                Transaction transaction = transactions.next();
+                writer.write(transaction);
+                entityManager.detach(transaction);
+
+                if (++count % flushRows == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        // SequenceWriter does not terminate the last value
+        if (count > 0) {
+            out.write('\n');
+        }
+        out.flush();
+        return count;
+    }
+
+    private long writeCsv(Iterator<Transaction> transactions, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        while (transactions.hasNext()) {
+            Transaction transaction = transactions.next();
+            writer.write(transaction.getTransactionId().toString());
+            writer.write(',');
+            writer.write(transaction.getAccountId().toString());
+            writer.write(',');
+            writer.write(transaction.getType().name());
+            writer.write(',');
+            writer.write(transaction.getAmount().toPlainString());
+            writer.write(',');
+            writer.write(transaction.getTimestamp().toString());
+            writer.write('\n');
+            entityManager.detach(transaction);
+
+            if (++count % flushRows == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+}
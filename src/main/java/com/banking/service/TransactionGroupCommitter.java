@@ -0,0 +1,366 @@
+package com.banking.service;
+
+import com.banking.config.ShardContext;
+import com.banking.config.ShardDirectory;
+import com.banking.dto.BatchTransactionItem;
+import com.banking.dto.BatchTransactionResult;
+import com.banking.entity.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * TransactionGroupCommitter - Group commit for single transaction postings
+ *
+ * With banking.transactions.group-commit.enabled=true, TransactionService.createTransaction
+ * does not open its own database transaction. The posting goes into a bounded
+ * queue and the request thread waits; one writer thread takes postings off
+ * the queue in micro-batches and applies each batch in one database
+ * transaction per shard, so many requests share one commit (one log flush)
+ * instead of paying for their own.
+ *
+ * A micro-batch closes when it holds max-batch-size postings or max-delay
+ * after its first posting was queued, whichever comes first; under light
+ * load a posting waits at most max-delay longer than it would have.
+ *
+ * Postings are applied with the rules of the batch endpoint
+ * (TransactionService.applyGroup): in queue order against a running balance,
+ * each one accepted or rejected on its own. Every caller gets its own result
+ * or error, and only after the commit. If the batch transaction fails as a
+ * whole, its postings are retried one transaction each, so a failure only
+ * reaches the postings that cause it.
+ *
+ * A full queue rejects new postings at once (RejectedExecutionException,
+ * answered with 503), so waiting requests cannot pile up without bound. A
+ * caller waits at most max-wait: a posting still queued by then is taken
+ * back and rejected the same way, so a request never hangs on a writer that
+ * stopped or died. One the writer already holds has an unknown outcome
+ * (PostingOutcomeUnknownException, answered with 504).
+ *
+ * Metrics: banking.transactions.group-commit.batch-size,
+ * banking.transactions.group-commit.commit (time per batch transaction),
+ * banking.transactions.group-commit.queued and
+ * banking.transactions.group-commit.rejected.
+ */
+@Component
+public class TransactionGroupCommitter implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionGroupCommitter.class);
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    /**
+     * One queued posting and the future its caller waits on
+     */
+    private static final class Posting {
+
+        private final String tenantId;
+        private final BatchTransactionItem item;
+        private final long queuedAt = System.nanoTime();
+        private final CompletableFuture<Transaction> result = new CompletableFuture<>();
+
+        // Outcome in the writer's current transaction: the saved row, or why it was rejected
+        private Transaction applied;
+        private String error;
+
+        Posting(String tenantId, BatchTransactionItem item) {
+            this.tenantId = tenantId;
+            this.item = item;
+        }
+
+        void complete() {
+            if (applied != null) {
+                result.complete(applied);
+            } else {
+                result.completeExceptionally(new RuntimeException(error));
+            }
+        }
+    }
+
+    private final ObjectProvider<TransactionService> transactionService;
+    private final ShardDirectory shardDirectory;
+    private final TransactionTemplate transaction;
+
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Posting> queue;
+
+    private final DistributionSummary batchSizes;
+    private final Timer commitTimer;
+    private final Counter rejected;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public TransactionGroupCommitter(ObjectProvider<TransactionService> transactionService,
+                                     ShardDirectory shardDirectory,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry registry,
+                                     @Value("${banking.transactions.group-commit.enabled:false}") boolean enabled,
+                                     @Value("${banking.transactions.group-commit.max-batch-size:200}") int maxBatchSize,
+                                     @Value("${banking.transactions.group-commit.max-delay:PT0.002S}") Duration maxDelay,
+                                     @Value("${banking.transactions.group-commit.queue-capacity:10000}") int queueCapacity,
+                                     @Value("${banking.transactions.group-commit.max-wait:PT30S}") Duration maxWait) {
+        this.transactionService = transactionService;
+        this.shardDirectory = shardDirectory;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxBatchSize = Math.max(maxBatchSize, 1);
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.maxWaitNanos = maxWait.toNanos();
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueCapacity, 1));
+
+        this.batchSizes = DistributionSummary.builder("banking.transactions.group-commit.batch-size")
+                .description("Postings applied per group commit")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.commitTimer = Timer.builder("banking.transactions.group-commit.commit")
+                .description("Time to apply and commit one group of postings")
+                .register(registry);
+        this.rejected = Counter.builder("banking.transactions.group-commit.rejected")
+                .description("Postings refused because the group commit queue was full or the writer did not take them")
+                .register(registry);
+        Gauge.builder("banking.transactions.group-commit.queued", queue, BlockingQueue::size)
+                .description("Postings waiting for the group commit writer")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!enabled) {
+            return;
+        }
+        writer = new Thread(this::writeLoop, "transaction-group-commit");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Transaction group commit: up to {} postings per commit, max delay {} µs",
+                maxBatchSize, maxDelayNanos / 1000);
+    }
+
+    /**
+     * Stop taking postings; the writer commits what is already queued
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Posting left;
+        while ((left = queue.poll()) != null) {
+            left.result.completeExceptionally(new RejectedExecutionException("Transaction posting is shutting down"));
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Queue a posting and wait until its group has been committed
+     *
+     * @return The saved transaction
+     * @throws RejectedExecutionException if the queue is full, the node is
+     * stopping or the posting was not taken up within max-wait; it was not posted
+     * @throws IllegalStateException if the writer took the posting but did not
+     * commit it within max-wait; it may still be posted
+     * @throws RuntimeException with the rejection reason, e.g. "Insufficient balance"
+     */
+    public Transaction post(String tenantId, BatchTransactionItem item) {
+        if (!running || writer == null || !writer.isAlive()) {
+            throw new RejectedExecutionException("Transaction posting is shutting down");
+        }
+        Posting posting = new Posting(tenantId, item);
+        if (!queue.offer(posting)) {
+            rejected.increment();
+            throw new RejectedExecutionException("Too many transactions waiting to be posted");
+        }
+        // Stopped in the meantime: the final drain may be over, so take the posting back
+        // unless the writer has it
+        if (!running && queue.remove(posting)) {
+            throw new RejectedExecutionException("Transaction posting is shutting down");
+        }
+        try {
+            return posting.result.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Transaction posting failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw abandon(posting);
+        } catch (TimeoutException e) {
+            throw abandon(posting);
+        }
+    }
+
+    /**
+     * Give up waiting for a posting
+     */
+    private RuntimeException abandon(Posting posting) {
+        if (queue.remove(posting)) {
+            rejected.increment();
+            return new RejectedExecutionException("Transaction posting timed out");
+        }
+        return new PostingOutcomeUnknownException("Transaction posting timed out; its outcome is unknown");
+    }
+
+    private void writeLoop() {
+        while (running || !queue.isEmpty()) {
+            List<Posting> batch = List.of();
+            try {
+                Posting first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch = collect(first);
+                    commit(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Transaction group commit failed: {}", e.getMessage());
+                fail(batch, e);
+            } catch (Error e) {
+                // The writer dies: callers of queued postings take them back after max-wait
+                log.error("Transaction group commit writer stopped", e);
+                fail(batch, new RejectedExecutionException("Transaction posting failed"));
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Fail the postings of a batch that have no result yet; their transaction
+     * was rolled back or never started
+     */
+    private static void fail(List<Posting> batch, RuntimeException e) {
+        for (Posting posting : batch) {
+            posting.result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Fill a micro-batch until max-batch-size, or until max-delay after the
+     * first posting was queued
+     */
+    private List<Posting> collect(Posting first) throws InterruptedException {
+        List<Posting> batch = new ArrayList<>(maxBatchSize);
+        batch.add(first);
+        long deadline = first.queuedAt + maxDelayNanos;
+        while (batch.size() < maxBatchSize) {
+            if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                continue;
+            }
+            long wait = deadline - System.nanoTime();
+            if (wait <= 0) {
+                break;
+            }
+            Posting next = queue.poll(wait, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    /**
+     * Apply a micro-batch, one database transaction per shard
+     */
+    private void commit(List<Posting> batch) {
+        batchSizes.record(batch.size());
+        Map<String, List<Posting>> byShard = new HashMap<>();
+        for (Posting posting : batch) {
+            byShard.computeIfAbsent(shardDirectory.shardOf(posting.tenantId), shard -> new ArrayList<>()).add(posting);
+        }
+        byShard.forEach((shard, postings) -> {
+            ShardContext.setShard(shard);
+            try {
+                commitOnShard(postings);
+            } finally {
+                ShardContext.clear();
+            }
+        });
+    }
+
+    private void commitOnShard(List<Posting> postings) {
+        // Tenants in a stable order, so concurrent nodes lock accounts alike
+        Map<String, List<Posting>> byTenant = new TreeMap<>();
+        for (Posting posting : postings) {
+            byTenant.computeIfAbsent(posting.tenantId, tenantId -> new ArrayList<>()).add(posting);
+        }
+        try {
+            commitTimer.record(() -> transaction.executeWithoutResult(status -> apply(byTenant)));
+        } catch (RuntimeException e) {
+            log.warn("Group of {} postings failed, retrying them one by one: {}", postings.size(), e.getMessage());
+            for (Posting posting : postings) {
+                commitAlone(posting);
+            }
+            return;
+        }
+        // Only now, after the commit, do the callers learn their results
+        postings.forEach(Posting::complete);
+    }
+
+    private void commitAlone(Posting posting) {
+        try {
+            transaction.executeWithoutResult(status -> apply(Map.of(posting.tenantId, List.of(posting))));
+            posting.complete();
+        } catch (RuntimeException e) {
+            posting.result.completeExceptionally(e);
+        }
+    }
+
+    private void apply(Map<String, List<Posting>> byTenant) {
+        TransactionService service = transactionService.getObject();
+        byTenant.forEach((tenantId, postings) -> {
+            List<BatchTransactionItem> items = new ArrayList<>(postings.size());
+            for (Posting posting : postings) {
+                items.add(posting.item);
+            }
+            List<Transaction> applied = new ArrayList<>(items.size());
+            List<BatchTransactionResult> results = service.applyGroup(tenantId, items, applied);
+            for (int i = 0; i < postings.size(); i++) {
+                postings.get(i).applied = applied.get(i);
+                postings.get(i).error = results.get(i).getError();
+            }
+        });
+    }
+}
@@ -1,18 +1,42 @@
 package com.banking.service;
 
+import com.banking.config.ReplicaRead;
+import com.banking.config.ReplicaRouter;
 import com.banking.config.TenantContext;
+import com.banking.dto.BatchTransactionItem;
+import com.banking.dto.BatchTransactionResult;
+import com.banking.dto.PageCursor;
+import com.banking.dto.PageResponse;
 import com.banking.dto.TransactionRequest;
+import com.banking.dto.TransactionView;
 import com.banking.entity.Account;
 import com.banking.entity.Transaction;
 import com.banking.entity.TransactionType;
+import com.banking.ledger.LedgerEngine;
 import com.banking.repository.AccountRepository;
 import com.banking.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
 
 /**
  * TransactionService - Business logic for transaction operations
@@ -21,6 +45,9 @@ import java.util.List;
  * - Creates deposits and withdrawals
  * - Updates account balances atomically
  * - Validates transaction rules (e.g., sufficient balance for withdrawals)
+ * - Applies batches of transactions in a single database transaction
+ * - Optionally group-commits single postings (TransactionGroupCommitter)
+ * - Hands the postings of ledger tenants to the in-memory ledger (LedgerEngine)
  * - Maintains tenant isolation
  */
 @Service
@@ -33,41 +60,117 @@ public class TransactionService {
     @Autowired
     private AccountRepository accountRepository;
 
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private AccountBalanceSlots balanceSlots;
+
+    @Autowired
+    private TransactionGroupCommitter groupCommitter;
+
+    @Autowired
+    private LedgerEngine ledger;
+
+    @Autowired
+    private ReplicaRouter replicaRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Matches hibernate.jdbc.batch_size so every flush sends full JDBC batches
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int jdbcBatchSize;
+
+    @Value("${banking.pagination.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${banking.pagination.max-page-size:500}")
+    private int maxPageSize;
+
     /**
      * Create a new transaction (DEPOSIT or WITHDRAWAL)
      * Also updates the account balance atomically
+     *
+     * The balance is changed with a single conditional UPDATE instead of
+     * read-modify-write, so two concurrent withdrawals cannot both pass the
+     * balance check. The transaction row is inserted in the same unit of work.
+     *
+     * Deposits to a hot account go to one of its balance slots instead of the
+     * account row; withdrawals move the slots into the account row when the
+     * row alone does not cover them (AccountBalanceSlots).
+     *
+     * With group commit enabled (and no transaction already open) the posting
+     * is handed to TransactionGroupCommitter instead, which applies it with
+     * the same rules, together with other requests' postings in one
+     * database transaction, and returns once that transaction is committed.
+     *
+     * For a tenant listed in banking.ledger.tenants the posting is accepted or
+     * rejected by the in-memory ledger (LedgerEngine) and written to the
+     * database shortly after, outside any transaction of the caller.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the group commit queue or the ledger is full
+     * @throws PostingOutcomeUnknownException if the posting may or may not have been applied
      */
-    public Transaction createTransaction(String accountId, TransactionRequest request) {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Transaction createTransaction(UUID accountId, TransactionRequest request) {
         String tenantId = TenantContext.getTenantId();
 
-        // Verify account exists and belongs to tenant
-        Account account = accountRepository.findByAccountIdAndTenantId(accountId, tenantId)
-                .orElseThrow(() -> new RuntimeException("Account not found or access denied"));
-
-        // Validate and apply transaction
+        // Validate transaction
         BigDecimal amount = request.getAmount();
-        String typeStr = request.getType().toUpperCase();
+        TransactionType transactionType = parseType(request.getType());
 
-        TransactionType transactionType;
+        if (ledger.handles(tenantId)) {
+            Transaction transaction = ledger.post(tenantId, accountId, transactionType, amount);
+            replicaRouter.recordWrite();
+            return transaction;
+        }
 
-        if (typeStr.equals("DEPOSIT")) {
-            transactionType = TransactionType.DEPOSIT;
-            // Add money to account
-            account.setBalance(account.getBalance().add(amount));
-        } else if (typeStr.equals("WITHDRAWAL")) {
-            transactionType = TransactionType.WITHDRAWAL;
-            // Check sufficient balance
-            if (account.getBalance().compareTo(amount) < 0) {
-                throw new RuntimeException("Insufficient balance");
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            if (groupCommitter.isEnabled()) {
+                Transaction transaction = groupCommitter.post(tenantId,
+                        new BatchTransactionItem(accountId, transactionType.name(), amount));
+                replicaRouter.recordWrite();
+                return transaction;
+            }
+            return new TransactionTemplate(transactionManager).execute(
+                    status -> createTransaction(tenantId, accountId, transactionType, amount));
+        }
+        return createTransaction(tenantId, accountId, transactionType, amount);
+    }
+
+    private Transaction createTransaction(String tenantId, UUID accountId, TransactionType transactionType,
+                                          BigDecimal amount) {
+
+        // Deposits add money, withdrawals subtract it
+        BigDecimal delta = transactionType == TransactionType.DEPOSIT ? amount : amount.negate();
+
+        // Deposits to a hot account only lock one of its slots
+        if (delta.signum() > 0) {
+            int slots = accountCache.find(tenantId, accountId).map(AccountCache.AccountMetadata::getBalanceSlots).orElse(0);
+            if (slots > 0 && balanceSlots.deposit(tenantId, accountId, slots, amount)) {
+                return transactionRepository.save(new Transaction(accountId, tenantId, transactionType, amount));
             }
-            // Subtract money from account
-            account.setBalance(account.getBalance().subtract(amount));
-        } else {
-            throw new RuntimeException("Invalid transaction type. Use DEPOSIT or WITHDRAWAL");
         }
 
-        // Save updated account balance
-        accountRepository.save(account);
+        // Apply the balance change; the database rejects overdrafts
+        int updated = accountRepository.applyBalanceDelta(accountId, tenantId, delta);
+
+        // Part of a hot account's balance may still be in its slots
+        if (updated == 0 && delta.signum() < 0 && balanceSlots.sweep(tenantId, accountId).signum() > 0) {
+            updated = accountRepository.applyBalanceDelta(accountId, tenantId, delta);
+        }
+
+        if (updated == 0) {
+            // Either the account is not visible to this tenant or the funds are insufficient
+            if (!accountRepository.existsByAccountIdAndTenantId(accountId, tenantId)) {
+                throw new RuntimeException("Account not found or access denied");
+            }
+            throw new RuntimeException("Insufficient balance");
+        }
 
         // Create transaction record
         Transaction transaction = new Transaction(
@@ -81,15 +184,189 @@ public class TransactionService {
     }
 
     /**
-     * Get all transactions for a specific account (tenant-filtered)
+     * Apply a batch of deposits and withdrawals in one database transaction
+     *
+     * Every account touched by the batch is locked and read once. Items are then
+     * validated in request order against a running balance, so a withdrawal can
+     * use money deposited earlier in the same batch. Invalid items are rejected
+     * individually; the rest are applied. Each account gets a single UPDATE with
+     * its net balance change, and the transaction rows are inserted with JDBC
+     * batching (the UUID ids are generated in memory, so Hibernate does not need
+     * a round trip per row to learn the id).
+     *
+     * Ledger tenants post the items to the in-memory ledger one by one, with
+     * the same in-order rules (LedgerEngine.postBatch).
+     *
+     * @param items The transactions to apply; every item must carry its accountId
+     * @return One result per item, in request order
      */
-    public List<Transaction> getTransactionsByAccount(String accountId) {
+    public List<BatchTransactionResult> createTransactionsBatch(List<BatchTransactionItem> items) {
+        String tenantId = TenantContext.getTenantId();
+        if (ledger.handles(tenantId)) {
+            List<BatchTransactionResult> results = ledger.postBatch(tenantId, items);
+            replicaRouter.recordWrite();
+            return results;
+        }
+        return applyBatch(tenantId, items, new ArrayList<>());
+    }
+
+    /**
+     * Apply one tenant's share of a group commit in the caller's transaction
+     * Same rules as createTransactionsBatch, but the tenant is passed explicitly
+     * because the group commit writer serves all tenants.
+     *
+     * @param applied Receives one entry per item: the saved transaction, or null if rejected
+     * @return One result per item, in order
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<BatchTransactionResult> applyGroup(String tenantId, List<BatchTransactionItem> items,
+                                                   List<Transaction> applied) {
+        return applyBatch(tenantId, items, applied);
+    }
+
+    private List<BatchTransactionResult> applyBatch(String tenantId, List<BatchTransactionItem> items,
+                                                    List<Transaction> applied) {
+
+        // Lock every referenced account once, in a stable order
+        TreeSet<UUID> accountIds = new TreeSet<>();
+        for (BatchTransactionItem item : items) {
+            if (item.getAccountId() != null) {
+                accountIds.add(item.getAccountId());
+            }
+        }
+
+        Map<UUID, BigDecimal> runningBalances = new HashMap<>();
+        Set<UUID> hotAccounts = new HashSet<>();
+        if (!accountIds.isEmpty()) {
+            for (Account account : accountRepository.findAllForUpdate(tenantId, accountIds)) {
+                // Includes a hot account's slots
+                runningBalances.put(account.getAccountId(), account.getBalance());
+                if (account.getBalanceSlots() > 0) {
+                    hotAccounts.add(account.getAccountId());
+                }
+            }
+        }
+
+        // Validate items in order and accumulate the net change per account
+        Map<UUID, BigDecimal> netChanges = new TreeMap<>();
+        List<BatchTransactionResult> results = new ArrayList<>(items.size());
+        List<Transaction> transactions = new ArrayList<>(items.size());
+        List<Integer> transactionIndexes = new ArrayList<>(items.size());
+
+        for (int i = 0; i < items.size(); i++) {
+            BatchTransactionItem item = items.get(i);
+            UUID accountId = item.getAccountId();
+
+            if (accountId == null) {
+                results.add(BatchTransactionResult.rejected(i, accountId, "Account ID is required"));
+                continue;
+            }
+
+            BigDecimal balance = runningBalances.get(accountId);
+            if (balance == null) {
+                results.add(BatchTransactionResult.rejected(i, accountId, "Account not found or access denied"));
+                continue;
+            }
+
+            TransactionType transactionType;
+            try {
+                transactionType = parseType(item.getType());
+            } catch (RuntimeException e) {
+                results.add(BatchTransactionResult.rejected(i, accountId, e.getMessage()));
+                continue;
+            }
+
+            BigDecimal delta = transactionType == TransactionType.DEPOSIT
+                    ? item.getAmount() : item.getAmount().negate();
+            if (balance.add(delta).signum() < 0) {
+                results.add(BatchTransactionResult.rejected(i, accountId, "Insufficient balance"));
+                continue;
+            }
+
+            runningBalances.put(accountId, balance.add(delta));
+            netChanges.merge(accountId, delta, BigDecimal::add);
+
+            transactions.add(new Transaction(accountId, tenantId, transactionType, item.getAmount()));
+            transactionIndexes.add(i);
+            results.add(null); // filled in once the id is assigned
+        }
+        while (applied.size() < items.size()) {
+            applied.add(null);
+        }
+
+        // One UPDATE per account with its net change
+        for (Map.Entry<UUID, BigDecimal> change : netChanges.entrySet()) {
+            if (change.getValue().signum() < 0 && hotAccounts.contains(change.getKey())) {
+                balanceSlots.sweep(tenantId, change.getKey());
+            }
+            if (change.getValue().signum() != 0) {
+                accountRepository.applyBalanceDelta(change.getKey(), tenantId, change.getValue());
+            }
+        }
+
+        // Insert the transaction rows, flushing in JDBC batch sized chunks
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            entityManager.persist(transaction);
+
+            int index = transactionIndexes.get(i);
+            applied.set(index, transaction);
+            results.set(index, BatchTransactionResult.applied(
+                    index, transaction.getAccountId(), transaction.getTransactionId()));
+
+            if ((i + 1) % jdbcBatchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        return results;
+    }
+
+    /**
+     * Get one page of transactions for a specific account (tenant-filtered)
+     * Transactions are ordered by (timestamp, transactionId) and returned as views, not entities
+     *
+     * @param accountId The account ID
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit Requested page size (defaulted and capped)
+     */
+    @ReplicaRead
+    public PageResponse<TransactionView> getTransactionsByAccount(UUID accountId, String cursor, Integer limit) {
         String tenantId = TenantContext.getTenantId();
 
         // Verify account exists and belongs to tenant
-        accountRepository.findByAccountIdAndTenantId(accountId, tenantId)
-                .orElseThrow(() -> new RuntimeException("Account not found or access denied"));
+        accountCache.require(tenantId, accountId);
 
-        return transactionRepository.findByAccountIdAndTenantId(accountId, tenantId);
+        int pageSize = PageResponse.resolvePageSize(limit, defaultPageSize, maxPageSize);
+
+        // Fetch one extra row to know whether there is a next page
+        List<TransactionView> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = transactionRepository.findFirstPage(accountId, tenantId, Limit.of(pageSize + 1));
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            rows = transactionRepository.findPageAfter(
+                    accountId, tenantId, after.getTimestamp(), after.getId(), Limit.of(pageSize + 1));
+        }
+
+        return PageResponse.of(rows, pageSize,
+                transaction -> PageCursor.encode(transaction.getTimestamp(), transaction.getTransactionId()));
+    }
+
+    /**
+     * Convert the request type string into a TransactionType
+     */
+    private TransactionType parseType(String type) {
+        String typeStr = type.toUpperCase();
+
+        if (typeStr.equals("DEPOSIT")) {
+            return TransactionType.DEPOSIT;
+        } else if (typeStr.equals("WITHDRAWAL")) {
+            return TransactionType.WITHDRAWAL;
+        }
+        throw new RuntimeException("Invalid transaction type. Use DEPOSIT or WITHDRAWAL");
     }
 }
\ No newline at end of file
@@ -0,0 +1,169 @@
+package com.banking.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * LocalStatementArtifactStore - Stores statements as gzip files on local disk
+ *
+ * Layout: {banking.statements.store.dir}/{key}.gz
+ *
+ * Files are written to a temporary name and moved into place atomically, so a
+ * reader never sees a partially written statement.
+ */
+@Component
+public class LocalStatementArtifactStore implements StatementArtifactStore {
+
+    private static final String SUFFIX = ".gz";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // Keys are "/"-separated segments of safe characters; no "..", no absolute paths
+    private static final Pattern KEY = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*(/[A-Za-z0-9_-][A-Za-z0-9._-]*)*");
+
+    private final Path root;
+
+    public LocalStatementArtifactStore(@Value("${banking.statements.store.dir:./data/statements}") Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public StoredArtifact write(String key, ContentWriter content) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+
+        MessageDigest digest = sha256();
+        long contentLength;
+        // Closing the chain finishes the gzip trailer and closes the file
+        try (CountingOutputStream uncompressed = new CountingOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new DigestOutputStream(Files.newOutputStream(temp), digest), 64 * 1024),
+                64 * 1024))) {
+            content.writeTo(uncompressed);
+            uncompressed.flush();
+            contentLength = uncompressed.count;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        return new StoredArtifact(key, Files.size(target), contentLength, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    @Override
+    public Path locate(String key) throws IOException {
+        Path path = resolve(key);
+        if (!Files.isRegularFile(path)) {
+            throw new NoSuchFileException(key);
+        }
+        return path;
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public int deleteOlderThan(Instant cutoff) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+
+        List<Path> expired;
+        try (Stream<Path> files = Files.walk(root)) {
+            expired = files
+                    .filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().endsWith(SUFFIX)
+                            || path.getFileName().toString().endsWith(TEMP_SUFFIX))
+                    .filter(path -> lastModified(path).isBefore(cutoff))
+                    .toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        int deleted = 0;
+        for (Path path : expired) {
+            if (Files.deleteIfExists(path)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private Path resolve(String key) {
+        if (key == null || !KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid artifact key: " + key);
+        }
+        Path path = root.resolve(key + SUFFIX).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid artifact key: " + key);
+        }
+        return path;
+    }
+
+    private static Instant lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Counts the bytes passed through to the underlying stream
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.banking.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * StatementArtifactStore - Off-row storage for generated statements
+ *
+ * Statements are written once, compressed, and referenced from StatementJob
+ * by key, so the database only holds metadata.
+ *
+ * Artifacts are served from local files (a remote implementation would keep
+ * a local cache), which lets downloads hand the file to the container's
+ * sendfile support.
+ */
+public interface StatementArtifactStore {
+
+    /**
+     * Producer of the (uncompressed) artifact content
+     */
+    @FunctionalInterface
+    interface ContentWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Write an artifact. It becomes visible only once fully written, and
+     * replaces any artifact previously stored under the same key.
+     *
+     * @param key Store-relative key, e.g. "BANK001/job-id"
+     * @param content Writes the uncompressed content
+     * @return Metadata of the stored artifact
+     */
+    StoredArtifact write(String key, ContentWriter content) throws IOException;
+
+    /**
+     * Local file holding the stored (compressed) bytes of an artifact
+     *
+     * @throws java.nio.file.NoSuchFileException if the artifact does not exist
+     */
+    Path locate(String key) throws IOException;
+
+    /**
+     * Delete an artifact
+     *
+     * @return true if it existed
+     */
+    boolean delete(String key) throws IOException;
+
+    /**
+     * Delete artifacts last modified before the cutoff, including ones no job
+     * refers to any more (e.g. left behind by a crash)
+     *
+     * @return Number of artifacts deleted
+     */
+    int deleteOlderThan(Instant cutoff) throws IOException;
+}
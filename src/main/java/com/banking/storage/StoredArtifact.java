@@ -0,0 +1,40 @@
+package com.banking.storage;
+
+/**
+ * StoredArtifact - Metadata of an artifact written to a StatementArtifactStore
+ *
+ * - key: Store-relative reference, persisted on the owning job
+ * - size: Bytes stored (compressed)
+ * - contentLength: Bytes written by the producer (uncompressed)
+ * - checksum: SHA-256 of the stored bytes, hex encoded (used as ETag)
+ */
+public class StoredArtifact {
+
+    private final String key;
+    private final long size;
+    private final long contentLength;
+    private final String checksum;
+
+    public StoredArtifact(String key, long size, long contentLength, String checksum) {
+        this.key = key;
+        this.size = size;
+        this.contentLength = contentLength;
+        this.checksum = checksum;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+}
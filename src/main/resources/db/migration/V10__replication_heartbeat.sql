@@ -0,0 +1,10 @@
+-- Heartbeat row advanced on every primary by ReplicaRouter; its copy on a read replica
+-- shows how far the replica is behind.
+
+CREATE TABLE replication_heartbeat (
+    id      INT         NOT NULL,
+    beat_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO replication_heartbeat (id, beat_at) VALUES (1, '2000-01-01 00:00:00');
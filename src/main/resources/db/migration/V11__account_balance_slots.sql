@@ -0,0 +1,12 @@
+-- Sub-balances of hot accounts (AccountBalanceSlots). An account with balance_slots = N > 0
+-- has N rows here; its balance is accounts.balance plus the sum of its slots.
+
+ALTER TABLE accounts ADD COLUMN balance_slots INT NOT NULL DEFAULT 0;
+
+CREATE TABLE account_balance_slots (
+    tenant_id  VARCHAR(255)   NOT NULL,
+    account_id BINARY(16)     NOT NULL,
+    slot       INT            NOT NULL,
+    balance    DECIMAL(19, 2) NOT NULL,
+    PRIMARY KEY (tenant_id, account_id, slot)
+);
@@ -0,0 +1,10 @@
+-- Ownership leases of ledger tenants (LedgerOwnership): the node whose journal holds a
+-- tenant's postings. lease_expires_at is NULL once the owner released the tenant on a clean
+-- stop, with every posting persisted; only then may another node take it over.
+
+CREATE TABLE ledger_owners (
+    tenant_id        VARCHAR(255) NOT NULL,
+    lease_owner      VARCHAR(100) NOT NULL,
+    lease_expires_at DATETIME(6),
+    PRIMARY KEY (tenant_id)
+);
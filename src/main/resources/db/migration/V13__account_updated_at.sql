@@ -0,0 +1,5 @@
+-- Time of the last change of an account through the API (name or balance set by
+-- AccountService.updateAccount). Part of the statement result cache key: such a change
+-- alters statements without adding a transaction. NULL for never-updated accounts.
+
+ALTER TABLE accounts ADD COLUMN updated_at DATETIME(6);
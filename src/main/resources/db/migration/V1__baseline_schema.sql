@@ -0,0 +1,34 @@
+-- Baseline schema, identical to what Hibernate generated before migrations were introduced.
+-- Existing databases are baselined at version 1 (spring.flyway.baseline-on-migrate).
+
+CREATE TABLE accounts (
+    account_id    VARCHAR(255)   NOT NULL,
+    tenant_id     VARCHAR(255)   NOT NULL,
+    customer_name VARCHAR(255)   NOT NULL,
+    balance       DECIMAL(19, 2) NOT NULL,
+    created_at    DATETIME(6)    NOT NULL,
+    PRIMARY KEY (account_id)
+);
+
+CREATE TABLE transactions (
+    transaction_id VARCHAR(255)                  NOT NULL,
+    account_id     VARCHAR(255)                  NOT NULL,
+    tenant_id      VARCHAR(255)                  NOT NULL,
+    type           ENUM ('DEPOSIT', 'WITHDRAWAL') NOT NULL,
+    amount         DECIMAL(19, 2)                NOT NULL,
+    timestamp      DATETIME(6)                   NOT NULL,
+    PRIMARY KEY (transaction_id)
+);
+
+CREATE TABLE statement_jobs (
+    job_id       VARCHAR(255)                                          NOT NULL,
+    account_id   VARCHAR(255)                                          NOT NULL,
+    tenant_id    VARCHAR(255)                                          NOT NULL,
+    start_date   DATETIME(6)                                           NOT NULL,
+    end_date     DATETIME(6)                                           NOT NULL,
+    status       ENUM ('PENDING', 'PROCESSING', 'COMPLETED', 'FAILED') NOT NULL,
+    result       VARCHAR(10000),
+    created_at   DATETIME(6)                                           NOT NULL,
+    completed_at DATETIME(6),
+    PRIMARY KEY (job_id)
+);
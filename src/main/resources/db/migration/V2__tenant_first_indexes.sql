@@ -0,0 +1,13 @@
+-- Composite indexes matching the repository finders. Every index starts with tenant_id
+-- so that each query stays inside one tenant's slice of the table.
+
+-- AccountRepository.findFirstPage / findPageAfter / countByTenantId
+-- Keyset pagination over (created_at, account_id) within a tenant
+CREATE INDEX idx_accounts_tenant_created ON accounts (tenant_id, created_at, account_id);
+
+-- TransactionRepository.findFirstPage / findPageAfter / countByAccountIdAndTenantId
+-- and the statement range query findByAccountIdAndTenantIdAndTimestampBetween
+CREATE INDEX idx_transactions_tenant_account_ts ON transactions (tenant_id, account_id, timestamp, transaction_id);
+
+-- Lookups by primary key (findByAccountIdAndTenantId, findByJobIdAndTenantId, ...)
+-- are served by the primary keys; tenant_id is checked on the fetched row.
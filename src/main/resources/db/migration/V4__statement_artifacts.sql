@@ -0,0 +1,19 @@
+-- Generated statements move off-row into the artifact store; the job keeps a reference and metadata.
+
+ALTER TABLE statement_jobs MODIFY status ENUM ('PENDING', 'PROCESSING', 'COMPLETED', 'FAILED', 'EXPIRED') NOT NULL;
+
+ALTER TABLE statement_jobs ADD COLUMN error_message VARCHAR(1000);
+ALTER TABLE statement_jobs ADD COLUMN artifact_key VARCHAR(255);
+ALTER TABLE statement_jobs ADD COLUMN artifact_size BIGINT;
+ALTER TABLE statement_jobs ADD COLUMN content_length BIGINT;
+ALTER TABLE statement_jobs ADD COLUMN artifact_checksum VARCHAR(64);
+ALTER TABLE statement_jobs ADD COLUMN expires_at DATETIME(6);
+
+-- Keep failure messages; inline statements of completed jobs are not carried over
+UPDATE statement_jobs SET error_message = LEFT(result, 1000) WHERE status = 'FAILED';
+UPDATE statement_jobs SET status = 'EXPIRED' WHERE status = 'COMPLETED';
+
+ALTER TABLE statement_jobs DROP COLUMN result;
+
+-- Retention cleanup: completed jobs past their expiry
+CREATE INDEX idx_statement_jobs_status_expires ON statement_jobs (status, expires_at);
@@ -0,0 +1,11 @@
+-- End-of-day balances written by the daily close job (BalanceService.closeDay).
+-- The primary key serves the nearest-checkpoint lookups of BalanceCheckpointRepository.
+
+CREATE TABLE balance_checkpoints (
+    tenant_id       VARCHAR(255)   NOT NULL,
+    account_id      BINARY(16)     NOT NULL,
+    checkpoint_date DATE           NOT NULL,
+    balance         DECIMAL(19, 2) NOT NULL,
+    created_at      DATETIME(6)    NOT NULL,
+    PRIMARY KEY (tenant_id, account_id, checkpoint_date)
+);
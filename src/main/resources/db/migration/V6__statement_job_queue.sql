@@ -0,0 +1,18 @@
+-- statement_jobs becomes a durable work queue: workers on any node claim PENDING jobs,
+-- hold a lease while processing (renewed by heartbeats) and retry with backoff.
+
+ALTER TABLE statement_jobs ADD COLUMN attempts INT NOT NULL DEFAULT 0;
+ALTER TABLE statement_jobs ADD COLUMN next_attempt_at DATETIME(6);
+ALTER TABLE statement_jobs ADD COLUMN lease_owner VARCHAR(100);
+ALTER TABLE statement_jobs ADD COLUMN lease_expires_at DATETIME(6);
+ALTER TABLE statement_jobs ADD COLUMN heartbeat_at DATETIME(6);
+
+-- Jobs left PENDING or PROCESSING by the in-memory executor are queued again
+UPDATE statement_jobs SET status = 'PENDING' WHERE status = 'PROCESSING';
+UPDATE statement_jobs SET next_attempt_at = created_at WHERE status = 'PENDING';
+
+-- StatementJobRepository.claimNext: PENDING jobs that are due
+CREATE INDEX idx_statement_jobs_queue ON statement_jobs (status, next_attempt_at);
+
+-- StatementJobRepository.findExpiredLeases: PROCESSING jobs whose worker stopped heart-beating
+CREATE INDEX idx_statement_jobs_lease ON statement_jobs (status, lease_expires_at);
@@ -0,0 +1,9 @@
+-- Priority class per statement job, used by the fair-share scheduler of the job queue.
+
+ALTER TABLE statement_jobs ADD COLUMN priority ENUM ('INTERACTIVE', 'BULK') NOT NULL DEFAULT 'INTERACTIVE';
+
+-- StatementJobRepository.findQueueStats / claimNextForTenant: due jobs per tenant and priority
+CREATE INDEX idx_statement_jobs_tenant_queue ON statement_jobs (status, tenant_id, priority, next_attempt_at);
+
+-- Claims are per tenant now; the global queue index is covered by the one above
+DROP INDEX idx_statement_jobs_queue ON statement_jobs;
@@ -0,0 +1,46 @@
+-- Bulk statement runs: one statement per account of a tenant, generated partition by partition.
+-- Partitions are contiguous account ID ranges; completed partitions are never redone.
+
+CREATE TABLE statement_runs (
+    run_id               BINARY(16)    NOT NULL,
+    tenant_id            VARCHAR(255)  NOT NULL,
+    start_date           DATETIME(6)   NOT NULL,
+    end_date             DATETIME(6)   NOT NULL,
+    status               ENUM ('PENDING', 'PROCESSING', 'COMPLETED', 'FAILED') NOT NULL,
+    total_partitions     INT           NOT NULL,
+    completed_partitions INT           NOT NULL DEFAULT 0,
+    failed_partitions    INT           NOT NULL DEFAULT 0,
+    total_accounts       BIGINT        NOT NULL,
+    statements_written   BIGINT        NOT NULL DEFAULT 0,
+    transactions_scanned BIGINT        NOT NULL DEFAULT 0,
+    lease_owner          VARCHAR(100),
+    lease_expires_at     DATETIME(6),
+    error_message        VARCHAR(1000),
+    created_at           DATETIME(6)   NOT NULL,
+    started_at           DATETIME(6),
+    completed_at         DATETIME(6),
+    PRIMARY KEY (run_id)
+);
+
+-- StatementRunRepository.claimRunnable: new runs and runs whose node stopped heart-beating
+CREATE INDEX idx_statement_runs_status_lease ON statement_runs (status, lease_expires_at);
+
+CREATE TABLE statement_run_partitions (
+    run_id           BINARY(16)   NOT NULL,
+    partition_no     INT          NOT NULL,
+    first_account_id BINARY(16)   NOT NULL,
+    last_account_id  BINARY(16)   NOT NULL,
+    status           ENUM ('PENDING', 'PROCESSING', 'COMPLETED', 'FAILED') NOT NULL,
+    statements       INT          NOT NULL DEFAULT 0,
+    transactions     BIGINT       NOT NULL DEFAULT 0,
+    error_message    VARCHAR(1000),
+    completed_at     DATETIME(6),
+    PRIMARY KEY (run_id, partition_no)
+);
+
+-- Statements written by a run, listed in account order
+ALTER TABLE statement_jobs ADD COLUMN run_id BINARY(16);
+CREATE INDEX idx_statement_jobs_run_account ON statement_jobs (run_id, account_id);
+
+-- Partition planning and loading walk a tenant's accounts in ID order
+CREATE INDEX idx_accounts_tenant_account ON accounts (tenant_id, account_id);
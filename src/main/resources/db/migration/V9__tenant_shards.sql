@@ -0,0 +1,10 @@
+-- Tenant-to-shard directory (ShardDirectory). Created on every shard, read only on the
+-- directory shard; tenants without a row live on the default shard.
+
+CREATE TABLE tenant_shards (
+    tenant_id  VARCHAR(255) NOT NULL,
+    shard      VARCHAR(100) NOT NULL,
+    frozen     BOOLEAN      NOT NULL DEFAULT FALSE,
+    updated_at DATETIME(6)  NOT NULL,
+    PRIMARY KEY (tenant_id)
+);
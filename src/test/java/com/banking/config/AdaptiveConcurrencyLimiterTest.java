@@ -0,0 +1,121 @@
+package com.banking.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLI = 1_000_000L;
+
+    @Test
+    void requestsBeyondTheLimitAreRejected() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdaptiveConcurrencyLimiter limiter = limiter(4, registry);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+        assertEquals(4, limiter.getInFlight());
+
+        limiter.release(10 * MILLI);
+        assertTrue(limiter.tryAcquire());
+        assertEquals(1.0, registry.get("banking.concurrency.rejected").counter().count());
+    }
+
+    @Test
+    void limitShrinksWhenP99Rises() {
+        AdaptiveConcurrencyLimiter limiter = limiter(40, new SimpleMeterRegistry());
+        window(limiter, 10, 10 * MILLI);
+        int healthy = limiter.getLimit();
+
+        // 10x slower: shrinks by at most half per window
+        window(limiter, 10, 100 * MILLI);
+        assertEquals(healthy / 2, limiter.getLimit());
+        window(limiter, 10, 100 * MILLI);
+        assertEquals(healthy / 4, limiter.getLimit());
+
+        // Never below min-limit
+        for (int i = 0; i < 10; i++) {
+            window(limiter, 4, 100 * MILLI);
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void limitGrowsOnlyWhenHealthyAndUsed() {
+        AdaptiveConcurrencyLimiter limiter = limiter(16, new SimpleMeterRegistry());
+
+        // Little concurrency: no reason to grow
+        window(limiter, 2, 10 * MILLI);
+        assertEquals(16, limiter.getLimit());
+
+        window(limiter, 16, 12 * MILLI);
+        assertEquals(20, limiter.getLimit());
+
+        // Too few samples: unchanged
+        assertTrue(limiter.tryAcquire());
+        limiter.release(500 * MILLI);
+        limiter.update();
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void filterRejectsWith503AtTheLimit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, new SimpleMeterRegistry());
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter();
+        ReflectionTestUtils.setField(filter, "limiter", limiter);
+
+        assertEquals(200, send(filter, "/api/accounts").getStatus());
+        assertEquals(0, limiter.getInFlight());
+
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+        }
+        MockHttpServletResponse busy = send(filter, "/api/accounts");
+        assertEquals(503, busy.getStatus());
+        assertEquals("1", busy.getHeader("Retry-After"));
+
+        // Health checks still pass
+        assertEquals(200, send(filter, "/actuator/health").getStatus());
+    }
+
+    private static MockHttpServletResponse send(ConcurrencyLimitFilter filter, String uri) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", uri), response, chain);
+        if (response.getStatus() == 503) {
+            assertNull(chain.getRequest());
+        }
+        return response;
+    }
+
+    /**
+     * One window of 100 requests, concurrency at a time, then update()
+     */
+    private static void window(AdaptiveConcurrencyLimiter limiter, int concurrency, long latencyNanos) {
+        for (int done = 0; done < 100; done += concurrency) {
+            for (int i = 0; i < concurrency; i++) {
+                assertTrue(limiter.tryAcquire());
+            }
+            for (int i = 0; i < concurrency; i++) {
+                limiter.release(latencyNanos);
+            }
+        }
+        limiter.update();
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int initialLimit, SimpleMeterRegistry registry) {
+        // No smoothing, so every window applies its full step
+        return new AdaptiveConcurrencyLimiter(true, initialLimit, 4, 200, 20, 1.5, 1.0, registry);
+    }
+}
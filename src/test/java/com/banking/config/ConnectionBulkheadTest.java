@@ -0,0 +1,130 @@
+package com.banking.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConnectionBulkheadTest {
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void tenantCannotHoldMoreThanItsCap() throws Exception {
+        ConnectionBulkhead bulkhead = bulkhead("SLOW=1");
+
+        acquire(bulkhead, "BANK001", false);
+        acquire(bulkhead, "BANK001", false);
+        ExecutionException full = assertThrows(ExecutionException.class,
+                () -> acquire(bulkhead, "BANK001", false));
+        assertInstanceOf(ConnectionBulkheadFullException.class, full.getCause());
+
+        // Other tenants are not affected; per-tenant caps apply
+        acquire(bulkhead, "BANK002", false);
+        acquire(bulkhead, "SLOW", false);
+        assertThrows(ExecutionException.class, () -> acquire(bulkhead, "SLOW", false));
+
+        assertEquals(2, bulkhead.inUse("BANK001"));
+        assertEquals(1, bulkhead.inUse("BANK002"));
+    }
+
+    @Test
+    void backgroundWorkSharesOneBulkhead() throws Exception {
+        ConnectionBulkhead bulkhead = bulkhead("");
+
+        acquire(bulkhead, "BANK001", true);
+        acquire(bulkhead, "BANK002", true);
+        acquire(bulkhead, "BANK003", true);
+        assertThrows(ExecutionException.class, () -> acquire(bulkhead, "BANK004", true));
+
+        // Requests of the same tenants still get connections
+        acquire(bulkhead, "BANK001", false);
+        assertEquals(3, bulkhead.inUse(ConnectionBulkhead.BACKGROUND));
+        assertEquals(1, bulkhead.inUse("BANK001"));
+    }
+
+    @Test
+    void closingTheConnectionReleasesThePermit() throws Exception {
+        ConnectionBulkhead bulkhead = bulkhead("");
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:bulkhead;DB_CLOSE_DELAY=-1");
+        BulkheadDataSource dataSource = new BulkheadDataSource(h2,
+                new StaticListableBeanFactory(Map.of("bulkhead", bulkhead)).getBeanProvider(ConnectionBulkhead.class));
+
+        TenantContext.setTenantId("BANK001");
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals(1, bulkhead.inUse("BANK001"));
+            // A nested connection of the same thread does not take a second permit
+            try (Connection nested = dataSource.getConnection()) {
+                assertEquals(1, bulkhead.inUse("BANK001"));
+            }
+            assertEquals(1, bulkhead.inUse("BANK001"));
+            connection.createStatement().execute("SELECT 1");
+        }
+        assertEquals(0, bulkhead.inUse("BANK001"));
+
+        // No tenant (startup, maintenance): not capped
+        TenantContext.clear();
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals(0, bulkhead.inUse("BANK001"));
+        }
+    }
+
+    @Test
+    void unlistedTenantsShareMetersAndAreDroppedWhenIdle() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConnectionBulkhead bulkhead = new ConnectionBulkhead(true, 1, 3, "SLOW=1", Duration.ofMillis(20),
+                Duration.ofMillis(20), registry);
+
+        for (int i = 0; i < 100; i++) {
+            TenantContext.setTenantId("MADE-UP-" + i);
+            bulkhead.acquire().release();
+        }
+        assertThrows(ExecutionException.class, () -> {
+            acquire(bulkhead, "HOLDER", false);
+            acquire(bulkhead, "HOLDER", false);
+        });
+
+        // Still separate bulkheads, but only the one still in use is kept
+        assertEquals(1, bulkhead.trackedTenants());
+        assertEquals(1, bulkhead.inUse("HOLDER"));
+        assertEquals(Set.of("SLOW", "background", "other"), registry.find("banking.db.bulkhead.wait").timers()
+                .stream().map(timer -> timer.getId().getTag("tenant")).collect(Collectors.toSet()));
+        assertEquals(1, registry.get("banking.db.bulkhead.rejected").tag("tenant", "other").counter().count());
+        assertEquals(1, registry.get("banking.db.bulkhead.in-use").tag("tenant", "other").gauge().value());
+    }
+
+    /**
+     * Take a permit on a new thread and keep it
+     */
+    private static void acquire(ConnectionBulkhead bulkhead, String tenantId, boolean background) throws Exception {
+        FutureTask<ConnectionBulkhead.Permit> task = new FutureTask<>(() -> {
+            TenantContext.setTenantId(tenantId);
+            TenantContext.setBackground(background);
+            return bulkhead.acquire();
+        });
+        new Thread(task).start();
+        task.get();
+    }
+
+    private static ConnectionBulkhead bulkhead(String tenantCaps) {
+        return new ConnectionBulkhead(true, 2, 3, tenantCaps, Duration.ofMillis(20), Duration.ofMillis(20),
+                new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,139 @@
+package com.banking.config;
+
+import com.banking.dto.AccountRequest;
+import com.banking.service.AccountService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Two H2 databases stand in for the replicas of the default shard. They do
+ * not replicate: rows and heartbeats are written to them directly, with a
+ * different customer name than on the primary to show where a read went.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "banking.replicas.names=replica1,replica2",
+        "banking.replicas.replica1.url=jdbc:h2:mem:banking_replica1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "banking.replicas.replica1.username=sa",
+        "banking.replicas.replica2.url=jdbc:h2:mem:banking_replica2;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "banking.replicas.replica2.username=sa",
+        "banking.replicas.lag-check-interval=PT1H",
+        "banking.replicas.max-lag=PT2S",
+        "banking.replicas.sticky-window=PT1M"
+})
+class ReplicaRouterTest {
+
+    @Autowired
+    private ReplicaRouter router;
+
+    @Autowired
+    private ShardDataSources shards;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private Flyway flyway;
+
+    @BeforeEach
+    void migrateReplicas() {
+        for (String replica : shards.getReplicas(shards.getDefaultShard())) {
+            Flyway.configure().configuration(flyway.getConfiguration())
+                    .dataSource(shards.getReplica(replica)).load().migrate();
+        }
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void readsGoToAReplicaWithinMaxLag() {
+        UUID accountId = account("BANK-REPLICA-FRESH");
+        replicaLag(0);
+
+        TenantContext.setTenantId("BANK-REPLICA-FRESH");
+        for (int i = 0; i < 4; i++) {
+            assertEquals("replica", accountService.getAccountById(accountId).orElseThrow().getCustomerName());
+        }
+        assertEquals("replica", accountService.getAccounts(null, 10).getItems().get(0).getCustomerName());
+    }
+
+    @Test
+    void laggingReplicasAreNotUsed() {
+        UUID accountId = account("BANK-REPLICA-STALE");
+        replicaLag(3600);
+
+        TenantContext.setTenantId("BANK-REPLICA-STALE");
+        assertEquals("primary", accountService.getAccountById(accountId).orElseThrow().getCustomerName());
+    }
+
+    @Test
+    void tenantReadsItsOwnWrites() {
+        UUID accountId = account("BANK-REPLICA-WRITER");
+        replicaLag(0);
+
+        TenantContext.setTenantId("BANK-REPLICA-WRITER");
+        accountService.createAccount(new AccountRequest("Other", new BigDecimal("1.00")));
+        assertEquals("primary", accountService.getAccountById(accountId).orElseThrow().getCustomerName());
+    }
+
+    /**
+     * Insert the same account on the primary and on every replica
+     */
+    private UUID account(String tenantId) {
+        UUID accountId = UUID.randomUUID();
+        insertAccount(shards.get(shards.getDefaultShard()), tenantId, accountId, "primary");
+        for (String replica : replicas()) {
+            insertAccount(shards.getReplica(replica), tenantId, accountId, "replica");
+        }
+        return accountId;
+    }
+
+    /**
+     * Set the replicas' heartbeats that many seconds back and measure the lag
+     */
+    private void replicaLag(long seconds) {
+        for (String replica : replicas()) {
+            new JdbcTemplate(shards.getReplica(replica)).update("UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1",
+                    Timestamp.valueOf(LocalDateTime.now().minusSeconds(seconds)));
+        }
+        router.checkLag();
+    }
+
+    private List<String> replicas() {
+        return shards.getReplicas(shards.getDefaultShard());
+    }
+
+    private static void insertAccount(DataSource dataSource, String tenantId, UUID accountId, String name) {
+        new JdbcTemplate(dataSource).update(
+                "INSERT INTO accounts (account_id, tenant_id, customer_name, balance, created_at) VALUES (?, ?, ?, ?, ?)",
+                uuidBytes(accountId), tenantId, name, new BigDecimal("10.00"), Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private static byte[] uuidBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+}
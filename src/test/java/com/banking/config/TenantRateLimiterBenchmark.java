@@ -0,0 +1,80 @@
+package com.banking.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Cost of TenantRateLimiter.tryAcquire on the request path, per call
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=TenantRateLimiterBenchmark
+ *
+ * Options (system properties):
+ * - benchmark.calls: calls per thread (default 20,000,000)
+ * - benchmark.tenants: tenants the calls are spread over (default 100)
+ * - benchmark.threads: threads of the concurrent run (default: number of cores)
+ */
+@Tag("benchmark")
+class TenantRateLimiterBenchmark {
+
+    private static final int CALLS = Integer.getInteger("benchmark.calls", 20_000_000);
+    private static final int TENANTS = Integer.getInteger("benchmark.tenants", 100);
+    private static final int THREADS = Integer.getInteger("benchmark.threads",
+            Runtime.getRuntime().availableProcessors());
+
+    @Test
+    void measureTryAcquire() throws Exception {
+        String[] tenants = new String[TENANTS];
+        for (int i = 0; i < TENANTS; i++) {
+            tenants[i] = "BANK" + i;
+        }
+
+        // Admitting (high limit) and mostly rejecting (low limit) paths
+        for (String limit : new String[]{"1000000000/1000000000", "100/100"}) {
+            TenantRateLimiter limiter = new TenantRateLimiter(limit, limit, limit, "",
+                    tenants.length, new SimpleMeterRegistry());
+
+            // Warm-up, then a single-threaded and a concurrent run
+            run(limiter, tenants, CALLS);
+            double single = run(limiter, tenants, CALLS);
+
+            ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+            try {
+                List<Future<Double>> results = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    results.add(pool.submit(() -> run(limiter, tenants, CALLS)));
+                }
+                double concurrent = 0;
+                for (Future<Double> result : results) {
+                    concurrent = Math.max(concurrent, result.get());
+                }
+                System.out.printf("limit %-21s 1 thread: %.1f ns/call, %d threads: %.1f ns/call%n",
+                        limit, single, THREADS, concurrent);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static double run(TenantRateLimiter limiter, String[] tenants, int calls) {
+        RequestClass[] classes = RequestClass.values();
+        long rejected = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            if (limiter.tryAcquire(tenants[i % tenants.length], classes[i % classes.length]) > 0) {
+                rejected++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (rejected < 0) {
+            throw new IllegalStateException();
+        }
+        return (double) elapsed / calls;
+    }
+}
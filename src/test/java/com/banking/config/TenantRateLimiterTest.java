@@ -0,0 +1,149 @@
+package com.banking.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TenantRateLimiterTest {
+
+    private static final long MILLI = 1_000_000L;
+
+    @Test
+    void burstIsAdmittedThenTheRateApplies() {
+        TenantRateLimiter limiter = limiter("10/5", "");
+
+        // 5 at once, then one every 100 ms
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("BANK001", RequestClass.READ, 0));
+        }
+        long wait = limiter.tryAcquire("BANK001", RequestClass.READ, 0);
+        assertEquals(100 * MILLI, wait);
+        assertEquals(0, limiter.tryAcquire("BANK001", RequestClass.READ, wait));
+        assertTrue(limiter.tryAcquire("BANK001", RequestClass.READ, wait) > 0);
+    }
+
+    @Test
+    void tenantsAndRequestClassesHaveSeparateBuckets() {
+        TenantRateLimiter limiter = limiter("1/1", "");
+
+        assertEquals(0, limiter.tryAcquire("BANK001", RequestClass.READ, 0));
+        assertTrue(limiter.tryAcquire("BANK001", RequestClass.READ, 0) > 0);
+
+        assertEquals(0, limiter.tryAcquire("BANK002", RequestClass.READ, 0));
+        assertEquals(0, limiter.tryAcquire("BANK001", RequestClass.WRITE, 0));
+        // Statement requests are unlimited (rate 0) in this limiter
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, limiter.tryAcquire("BANK001", RequestClass.STATEMENT, 0));
+        }
+    }
+
+    @Test
+    void refilledBucketsAreEvicted() {
+        TenantRateLimiter limiter = limiter("1/1", "");
+        limiter.tryAcquire("BANK001", RequestClass.READ);
+        assertTrue(limiter.tryAcquire("BANK001", RequestClass.READ) > 0);
+
+        // Still draining: kept, so the tenant cannot reset its bucket by going quiet briefly
+        limiter.evictIdle();
+        assertTrue(limiter.tryAcquire("BANK001", RequestClass.READ) > 0);
+    }
+
+    @Test
+    void perTenantLimitsAreReloadedWhenTheFileChanges(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("rate-limits.properties");
+        Files.writeString(file, "BANK001.read=1/1\n");
+        TenantRateLimiter limiter = limiter("100/100", file.toString());
+
+        assertEquals(0, limiter.tryAcquire("BANK001", RequestClass.READ, 0));
+        assertTrue(limiter.tryAcquire("BANK001", RequestClass.READ, 0) > 0);
+        assertEquals(0, limiter.tryAcquire("BANK002", RequestClass.READ, 0));
+        assertEquals(0, limiter.tryAcquire("BANK002", RequestClass.READ, 0));
+
+        // Existing buckets pick up the new limit
+        Files.writeString(file, "BANK001.read=100/100\n");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(1)));
+        limiter.reload();
+        assertEquals(0, limiter.tryAcquire("BANK001", RequestClass.READ, 0));
+
+        // An invalid file keeps the previous limits
+        Files.writeString(file, "BANK001.bogus=1/1\n");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(2)));
+        limiter.reload();
+        assertEquals(0, limiter.tryAcquire("BANK001", RequestClass.READ, 0));
+    }
+
+    @Test
+    void madeUpTenantsShareBucketsAndMetersOnceMaxTenantsIsReached(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("rate-limits.properties");
+        Files.writeString(file, "BANK001.read=1/1\n");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TenantRateLimiter limiter = new TenantRateLimiter("1/1", "1/1", "0", file.toString(), 2, registry);
+
+        assertEquals(0, limiter.tryAcquire("BANK001", RequestClass.READ, 0));
+        assertEquals(0, limiter.tryAcquire("BANK002", RequestClass.READ, 0));
+
+        // Full: further tenants share one bucket...
+        assertEquals(0, limiter.tryAcquire("X-1", RequestClass.READ, 0));
+        assertTrue(limiter.tryAcquire("X-2", RequestClass.READ, 0) > 0);
+        // ...but a tenant of the limits file keeps its own
+        assertTrue(limiter.tryAcquire("BANK001", RequestClass.READ, 0) > 0);
+        assertTrue(limiter.tryAcquire("BANK002", RequestClass.READ, 0) > 0);
+
+        // Only tenants of the limits file are tagged by name
+        assertEquals(2, registry.find("banking.ratelimit.rejected").counters().size());
+        assertEquals(1, registry.get("banking.ratelimit.rejected").tag("tenant", "BANK001").counter().count());
+        assertEquals(2, registry.get("banking.ratelimit.rejected").tag("tenant", "unknown").counter().count());
+    }
+
+    @Test
+    void filterRejectsWith429AndRetryAfter() throws Exception {
+        TenantFilter filter = new TenantFilter();
+        ReflectionTestUtils.setField(filter, "rateLimiter", limiter("1/1", ""));
+        ReflectionTestUtils.setField(filter, "shardDirectory", new ShardDirectory(new ShardDataSources(
+                new MockEnvironment().withProperty("spring.datasource.url", "jdbc:h2:mem:filter"),
+                new SimpleMeterRegistry())));
+
+        MockHttpServletResponse first = send(filter, "GET", "/api/accounts");
+        assertEquals(200, first.getStatus());
+
+        MockHttpServletResponse second = send(filter, "GET", "/api/accounts");
+        assertEquals(429, second.getStatus());
+        assertEquals("1", second.getHeader("Retry-After"));
+
+        // Other request classes are not affected
+        assertEquals(200, send(filter, "POST", "/api/accounts").getStatus());
+    }
+
+    private static MockHttpServletResponse send(TenantFilter filter, String method, String uri) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.addHeader("X-Tenant-Id", "BANK001");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        if (response.getStatus() == 429) {
+            assertNull(chain.getRequest());
+        } else {
+            assertNotNull(chain.getRequest());
+        }
+        return response;
+    }
+
+    private static TenantRateLimiter limiter(String readWrite, String file) {
+        return new TenantRateLimiter(readWrite, readWrite, "0", file, 10_000, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,96 @@
+package com.banking.controller;
+
+import com.banking.config.ConnectionBulkhead;
+import com.banking.config.TenantContext;
+import com.banking.entity.Account;
+import com.banking.exception.GlobalExceptionHandler;
+import com.banking.repository.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "banking.datasource.bulkhead.max-per-tenant=1",
+        "banking.datasource.bulkhead.max-wait=PT0.05S"
+})
+class AccountControllerBulkheadTest {
+
+    private static final String TENANT = "BANK-BULKHEAD-API";
+
+    @Autowired
+    private AccountController accountController;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ConnectionBulkhead bulkhead;
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void tenantAtItsConnectionCapGets503InsteadOfAClientError() throws Exception {
+        UUID accountId = accountRepository.save(new Account(TENANT, "Capped", BigDecimal.TEN)).getAccountId();
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(accountController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        CountDownLatch done = new CountDownLatch(1);
+        CountDownLatch holding = new CountDownLatch(1);
+        FutureTask<Void> holder = new FutureTask<>(() -> {
+            TenantContext.setTenantId(TENANT);
+            ConnectionBulkhead.Permit permit = bulkhead.acquire();
+            holding.countDown();
+            try {
+                done.await();
+            } finally {
+                permit.release();
+            }
+            return null;
+        });
+        new Thread(holder).start();
+        holding.await();
+        try {
+            TenantContext.setTenantId(TENANT);
+            // Used to be 404 "not found" on PUT/DELETE and 400 on the listing
+            mvc.perform(put("/api/accounts/" + accountId).contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"customerName\":\"Renamed\",\"balance\":10}"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"));
+            mvc.perform(delete("/api/accounts/" + accountId))
+                    .andExpect(status().isServiceUnavailable());
+            mvc.perform(get("/api/accounts"))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            done.countDown();
+            holder.get();
+        }
+
+        // With the connection free again the same request succeeds
+        mvc.perform(put("/api/accounts/" + accountId).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerName\":\"Renamed\",\"balance\":10}"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,63 @@
+package com.banking.controller;
+
+import com.banking.dto.TransactionRequest;
+import com.banking.entity.Transaction;
+import com.banking.exception.GlobalExceptionHandler;
+import com.banking.service.PostingOutcomeUnknownException;
+import com.banking.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TransactionControllerOutcomeTest {
+
+    @Test
+    void unknownOutcomeIsA504NotAClientError() throws Exception {
+        MockMvc mvc = controllerFailingWith(() -> new PostingOutcomeUnknownException(
+                "Transaction posting timed out; its outcome is unknown"));
+
+        mvc.perform(deposit())
+                .andExpect(status().isGatewayTimeout())
+                .andExpect(jsonPath("$.outcome").value("UNKNOWN"));
+    }
+
+    @Test
+    void notPostedIsA503WithRetryAfter() throws Exception {
+        MockMvc mvc = controllerFailingWith(() -> new RejectedExecutionException("Transaction posting timed out"));
+
+        mvc.perform(deposit())
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    private static RequestBuilder deposit() {
+        return post("/api/accounts/" + UUID.randomUUID() + "/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"type\":\"DEPOSIT\",\"amount\":10}");
+    }
+
+    private static MockMvc controllerFailingWith(Supplier<RuntimeException> failure) {
+        TransactionController controller = new TransactionController();
+        ReflectionTestUtils.setField(controller, "transactionService", new TransactionService() {
+            @Override
+            public Transaction createTransaction(UUID accountId, TransactionRequest request) {
+                throw failure.get();
+            }
+        });
+        return MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+}
@@ -0,0 +1,148 @@
+package com.banking.ledger;
+
+import com.banking.config.TenantContext;
+import com.banking.dto.TransactionRequest;
+import com.banking.entity.Account;
+import com.banking.repository.AccountRepository;
+import com.banking.service.TransactionService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Concurrent postings through TransactionService.createTransaction, for a
+ * tenant on the database path and for a tenant on the ledger engine. Reports
+ * throughput and p50/p99 latency per posting, and how long the ledger's
+ * background persistence needed to catch up.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=LedgerEngineBenchmark
+ *
+ * Options (system properties):
+ * - benchmark.threads: concurrent clients (default 32)
+ * - benchmark.postings: postings per run (default 50,000)
+ * - benchmark.accounts: accounts the postings are spread over (default 100)
+ * - benchmark.fsync: force the ledger journal per batch (default true)
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "banking.statements.workers=0",
+        "banking.datasource.bulkhead.enabled=false",
+        "spring.datasource.hikari.maximum-pool-size=${benchmark.threads:32}",
+        "banking.ledger.tenants=BANK-LEDGER-BENCH",
+        "banking.ledger.dir=target/test-ledger/${random.uuid}",
+        "banking.ledger.journal.fsync=${benchmark.fsync:true}"
+})
+class LedgerEngineBenchmark {
+
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 32);
+    private static final int POSTINGS = Integer.getInteger("benchmark.postings", 50_000);
+    private static final int ACCOUNTS = Integer.getInteger("benchmark.accounts", 100);
+    private static final String DATABASE_TENANT = "BANK-DB-BENCH";
+    private static final String LEDGER_TENANT = "BANK-LEDGER-BENCH";
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    void compareDatabaseWithLedger() throws Exception {
+        run("database", DATABASE_TENANT);
+        run("ledger", LEDGER_TENANT);
+    }
+
+    private void run(String name, String tenantId) throws Exception {
+        List<UUID> accounts = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(accountRepository.save(new Account(tenantId, "Customer " + i, BigDecimal.ZERO)).getAccountId());
+        }
+
+        // Warm up
+        postings(tenantId, accounts, POSTINGS / 10);
+
+        long start = System.nanoTime();
+        long[] nanos = postings(tenantId, accounts, POSTINGS);
+        long elapsed = System.nanoTime() - start;
+        long persisted = awaitPersisted(accounts, POSTINGS + POSTINGS / 10);
+        long caughtUp = System.nanoTime() - start;
+
+        Arrays.sort(nanos);
+        System.out.printf("%-9s %,3d threads: %,9.0f postings/s, p50 %,8.1f µs, p99 %,8.1f µs, "
+                        + "in the database after %,6.0f ms%n", name, THREADS, POSTINGS / (elapsed / 1e9),
+                nanos[POSTINGS / 2] / 1e3, nanos[(int) (POSTINGS * 0.99)] / 1e3, caughtUp / 1e6);
+        assertEquals(POSTINGS + POSTINGS / 10, persisted);
+    }
+
+    /**
+     * Deposit 1.00 count times, round robin over the accounts, from THREADS
+     * threads; latency of each posting
+     */
+    private long[] postings(String tenantId, List<UUID> accounts, int count) throws Exception {
+        long[] nanos = new long[count];
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                UUID accountId = accounts.get(i % accounts.size());
+                futures.add(pool.submit(() -> {
+                    TenantContext.setTenantId(tenantId);
+                    try {
+                        start.await();
+                        long begin = System.nanoTime();
+                        transactionService.createTransaction(accountId, new TransactionRequest("DEPOSIT", BigDecimal.ONE));
+                        nanos[index] = System.nanoTime() - begin;
+                    } finally {
+                        TenantContext.clear();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return nanos;
+    }
+
+    /**
+     * Wait until the account rows add up to the expected number of deposits
+     *
+     * @return The sum of the account balances
+     */
+    private long awaitPersisted(List<UUID> accounts, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 120_000;
+        while (true) {
+            long total = 0;
+            for (Account account : accountRepository.findAllById(accounts)) {
+                total += account.getBalance().longValue();
+            }
+            if (total == expected || System.currentTimeMillis() > deadline) {
+                return total;
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.banking.ledger;
+
+import com.banking.config.TenantContext;
+import com.banking.dto.AccountRequest;
+import com.banking.dto.BatchTransactionItem;
+import com.banking.dto.BatchTransactionResult;
+import com.banking.dto.TransactionRequest;
+import com.banking.entity.Account;
+import com.banking.entity.LedgerOwner;
+import com.banking.entity.Transaction;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.LedgerOwnerRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.service.AccountService;
+import com.banking.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "banking.ledger.tenants=BANK-LEDGER",
+        "banking.ledger.dir=target/test-ledger/${random.uuid}",
+        "banking.ledger.journal.fsync=false",
+        "banking.datasource.bulkhead.enabled=false"
+})
+class LedgerEngineTest {
+
+    private static final String TENANT = "BANK-LEDGER";
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerOwnerRepository ownerRepository;
+
+    @Autowired
+    private LedgerEngine ledger;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void postingsAreAnsweredFromMemoryAndPersistedInTheBackground() throws InterruptedException {
+        UUID accountId = account("100.00");
+        TenantContext.setTenantId(TENANT);
+
+        Transaction deposit = transactionService.createTransaction(accountId,
+                new TransactionRequest("DEPOSIT", new BigDecimal("50.00")));
+        RuntimeException overdraft = assertThrows(RuntimeException.class, () -> transactionService.createTransaction(
+                accountId, new TransactionRequest("WITHDRAWAL", new BigDecimal("500.00"))));
+        transactionService.createTransaction(accountId, new TransactionRequest("WITHDRAWAL", new BigDecimal("30.00")));
+
+        assertNotNull(deposit.getTransactionId());
+        assertNotNull(deposit.getTimestamp());
+        assertEquals("Insufficient balance", overdraft.getMessage());
+        // Reads see the ledger's balance at once
+        assertEquals(0, new BigDecimal("120.00").compareTo(
+                accountService.getAccountById(accountId).orElseThrow().getBalance()));
+
+        awaitPersisted(accountId, "120.00", 2);
+        assertTrue(transactionRepository.existsById(deposit.getTransactionId()));
+    }
+
+    @Test
+    void batchItemsAreAcceptedOrRejectedInOrder() throws InterruptedException {
+        UUID accountId = account("0.00");
+        UUID foreign = accountRepository.save(new Account("BANK-LEDGER-OTHER", "Other", new BigDecimal("50.00")))
+                .getAccountId();
+        TenantContext.setTenantId(TENANT);
+
+        List<BatchTransactionResult> results = transactionService.createTransactionsBatch(List.of(
+                new BatchTransactionItem(accountId, "DEPOSIT", new BigDecimal("10.00")),
+                new BatchTransactionItem(accountId, "WITHDRAWAL", new BigDecimal("15.00")),
+                new BatchTransactionItem(accountId, "WITHDRAWAL", new BigDecimal("10.00")),
+                new BatchTransactionItem(foreign, "DEPOSIT", new BigDecimal("1.00")),
+                new BatchTransactionItem(accountId, "TRANSFER", new BigDecimal("1.00"))));
+
+        assertEquals(BatchTransactionResult.APPLIED, results.get(0).getStatus());
+        assertEquals("Insufficient balance", results.get(1).getError());
+        assertEquals(BatchTransactionResult.APPLIED, results.get(2).getStatus());
+        assertEquals("Account not found or access denied", results.get(3).getError());
+        assertEquals("Invalid transaction type. Use DEPOSIT or WITHDRAWAL", results.get(4).getError());
+
+        awaitPersisted(accountId, "0.00", 2);
+        assertEquals(0, new BigDecimal("50.00").compareTo(accountRepository.findById(foreign).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void foreignAndUnknownAccountsAreRejected() {
+        UUID foreign = accountRepository.save(new Account("BANK-LEDGER-OTHER", "Other", new BigDecimal("5.00")))
+                .getAccountId();
+        TenantContext.setTenantId(TENANT);
+
+        for (UUID accountId : List.of(foreign, UUID.randomUUID())) {
+            RuntimeException e = assertThrows(RuntimeException.class, () -> transactionService.createTransaction(
+                    accountId, new TransactionRequest("DEPOSIT", new BigDecimal("1.00"))));
+            assertEquals("Account not found or access denied", e.getMessage());
+        }
+        assertFalse(ledger.currentBalance(TENANT, foreign).isPresent());
+    }
+
+    @Test
+    void balanceOnlyChangesThroughPostings() throws InterruptedException {
+        UUID accountId = account("10.00");
+        TenantContext.setTenantId(TENANT);
+        transactionService.createTransaction(accountId, new TransactionRequest("DEPOSIT", new BigDecimal("5.00")));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> accountService.updateAccount(accountId, new AccountRequest("Renamed", new BigDecimal("99.00"))));
+        assertEquals("The balance of a ledger account only changes through transactions", e.getMessage());
+
+        // Renaming with the current balance leaves the balance to the ledger
+        accountService.updateAccount(accountId, new AccountRequest("Renamed", new BigDecimal("15.00")));
+        awaitPersisted(accountId, "15.00", 1);
+        assertEquals("Renamed", accountRepository.findById(accountId).orElseThrow().getCustomerName());
+    }
+
+    @Test
+    void restartRecoversBalancesWithoutPersistingTwice() throws InterruptedException {
+        UUID accountId = account("0.00");
+        TenantContext.setTenantId(TENANT);
+        for (int i = 0; i < 20; i++) {
+            transactionService.createTransaction(accountId, new TransactionRequest("DEPOSIT", new BigDecimal("1.00")));
+        }
+        awaitPersisted(accountId, "20.00", 20);
+
+        ledger.stop();
+        ledger.start();
+
+        assertEquals(0, new BigDecimal("20.00").compareTo(ledger.currentBalance(TENANT, accountId).orElseThrow()));
+        transactionService.createTransaction(accountId, new TransactionRequest("WITHDRAWAL", new BigDecimal("5.00")));
+        awaitPersisted(accountId, "15.00", 21);
+    }
+
+    @Test
+    void postingsNeedTheTenantsLease() throws InterruptedException {
+        UUID accountId = account("10.00");
+        TenantContext.setTenantId(TENANT);
+        transactionService.createTransaction(accountId, new TransactionRequest("DEPOSIT", new BigDecimal("5.00")));
+        awaitPersisted(accountId, "15.00", 1);
+
+        // Another node holds the lease: this one stops serving the tenant at its next heartbeat
+        String node = ownerRepository.findById(TENANT).orElseThrow().getLeaseOwner();
+        ownerRepository.save(new LedgerOwner(TENANT, "other-node", LocalDateTime.now().plusMinutes(5)));
+        ledger.heartbeat();
+        assertThrows(RejectedExecutionException.class, () -> transactionService.createTransaction(
+                accountId, new TransactionRequest("DEPOSIT", new BigDecimal("1.00"))));
+        assertFalse(ledger.currentBalance(TENANT, accountId).isPresent());
+
+        // Which posts 2.00 and releases the tenant; this node takes over from the database
+        adjustStoredBalance(accountId, "2.00");
+        ownerRepository.save(new LedgerOwner(TENANT, "other-node", null));
+        ledger.heartbeat();
+        transactionService.createTransaction(accountId, new TransactionRequest("DEPOSIT", new BigDecimal("1.00")));
+
+        assertEquals(0, new BigDecimal("18.00").compareTo(ledger.currentBalance(TENANT, accountId).orElseThrow()));
+        assertEquals(node, ownerRepository.findById(TENANT).orElseThrow().getLeaseOwner());
+        awaitPersisted(accountId, "18.00", 2);
+    }
+
+    @Test
+    void postingIsNotPersistedWithoutItsBalanceChange() throws InterruptedException {
+        UUID accountId = account("100.00");
+        TenantContext.setTenantId(TENANT);
+        transactionService.createTransaction(accountId, new TransactionRequest("DEPOSIT", new BigDecimal("10.00")));
+        awaitPersisted(accountId, "110.00", 1);
+
+        // The stored balance is changed behind the ledger's back: the withdrawal cannot be applied
+        adjustStoredBalance(accountId, "-110.00");
+        transactionService.createTransaction(accountId, new TransactionRequest("WITHDRAWAL", new BigDecimal("50.00")));
+        Thread.sleep(1500);
+        assertEquals(1, transactionRepository.countByAccountIdAndTenantId(accountId, TENANT));
+
+        // Once the row is put right, the retried batch commits posting and balance change together
+        adjustStoredBalance(accountId, "110.00");
+        awaitPersisted(accountId, "60.00", 2);
+    }
+
+    private void adjustStoredBalance(UUID accountId, String delta) {
+        transactionTemplate.executeWithoutResult(status ->
+                accountRepository.applyBalanceDelta(accountId, TENANT, new BigDecimal(delta)));
+    }
+
+    private UUID account(String balance) {
+        return accountRepository.save(new Account(TENANT, "Ledger", new BigDecimal(balance))).getAccountId();
+    }
+
+    /**
+     * Wait until the database holds the given balance and number of transactions
+     */
+    private void awaitPersisted(UUID accountId, String balance, long transactions) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            BigDecimal stored = accountRepository.findById(accountId).orElseThrow().getBalance();
+            long count = transactionRepository.countByAccountIdAndTenantId(accountId, TENANT);
+            if (stored.compareTo(new BigDecimal(balance)) == 0 && count == transactions) {
+                return;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("database has balance " + stored + " and " + count + " transactions");
+            }
+            Thread.sleep(20);
+        }
+    }
+}
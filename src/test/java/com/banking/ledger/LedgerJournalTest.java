@@ -0,0 +1,168 @@
+package com.banking.ledger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LedgerJournalTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysRecordsAcrossSegmentsInOrder() throws IOException {
+        List<Long> ends = new ArrayList<>();
+        try (LedgerJournal journal = LedgerJournal.open(dir, SEGMENT_SIZE, false, 0, 0, this::fail)) {
+            journal.append(LedgerRecord.open(1, 1, "BANK001", 0));
+            for (int i = 0; i < 2_000; i++) {
+                ends.add(journal.append(post(i)));
+            }
+            journal.force();
+        }
+        assertTrue(segments().size() > 1, "expected the journal to roll over");
+
+        List<LedgerRecord> replayed = new ArrayList<>();
+        List<Long> replayedEnds = new ArrayList<>();
+        try (LedgerJournal journal = LedgerJournal.open(dir, SEGMENT_SIZE, false, 0, 0, (position, end, record) -> {
+            replayed.add(record);
+            replayedEnds.add(end);
+        })) {
+            assertEquals((long) ends.get(ends.size() - 1), journal.position());
+        }
+
+        assertEquals(2_001, replayed.size());
+        assertEquals(LedgerRecord.OPEN, replayed.get(0).type);
+        for (int i = 0; i < 2_000; i++) {
+            LedgerRecord record = replayed.get(i + 1);
+            assertEquals(i + 1, record.cents);
+            assertEquals(i, record.transactionLo);
+            assertEquals(ends.get(i), replayedEnds.get(i + 1));
+        }
+    }
+
+    @Test
+    void replayStartsAtTheGivenPosition() throws IOException {
+        long middle;
+        try (LedgerJournal journal = LedgerJournal.open(dir, SEGMENT_SIZE, false, 0, 0, this::fail)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(post(i));
+            }
+            middle = journal.position();
+            for (int i = 10; i < 20; i++) {
+                journal.append(post(i));
+            }
+        }
+
+        List<LedgerRecord> replayed = new ArrayList<>();
+        LedgerJournal.open(dir, SEGMENT_SIZE, false, middle, 0, (position, end, record) -> replayed.add(record)).close();
+
+        assertEquals(10, replayed.size());
+        assertEquals(10, replayed.get(0).transactionLo);
+    }
+
+    @Test
+    void tornRecordEndsTheJournalAndIsOverwritten() throws IOException {
+        long tornAt;
+        try (LedgerJournal journal = LedgerJournal.open(dir, SEGMENT_SIZE, false, 0, 0, this::fail)) {
+            for (int i = 0; i < 5; i++) {
+                journal.append(post(i));
+            }
+            tornAt = journal.position();
+            for (int i = 5; i < 8; i++) {
+                journal.append(post(i));
+            }
+        }
+        // A crash that wrote the 6th frame's header but not all of its payload;
+        // the 7th and 8th frames made it to disk
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[12]), tornAt + 8);
+        }
+
+        List<LedgerRecord> replayed = new ArrayList<>();
+        try (LedgerJournal journal = LedgerJournal.open(dir, SEGMENT_SIZE, false, 0, 0,
+                (position, end, record) -> replayed.add(record))) {
+            assertEquals(5, replayed.size());
+            assertEquals(tornAt, journal.position());
+            journal.append(post(100));
+        }
+
+        // The stale 7th and 8th frames are gone, not replayed after the new one
+        replayed.clear();
+        LedgerJournal.open(dir, SEGMENT_SIZE, false, 0, 0, (position, end, record) -> replayed.add(record)).close();
+        assertEquals(6, replayed.size());
+        assertEquals(100, replayed.get(5).transactionLo);
+    }
+
+    @Test
+    void deletesSegmentsBeforeAPosition() throws IOException {
+        try (LedgerJournal journal = LedgerJournal.open(dir, SEGMENT_SIZE, false, 0, 0, this::fail)) {
+            for (int i = 0; i < 5_000; i++) {
+                journal.append(post(i));
+            }
+            int before = segments().size();
+            assertTrue(before > 2);
+
+            journal.deleteBefore(journal.position());
+
+            // Only the segment being written is left
+            assertEquals(1, segments().size());
+        }
+    }
+
+    @Test
+    void accountTableSurvivesRemovalsInsideProbeSequences() {
+        LedgerAccountTable table = new LedgerAccountTable(16);
+        Random random = new Random(42);
+        List<long[]> keys = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            long[] key = {random.nextLong(), random.nextLong()};
+            keys.add(key);
+            table.put(key[0], key[1], "BANK001", i);
+        }
+        for (int i = 0; i < keys.size(); i += 2) {
+            assertTrue(table.remove(keys.get(i)[0], keys.get(i)[1]));
+        }
+
+        assertEquals(5_000, table.size());
+        for (int i = 0; i < keys.size(); i++) {
+            int slot = table.indexOf(keys.get(i)[0], keys.get(i)[1]);
+            if (i % 2 == 0) {
+                assertEquals(-1, slot);
+            } else {
+                assertEquals(i, table.balanceAt(slot));
+            }
+        }
+    }
+
+    private static LedgerRecord post(int i) {
+        return LedgerRecord.post(1, 1, "BANK001", 0x0190000000007000L, i, true, i + 1,
+                LocalDateTime.of(2025, 1, 1, 0, 0).plusNanos(i));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("journal-")).sorted().toList();
+        }
+    }
+
+    private void fail(long position, long end, LedgerRecord record) {
+        throw new AssertionError("empty journal replayed a record");
+    }
+}
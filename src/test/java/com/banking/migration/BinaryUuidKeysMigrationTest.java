@@ -0,0 +1,67 @@
+package com.banking.migration;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Migrates a database that still has VARCHAR UUID keys and checks that every
+ * existing ID (and account reference) survives the move to BINARY(16)
+ */
+class BinaryUuidKeysMigrationTest {
+
+    private static final String ACCOUNT_ID = "550e8400-e29b-41d4-a716-446655440000";
+    private static final String TRANSACTION_ID = "660e8400-e29b-41d4-a716-446655440001";
+    private static final String JOB_ID = "770e8400-e29b-41d4-a716-446655440002";
+
+    @Test
+    void convertsExistingStringIdsToTheSameBinaryUuids() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:uuid-migration;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+
+        // Schema as it was before V3, with one row in every table
+        flyway(dataSource, "2").migrate();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO accounts VALUES ('" + ACCOUNT_ID + "', 'BANK001', 'Alice', 100.00, NOW())");
+            statement.execute("INSERT INTO transactions VALUES ('" + TRANSACTION_ID + "', '" + ACCOUNT_ID
+                    + "', 'BANK001', 'DEPOSIT', 100.00, NOW())");
+            statement.execute("INSERT INTO statement_jobs (job_id, account_id, tenant_id, start_date, end_date, "
+                    + "status, created_at) VALUES ('" + JOB_ID + "', '" + ACCOUNT_ID
+                    + "', 'BANK001', NOW(), NOW(), 'COMPLETED', NOW())");
+        }
+
+        flyway(dataSource, "3").migrate();
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            assertEquals(ACCOUNT_ID, singleUuid(statement, "SELECT account_id FROM accounts"));
+            assertEquals(TRANSACTION_ID, singleUuid(statement, "SELECT transaction_id FROM transactions"));
+            assertEquals(ACCOUNT_ID, singleUuid(statement, "SELECT account_id FROM transactions"));
+            assertEquals(JOB_ID, singleUuid(statement, "SELECT job_id FROM statement_jobs"));
+            assertEquals(ACCOUNT_ID, singleUuid(statement, "SELECT account_id FROM statement_jobs"));
+        }
+    }
+
+    private Flyway flyway(JdbcDataSource dataSource, String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .javaMigrations(new V3__BinaryUuidKeys())
+                .target(target)
+                .load();
+    }
+
+    private String singleUuid(Statement statement, String sql) throws Exception {
+        try (ResultSet rows = statement.executeQuery(sql)) {
+            rows.next();
+            ByteBuffer bytes = ByteBuffer.wrap(rows.getBytes(1));
+            return new UUID(bytes.getLong(), bytes.getLong()).toString();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.banking.migration;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Insert throughput and index size of the transactions table with
+ * random VARCHAR(36) UUIDv4 keys (before V3) versus BINARY(16) UUIDv7 keys (after).
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=PrimaryKeyLayoutBenchmark
+ *
+ * Options (system properties):
+ * - benchmark.rows: rows inserted per layout (default 2,000,000)
+ * - benchmark.url / benchmark.user / benchmark.password: target database
+ *   (default: one H2 file database per layout under target/benchmark).
+ *   Against MySQL the table and index sizes come from information_schema.
+ */
+@Tag("benchmark")
+class PrimaryKeyLayoutBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 2_000_000);
+    private static final int BATCH_SIZE = 1000;
+    private static final int ACCOUNTS = 10_000;
+
+    private enum Layout {
+        VARCHAR_UUID_V4("VARCHAR(36)"),
+        BINARY_UUID_V7("BINARY(16)");
+
+        final String columnType;
+
+        Layout(String columnType) {
+            this.columnType = columnType;
+        }
+    }
+
+    @Test
+    void compareKeyLayouts() throws Exception {
+        for (Layout layout : Layout.values()) {
+            run(layout);
+        }
+    }
+
+    private void run(Layout layout) throws Exception {
+        String table = "bench_transactions_" + layout.name().toLowerCase();
+        String url = System.getProperty("benchmark.url",
+                "jdbc:h2:file:./target/benchmark/" + table + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+
+        try (Connection connection = DriverManager.getConnection(url,
+                System.getProperty("benchmark.user", "sa"), System.getProperty("benchmark.password", ""))) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS " + table);
+                statement.execute("CREATE TABLE " + table + " ("
+                        + "transaction_id " + layout.columnType + " NOT NULL, "
+                        + "account_id " + layout.columnType + " NOT NULL, "
+                        + "tenant_id VARCHAR(255) NOT NULL, "
+                        + "type VARCHAR(20) NOT NULL, "
+                        + "amount DECIMAL(19, 2) NOT NULL, "
+                        + "timestamp DATETIME(6) NOT NULL, "
+                        + "PRIMARY KEY (transaction_id))");
+                statement.execute("CREATE INDEX idx_" + table + " ON " + table
+                        + " (tenant_id, account_id, timestamp, transaction_id)");
+            }
+
+            Object[] accounts = new Object[ACCOUNTS];
+            for (int i = 0; i < ACCOUNTS; i++) {
+                accounts[i] = id(layout);
+            }
+
+            connection.setAutoCommit(false);
+            long start = System.nanoTime();
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + table
+                    + " VALUES (?, ?, 'BANK001', 'DEPOSIT', 10.00, ?)")) {
+                for (int i = 1; i <= ROWS; i++) {
+                    insert.setObject(1, id(layout));
+                    insert.setObject(2, accounts[ThreadLocalRandom.current().nextInt(ACCOUNTS)]);
+                    insert.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+                    insert.addBatch();
+                    if (i % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                }
+                insert.executeBatch();
+                connection.commit();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%-16s %,d rows in %.1f s = %,.0f rows/s, %s%n",
+                    layout, ROWS, seconds, ROWS / seconds, sizes(connection, url, table));
+        }
+    }
+
+    private Object id(Layout layout) {
+        if (layout == Layout.VARCHAR_UUID_V4) {
+            return UUID.randomUUID().toString();
+        }
+        UUID uuid = uuidV7();
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    /**
+     * 48-bit millisecond timestamp, version 7, random remainder (RFC 9562)
+     */
+    private UUID uuidV7() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    private String sizes(Connection connection, String url, String table) throws Exception {
+        if (url.startsWith("jdbc:mysql")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE TABLE " + table);
+                try (ResultSet rows = statement.executeQuery("SELECT data_length, index_length "
+                        + "FROM information_schema.tables WHERE table_schema = DATABASE() "
+                        + "AND table_name = '" + table + "'")) {
+                    rows.next();
+                    return String.format("clustered (data) %,d MB, secondary indexes %,d MB",
+                            rows.getLong(1) >> 20, rows.getLong(2) >> 20);
+                }
+            }
+        }
+        // H2 keeps one database per layout, so the file size is the table plus its indexes
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CHECKPOINT SYNC");
+        }
+        File file = new File("target/benchmark/" + table + ".mv.db");
+        return String.format("database file %,d MB", file.length() >> 20);
+    }
+}
@@ -0,0 +1,276 @@
+package com.banking.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the Flyway migrations on the embedded database and checks the query plan
+ * of every finder declared in the repository package.
+ *
+ * Each repository method is listed below with the SQL Hibernate issues for it
+ * and the index the plan must use. Adding a repository method without a plan
+ * entry fails the build.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RepositoryQueryPlanTest {
+
+    private static final String PRIMARY_KEY = "primary_key";
+
+    // IDs are BINARY(16) UUIDs
+    private static final String ID = "X'01900000000070008000000000000001'";
+    private static final String ID2 = "X'01900000000070008000000000000002'";
+
+    // Both seek on tenant_id. H2 breaks the tie on the empty test database by
+    // picking the narrower index; MySQL uses the created_at one for the pages
+    // as it also covers their sort order.
+    private static final String ACCOUNTS_BY_TENANT = "idx_accounts_tenant_created|idx_accounts_tenant_account";
+    // (tenant_id, account_id) is as selective as the primary key for a tenant's account
+    private static final String ACCOUNT_BY_ID = PRIMARY_KEY + "|idx_accounts_tenant_account";
+
+    private static final Map<String, QueryPlan> PLANS = new LinkedHashMap<>();
+
+    static {
+        // AccountRepository
+        plan("AccountRepository.findFirstPage", ACCOUNTS_BY_TENANT,
+                "SELECT * FROM accounts WHERE tenant_id = 'T' ORDER BY created_at, account_id LIMIT 51");
+        plan("AccountRepository.findPageAfter", ACCOUNTS_BY_TENANT,
+                "SELECT * FROM accounts WHERE tenant_id = 'T' AND (created_at > TIMESTAMP '2025-01-01 00:00:00' " +
+                        "OR (created_at = TIMESTAMP '2025-01-01 00:00:00' AND account_id > " + ID + ")) " +
+                        "ORDER BY created_at, account_id LIMIT 51");
+        plan("AccountRepository.countByTenantId", ACCOUNTS_BY_TENANT,
+                "SELECT COUNT(account_id) FROM accounts WHERE tenant_id = 'T'");
+        plan("AccountRepository.findByAccountIdAndTenantId", ACCOUNT_BY_ID,
+                "SELECT * FROM accounts WHERE account_id = " + ID + " AND tenant_id = 'T'");
+        plan("AccountRepository.existsByAccountIdAndTenantId", PRIMARY_KEY + "|" + ACCOUNTS_BY_TENANT,
+                "SELECT account_id FROM accounts WHERE account_id = " + ID + " AND tenant_id = 'T' LIMIT 1");
+        plan("AccountRepository.findUpdatedAt", ACCOUNT_BY_ID,
+                "SELECT updated_at FROM accounts WHERE account_id = " + ID + " AND tenant_id = 'T'");
+        plan("AccountRepository.findAllForUpdate", ACCOUNT_BY_ID,
+                "SELECT * FROM accounts WHERE tenant_id = 'T' AND account_id IN (" + ID + ", " + ID2 + ") " +
+                        "ORDER BY account_id FOR UPDATE");
+        plan("AccountRepository.applyBalanceDelta", ACCOUNT_BY_ID,
+                "UPDATE accounts SET balance = balance + 1 WHERE account_id = " + ID + " AND tenant_id = 'T' " +
+                        "AND balance + 1 >= 0");
+        plan("AccountRepository.setBalanceSlots", ACCOUNT_BY_ID,
+                "UPDATE accounts SET balance_slots = 4 WHERE account_id = " + ID + " AND tenant_id = 'T'");
+        plan("AccountRepository.findByAccountIdGreaterThanOrderByAccountId", PRIMARY_KEY,
+                "SELECT * FROM accounts WHERE account_id > " + ID + " ORDER BY account_id LIMIT 500");
+        plan("AccountRepository.findAccountIdsAfter", "idx_accounts_tenant_account",
+                "SELECT account_id FROM accounts WHERE tenant_id = 'T' AND account_id > " + ID +
+                        " ORDER BY account_id LIMIT 500");
+        plan("AccountRepository.findByTenantIdAndAccountIdBetweenOrderByAccountId", "idx_accounts_tenant_account",
+                "SELECT * FROM accounts WHERE tenant_id = 'T' AND account_id BETWEEN " + ID + " AND " + ID2 +
+                        " ORDER BY account_id");
+        plan("AccountRepository.deleteByAccountIdAndTenantId", ACCOUNT_BY_ID,
+                "DELETE FROM accounts WHERE account_id = " + ID + " AND tenant_id = 'T'");
+
+        // AccountBalanceSlotRepository
+        plan("AccountBalanceSlotRepository.addToSlot", PRIMARY_KEY,
+                "UPDATE account_balance_slots SET balance = balance + 1 WHERE tenant_id = 'T' AND account_id = " + ID +
+                        " AND slot = 3");
+        plan("AccountBalanceSlotRepository.findAllForUpdate", PRIMARY_KEY,
+                "SELECT * FROM account_balance_slots WHERE tenant_id = 'T' AND account_id = " + ID +
+                        " ORDER BY slot FOR UPDATE");
+        plan("AccountBalanceSlotRepository.clearSlots", PRIMARY_KEY,
+                "UPDATE account_balance_slots SET balance = 0 WHERE tenant_id = 'T' AND account_id = " + ID);
+        plan("AccountBalanceSlotRepository.deleteByTenantIdAndAccountId", PRIMARY_KEY,
+                "DELETE FROM account_balance_slots WHERE tenant_id = 'T' AND account_id = " + ID);
+
+        // TransactionRepository
+        plan("TransactionRepository.findFirstPage", "idx_transactions_tenant_account_ts",
+                "SELECT * FROM transactions WHERE account_id = " + ID + " AND tenant_id = 'T' " +
+                        "ORDER BY timestamp, transaction_id LIMIT 51");
+        plan("TransactionRepository.findPageAfter", "idx_transactions_tenant_account_ts",
+                "SELECT * FROM transactions WHERE account_id = " + ID + " AND tenant_id = 'T' " +
+                        "AND (timestamp > TIMESTAMP '2025-01-01 00:00:00' " +
+                        "OR (timestamp = TIMESTAMP '2025-01-01 00:00:00' AND transaction_id > " + ID + ")) " +
+                        "ORDER BY timestamp, transaction_id LIMIT 51");
+        plan("TransactionRepository.streamByAccount", "idx_transactions_tenant_account_ts",
+                "SELECT * FROM transactions WHERE account_id = " + ID + " AND tenant_id = 'T' " +
+                        "ORDER BY timestamp, transaction_id");
+        plan("TransactionRepository.streamForAccountRange", "idx_transactions_tenant_account_ts",
+                "SELECT * FROM transactions WHERE tenant_id = 'T' AND account_id BETWEEN " + ID + " AND " + ID2 +
+                        " AND timestamp >= TIMESTAMP '2025-01-01 00:00:00' AND timestamp < TIMESTAMP '2025-02-01 00:00:00' " +
+                        "ORDER BY account_id, timestamp, transaction_id");
+        plan("TransactionRepository.countByAccountIdAndTenantId", "idx_transactions_tenant_account_ts",
+                "SELECT COUNT(transaction_id) FROM transactions WHERE account_id = " + ID + " AND tenant_id = 'T'");
+        plan("TransactionRepository.findInRange", "idx_transactions_tenant_account_ts",
+                "SELECT * FROM transactions WHERE account_id = " + ID + " AND tenant_id = 'T' " +
+                        "AND timestamp >= TIMESTAMP '2025-01-01 00:00:00' AND timestamp < TIMESTAMP '2025-02-01 00:00:00' " +
+                        "ORDER BY timestamp, transaction_id");
+        plan("TransactionRepository.countBefore", "idx_transactions_tenant_account_ts",
+                "SELECT COUNT(transaction_id) FROM transactions WHERE account_id = " + ID + " AND tenant_id = 'T' " +
+                        "AND timestamp < TIMESTAMP '2025-02-01 00:00:00'");
+        plan("TransactionRepository.sumDeltaInRange", "idx_transactions_tenant_account_ts",
+                "SELECT SUM(CASE WHEN type = 'DEPOSIT' THEN amount ELSE -amount END) FROM transactions " +
+                        "WHERE account_id = " + ID + " AND tenant_id = 'T' " +
+                        "AND timestamp >= TIMESTAMP '2025-01-01 00:00:00' AND timestamp < TIMESTAMP '2025-01-02 00:00:00'");
+        plan("TransactionRepository.sumDeltaSince", "idx_transactions_tenant_account_ts",
+                "SELECT SUM(CASE WHEN type = 'DEPOSIT' THEN amount ELSE -amount END) FROM transactions " +
+                        "WHERE account_id = " + ID + " AND tenant_id = 'T' AND timestamp >= TIMESTAMP '2025-01-01 00:00:00'");
+        plan("TransactionRepository.insertIfAbsent", PRIMARY_KEY,
+                "INSERT INTO transactions (transaction_id, account_id, tenant_id, type, amount, timestamp) " +
+                        "SELECT " + ID + ", " + ID2 + ", 'T', 'DEPOSIT', 1.00, TIMESTAMP '2025-01-01 00:00:00' FROM DUAL " +
+                        "WHERE NOT EXISTS (SELECT 1 FROM transactions WHERE transaction_id = " + ID + ")");
+
+        // BalanceCheckpointRepository
+        plan("BalanceCheckpointRepository.findFirstByTenantIdAndAccountIdAndCheckpointDateBeforeOrderByCheckpointDateDesc",
+                PRIMARY_KEY, "SELECT * FROM balance_checkpoints WHERE tenant_id = 'T' AND account_id = " + ID +
+                        " AND checkpoint_date < DATE '2025-01-01' ORDER BY checkpoint_date DESC LIMIT 1");
+        plan("BalanceCheckpointRepository.findFirstByTenantIdAndAccountIdAndCheckpointDateGreaterThanEqualOrderByCheckpointDateAsc",
+                PRIMARY_KEY, "SELECT * FROM balance_checkpoints WHERE tenant_id = 'T' AND account_id = " + ID +
+                        " AND checkpoint_date >= DATE '2025-01-01' ORDER BY checkpoint_date LIMIT 1");
+        plan("BalanceCheckpointRepository.applyLateDelta", PRIMARY_KEY,
+                "UPDATE balance_checkpoints SET balance = balance + 1.00 WHERE tenant_id = 'T' AND account_id = " + ID +
+                        " AND checkpoint_date >= DATE '2025-01-01'");
+        plan("BalanceCheckpointRepository.deleteByTenantIdAndAccountId", PRIMARY_KEY,
+                "DELETE FROM balance_checkpoints WHERE tenant_id = 'T' AND account_id = " + ID);
+
+        // StatementJobRepository
+        plan("StatementJobRepository.findByJobIdAndTenantId", PRIMARY_KEY,
+                "SELECT * FROM statement_jobs WHERE job_id = " + ID + " AND tenant_id = 'T'");
+        plan("StatementJobRepository.findByRunIdAndAccountIdGreaterThanOrderByAccountId", "idx_statement_jobs_run_account",
+                "SELECT * FROM statement_jobs WHERE run_id = " + ID + " AND account_id > " + ID2 +
+                        " ORDER BY account_id LIMIT 101");
+        plan("StatementJobRepository.findQueueStats", "idx_statement_jobs_tenant_queue",
+                "SELECT tenant_id, priority, COUNT(*), MIN(next_attempt_at) FROM statement_jobs " +
+                        "WHERE status = 'PENDING' GROUP BY tenant_id, priority");
+        plan("StatementJobRepository.claimNextForTenant", "idx_statement_jobs_tenant_queue",
+                "SELECT * FROM statement_jobs WHERE status = 'PENDING' AND tenant_id = 'BANK001' " +
+                        "AND priority = 'INTERACTIVE' AND next_attempt_at <= TIMESTAMP '2025-01-01 00:00:00' " +
+                        "ORDER BY next_attempt_at LIMIT 10 FOR UPDATE SKIP LOCKED");
+        plan("StatementJobRepository.findExpiredLeases", "idx_statement_jobs_lease",
+                "SELECT * FROM statement_jobs WHERE status = 'PROCESSING' " +
+                        "AND lease_expires_at < TIMESTAMP '2025-01-01 00:00:00' ORDER BY lease_expires_at LIMIT 100 " +
+                        "FOR UPDATE SKIP LOCKED");
+        plan("StatementJobRepository.findByIdForUpdate", PRIMARY_KEY,
+                "SELECT * FROM statement_jobs WHERE job_id = " + ID + " FOR UPDATE");
+        plan("StatementJobRepository.extendLeases", PRIMARY_KEY,
+                "UPDATE statement_jobs SET lease_expires_at = TIMESTAMP '2025-01-01 00:05:00' " +
+                        "WHERE job_id IN (" + ID + ", " + ID2 + ") AND lease_owner = 'node-1' AND status = 'PROCESSING'");
+        plan("StatementJobRepository.findByStatusAndExpiresAtBefore", "idx_statement_jobs_status_expires",
+                "SELECT * FROM statement_jobs WHERE status = 'COMPLETED' " +
+                        "AND expires_at < TIMESTAMP '2025-01-01 00:00:00' LIMIT 500");
+
+        // StatementRunRepository
+        plan("StatementRunRepository.findByRunIdAndTenantId", PRIMARY_KEY,
+                "SELECT * FROM statement_runs WHERE run_id = " + ID + " AND tenant_id = 'T'");
+        plan("StatementRunRepository.claimRunnable", "idx_statement_runs_status_lease",
+                "SELECT * FROM statement_runs WHERE status IN ('PENDING', 'PROCESSING') " +
+                        "AND lease_expires_at <= TIMESTAMP '2025-01-01 00:00:00' ORDER BY lease_expires_at LIMIT 1 " +
+                        "FOR UPDATE SKIP LOCKED");
+        plan("StatementRunRepository.findByIdForUpdate", PRIMARY_KEY,
+                "SELECT * FROM statement_runs WHERE run_id = " + ID + " FOR UPDATE");
+        plan("StatementRunRepository.extendLease", PRIMARY_KEY,
+                "UPDATE statement_runs SET lease_expires_at = TIMESTAMP '2025-01-01 00:05:00' " +
+                        "WHERE run_id = " + ID + " AND lease_owner = 'node-1' AND status = 'PROCESSING'");
+
+        // LedgerOwnerRepository
+        plan("LedgerOwnerRepository.findByIdForUpdate", PRIMARY_KEY,
+                "SELECT * FROM ledger_owners WHERE tenant_id = 'T' FOR UPDATE");
+        plan("LedgerOwnerRepository.extendLease", PRIMARY_KEY,
+                "UPDATE ledger_owners SET lease_expires_at = TIMESTAMP '2025-01-01 00:05:00' " +
+                        "WHERE tenant_id = 'T' AND lease_owner = 'node-1' AND lease_expires_at IS NOT NULL");
+        plan("LedgerOwnerRepository.release", PRIMARY_KEY,
+                "UPDATE ledger_owners SET lease_expires_at = NULL WHERE tenant_id = 'T' AND lease_owner = 'node-1'");
+
+        // StatementRunPartitionRepository
+        plan("StatementRunPartitionRepository.findByRunIdOrderByPartitionNo", PRIMARY_KEY,
+                "SELECT * FROM statement_run_partitions WHERE run_id = " + ID + " ORDER BY partition_no");
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void everyRepositoryMethodHasAPlanEntry() {
+        Set<String> declared = new TreeSet<>();
+        for (Class<?> repository : repositoryInterfaces()) {
+            for (Method method : repository.getDeclaredMethods()) {
+                declared.add(repository.getSimpleName() + "." + method.getName());
+            }
+        }
+
+        assertEquals(declared, new TreeSet<>(PLANS.keySet()),
+                "Add a query plan entry for every repository method");
+    }
+
+    @Test
+    void everyRepositoryQueryUsesAnIndex() {
+        PLANS.forEach((method, plan) -> {
+            String explain = String.join("\n",
+                    jdbcTemplate.queryForList("EXPLAIN " + plan.sql, String.class)).toLowerCase();
+
+            assertFalse(explain.contains("tablescan"), method + " scans the table:\n" + explain);
+            assertTrue(usesAny(explain, plan.expectedIndex), method + " does not use "
+                    + plan.expectedIndex + ":\n" + explain);
+        });
+    }
+
+    /**
+     * expectedIndex may list alternatives separated by "|" when the optimizer
+     * can legitimately pick either (e.g. a covering secondary index)
+     */
+    private static boolean usesAny(String explain, String expectedIndex) {
+        for (String index : expectedIndex.split("\\|")) {
+            if (explain.contains(index)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void plan(String method, String expectedIndex, String sql) {
+        PLANS.put(method, new QueryPlan(expectedIndex, sql));
+    }
+
+    private static Set<Class<?>> repositoryInterfaces() {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                return beanDefinition.getMetadata().isInterface();
+            }
+        };
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Repository.class));
+
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (BeanDefinition candidate : scanner.findCandidateComponents(RepositoryQueryPlanTest.class.getPackageName())) {
+            try {
+                interfaces.add(Class.forName(candidate.getBeanClassName()));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return interfaces;
+    }
+
+    private static class QueryPlan {
+        final String expectedIndex;
+        final String sql;
+
+        QueryPlan(String expectedIndex, String sql) {
+            this.expectedIndex = expectedIndex;
+            this.sql = sql;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.banking.service;
+
+import com.banking.config.TenantContext;
+import com.banking.dto.AccountRequest;
+import com.banking.dto.BatchTransactionItem;
+import com.banking.dto.BatchTransactionResult;
+import com.banking.dto.TransactionRequest;
+import com.banking.entity.Account;
+import com.banking.repository.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "banking.datasource.bulkhead.enabled=false")
+class AccountBalanceSlotsTest {
+
+    private static final String TENANT = "BANK-HOT";
+
+    @Autowired
+    private AccountBalanceSlots balanceSlots;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setTenant() {
+        TenantContext.setTenantId(TENANT);
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void depositsGoToSlotsAndReadsSeeOneBalance() {
+        UUID accountId = hotAccount("100.00", 4);
+
+        for (int i = 0; i < 10; i++) {
+            deposit(accountId, "10.00");
+        }
+
+        // The account row is untouched, the slots hold the deposits
+        assertEquals(0, new BigDecimal("100.00").compareTo(rowBalance(accountId)));
+        assertEquals(0, new BigDecimal("100.00").compareTo(slotTotal(accountId)));
+        assertEquals(0, new BigDecimal("200.00").compareTo(accountService.getAccountById(accountId).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("200.00").compareTo(accountService.getAccounts(null, 500).getItems().stream()
+                .filter(view -> view.getAccountId().equals(accountId)).findFirst().orElseThrow().getBalance()));
+    }
+
+    @Test
+    void withdrawalsCollectTheSlotsWhenNeeded() {
+        UUID accountId = hotAccount("10.00", 4);
+        deposit(accountId, "50.00");
+        deposit(accountId, "40.00");
+
+        // 10 in the row, 90 in the slots
+        transactionService.createTransaction(accountId, new TransactionRequest("WITHDRAWAL", new BigDecimal("95.00")));
+        assertEquals(0, new BigDecimal("5.00").compareTo(rowBalance(accountId)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(slotTotal(accountId)));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> transactionService.createTransaction(accountId,
+                new TransactionRequest("WITHDRAWAL", new BigDecimal("5.01"))));
+        assertEquals("Insufficient balance", e.getMessage());
+    }
+
+    @Test
+    void batchesSeeTheSlots() {
+        UUID accountId = hotAccount("0.00", 2);
+        deposit(accountId, "30.00");
+
+        List<BatchTransactionResult> results = transactionService.createTransactionsBatch(List.of(
+                new BatchTransactionItem(accountId, "WITHDRAWAL", new BigDecimal("20.00")),
+                new BatchTransactionItem(accountId, "WITHDRAWAL", new BigDecimal("20.00"))));
+
+        assertEquals(BatchTransactionResult.APPLIED, results.get(0).getStatus());
+        assertEquals(BatchTransactionResult.REJECTED, results.get(1).getStatus());
+        assertEquals(0, new BigDecimal("10.00").compareTo(accountService.getAccountById(accountId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void reconfiguringKeepsTheBalance() {
+        UUID accountId = hotAccount("1.00", 8);
+        deposit(accountId, "2.00");
+
+        assertEquals(0, balanceSlots.configure(TENANT, accountId, 0));
+        assertEquals(0, new BigDecimal("3.00").compareTo(rowBalance(accountId)));
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM account_balance_slots "
+                + "WHERE tenant_id = ? AND account_id = ?", Long.class, TENANT, uuidBytes(accountId)));
+
+        // Deposits go to the account row again
+        deposit(accountId, "4.00");
+        assertEquals(0, new BigDecimal("7.00").compareTo(accountService.getAccountById(accountId).orElseThrow().getBalance()));
+
+        // Updating the account replaces the slots too
+        assertEquals(4, balanceSlots.configure(TENANT, accountId, 4));
+        deposit(accountId, "4.00");
+        accountService.updateAccount(accountId, new AccountRequest("Hot", new BigDecimal("50.00")));
+        assertEquals(0, new BigDecimal("50.00").compareTo(accountService.getAccountById(accountId).orElseThrow().getBalance()));
+
+        assertThrows(IllegalArgumentException.class, () -> balanceSlots.configure("BANK-OTHER", accountId, 4));
+    }
+
+    @Test
+    void parallelDepositsAndWithdrawalsKeepTheBalance() throws Exception {
+        UUID accountId = hotAccount("100.00", 8);
+        AtomicInteger withdrawals = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                boolean isDeposit = i % 4 != 0;
+                futures.add(pool.submit(() -> {
+                    TenantContext.setTenantId(TENANT);
+                    try {
+                        if (isDeposit) {
+                            deposit(accountId, "1.00");
+                        } else {
+                            transactionService.createTransaction(accountId,
+                                    new TransactionRequest("WITHDRAWAL", new BigDecimal("3.00")));
+                            withdrawals.incrementAndGet();
+                        }
+                    } catch (RuntimeException e) {
+                        assertEquals("Insufficient balance", e.getMessage());
+                    } finally {
+                        TenantContext.clear();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        BigDecimal expected = new BigDecimal("1600.00").subtract(new BigDecimal("3.00").multiply(
+                BigDecimal.valueOf(withdrawals.get())));
+        assertEquals(0, expected.compareTo(rowBalance(accountId).add(slotTotal(accountId))));
+        assertEquals(0, expected.compareTo(accountService.getAccountById(accountId).orElseThrow().getBalance()));
+    }
+
+    private UUID hotAccount(String balance, int slots) {
+        UUID accountId = accountRepository.save(new Account(TENANT, "Hot", new BigDecimal(balance))).getAccountId();
+        assertEquals(slots, balanceSlots.configure(TENANT, accountId, slots));
+        return accountId;
+    }
+
+    private void deposit(UUID accountId, String amount) {
+        transactionService.createTransaction(accountId, new TransactionRequest("DEPOSIT", new BigDecimal(amount)));
+    }
+
+    private BigDecimal rowBalance(UUID accountId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE account_id = ?",
+                BigDecimal.class, uuidBytes(accountId));
+    }
+
+    private BigDecimal slotTotal(UUID accountId) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(balance), 0) FROM account_balance_slots "
+                + "WHERE tenant_id = ? AND account_id = ?", BigDecimal.class, TENANT, uuidBytes(accountId));
+    }
+
+    private static byte[] uuidBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+}
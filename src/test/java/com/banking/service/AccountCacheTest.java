@@ -0,0 +1,101 @@
+package com.banking.service;
+
+import com.banking.config.TenantContext;
+import com.banking.dto.AccountRequest;
+import com.banking.dto.TransactionRequest;
+import com.banking.entity.Account;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AccountCacheTest {
+
+    private static final String TENANT = "BANK-ACCOUNT-CACHE";
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setTenant() {
+        TenantContext.setTenantId(TENANT);
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void ownershipChecksAreServedFromMemoryPerTenant() {
+        UUID accountId = accountService.createAccount(new AccountRequest("Cached", new BigDecimal("100.00")))
+                .getAccountId();
+
+        accountCache.require(TENANT, accountId);
+        double hitsBefore = count("hit");
+        transactionService.getTransactionsByAccount(accountId, null, 10);
+        assertTrue(count("hit") > hitsBefore);
+
+        // Another tenant never sees the entry
+        assertTrue(accountCache.find("BANK-OTHER", accountId).isEmpty());
+        TenantContext.setTenantId("BANK-OTHER");
+        assertThrows(RuntimeException.class, () -> transactionService.getTransactionsByAccount(accountId, null, 10));
+    }
+
+    @Test
+    void updateAndDeleteInvalidateTheEntry() {
+        UUID accountId = accountService.createAccount(new AccountRequest("Before", new BigDecimal("100.00")))
+                .getAccountId();
+        assertEquals("Before", accountCache.require(TENANT, accountId).getCustomerName());
+
+        accountService.updateAccount(accountId, new AccountRequest("After", new BigDecimal("100.00")));
+        assertEquals("After", accountCache.require(TENANT, accountId).getCustomerName());
+
+        accountService.deleteAccount(accountId);
+        assertTrue(accountCache.find(TENANT, accountId).isEmpty());
+    }
+
+    @Test
+    void withdrawalsAlwaysCheckTheCurrentBalance() {
+        Account account = accountService.createAccount(new AccountRequest("Balance", new BigDecimal("100.00")));
+        UUID accountId = account.getAccountId();
+        accountCache.require(TENANT, accountId);
+
+        transactionService.createTransaction(accountId, new TransactionRequest("WITHDRAWAL", new BigDecimal("80.00")));
+        RuntimeException overdraft = assertThrows(RuntimeException.class, () -> transactionService
+                .createTransaction(accountId, new TransactionRequest("WITHDRAWAL", new BigDecimal("80.00"))));
+        assertEquals("Insufficient balance", overdraft.getMessage());
+
+        transactionService.createTransaction(accountId, new TransactionRequest("DEPOSIT", new BigDecimal("60.00")));
+        transactionService.createTransaction(accountId, new TransactionRequest("WITHDRAWAL", new BigDecimal("80.00")));
+        assertEquals(0, accountService.getAccountById(accountId).orElseThrow().getBalance().compareTo(BigDecimal.ZERO));
+    }
+
+    private double count(String result) {
+        FunctionCounter counter = meterRegistry.find("cache.gets")
+                .tags("cache", "accounts", "result", result).functionCounter();
+        return counter == null ? 0 : counter.count();
+    }
+}
@@ -0,0 +1,115 @@
+package com.banking.service;
+
+import com.banking.config.TenantContext;
+import com.banking.repository.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "banking.accounts.bulk.chunk-size=3",
+        "banking.accounts.bulk.commit-interval=2"
+})
+@ActiveProfiles("test")
+class AccountProvisioningServiceTest {
+
+    private static final String TENANT = "BANK-ONBOARDING";
+
+    @Autowired
+    private AccountProvisioningService provisioningService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @BeforeEach
+    void setTenant() {
+        TenantContext.setTenantId(TENANT);
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void createsAccountsFromNdjsonAcrossSeveralChunksAndCommits() {
+        long before = accountRepository.countByTenantId(TENANT);
+
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            if (i == 7) {
+                body.append("{\"customerName\":\"\",\"balance\":10}\n");
+            } else {
+                body.append("{\"customerName\":\"Customer ").append(i).append("\",\"balance\":10}\n");
+            }
+        }
+
+        String[] lines = run(body.toString());
+
+        assertEquals(20, lines.length);
+        assertEquals("{\"index\":7,\"error\":\"Customer name is required\"}", lines[7]);
+        assertTrue(lines[19].startsWith("{\"index\":19,\"accountId\":\""));
+        assertEquals(before + 19, accountRepository.countByTenantId(TENANT));
+    }
+
+    @Test
+    void acceptsJsonArrayAndStopsAtMalformedInput() {
+        String[] lines = run("[{\"customerName\":\"A\",\"balance\":1},{\"customerName\":\"B\",\"balance\":-1},{\"customerName\":");
+
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("{\"index\":0,\"accountId\":\""));
+        assertEquals("{\"index\":1,\"error\":\"Balance must be positive\"}", lines[1]);
+        assertTrue(lines[2].startsWith("{\"index\":2,\"error\":\"Malformed JSON"));
+    }
+
+    @Test
+    void rejectsNullItemsOneByOne() {
+        String[] lines = run("{\"customerName\":\"A\",\"balance\":1}\nnull\n{\"customerName\":\"B\",\"balance\":1}\n");
+
+        assertEquals(3, lines.length);
+        assertEquals("{\"index\":1,\"error\":\"Item must be an account object\"}", lines[1]);
+        assertTrue(lines[2].startsWith("{\"index\":2,\"accountId\":\""));
+    }
+
+    @Test
+    void writesResultsOfInvalidItemsWithoutWaitingForInserts() {
+        // One valid item, then more invalid ones than a transaction holds (3 x 2)
+        StringBuilder body = new StringBuilder("{\"customerName\":\"A\",\"balance\":1}\n");
+        for (int i = 0; i < 10; i++) {
+            body.append("{\"customerName\":\"\",\"balance\":1}\n");
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int[] writtenBeforeEnd = new int[1];
+        InputStream end = new InputStream() {
+            @Override
+            public int read() {
+                writtenBeforeEnd[0] = out.size();
+                return -1;
+            }
+        };
+        provisioningService.createAccounts(new SequenceInputStream(
+                new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)), end), out);
+
+        assertTrue(writtenBeforeEnd[0] > 0);
+        assertEquals(11, out.toString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    private String[] run(String body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        provisioningService.createAccounts(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+        return out.toString(StandardCharsets.UTF_8).split("\n");
+    }
+}
@@ -0,0 +1,141 @@
+package com.banking.service;
+
+import com.banking.config.TenantContext;
+import com.banking.dto.TransactionRequest;
+import com.banking.entity.Account;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.BalanceCheckpointRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BalanceServiceTest {
+
+    private static final String TENANT = "BANK-BALANCES";
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private BalanceCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setTenant() {
+        TenantContext.setTenantId(TENANT);
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void balanceAsOfUsesNearestCheckpointPlusDelta() {
+        LocalDate day1 = LocalDate.now().minusDays(10);
+        LocalDate day2 = day1.plusDays(1);
+        LocalDate day3 = day1.plusDays(2);
+
+        UUID accountId = accountRepository.save(new Account(TENANT, "Balances", new BigDecimal("100.00"))).getAccountId();
+        jdbcTemplate.update("UPDATE accounts SET created_at = ? WHERE account_id = ?",
+                Timestamp.valueOf(day1.atStartOfDay().minusDays(1)), uuidBytes(accountId));
+        post(accountId, "DEPOSIT", "50.00", day1.atTime(10, 0));
+        post(accountId, "WITHDRAWAL", "30.00", day2.atTime(12, 0));
+        post(accountId, "DEPOSIT", "20.00", day3.atTime(9, 0));
+
+        // No checkpoints yet: derived from the current balance (140)
+        assertBalance("150.00", accountId, day2.atStartOfDay());
+        assertBalance("140.00", accountId, null);
+
+        balanceService.closeDay(day1);
+        balanceService.closeDay(day2);
+        assertEquals(0, new BigDecimal("120.00").compareTo(jdbcTemplate.queryForObject(
+                "SELECT balance FROM balance_checkpoints WHERE account_id = ? AND checkpoint_date = ?",
+                BigDecimal.class, uuidBytes(accountId), day2)));
+
+        // Once checkpoints exist, past balances no longer depend on the current balance
+        jdbcTemplate.update("UPDATE accounts SET balance = 999 WHERE account_id = ?", uuidBytes(accountId));
+        assertBalance("150.00", accountId, day1.atTime(23, 0));
+        assertBalance("120.00", accountId, day2.atTime(13, 0));
+        assertBalance("150.00", accountId, day2.atTime(11, 59));
+        assertBalance("140.00", accountId, day3.atTime(10, 0));
+    }
+
+    @Test
+    void daysAreOnlyClosedOnceTheirTransactionsHaveCommitted() {
+        assertThrows(IllegalArgumentException.class, () -> balanceService.closeDay(LocalDate.now()));
+    }
+
+    @Test
+    void lateTransactionIsAddedToTheCheckpointsThatMissedIt() {
+        LocalDate day1 = LocalDate.now().minusDays(5);
+        LocalDate day2 = day1.plusDays(1);
+        UUID accountId = accountRepository.save(new Account(TENANT, "Late", new BigDecimal("100.00"))).getAccountId();
+        jdbcTemplate.update("UPDATE accounts SET created_at = ? WHERE account_id = ?",
+                Timestamp.valueOf(day1.atStartOfDay().minusDays(1)), uuidBytes(accountId));
+        balanceService.closeDay(day1.minusDays(1));
+        balanceService.closeDay(day1);
+        balanceService.closeDay(day2);
+
+        // As LedgerPersister does for a posting of day 1 persisted after the close
+        transactionTemplate.executeWithoutResult(status -> assertEquals(2,
+                checkpointRepository.applyLateDelta(TENANT, accountId, day1, new BigDecimal("5.00"))));
+
+        assertEquals(0, new BigDecimal("100.00").compareTo(checkpoint(accountId, day1.minusDays(1))));
+        assertEquals(0, new BigDecimal("105.00").compareTo(checkpoint(accountId, day1)));
+        assertEquals(0, new BigDecimal("105.00").compareTo(checkpoint(accountId, day2)));
+    }
+
+    private BigDecimal checkpoint(UUID accountId, LocalDate day) {
+        return jdbcTemplate.queryForObject(
+                "SELECT balance FROM balance_checkpoints WHERE account_id = ? AND checkpoint_date = ?",
+                BigDecimal.class, uuidBytes(accountId), day);
+    }
+
+    private void post(UUID accountId, String type, String amount, LocalDateTime timestamp) {
+        UUID transactionId = transactionService.createTransaction(
+                accountId, new TransactionRequest(type, new BigDecimal(amount))).getTransactionId();
+        jdbcTemplate.update("UPDATE transactions SET timestamp = ? WHERE transaction_id = ?",
+                Timestamp.valueOf(timestamp), uuidBytes(transactionId));
+    }
+
+    private void assertBalance(String expected, UUID accountId, LocalDateTime asOf) {
+        BigDecimal actual = balanceService.getBalance(accountId, asOf);
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), "balance as of " + asOf + " was " + actual);
+    }
+
+    private static byte[] uuidBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -0,0 +1,131 @@
+package com.banking.service;
+
+import com.banking.config.TenantContext;
+import com.banking.dto.TransactionRequest;
+import com.banking.entity.Account;
+import com.banking.repository.AccountRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Concurrent deposits to a single account, as a normal account (1 slot: the
+ * account row) and as a hot account with N balance slots. Reports throughput
+ * and p50/p99 latency per deposit.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=HotAccountBenchmark
+ *
+ * Options (system properties):
+ * - benchmark.threads: concurrent depositors (default 32)
+ * - benchmark.deposits: deposits per run (default 20,000)
+ * - benchmark.slots: slots of the hot account (default 16)
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "banking.statements.workers=0",
+        "banking.datasource.bulkhead.enabled=false",
+        "spring.datasource.hikari.maximum-pool-size=${benchmark.threads:32}"
+})
+class HotAccountBenchmark {
+
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 32);
+    private static final int DEPOSITS = Integer.getInteger("benchmark.deposits", 20_000);
+    private static final int SLOTS = Integer.getInteger("benchmark.slots", 16);
+    private static final String TENANT = "BANK-HOT-BENCH";
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountBalanceSlots balanceSlots;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    void compareOneSlotWithManySlots() throws Exception {
+        run("1 slot (account row)", account(0));
+        run(SLOTS + " slots", account(SLOTS));
+    }
+
+    private UUID account(int slots) {
+        UUID accountId = accountRepository.save(new Account(TENANT, "Merchant", BigDecimal.ZERO)).getAccountId();
+        balanceSlots.configure(TENANT, accountId, slots);
+        return accountId;
+    }
+
+    private void run(String name, UUID accountId) throws Exception {
+        // Warm up
+        deposits(accountId, DEPOSITS / 10);
+
+        long start = System.nanoTime();
+        long[] nanos = deposits(accountId, DEPOSITS);
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(nanos);
+        System.out.printf("%-22s %,3d threads: %,8.0f deposits/s, p50 %,6.2f ms, p99 %,6.2f ms%n", name, THREADS,
+                DEPOSITS / (elapsed / 1e9), nanos[DEPOSITS / 2] / 1e6, nanos[(int) (DEPOSITS * 0.99)] / 1e6);
+
+        TenantContext.setTenantId(TENANT);
+        try {
+            BigDecimal expected = BigDecimal.valueOf(DEPOSITS + DEPOSITS / 10);
+            assertEquals(0, expected.compareTo(accountService.getAccountById(accountId).orElseThrow().getBalance()));
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    /**
+     * Deposit 1.00 count times from THREADS threads; latency of each deposit
+     */
+    private long[] deposits(UUID accountId, int count) throws Exception {
+        long[] nanos = new long[count];
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                futures.add(pool.submit(() -> {
+                    TenantContext.setTenantId(TENANT);
+                    try {
+                        start.await();
+                        long begin = System.nanoTime();
+                        transactionService.createTransaction(accountId, new TransactionRequest("DEPOSIT", BigDecimal.ONE));
+                        nanos[index] = System.nanoTime() - begin;
+                    } finally {
+                        TenantContext.clear();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return nanos;
+    }
+}
@@ -0,0 +1,115 @@
+package com.banking.service;
+
+import com.banking.config.TenantContext;
+import com.banking.dto.AccountView;
+import com.banking.dto.PageResponse;
+import com.banking.dto.TransactionRequest;
+import com.banking.dto.TransactionView;
+import com.banking.entity.Account;
+import com.banking.repository.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import tools.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class KeysetPaginationTest {
+
+    private static final String TENANT = "BANK-PAGING";
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setTenant() {
+        TenantContext.setTenantId(TENANT);
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void pagesThroughTransactionsInStableOrderWithoutGapsOrDuplicates() {
+        UUID accountId = accountRepository.save(new Account(TENANT, "Paging", BigDecimal.TEN)).getAccountId();
+        for (int i = 0; i < 23; i++) {
+            transactionService.createTransaction(accountId, new TransactionRequest("DEPOSIT", BigDecimal.ONE));
+        }
+
+        List<TransactionView> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            PageResponse<TransactionView> page = transactionService.getTransactionsByAccount(accountId, cursor, 5);
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(5, pages);
+        assertEquals(23, seen.size());
+        Set<UUID> ids = new HashSet<>();
+        for (int i = 0; i < seen.size(); i++) {
+            ids.add(seen.get(i).getTransactionId());
+            if (i > 0) {
+                assertEquals(-1, Integer.signum(compareKey(seen.get(i - 1), seen.get(i))));
+            }
+        }
+        assertEquals(23, ids.size());
+    }
+
+    @Test
+    void capsPageSizeAndRejectsForeignCursor() {
+        for (int i = 0; i < 3; i++) {
+            accountRepository.save(new Account(TENANT, "Customer " + i, BigDecimal.TEN));
+        }
+
+        PageResponse<AccountView> page = accountService.getAccounts(null, 100000);
+        assertNull(page.getNextCursor());
+        assertEquals(accountRepository.countByTenantId(TENANT), page.getItems().size());
+
+        assertThrows(RuntimeException.class, () -> accountService.getAccounts("not-a-cursor", 10));
+    }
+
+    @Test
+    void listedAccountSerialisesLikeTheAccount() {
+        Account account = accountRepository.save(new Account(TENANT, "Json", new BigDecimal("12.50")));
+        AccountView view = accountService.getAccounts(null, 500).getItems().stream()
+                .filter(v -> v.getAccountId().equals(account.getAccountId()))
+                .findFirst().orElseThrow();
+        Account loaded = accountService.getAccountById(account.getAccountId()).orElseThrow();
+
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(loaded)),
+                objectMapper.readTree(objectMapper.writeValueAsString(view)));
+    }
+
+    private int compareKey(TransactionView a, TransactionView b) {
+        int byTime = a.getTimestamp().compareTo(b.getTimestamp());
+        return byTime != 0 ? byTime : a.getTransactionId().toString().compareTo(b.getTransactionId().toString());
+    }
+}
@@ -0,0 +1,156 @@
+package com.banking.service;
+
+import com.banking.config.TenantContext;
+import com.banking.dto.PageResponse;
+import com.banking.entity.Account;
+import com.banking.entity.Transaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Allocation and latency of listing 10,000 accounts / transactions in one page,
+ * as managed entities in a read-write transaction (the former path) versus
+ * the DTO projections of AccountService.getAccounts and
+ * TransactionService.getTransactionsByAccount. Both include JSON serialisation.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=ListingProjectionBenchmark
+ *
+ * Options (system properties):
+ * - benchmark.rows: rows per listing (default 10,000)
+ * - benchmark.requests: measured requests per path (default 200)
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "banking.statements.workers=0",
+        "banking.pagination.max-page-size=${benchmark.rows:10000}"
+})
+class ListingProjectionBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 10_000);
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 200);
+    private static final String TENANT = "BANK-LISTING";
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void compareEntitiesWithProjections() {
+        UUID accountId = insertRows();
+        TenantContext.setTenantId(TENANT);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        measure("accounts, entities", () -> readWrite.execute(status -> {
+            List<Account> rows = entityManager.createQuery("SELECT a FROM Account a WHERE a.tenantId = :tenantId " +
+                            "ORDER BY a.createdAt, a.accountId", Account.class)
+                    .setParameter("tenantId", TENANT)
+                    .setMaxResults(ROWS + 1)
+                    .getResultList();
+            return objectMapper.writeValueAsBytes(PageResponse.of(rows, ROWS, account -> ""));
+        }));
+        measure("accounts, views", () -> objectMapper.writeValueAsBytes(accountService.getAccounts(null, ROWS)));
+
+        measure("transactions, entities", () -> readWrite.execute(status -> {
+            List<Transaction> rows = entityManager.createQuery("SELECT t FROM Transaction t " +
+                            "WHERE t.accountId = :accountId AND t.tenantId = :tenantId " +
+                            "ORDER BY t.timestamp, t.transactionId", Transaction.class)
+                    .setParameter("accountId", accountId)
+                    .setParameter("tenantId", TENANT)
+                    .setMaxResults(ROWS + 1)
+                    .getResultList();
+            return objectMapper.writeValueAsBytes(PageResponse.of(rows, ROWS, transaction -> ""));
+        }));
+        measure("transactions, views", () -> objectMapper.writeValueAsBytes(
+                transactionService.getTransactionsByAccount(accountId, null, ROWS)));
+    }
+
+    /**
+     * Warm up, then report allocated bytes and p50/p99 latency per request
+     */
+    private static void measure(String name, Supplier<byte[]> request) {
+        for (int i = 0; i < REQUESTS / 2; i++) {
+            request.get();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] nanos = new long[REQUESTS];
+        long allocated = 0;
+        for (int i = 0; i < REQUESTS; i++) {
+            long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            request.get();
+            nanos[i] = System.nanoTime() - start;
+            allocated += threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-24s %,8d rows: %,7.1f MB/request, p50 %,6.1f ms, p99 %,6.1f ms%n", name, ROWS,
+                allocated / (double) REQUESTS / (1024 * 1024),
+                nanos[REQUESTS / 2] / 1e6, nanos[(int) (REQUESTS * 0.99)] / 1e6);
+    }
+
+    /**
+     * ROWS accounts of the tenant, and ROWS transactions on the first one
+     */
+    private UUID insertRows() {
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        List<Object[]> accounts = new ArrayList<>();
+        List<Object[]> transactions = new ArrayList<>();
+        UUID accountId = UUID.randomUUID();
+        for (int i = 0; i < ROWS; i++) {
+            UUID id = i == 0 ? accountId : UUID.randomUUID();
+            accounts.add(new Object[]{bytes(id), TENANT, "Customer " + i, Timestamp.valueOf(start.plusSeconds(i))});
+            transactions.add(new Object[]{bytes(UUID.randomUUID()), bytes(accountId), TENANT,
+                    Timestamp.valueOf(start.plusSeconds(i))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO accounts (account_id, tenant_id, customer_name, balance, created_at) "
+                + "VALUES (?, ?, ?, 100.00, ?)", accounts);
+        jdbcTemplate.batchUpdate("INSERT INTO transactions (transaction_id, account_id, tenant_id, type, amount, "
+                + "timestamp) VALUES (?, ?, ?, 'DEPOSIT', 10.00, ?)", transactions);
+        return accountId;
+    }
+
+    private static byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+}
@@ -0,0 +1,144 @@
+package com.banking.service;
+
+import com.banking.config.TenantContext;
+import com.banking.controller.StatementController;
+import com.banking.dto.StatementRequest;
+import com.banking.dto.TransactionRequest;
+import com.banking.entity.Account;
+import com.banking.entity.JobStatus;
+import com.banking.entity.StatementJob;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.StatementJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StatementArtifactTest {
+
+    private static final String TENANT = "BANK-STATEMENTS";
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private StatementRetentionService retentionService;
+
+    @Autowired
+    private StatementController statementController;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private StatementJobRepository jobRepository;
+
+    @BeforeEach
+    void setTenant() {
+        TenantContext.setTenantId(TENANT);
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void storesStatementOffRowAndServesRangesUntilItExpires() throws Exception {
+        UUID accountId = accountRepository.save(new Account(TENANT, "Statement", BigDecimal.ZERO)).getAccountId();
+        for (int i = 0; i < 50; i++) {
+            transactionService.createTransaction(accountId, new TransactionRequest("DEPOSIT", BigDecimal.TEN));
+        }
+
+        LocalDate today = LocalDate.now();
+        UUID jobId = statementService.requestStatement(
+                new StatementRequest(accountId, today.minusDays(1), today.plusDays(1))).getJobId();
+        StatementJob job = waitForCompletion(jobId);
+
+        assertEquals(JobStatus.COMPLETED, job.getStatus());
+        Path file = statementService.locateArtifact(job);
+        assertEquals(job.getArtifactSize().longValue(), Files.size(file));
+
+        // Full download is the gzip file; its content is the statement text
+        MockHttpServletResponse full = new MockHttpServletResponse();
+        statementController.downloadStatement(jobId, null, new MockHttpServletRequest(), full);
+        assertEquals(200, full.getStatus());
+        byte[] body = full.getContentAsByteArray();
+        String text = new String(new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertEquals(job.getContentLength().longValue(), text.getBytes(StandardCharsets.UTF_8).length);
+        assertTrue(text.contains("Opening Balance: $0.00"));
+        assertTrue(text.contains("Closing Balance: $500.00"));
+
+        // A single range returns exactly those bytes
+        MockHttpServletResponse partial = new MockHttpServletResponse();
+        statementController.downloadStatement(jobId, "bytes=10-29", new MockHttpServletRequest(), partial);
+        assertEquals(206, partial.getStatus());
+        assertEquals("bytes 10-29/" + body.length, partial.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(body, 10, 30), partial.getContentAsByteArray());
+
+        MockHttpServletResponse unsatisfiable = new MockHttpServletResponse();
+        statementController.downloadStatement(jobId, "bytes=" + body.length + "-", new MockHttpServletRequest(),
+                unsatisfiable);
+        assertEquals(416, unsatisfiable.getStatus());
+
+        // With sendfile support the range is left to the container instead of being written
+        MockHttpServletRequest sendfile = new MockHttpServletRequest();
+        sendfile.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        MockHttpServletResponse handedOver = new MockHttpServletResponse();
+        statementController.downloadStatement(jobId, "bytes=10-29", sendfile, handedOver);
+        assertEquals(206, handedOver.getStatus());
+        assertEquals(20, handedOver.getContentLengthLong());
+        assertEquals(0, handedOver.getContentAsByteArray().length);
+        assertEquals(file.toAbsolutePath().toString(), sendfile.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(10L, sendfile.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(30L, sendfile.getAttribute("org.apache.tomcat.sendfile.end"));
+
+        // Past the retention period the file is removed and the job expires
+        retentionService.expireStatements(job.getExpiresAt().plusSeconds(1));
+        StatementJob expired = jobRepository.findById(jobId).orElseThrow();
+        assertEquals(JobStatus.EXPIRED, expired.getStatus());
+        assertNull(expired.getArtifactKey());
+        assertFalse(Files.exists(file));
+        assertThrows(RuntimeException.class, () -> statementService.getDownloadableJob(jobId));
+    }
+
+    private StatementJob waitForCompletion(UUID jobId) throws InterruptedException {
+        LocalDateTime deadline = LocalDateTime.now().plusSeconds(30);
+        while (LocalDateTime.now().isBefore(deadline)) {
+            StatementJob job = jobRepository.findById(jobId).orElseThrow();
+            if (job.getStatus() == JobStatus.COMPLETED || job.getStatus() == JobStatus.FAILED) {
+                return job;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Statement job did not finish");
+    }
+}
@@ -0,0 +1,170 @@
+package com.banking.service;
+
+import com.banking.entity.Account;
+import com.banking.entity.JobPriority;
+import com.banking.entity.JobStatus;
+import com.banking.entity.StatementJob;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.StatementJobRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "banking.statements.workers=2",
+        "banking.statements.queue.poll-interval=PT0.1S",
+        "banking.statements.queue.max-attempts=2",
+        "banking.statements.queue.retry-backoff=PT0.1S",
+        "banking.statements.queue.heartbeat-interval=PT1H",
+        "banking.statements.queue.recovery-interval=PT1H"
+})
+class StatementJobQueueTest {
+
+    private static final String TENANT = "BANK-QUEUE";
+
+    @Autowired
+    private StatementJobQueue jobQueue;
+
+    @Autowired
+    private StatementJobRepository jobRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void failingJobIsRetriedWithBackoffThenFailed() throws InterruptedException {
+        // The account does not exist, so every attempt fails
+        UUID jobId = saveJob(UUID.randomUUID(), LocalDateTime.now()).getJobId();
+
+        StatementJob job = awaitStatus(jobId, JobStatus.FAILED);
+        assertEquals(2, job.getAttempts());
+        assertTrue(job.getErrorMessage().contains("Account not found"));
+        assertNull(job.getLeaseOwner());
+
+        // Both claims were recorded in the tenant's queue wait metric
+        Timer wait = meterRegistry.find("banking.statements.queue.wait")
+                .tags("tenant", TENANT, "priority", "INTERACTIVE").timer();
+        assertTrue(wait != null && wait.count() >= 2);
+    }
+
+    @Test
+    void expiredLeaseIsRecoveredAndJobCompletesOnAnotherWorker() throws InterruptedException {
+        UUID accountId = accountRepository.save(new Account(TENANT, "Queue", BigDecimal.TEN)).getAccountId();
+        StatementJob job = saveJob(accountId, LocalDateTime.now().plusDays(1));
+
+        // Simulate a node that claimed the job and died
+        job.setStatus(JobStatus.PROCESSING);
+        job.setAttempts(1);
+        job.setLeaseOwner("dead-node");
+        job.setLeaseExpiresAt(LocalDateTime.now().minusMinutes(1));
+        jobRepository.save(job);
+
+        assertTrue(jobQueue.recoverExpiredLeases() >= 1);
+        StatementJob recovered = jobRepository.findById(job.getJobId()).orElseThrow();
+        assertEquals(JobStatus.PENDING, recovered.getStatus());
+        assertNull(recovered.getLeaseOwner());
+
+        StatementJob completed = awaitStatus(job.getJobId(), JobStatus.COMPLETED);
+        assertEquals(2, completed.getAttempts());
+        assertTrue(completed.getArtifactKey() != null);
+    }
+
+    @Test
+    void concurrentClaimsSkipRowsLockedByAnotherNode() throws Exception {
+        // Due only in the future, so this node's poller leaves them alone
+        LocalDateTime due = LocalDateTime.now().plusDays(30);
+        UUID first = saveJob(UUID.randomUUID(), due).getJobId();
+        saveJob(UUID.randomUUID(), due.plusSeconds(1));
+        LocalDateTime claimTime = due.plusDays(1);
+
+        CountDownLatch firstClaimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<List<UUID>> nodeA = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            List<UUID> claimed = ids(jobRepository.claimNextForTenant(TENANT, JobPriority.INTERACTIVE, claimTime, Limit.of(1)));
+            firstClaimed.countDown();
+            await(release);
+            status.setRollbackOnly();
+            return claimed;
+        }));
+
+        assertTrue(firstClaimed.await(10, TimeUnit.SECONDS));
+        List<UUID> claimedByB = transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return ids(jobRepository.claimNextForTenant(TENANT, JobPriority.INTERACTIVE, claimTime, Limit.of(1000)));
+        });
+        release.countDown();
+        List<UUID> claimedByA = nodeA.get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of(first), claimedByA);
+        // B neither blocks nor claims A's row. (H2 skips more than the locked
+        // row itself, so which other rows B gets is only checked on MySQL.)
+        assertFalse(claimedByB.contains(first));
+    }
+
+    @Test
+    void backoffDoublesUpToTheCap() {
+        assertEquals(Duration.ofMillis(100), jobQueue.backoff(1));
+        assertEquals(Duration.ofMillis(400), jobQueue.backoff(3));
+        assertEquals(Duration.ofMinutes(5), jobQueue.backoff(30));
+    }
+
+    private StatementJob saveJob(UUID accountId, LocalDateTime nextAttemptAt) {
+        LocalDateTime now = LocalDateTime.now();
+        StatementJob job = new StatementJob(accountId, TENANT, now.minusDays(1), now);
+        job.setNextAttemptAt(nextAttemptAt);
+        return jobRepository.save(job);
+    }
+
+    private StatementJob awaitStatus(UUID jobId, JobStatus expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        StatementJob job = null;
+        while (System.currentTimeMillis() < deadline) {
+            job = jobRepository.findById(jobId).orElseThrow();
+            if (job.getStatus() == expected) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Job " + jobId + " is " + (job == null ? null : job.getStatus()) + ", expected " + expected);
+    }
+
+    private static List<UUID> ids(List<StatementJob> jobs) {
+        return jobs.stream().map(StatementJob::getJobId).toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.banking.service;
+
+import com.banking.config.TenantContext;
+import com.banking.controller.StatementController;
+import com.banking.entity.JobStatus;
+import com.banking.entity.StatementJob;
+import com.banking.repository.StatementJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        // API-only node: keep the job PENDING, and cache active statuses long enough to observe
+        "banking.statements.workers=0",
+        "banking.statements.status-cache.active-ttl=PT1M"
+})
+class StatementJobStatusHubTest {
+
+    private static final String TENANT = "BANK-JOB-STATUS";
+
+    @Autowired
+    private StatementController statementController;
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private StatementJobStatusHub statusHub;
+
+    @Autowired
+    private StatementJobRepository jobRepository;
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void longPollCompletesWhenJobFinishesAndStatusIsServedFromCache() {
+        LocalDateTime now = LocalDateTime.now();
+        StatementJob job = jobRepository.save(new StatementJob(UUID.randomUUID(), TENANT, now.minusDays(1), now));
+        statusHub.publish(job);
+
+        TenantContext.setTenantId(TENANT);
+        DeferredResult<ResponseEntity<?>> waiting = statementController.getJobStatus(job.getJobId(), 10);
+        assertFalse(waiting.hasResult());
+
+        // Once cached, status reads no longer touch the table
+        jobRepository.deleteById(job.getJobId());
+        assertEquals(JobStatus.PENDING, statementService.getJobStatus(job.getJobId()).orElseThrow().getStatus());
+
+        job.setStatus(JobStatus.COMPLETED);
+        job.setCompletedAt(LocalDateTime.now());
+        statusHub.publish(job);
+
+        assertTrue(waiting.hasResult());
+        ResponseEntity<?> response = (ResponseEntity<?>) waiting.getResult();
+        assertEquals(JobStatus.COMPLETED, ((Map<?, ?>) response.getBody()).get("status"));
+
+        // Cached statuses are still tenant-scoped
+        TenantContext.setTenantId("OTHER-BANK");
+        assertTrue(statementService.getJobStatus(job.getJobId()).isEmpty());
+    }
+}
@@ -0,0 +1,208 @@
+package com.banking.service;
+
+import com.banking.config.TenantContext;
+import com.banking.dto.AccountRequest;
+import com.banking.dto.StatementRequest;
+import com.banking.dto.TransactionRequest;
+import com.banking.entity.Account;
+import com.banking.entity.JobStatus;
+import com.banking.entity.StatementJob;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.StatementJobRepository;
+import com.banking.repository.TransactionRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StatementResultCacheTest {
+
+    private static final String TENANT = "BANK-STATEMENT-CACHE";
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private StatementJobRepository jobRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setTenant() {
+        TenantContext.setTenantId(TENANT);
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void unchangedStatementIsServedFromTheCompletedJob() throws InterruptedException {
+        UUID accountId = accountWithDeposits(3);
+        StatementRequest request = thisMonth(accountId);
+
+        UUID jobId = statementService.requestStatement(request).getJobId();
+        waitForCompletion(jobId);
+
+        double hitsBefore = hits();
+        StatementJob again = statementService.requestStatement(request);
+        assertEquals(jobId, again.getJobId());
+        assertEquals(JobStatus.COMPLETED, again.getStatus());
+        assertTrue(hits() > hitsBefore);
+
+        // A new transaction in the period moves the watermark: the statement is regenerated
+        transactionService.createTransaction(accountId, new TransactionRequest("DEPOSIT", BigDecimal.ONE));
+        assertNotEquals(jobId, statementService.requestStatement(request).getJobId());
+    }
+
+    @Test
+    void lateCommitBehindTheLatestTransactionChangesTheStatement() {
+        UUID accountId = accountWithDeposits(2);
+        StatementRequest request = thisMonth(accountId);
+        UUID jobId = statementService.requestStatement(request).getJobId();
+
+        // Committed after the latest transaction, stamped before it (as by a group commit batch)
+        transactionTemplate.executeWithoutResult(status -> transactionRepository.insertIfAbsent(
+                bytes(UUID.randomUUID()), bytes(accountId), TENANT, "DEPOSIT", BigDecimal.ONE,
+                LocalDateTime.now().minusMinutes(1)));
+
+        assertNotEquals(jobId, statementService.requestStatement(request).getJobId());
+    }
+
+    @Test
+    void accountUpdateChangesTheStatement() {
+        UUID accountId = accountWithDeposits(2);
+        StatementRequest request = thisMonth(accountId);
+        UUID jobId = statementService.requestStatement(request).getJobId();
+        assertEquals(jobId, statementService.requestStatement(request).getJobId());
+
+        // No transaction: the name and the balance are set through PUT /api/accounts/{id}
+        accountService.updateAccount(accountId, new AccountRequest("Cache Renamed", new BigDecimal("500.00")));
+
+        UUID updatedJobId = statementService.requestStatement(request).getJobId();
+        assertNotEquals(jobId, updatedJobId);
+        assertEquals(updatedJobId, statementService.requestStatement(request).getJobId());
+    }
+
+    @Test
+    void concurrentIdenticalRequestsShareOneJob() throws Exception {
+        UUID accountId = accountWithDeposits(3);
+        StatementRequest request = thisMonth(accountId);
+
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        try {
+            Callable<UUID> requestStatement = () -> {
+                TenantContext.setTenantId(TENANT);
+                try {
+                    return statementService.requestStatement(request).getJobId();
+                } finally {
+                    TenantContext.clear();
+                }
+            };
+            List<Future<UUID>> results = clients.invokeAll(
+                    IntStream.range(0, 8).mapToObj(i -> requestStatement).toList());
+
+            Set<UUID> jobIds = results.stream().map(this::get).collect(Collectors.toSet());
+            assertEquals(1, jobIds.size());
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    @Test
+    void failedJobIsNotReused() {
+        UUID accountId = accountWithDeposits(1);
+        StatementRequest request = thisMonth(accountId);
+
+        StatementJob job = statementService.requestStatement(request);
+        StatementJob stored = jobRepository.findById(job.getJobId()).orElseThrow();
+        stored.setStatus(JobStatus.FAILED);
+        jobRepository.save(stored);
+
+        assertNotEquals(job.getJobId(), statementService.requestStatement(request).getJobId());
+    }
+
+    private UUID accountWithDeposits(int deposits) {
+        UUID accountId = accountRepository.save(new Account(TENANT, "Cache", BigDecimal.ZERO)).getAccountId();
+        for (int i = 0; i < deposits; i++) {
+            transactionService.createTransaction(accountId, new TransactionRequest("DEPOSIT", BigDecimal.TEN));
+        }
+        return accountId;
+    }
+
+    private static byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+
+    private static StatementRequest thisMonth(UUID accountId) {
+        LocalDate today = LocalDate.now();
+        return new StatementRequest(accountId, today.withDayOfMonth(1), today);
+    }
+
+    private double hits() {
+        FunctionCounter hits = meterRegistry.find("cache.gets")
+                .tags("cache", "statementResults", "result", "hit").functionCounter();
+        return hits == null ? 0 : hits.count();
+    }
+
+    private void waitForCompletion(UUID jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (jobRepository.findById(jobId).orElseThrow().getStatus() == JobStatus.COMPLETED) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Statement job " + jobId + " did not complete");
+    }
+
+    private UUID get(Future<UUID> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.banking.service;
+
+import com.banking.config.TenantContext;
+import com.banking.dto.TransactionRequest;
+import com.banking.entity.Account;
+import com.banking.entity.JobPriority;
+import com.banking.entity.JobStatus;
+import com.banking.entity.StatementJob;
+import com.banking.entity.StatementRun;
+import com.banking.entity.StatementRunPartition;
+import com.banking.entity.StatementRunStatus;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.StatementJobRepository;
+import com.banking.repository.StatementRunPartitionRepository;
+import com.banking.repository.StatementRunRepository;
+import com.banking.storage.StatementArtifactStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "banking.statements.runs.partition-size=10",
+        "banking.statements.runs.poll-interval=PT0.2S"
+})
+class StatementRunServiceTest {
+
+    private static final int ACCOUNTS = 25;
+
+    @Autowired
+    private StatementRunService runService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private StatementJobRepository jobRepository;
+
+    @Autowired
+    private StatementRunRepository runRepository;
+
+    @Autowired
+    private StatementRunPartitionRepository partitionRepository;
+
+    @Autowired
+    private StatementArtifactStore artifactStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private String tenant;
+
+    @BeforeEach
+    void setTenant() {
+        // A tenant per test, so each run only covers the test's own accounts
+        tenant = "BANK-RUN-" + UUID.randomUUID().toString().substring(0, 8);
+        TenantContext.setTenantId(tenant);
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void runWritesOneStatementPerAccount() throws Exception {
+        Map<UUID, BigDecimal> closingBalances = accountsWithDeposits();
+
+        StatementRun run = runService.startRun(LocalDate.now().withDayOfMonth(1), LocalDate.now());
+        assertEquals(3, run.getTotalPartitions());
+        assertEquals(ACCOUNTS, run.getTotalAccounts());
+
+        StatementRun completed = waitForStatus(run.getRunId(), StatementRunStatus.COMPLETED);
+        assertEquals(3, completed.getCompletedPartitions());
+        assertEquals(ACCOUNTS, completed.getStatementsWritten());
+        long deposits = closingBalances.values().stream().mapToLong(balance -> balance.longValue() / 10).sum();
+        assertEquals(deposits, completed.getTransactionsScanned());
+
+        List<StatementJob> jobs = runService.getRunStatements(run.getRunId(), null, 100);
+        assertEquals(closingBalances.keySet(), jobs.stream().map(StatementJob::getAccountId).collect(Collectors.toSet()));
+        for (StatementJob job : jobs) {
+            assertEquals(JobStatus.COMPLETED, job.getStatus());
+            assertEquals(JobPriority.BULK, job.getPriority());
+            assertTrue(read(job).contains("Closing Balance: $" + closingBalances.get(job.getAccountId())));
+        }
+
+        // Keyset pages in account order
+        List<StatementJob> firstPage = runService.getRunStatements(run.getRunId(), null, 10);
+        List<StatementJob> secondPage = runService.getRunStatements(run.getRunId(),
+                firstPage.get(firstPage.size() - 1).getAccountId(), 100);
+        assertEquals(10, firstPage.size());
+        assertEquals(ACCOUNTS - 10, secondPage.size());
+    }
+
+    @Test
+    void runIsResumedFromTheLastCompletedPartitionAfterACrash() throws Exception {
+        accountsWithDeposits();
+        StatementRun run = runService.startRun(LocalDate.now().withDayOfMonth(1), LocalDate.now());
+        UUID runId = run.getRunId();
+        waitForStatus(runId, StatementRunStatus.COMPLETED);
+
+        // Simulate a node that died while generating partition 1
+        Map<Integer, LocalDateTime> completedAt = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            StatementRun stored = runRepository.findById(runId).orElseThrow();
+            for (StatementRunPartition partition : partitionRepository.findByRunIdOrderByPartitionNo(runId)) {
+                completedAt.put(partition.getPartitionNo(), partition.getCompletedAt());
+                if (partition.getPartitionNo() != 1) {
+                    continue;
+                }
+                Set<UUID> accountIds = accountRepository.findByTenantIdAndAccountIdBetweenOrderByAccountId(tenant,
+                                partition.getFirstAccountId(), partition.getLastAccountId()).stream()
+                        .map(Account::getAccountId).collect(Collectors.toSet());
+                List<StatementJob> jobs = jobRepository.findAll().stream()
+                        .filter(job -> runId.equals(job.getRunId()) && accountIds.contains(job.getAccountId()))
+                        .toList();
+                jobRepository.deleteAll(jobs);
+
+                partition.setStatus(StatementRunStatus.PENDING);
+                partition.setCompletedAt(null);
+                stored.setCompletedPartitions(stored.getCompletedPartitions() - 1);
+                stored.setStatementsWritten(stored.getStatementsWritten() - jobs.size());
+                stored.setTransactionsScanned(stored.getTransactionsScanned() - partition.getTransactions());
+            }
+            stored.setStatus(StatementRunStatus.PROCESSING);
+            stored.setCompletedAt(null);
+            stored.setLeaseOwner("dead-node");
+            stored.setLeaseExpiresAt(LocalDateTime.now().minusMinutes(1));
+        });
+
+        StatementRun resumed = waitForStatus(runId, StatementRunStatus.COMPLETED);
+        assertEquals(3, resumed.getCompletedPartitions());
+        assertEquals(ACCOUNTS, resumed.getStatementsWritten());
+        assertEquals(ACCOUNTS, runService.getRunStatements(runId, null, 100).size());
+
+        // Only the unfinished partition was generated again
+        for (StatementRunPartition partition : partitionRepository.findByRunIdOrderByPartitionNo(runId)) {
+            assertEquals(StatementRunStatus.COMPLETED, partition.getStatus());
+            if (partition.getPartitionNo() == 1) {
+                assertNotEquals(completedAt.get(1), partition.getCompletedAt());
+            } else {
+                assertEquals(completedAt.get(partition.getPartitionNo()), partition.getCompletedAt());
+            }
+        }
+    }
+
+    /**
+     * Accounts with 1-3 deposits of 10 this month
+     *
+     * @return Closing balance per account
+     */
+    private Map<UUID, BigDecimal> accountsWithDeposits() {
+        Map<UUID, BigDecimal> closingBalances = new HashMap<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            UUID accountId = accountRepository.save(new Account(tenant, "Run " + i, BigDecimal.ZERO)).getAccountId();
+            int deposits = i % 3 + 1;
+            for (int d = 0; d < deposits; d++) {
+                transactionService.createTransaction(accountId, new TransactionRequest("DEPOSIT", BigDecimal.TEN));
+            }
+            closingBalances.put(accountId, new BigDecimal(10 * deposits).setScale(2));
+        }
+        return closingBalances;
+    }
+
+    private String read(StatementJob job) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(artifactStore.locate(job.getArtifactKey())))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private StatementRun waitForStatus(UUID runId, StatementRunStatus expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            StatementRun run = runRepository.findById(runId).orElseThrow();
+            if (run.getStatus() == expected) {
+                return run;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Statement run " + runId + " did not reach " + expected);
+    }
+}
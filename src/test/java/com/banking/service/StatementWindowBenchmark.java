@@ -0,0 +1,115 @@
+package com.banking.service;
+
+import com.banking.entity.Account;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.TransactionRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Wall-clock time of rendering a one-year statement of a busy account in one
+ * window (the transactions of the year in one list) versus monthly windows
+ * fetched in parallel.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=StatementWindowBenchmark
+ *
+ * Options (system properties):
+ * - benchmark.rows: transactions over the year (default 1,000,000)
+ * - benchmark.parallelism: window threads (default: number of cores)
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "banking.statements.workers=0",
+        "banking.statements.windows.size=P31D",
+        "banking.statements.windows.parallelism=${benchmark.parallelism:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}",
+        "banking.statements.windows.max-in-flight=${benchmark.parallelism:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}"
+})
+class StatementWindowBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+    private static final String TENANT = "BANK-BENCHMARK";
+
+    @Autowired
+    private StatementWindowRenderer windowRenderer;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    @Qualifier("statementWindowExecutor")
+    private AsyncTaskExecutor windowExecutor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compareOneWindowWithParallelWindows() throws IOException {
+        LocalDateTime from = LocalDateTime.now().minusYears(1).withNano(0);
+        LocalDateTime to = from.plusYears(1);
+        UUID accountId = accountWithTransactions(from, to);
+
+        StatementWindowRenderer oneWindow = new StatementWindowRenderer(transactionRepository, windowExecutor,
+                Duration.ZERO, 1);
+
+        // Warm up both paths, then measure
+        for (int round = 0; round < 2; round++) {
+            long single = time(oneWindow, accountId, from, to);
+            long windowed = time(windowRenderer, accountId, from, to);
+            System.out.printf("%,d transactions: one window %,d ms, %d windows %,d ms (%.1fx)%n",
+                    ROWS, single, windowRenderer.windowBounds(from, to).size() - 1, windowed,
+                    (double) single / windowed);
+        }
+    }
+
+    private long time(StatementWindowRenderer renderer, UUID accountId,
+                      LocalDateTime from, LocalDateTime to) throws IOException {
+        long start = System.nanoTime();
+        renderer.renderTransactions(Writer.nullWriter(), accountId, TENANT, from, to, BigDecimal.ZERO);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private UUID accountWithTransactions(LocalDateTime from, LocalDateTime to) {
+        UUID accountId = accountRepository.save(new Account(TENANT, "Merchant", BigDecimal.ZERO)).getAccountId();
+        byte[] account = bytes(accountId);
+        long step = Duration.between(from, to).toMillis() / ROWS;
+
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(new Object[]{bytes(UUID.randomUUID()), account, TENANT,
+                    Timestamp.valueOf(from.plus(Duration.ofMillis(step * i)))});
+            if (batch.size() == 10_000 || i == ROWS - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO transactions (transaction_id, account_id, tenant_id, type, "
+                        + "amount, timestamp) VALUES (?, ?, ?, 'DEPOSIT', 10.00, ?)", batch);
+                batch.clear();
+            }
+        }
+        return accountId;
+    }
+
+    private static byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+}
@@ -0,0 +1,143 @@
+package com.banking.service;
+
+import com.banking.config.TenantContext;
+import com.banking.dto.TransactionRequest;
+import com.banking.entity.Account;
+import com.banking.entity.Transaction;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "banking.statements.windows.size=P7D",
+        "banking.statements.windows.max-in-flight=2"
+})
+class StatementWindowRendererTest {
+
+    private static final String TENANT = "BANK-STATEMENT-WINDOWS";
+
+    @Autowired
+    private StatementWindowRenderer windowRenderer;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime from = LocalDateTime.now().minusDays(90).withNano(0);
+    private final LocalDateTime to = LocalDateTime.now().plusDays(1).withNano(0);
+
+    @BeforeEach
+    void setTenant() {
+        TenantContext.setTenantId(TENANT);
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void windowsAreStitchedInOrderWithTheRunningBalance() throws Exception {
+        UUID accountId = accountSpreadOverThePeriod(60);
+
+        StringWriter windowed = new StringWriter();
+        BigDecimal closing = windowRenderer.renderTransactions(windowed, accountId, TENANT, from, to, BigDecimal.ZERO);
+
+        // Same lines as one list rendered in one go
+        List<Transaction> transactions = transactionRepository.findInRange(accountId, TENANT, from, to);
+        StringWriter whole = new StringWriter();
+        BigDecimal balance = BigDecimal.ZERO;
+        for (Transaction t : transactions) {
+            balance = StatementService.applyTransaction(balance, t);
+            whole.write(StatementService.transactionLine(t) + " | $" + balance + "\n");
+        }
+        assertEquals(whole.toString(), windowed.toString());
+        assertEquals(0, balance.compareTo(closing));
+        assertEquals(0, accountRepository.findById(accountId).orElseThrow().getBalance().compareTo(closing));
+        assertTrue(windowRenderer.windowBounds(from, to).size() > 10);
+    }
+
+    @Test
+    void inFlightWindowsAreCapped() throws Exception {
+        UUID accountId = accountSpreadOverThePeriod(30);
+
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        SimpleAsyncTaskExecutor unbounded = new SimpleAsyncTaskExecutor("window-test-") {
+            @Override
+            public <T> Future<T> submit(Callable<T> task) {
+                return super.submit(() -> {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                        return task.call();
+                    } finally {
+                        active.decrementAndGet();
+                    }
+                });
+            }
+        };
+        StatementWindowRenderer renderer = new StatementWindowRenderer(transactionRepository, unbounded,
+                Duration.ofDays(3), 3);
+
+        StringWriter out = new StringWriter();
+        BigDecimal closing = renderer.renderTransactions(out, accountId, TENANT, from, to, BigDecimal.ZERO);
+
+        assertEquals(30, out.toString().lines().count());
+        assertEquals(0, accountRepository.findById(accountId).orElseThrow().getBalance().compareTo(closing));
+        assertTrue(maxActive.get() <= 3, "At most 3 windows in flight, saw " + maxActive.get());
+    }
+
+    /**
+     * Account with deposits and withdrawals spread over the last 90 days
+     */
+    private UUID accountSpreadOverThePeriod(int transactions) {
+        UUID accountId = accountRepository.save(new Account(TENANT, "Windows", BigDecimal.ZERO)).getAccountId();
+        for (int i = 0; i < transactions; i++) {
+            String type = i % 4 == 3 ? "WITHDRAWAL" : "DEPOSIT";
+            UUID transactionId = transactionService.createTransaction(accountId,
+                    new TransactionRequest(type, new BigDecimal(i + 1))).getTransactionId();
+
+            // Timestamps are set on insert; move them back into the period
+            jdbcTemplate.update("UPDATE transactions SET timestamp = ? WHERE transaction_id = ?",
+                    from.plusHours(36L * i), bytes(transactionId));
+        }
+        return accountId;
+    }
+
+    private static byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+}
@@ -0,0 +1,96 @@
+package com.banking.service;
+
+import com.banking.dto.TenantQueueStats;
+import com.banking.entity.JobPriority;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TenantFairShareSchedulerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 31, 23, 0);
+
+    @Test
+    void tenantWithHugeBacklogDoesNotStarveOthers() {
+        TenantFairShareScheduler scheduler = new TenantFairShareScheduler(4, 4, 0, 1, "");
+        List<TenantQueueStats> queued = List.of(
+                interactive("BIG", 10_000),
+                interactive("SMALL-1", 1),
+                interactive("SMALL-2", 1));
+
+        Map<String, Integer> claimed = counts(scheduler.allocate(3, queued, NOW, Map.of(), 0));
+
+        assertEquals(Map.of("BIG", 1, "SMALL-1", 1, "SMALL-2", 1), claimed);
+    }
+
+    @Test
+    void workersAreSharedByWeightAcrossPolls() {
+        TenantFairShareScheduler scheduler = new TenantFairShareScheduler(4, 4, 0, 1, "HEAVY=3");
+        List<TenantQueueStats> queued = List.of(interactive("HEAVY", 1_000), interactive("LIGHT", 1_000));
+
+        // One worker frees up at a time
+        Map<String, Integer> total = new HashMap<>();
+        for (int poll = 0; poll < 400; poll++) {
+            counts(scheduler.allocate(1, queued, NOW, Map.of(), 0)).forEach((tenant, n) -> total.merge(tenant, n, Integer::sum));
+        }
+
+        assertEquals(300, total.get("HEAVY"));
+        assertEquals(100, total.get("LIGHT"));
+    }
+
+    @Test
+    void perTenantCapLeavesWorkersToOthersOrIdle() {
+        TenantFairShareScheduler scheduler = new TenantFairShareScheduler(8, 2, 0, 1, "");
+        List<TenantQueueStats> queued = List.of(interactive("A", 100), interactive("B", 100));
+
+        Map<String, Integer> claimed = counts(scheduler.allocate(8, queued, NOW, Map.of("A", 1), 0));
+
+        assertEquals(1, claimed.get("A"));
+        assertEquals(2, claimed.get("B"));
+    }
+
+    @Test
+    void interactiveJobsGoFirstAndBulkKeepsReservedWorkersFree() {
+        TenantFairShareScheduler scheduler = new TenantFairShareScheduler(4, 4, 1, 1, "");
+        List<TenantQueueStats> queued = List.of(
+                new TenantQueueStats("A", JobPriority.BULK, 10_000, NOW.minusHours(1)),
+                interactive("B", 1));
+
+        List<TenantFairShareScheduler.Allocation> allocations = scheduler.allocate(4, queued, NOW, Map.of(), 0);
+
+        assertEquals(JobPriority.INTERACTIVE, allocations.get(0).getPriority());
+        assertEquals(1, allocations.get(0).getCount());
+        // 4 workers - 1 reserved: at most 3 bulk jobs, 2 slots left after B
+        assertEquals(2, allocations.get(1).getCount());
+
+        // With 3 bulk jobs running, bulk gets nothing even when workers are idle
+        assertTrue(scheduler.allocate(1, List.of(queued.get(0)), NOW, Map.of("A", 3), 3).isEmpty());
+    }
+
+    @Test
+    void jobsWaitingForRetryAreNotDispatched() {
+        TenantFairShareScheduler scheduler = new TenantFairShareScheduler(4, 4, 0, 1, "");
+        List<TenantQueueStats> queued = List.of(
+                new TenantQueueStats("A", JobPriority.INTERACTIVE, 5, NOW.plusMinutes(1)));
+
+        assertTrue(scheduler.allocate(4, queued, NOW, Map.of(), 0).isEmpty());
+    }
+
+    private static TenantQueueStats interactive(String tenantId, long pending) {
+        return new TenantQueueStats(tenantId, JobPriority.INTERACTIVE, pending, NOW.minusMinutes(5));
+    }
+
+    private static Map<String, Integer> counts(List<TenantFairShareScheduler.Allocation> allocations) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (TenantFairShareScheduler.Allocation allocation : allocations) {
+            counts.merge(allocation.getTenantId(), allocation.getCount(), Integer::sum);
+        }
+        return counts;
+    }
+}
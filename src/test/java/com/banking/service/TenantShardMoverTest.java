@@ -0,0 +1,162 @@
+package com.banking.service;
+
+import com.banking.config.ShardDataSources;
+import com.banking.config.ShardDirectory;
+import com.banking.config.TenantContext;
+import com.banking.dto.TransactionRequest;
+import com.banking.entity.Account;
+import com.banking.entity.BalanceCheckpoint;
+import com.banking.entity.StatementJob;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.BalanceCheckpointRepository;
+import com.banking.repository.StatementJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "banking.shards.names=shard2",
+        "banking.shards.shard2.url=jdbc:h2:mem:banking_shard2;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "banking.shards.shard2.username=sa",
+        "banking.shards.shard2.driver-class-name=org.h2.Driver",
+        "banking.shards.move.batch-size=2",
+        "banking.shards.move.settle-time=PT0.5S",
+        "banking.shards.move.freeze-timeout=PT1S"
+})
+class TenantShardMoverTest {
+
+    private static final String TENANT = "BANK-SHARDS";
+
+    @Autowired
+    private TenantShardMover mover;
+
+    @Autowired
+    private ShardDirectory directory;
+
+    @Autowired
+    private ShardDataSources shards;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private BalanceCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private StatementJobRepository jobRepository;
+
+    @BeforeEach
+    void setTenant() {
+        TenantContext.setTenantId(TENANT);
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void movedTenantIsServedFromItsNewShard() {
+        UUID accountId = accountRepository.save(new Account(TENANT, "Mover", new BigDecimal("100.00"))).getAccountId();
+        for (int i = 0; i < 5; i++) {
+            transactionService.createTransaction(accountId, new TransactionRequest("DEPOSIT", new BigDecimal("10.00")));
+        }
+
+        TenantShardMover.MoveResult result = mover.moveTenant(TENANT, "shard2");
+
+        assertEquals("main", result.getFromShard());
+        assertEquals(5L, result.getRows().get("transactions"));
+        assertEquals("shard2", directory.shardOf(TENANT));
+        assertFalse(directory.isFrozen(TENANT));
+        assertEquals(0, count("main", "transactions"));
+        assertEquals(1, count("shard2", "accounts"));
+
+        // Reads and writes of the tenant now go to shard2
+        transactionService.createTransaction(accountId, new TransactionRequest("WITHDRAWAL", new BigDecimal("30.00")));
+        assertEquals(0, new BigDecimal("120.00").compareTo(accountService.getAccountById(accountId).orElseThrow().getBalance()));
+        assertEquals(6, count("shard2", "transactions"));
+        assertEquals(0, count("main", "accounts"));
+    }
+
+    @Test
+    void catchUpCopiesOldRowsChangedAfterTheCopy() throws Exception {
+        String tenant = "BANK-SHARDS-CATCHUP";
+        TenantContext.setTenantId(tenant);
+        UUID accountId = accountRepository.save(new Account(tenant, "Catch-up", new BigDecimal("100.00"))).getAccountId();
+        checkpointRepository.save(new BalanceCheckpoint(tenant, accountId, LocalDate.now().minusDays(2),
+                new BigDecimal("100.00")));
+        StatementJob job = new StatementJob(accountId, tenant, LocalDateTime.now().minusMonths(1), LocalDateTime.now());
+        job.setNextAttemptAt(LocalDateTime.now().plusDays(1));
+        jobRepository.save(job);
+        // Older than the resync margin: only found again as unfinished or through the checksum
+        JdbcTemplate main = new JdbcTemplate(shards.get("main"));
+        main.update("UPDATE statement_jobs SET created_at = ? WHERE tenant_id = ?", LocalDateTime.now().minusDays(1), tenant);
+        main.update("UPDATE balance_checkpoints SET created_at = ? WHERE tenant_id = ?", LocalDateTime.now().minusDays(1),
+                tenant);
+
+        CompletableFuture<TenantShardMover.MoveResult> move =
+                CompletableFuture.supplyAsync(() -> mover.moveTenant(tenant, "shard2"));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!directory.isFrozen(tenant) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        // Frozen after the bulk copy, before the catch-up: the job finishes and the day is closed again
+        main.update("UPDATE statement_jobs SET status = 'FAILED' WHERE tenant_id = ?", tenant);
+        main.update("UPDATE balance_checkpoints SET balance = 150.00 WHERE tenant_id = ?", tenant);
+        move.get();
+
+        JdbcTemplate shard2 = new JdbcTemplate(shards.get("shard2"));
+        assertEquals("FAILED", shard2.queryForObject("SELECT status FROM statement_jobs WHERE tenant_id = ?",
+                String.class, tenant));
+        assertEquals(0, new BigDecimal("150.00").compareTo(shard2.queryForObject(
+                "SELECT balance FROM balance_checkpoints WHERE tenant_id = ?", BigDecimal.class, tenant)));
+    }
+
+    @Test
+    void rejectsUnknownOrCurrentShard() {
+        assertThrows(IllegalArgumentException.class, () -> mover.moveTenant("BANK-UNMOVED", "nowhere"));
+        assertThrows(IllegalArgumentException.class, () -> mover.moveTenant("BANK-UNMOVED", "main"));
+    }
+
+    @Test
+    void refusesLedgerTenants() {
+        JdbcTemplate main = new JdbcTemplate(shards.get("main"));
+        main.update("INSERT INTO ledger_owners (tenant_id, lease_owner, lease_expires_at) VALUES (?, ?, NULL)",
+                "BANK-LEDGER-OWNED", "node-1");
+        try {
+            assertThrows(IllegalStateException.class, () -> mover.moveTenant("BANK-LEDGER-OWNED", "shard2"));
+            assertEquals("main", directory.shardOf("BANK-LEDGER-OWNED"));
+            assertFalse(directory.isFrozen("BANK-LEDGER-OWNED"));
+        } finally {
+            main.update("DELETE FROM ledger_owners WHERE tenant_id = ?", "BANK-LEDGER-OWNED");
+        }
+    }
+
+    private long count(String shard, String table) {
+        return new JdbcTemplate(shards.get(shard)).queryForObject(
+                "SELECT COUNT(*) FROM " + table + " WHERE tenant_id = ?", Long.class, TENANT);
+    }
+}
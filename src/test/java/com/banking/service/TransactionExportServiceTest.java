@@ -0,0 +1,118 @@
+package com.banking.service;
+
+import com.banking.config.TenantContext;
+import com.banking.dto.ExportFormat;
+import com.banking.dto.TransactionRequest;
+import com.banking.entity.Account;
+import com.banking.repository.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "banking.export.flush-rows=4")
+class TransactionExportServiceTest {
+
+    private static final String TENANT = "BANK-EXPORT";
+
+    @Autowired
+    private TransactionExportService transactionExportService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setTenant() {
+        TenantContext.setTenantId(TENANT);
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void exportsCsvWithHeaderInTimestampOrder() {
+        UUID accountId = accountWithDeposits(10);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = transactionExportService.exportTransactions(accountId, ExportFormat.CSV, () -> out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(10, count);
+        assertEquals(11, lines.length);
+        assertEquals("transactionId,accountId,type,amount,timestamp", lines[0]);
+        for (int i = 1; i < lines.length; i++) {
+            String[] columns = lines[i].split(",");
+            assertEquals(accountId.toString(), columns[1]);
+            assertEquals("DEPOSIT", columns[2]);
+            assertEquals("1.00", columns[3]);
+            if (i > 1) {
+                assertTrue(lines[i - 1].split(",")[4].compareTo(columns[4]) <= 0);
+            }
+        }
+    }
+
+    @Test
+    void exportsOneJsonObjectPerLine() {
+        UUID accountId = accountWithDeposits(9);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transactionExportService.exportTransactions(accountId, ExportFormat.NDJSON, () -> out);
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("\n"));
+        String[] lines = body.split("\n");
+        assertEquals(9, lines.length);
+        for (String line : lines) {
+            JsonNode node = objectMapper.readTree(line);
+            assertEquals(accountId.toString(), node.get("accountId").asString());
+            assertEquals(TENANT, node.get("tenantId").asString());
+        }
+    }
+
+    @Test
+    void rejectsAccountOfAnotherTenantBeforeOpeningOutput() {
+        UUID accountId = accountWithDeposits(1);
+        TenantContext.setTenantId("OTHER-BANK");
+
+        boolean[] opened = {false};
+        assertThrows(RuntimeException.class, () -> transactionExportService.exportTransactions(
+                accountId, ExportFormat.CSV, () -> {
+                    opened[0] = true;
+                    return new ByteArrayOutputStream();
+                }));
+        assertFalse(opened[0]);
+    }
+
+    private UUID accountWithDeposits(int deposits) {
+        UUID accountId = accountRepository.save(new Account(TENANT, "Export", BigDecimal.ZERO)).getAccountId();
+        for (int i = 0; i < deposits; i++) {
+            transactionService.createTransaction(accountId, new TransactionRequest("DEPOSIT", BigDecimal.ONE));
+        }
+        return accountId;
+    }
+}
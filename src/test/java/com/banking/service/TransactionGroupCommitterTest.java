@@ -0,0 +1,150 @@
+package com.banking.service;
+
+import com.banking.config.TenantContext;
+import com.banking.dto.TransactionRequest;
+import com.banking.entity.Account;
+import com.banking.entity.Transaction;
+import com.banking.repository.AccountRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "banking.transactions.group-commit.enabled=true",
+        "banking.transactions.group-commit.max-batch-size=50",
+        "banking.transactions.group-commit.max-delay=PT0.05S"
+})
+class TransactionGroupCommitterTest {
+
+    private static final String TENANT = "BANK-GROUP";
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private TransactionGroupCommitter groupCommitter;
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void concurrentPostingsShareCommitsAndGetTheirOwnResults() throws Exception {
+        UUID accountId = accountRepository.save(new Account(TENANT, "Group", new BigDecimal("0.00"))).getAccountId();
+        DistributionSummary batchSizes = registry.get("banking.transactions.group-commit.batch-size").summary();
+        long batchesBefore = batchSizes.count();
+        double postingsBefore = batchSizes.totalAmount();
+
+        // 40 deposits of 10 and 60 withdrawals of 10: at least 20 withdrawals must fail
+        int threads = 100;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Transaction>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                String type = i < 40 ? "DEPOSIT" : "WITHDRAWAL";
+                results.add(executor.submit(() -> {
+                    TenantContext.setTenantId(TENANT);
+                    try {
+                        start.await();
+                        return transactionService.createTransaction(accountId,
+                                new TransactionRequest(type, new BigDecimal("10.00")));
+                    } finally {
+                        TenantContext.clear();
+                    }
+                }));
+            }
+            start.countDown();
+
+            int deposits = 0;
+            int withdrawals = 0;
+            int rejected = 0;
+            for (Future<Transaction> result : results) {
+                try {
+                    Transaction transaction = result.get();
+                    assertNotNull(transaction.getTransactionId());
+                    if (transaction.getType().name().equals("DEPOSIT")) {
+                        deposits++;
+                    } else {
+                        withdrawals++;
+                    }
+                } catch (ExecutionException e) {
+                    assertEquals("Insufficient balance", e.getCause().getMessage());
+                    rejected++;
+                }
+            }
+
+            assertEquals(40, deposits);
+            assertEquals(60, withdrawals + rejected);
+            assertTrue(rejected >= 20);
+            BigDecimal expected = new BigDecimal("10.00").multiply(BigDecimal.valueOf(deposits - withdrawals));
+            assertEquals(0, expected.compareTo(accountRepository.findById(accountId).orElseThrow().getBalance()));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 100 postings took fewer than 100 commits
+        long batches = batchSizes.count() - batchesBefore;
+        assertEquals(threads, batchSizes.totalAmount() - postingsBefore);
+        assertTrue(batches < threads, "batches: " + batches);
+    }
+
+    @Test
+    void rejectionsReachTheCaller() {
+        TenantContext.setTenantId(TENANT);
+        UUID foreign = accountRepository.save(new Account("BANK-GROUP-OTHER", "Other", new BigDecimal("5.00")))
+                .getAccountId();
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> transactionService.createTransaction(foreign,
+                new TransactionRequest("DEPOSIT", new BigDecimal("1.00"))));
+        assertEquals("Account not found or access denied", e.getMessage());
+    }
+
+    @Test
+    void postingsOfAStoppedWriterAreRejectedInsteadOfWaiting() {
+        TenantContext.setTenantId(TENANT);
+        UUID accountId = accountRepository.save(new Account(TENANT, "Stopped", new BigDecimal("0.00"))).getAccountId();
+
+        groupCommitter.stop();
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(RejectedExecutionException.class,
+                    () -> transactionService.createTransaction(accountId,
+                            new TransactionRequest("DEPOSIT", new BigDecimal("1.00")))));
+        } finally {
+            groupCommitter.start();
+        }
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountRepository.findById(accountId).orElseThrow().getBalance()));
+    }
+}
@@ -0,0 +1,83 @@
+package com.banking.service;
+
+import com.banking.config.TenantContext;
+import com.banking.dto.BatchTransactionItem;
+import com.banking.dto.BatchTransactionResult;
+import com.banking.entity.Account;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionServiceBatchTest {
+
+    private static final String TENANT = "BANK-BATCH";
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @BeforeEach
+    void setTenant() {
+        TenantContext.setTenantId(TENANT);
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void appliesNetChangePerAccountAndReportsEveryItem() {
+        UUID first = accountRepository.save(new Account(TENANT, "First", new BigDecimal("100.00"))).getAccountId();
+        UUID second = accountRepository.save(new Account(TENANT, "Second", new BigDecimal("10.00"))).getAccountId();
+        UUID foreign = accountRepository.save(new Account("OTHER", "Foreign", new BigDecimal("10.00"))).getAccountId();
+
+        List<BatchTransactionItem> items = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            items.add(new BatchTransactionItem(first, "DEPOSIT", BigDecimal.ONE));
+        }
+        items.add(new BatchTransactionItem(second, "WITHDRAWAL", new BigDecimal("25.00"))); // 120: overdraw
+        items.add(new BatchTransactionItem(second, "DEPOSIT", new BigDecimal("20.00")));    // 121
+        items.add(new BatchTransactionItem(second, "WITHDRAWAL", new BigDecimal("25.00"))); // 122: now covered
+        items.add(new BatchTransactionItem(foreign, "DEPOSIT", BigDecimal.ONE));            // 123: other tenant
+        items.add(new BatchTransactionItem(first, "TRANSFER", BigDecimal.ONE));             // 124: bad type
+
+        List<BatchTransactionResult> results = transactionService.createTransactionsBatch(items);
+
+        assertEquals(items.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+        assertNotNull(results.get(0).getTransactionId());
+        assertEquals("Insufficient balance", results.get(120).getError());
+        assertEquals(BatchTransactionResult.APPLIED, results.get(122).getStatus());
+        assertEquals("Account not found or access denied", results.get(123).getError());
+        assertEquals(BatchTransactionResult.REJECTED, results.get(124).getStatus());
+
+        assertEquals(0, new BigDecimal("220.00").compareTo(accountRepository.findById(first).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("5.00").compareTo(accountRepository.findById(second).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("10.00").compareTo(accountRepository.findById(foreign).orElseThrow().getBalance()));
+        assertEquals(120L, transactionRepository.countByAccountIdAndTenantId(first, TENANT));
+        assertEquals(2L, transactionRepository.countByAccountIdAndTenantId(second, TENANT));
+    }
+}
@@ -0,0 +1,186 @@
+package com.banking.service;
+
+import com.banking.config.TenantContext;
+import com.banking.dto.TransactionRequest;
+import com.banking.entity.Account;
+import com.banking.entity.Transaction;
+import com.banking.entity.TransactionType;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.TransactionRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Fires thousands of parallel deposits and withdrawals at a single account
+ * and checks that no balance update is lost and no overdraft slips through.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+// All threads share one tenant's bulkhead: they queue for its connections
+// instead of failing fast
+@TestPropertySource(properties = "banking.datasource.bulkhead.max-wait=PT30S")
+class TransactionServiceConcurrencyTest {
+
+    private static final String TENANT = "BANK-CONCURRENCY";
+    private static final int THREADS = 32;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void parallelDepositsAndWithdrawalsKeepBalanceConsistent() throws Exception {
+        Account account = accountRepository.save(new Account(TENANT, "Concurrent", new BigDecimal("1000.00")));
+        UUID accountId = account.getAccountId();
+
+        // 2000 deposits of 10 and 2000 withdrawals of 5, interleaved
+        int operations = 4000;
+        AtomicInteger deposits = new AtomicInteger();
+        AtomicInteger withdrawals = new AtomicInteger();
+
+        runInParallel(operations, i -> {
+            if (i % 2 == 0) {
+                transactionService.createTransaction(accountId, new TransactionRequest("DEPOSIT", new BigDecimal("10.00")));
+                deposits.incrementAndGet();
+            } else {
+                transactionService.createTransaction(accountId, new TransactionRequest("WITHDRAWAL", new BigDecimal("5.00")));
+                withdrawals.incrementAndGet();
+            }
+        });
+
+        BigDecimal expected = new BigDecimal("1000.00")
+                .add(new BigDecimal("10.00").multiply(BigDecimal.valueOf(deposits.get())))
+                .subtract(new BigDecimal("5.00").multiply(BigDecimal.valueOf(withdrawals.get())));
+
+        assertEquals(operations, deposits.get() + withdrawals.get());
+        assertEquals(0, expected.compareTo(currentBalance(accountId)));
+        assertEquals(operations, transactionCount(accountId));
+    }
+
+    @Test
+    void parallelWithdrawalsNeverOverdraw() throws Exception {
+        Account account = accountRepository.save(new Account(TENANT, "Overdraw", new BigDecimal("100.00")));
+        UUID accountId = account.getAccountId();
+
+        // 1000 withdrawals of 1 against a balance of 100: exactly 100 may succeed
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runInParallel(1000, i -> {
+            try {
+                transactionService.createTransaction(accountId, new TransactionRequest("WITHDRAWAL", BigDecimal.ONE));
+                succeeded.incrementAndGet();
+            } catch (RuntimeException e) {
+                assertEquals("Insufficient balance", e.getMessage());
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertEquals(100, succeeded.get());
+        assertEquals(900, rejected.get());
+        assertEquals(0, BigDecimal.ZERO.compareTo(currentBalance(accountId)));
+        assertEquals(100, transactionCount(accountId));
+    }
+
+    /**
+     * Compares the conditional UPDATE path with the previous read-modify-write path.
+     * The legacy path is expected to lose updates under contention.
+     */
+    @Test
+    @Tag("benchmark")
+    void throughputAgainstReadModifyWrite() throws Exception {
+        int operations = 20000;
+
+        Account atomic = accountRepository.save(new Account(TENANT, "Atomic", BigDecimal.ZERO));
+        long start = System.nanoTime();
+        runInParallel(operations, i ->
+                transactionService.createTransaction(atomic.getAccountId(), new TransactionRequest("DEPOSIT", BigDecimal.ONE)));
+        long atomicNanos = System.nanoTime() - start;
+
+        Account legacy = accountRepository.save(new Account(TENANT, "Legacy", BigDecimal.ZERO));
+        start = System.nanoTime();
+        runInParallel(operations, i -> legacyDeposit(legacy.getAccountId(), BigDecimal.ONE));
+        long legacyNanos = System.nanoTime() - start;
+
+        System.out.printf("conditional update : %,.0f tx/s, final balance %s%n",
+                operations / (atomicNanos / 1e9), currentBalance(atomic.getAccountId()));
+        System.out.printf("read-modify-write  : %,.0f tx/s, final balance %s (expected %d)%n",
+                operations / (legacyNanos / 1e9), currentBalance(legacy.getAccountId()), operations);
+
+        assertEquals(0, BigDecimal.valueOf(operations).compareTo(currentBalance(atomic.getAccountId())));
+    }
+
+    /**
+     * The read-modify-write implementation that createTransaction used before
+     */
+    private void legacyDeposit(UUID accountId, BigDecimal amount) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Account account = accountRepository.findByAccountIdAndTenantId(accountId, TENANT)
+                    .orElseThrow(() -> new RuntimeException("Account not found or access denied"));
+            account.setBalance(account.getBalance().add(amount));
+            accountRepository.save(account);
+            transactionRepository.save(new Transaction(accountId, TENANT, TransactionType.DEPOSIT, amount));
+        });
+    }
+
+    private BigDecimal currentBalance(UUID accountId) {
+        return accountRepository.findById(accountId).orElseThrow().getBalance();
+    }
+
+    private long transactionCount(UUID accountId) {
+        return transactionRepository.countByAccountIdAndTenantId(accountId, TENANT);
+    }
+
+    private void runInParallel(int operations, Operation operation) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>(operations);
+            for (int i = 0; i < operations; i++) {
+                int index = i;
+                futures.add(pool.submit(() -> {
+                    TenantContext.setTenantId(TENANT);
+                    try {
+                        operation.run(index);
+                    } finally {
+                        TenantContext.clear();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void run(int index);
+    }
+}